@@ -0,0 +1,135 @@
+public class ArenaCharSequence implements CharSequence, Comparable<ArenaCharSequence> {
+    private final StringStore stringStore;
+    private int stringAddr = -1;
+    private int length;
+    private char[] decoded = new char[0];
+    private boolean isDecoded;
+
+    public ArenaCharSequence(StringStore stringStore) {
+        this.stringStore = stringStore;
+    }
+
+    public ArenaCharSequence bind(int stringAddr) {
+        this.length = stringStore.getStringLength(stringAddr);
+        this.stringAddr = stringAddr;
+        this.isDecoded = false;
+        if (stringStore.getCoder(stringAddr) == StringStore.CODER_UTF8) {
+            if (decoded.length < length) {
+                decoded = new char[length];
+            }
+            stringStore.getChars(stringAddr, decoded, 0);
+            isDecoded = true;
+        }
+        return this;
+    }
+
+    public int getStringAddr() {
+        return stringAddr;
+    }
+
+    @Override
+    public int length() {
+        checkBound();
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        checkBound();
+        if (isDecoded) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(
+                    "Index " + index + " out of bounds for string of length " + length
+                );
+            }
+            return decoded[index];
+        }
+        return stringStore.getCharAt(stringAddr, index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        checkBound();
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + start + ", " + end + ") out of bounds for string of length " + length
+            );
+        }
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = charAt(i);
+        }
+        return new String(chars);
+    }
+
+    public boolean contentEquals(CharSequence s) {
+        checkBound();
+        if (s instanceof ArenaCharSequence && ((ArenaCharSequence) s).stringStore == stringStore) {
+            return stringStore.equals(stringAddr, ((ArenaCharSequence) s).stringAddr);
+        }
+        return stringStore.contentEquals(stringAddr, s);
+    }
+
+    public boolean startsWith(CharSequence prefix) {
+        checkBound();
+        if (prefix instanceof ArenaCharSequence && ((ArenaCharSequence) prefix).stringStore == stringStore) {
+            return stringStore.startsWith(stringAddr, ((ArenaCharSequence) prefix).stringAddr);
+        }
+        return stringStore.startsWith(stringAddr, prefix);
+    }
+
+    public int indexOf(char c) {
+        checkBound();
+        return stringStore.indexOf(stringAddr, c);
+    }
+
+    public int indexOf(CharSequence needle) {
+        checkBound();
+        if (needle instanceof ArenaCharSequence && ((ArenaCharSequence) needle).stringStore == stringStore) {
+            return stringStore.indexOf(stringAddr, ((ArenaCharSequence) needle).stringAddr);
+        }
+        return stringStore.indexOf(stringAddr, needle);
+    }
+
+    public int compareTo(CharSequence other) {
+        checkBound();
+        if (other instanceof ArenaCharSequence && ((ArenaCharSequence) other).stringStore == stringStore) {
+            return stringStore.compare(stringAddr, ((ArenaCharSequence) other).stringAddr);
+        }
+        return stringStore.compare(stringAddr, other);
+    }
+
+    @Override
+    public int compareTo(ArenaCharSequence other) {
+        return compareTo((CharSequence) other);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ArenaCharSequence)) {
+            return false;
+        }
+        return contentEquals((ArenaCharSequence) o);
+    }
+
+    @Override
+    public int hashCode() {
+        checkBound();
+        return stringStore.getHash(stringAddr);
+    }
+
+    @Override
+    public String toString() {
+        checkBound();
+        return stringStore.getString(stringAddr);
+    }
+
+    private void checkBound() {
+        if (stringAddr == -1) {
+            throw new IllegalStateException("ArenaCharSequence is not bound to a string");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ArenaImage {
+    public static final int MAGIC = 0x41524E49;
+    public static final int VERSION = 2;
+    private static final byte BIG_ENDIAN_MARK = 1;
+    private static final int FIXED_HEADER_SIZE = 36;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int BYTE_ORDER_OFFSET = 8;
+    private static final int HEADER_SIZE_OFFSET = 12;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int USED_OFFSET = 20;
+    private static final int ALIGNMENT_WASTE_OFFSET = 24;
+    private static final int REGION_COUNT_OFFSET = 28;
+    private static final int ROOT_COUNT_OFFSET = 32;
+
+    private final MemoryArena arena;
+    private final Map<String, Integer> roots = new LinkedHashMap<>();
+
+    public ArenaImage(MemoryArena arena) {
+        if (arena == null) {
+            throw new IllegalArgumentException("Arena cannot be null");
+        }
+        this.arena = arena;
+    }
+
+    public MemoryArena getArena() {
+        return arena;
+    }
+
+    public ArenaImage putRoot(String name, int addr) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Root name cannot be empty");
+        }
+        if (addr != -1) {
+            arena.checkAddr(addr, 1);
+        }
+        roots.put(name, addr);
+        return this;
+    }
+
+    public int getRoot(String name) {
+        Integer addr = roots.get(name);
+        if (addr == null) {
+            throw new IllegalArgumentException("Image has no root named " + name);
+        }
+        return addr;
+    }
+
+    public boolean hasRoot(String name) {
+        return roots.containsKey(name);
+    }
+
+    public Map<String, Integer> getRoots() {
+        return new LinkedHashMap<>(roots);
+    }
+
+    public long write(Path path) throws IOException {
+        return write(path, false);
+    }
+
+    public long write(Path path, boolean sync) throws IOException {
+        ByteBuffer header = encodeHeader();
+        ByteBuffer data = arena.dataView();
+        ByteBuffer[] buffers = {header, data};
+        long total = (long) header.remaining() + data.remaining();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long written = 0;
+            while (written < total) {
+                written += channel.write(buffers);
+            }
+            if (sync) {
+                channel.force(true);
+            }
+        }
+        return total;
+    }
+
+    public static ArenaImage read(Path path) throws IOException {
+        return read(path, 0);
+    }
+
+    public static ArenaImage read(Path path, int minCapacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_SIZE);
+            readFully(channel, fixed);
+            if (fixed.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not an arena image: " + path);
+            }
+            int version = fixed.getInt(VERSION_OFFSET);
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported arena image version " + version + " (expected " + VERSION + ")");
+            }
+            if (fixed.get(BYTE_ORDER_OFFSET) != BIG_ENDIAN_MARK) {
+                throw new IOException("Unsupported byte order in arena image: " + path);
+            }
+            int headerSize = fixed.getInt(HEADER_SIZE_OFFSET);
+            int capacity = fixed.getInt(CAPACITY_OFFSET);
+            int used = fixed.getInt(USED_OFFSET);
+            int alignmentWaste = fixed.getInt(ALIGNMENT_WASTE_OFFSET);
+            int regionCount = fixed.getInt(REGION_COUNT_OFFSET);
+            int rootCount = fixed.getInt(ROOT_COUNT_OFFSET);
+            if (headerSize < FIXED_HEADER_SIZE || used < 0 || used > capacity || regionCount < 0 || rootCount < 0) {
+                throw new IOException("Corrupt arena image header: " + path);
+            }
+            if (channel.size() != (long) headerSize + used) {
+                throw new IOException("Arena image is " + channel.size() + " bytes, header describes "
+                    + ((long) headerSize + used));
+            }
+
+            ByteBuffer tables = ByteBuffer.allocate(headerSize - FIXED_HEADER_SIZE);
+            readFully(channel, tables);
+            tables.flip();
+            int abandonedBytes = tables.getInt();
+            int generation = version >= 2 ? tables.getInt() : 0;
+
+            MemoryArena arena = new MemoryArena(Math.max(capacity, minCapacity));
+            readFully(channel, ByteBuffer.wrap(arena.memory, 0, used));
+            arena.restore(used, alignmentWaste, abandonedBytes, generation);
+
+            for (int i = 0; i < regionCount; i++) {
+                int start = tables.getInt();
+                int end = tables.getInt();
+                arena.createRegion(start, end - start, readName(tables));
+            }
+            ArenaImage image = new ArenaImage(arena);
+            for (int i = 0; i < rootCount; i++) {
+                int addr = tables.getInt();
+                image.roots.put(readName(tables), addr);
+            }
+            return image;
+        }
+    }
+
+    private ByteBuffer encodeHeader() {
+        byte[][] regionNames = new byte[arena.getAllRegions().size()][];
+        byte[][] rootNames = new byte[roots.size()][];
+        int size = FIXED_HEADER_SIZE + 8;
+        int index = 0;
+        for (MemoryRegion region : arena.getAllRegions()) {
+            regionNames[index] = nameBytes(region.getName());
+            size += 10 + regionNames[index++].length;
+        }
+        index = 0;
+        for (String name : roots.keySet()) {
+            rootNames[index] = nameBytes(name);
+            size += 6 + rootNames[index++].length;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.put(BIG_ENDIAN_MARK).put((byte) 0).putShort((short) 0);
+        header.putInt(size);
+        header.putInt(arena.capacity());
+        header.putInt(arena.used());
+        header.putInt(arena.getAlignmentWaste());
+        header.putInt(regionNames.length);
+        header.putInt(rootNames.length);
+        header.putInt(arena.getAbandonedBytes());
+        header.putInt(arena.getGeneration());
+        index = 0;
+        for (MemoryRegion region : arena.getAllRegions()) {
+            header.putInt(region.getStartAddr());
+            header.putInt(region.getEndAddr());
+            header.putShort((short) regionNames[index].length).put(regionNames[index++]);
+        }
+        index = 0;
+        for (Map.Entry<String, Integer> root : roots.entrySet()) {
+            header.putInt(root.getValue());
+            header.putShort((short) rootNames[index].length).put(rootNames[index++]);
+        }
+        header.flip();
+        return header;
+    }
+
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Name too long for arena image: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Arena image truncated");
+            }
+        }
+    }
+
+    public void printImage() {
+        System.out.println("Arena image: " + arena.used() + " of " + arena.capacity() + " bytes used");
+        for (MemoryRegion region : arena.getAllRegions()) {
+            System.out.println("  region " + region);
+        }
+        for (Map.Entry<String, Integer> root : roots.entrySet()) {
+            System.out.println("  root " + root.getKey() + " -> " + root.getValue());
+        }
+    }
+}
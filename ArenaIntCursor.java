@@ -0,0 +1,42 @@
+import java.util.NoSuchElementException;
+
+public class ArenaIntCursor implements IntCursor {
+    private final MemoryArena arena;
+    private int addr;
+    private int end;
+
+    public ArenaIntCursor(MemoryArena arena) {
+        this.arena = arena;
+    }
+
+    public ArenaIntCursor reset(int dataAddr, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cursor count cannot be negative");
+        }
+        if (count > 0) {
+            arena.checkAddr(dataAddr, count * 4);
+        }
+        this.addr = dataAddr;
+        this.end = dataAddr + (count * 4);
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return addr < end;
+    }
+
+    @Override
+    public int next() {
+        if (addr >= end) {
+            throw new NoSuchElementException("Cursor is exhausted");
+        }
+        int value = arena.getIntUnchecked(addr);
+        addr += 4;
+        return value;
+    }
+
+    public int remaining() {
+        return (end - addr) / 4;
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+public class ArenaIntSpliterator implements Spliterator.OfInt {
+    private static final int MIN_SPLIT_SIZE = 1024;
+
+    private final MemoryArena arena;
+    private final int dataAddr;
+    private int index;
+    private final int fence;
+
+    public ArenaIntSpliterator(MemoryArena arena, int dataAddr, int count) {
+        this(arena, dataAddr, 0, count);
+        if (count < 0) {
+            throw new IllegalArgumentException("Spliterator count cannot be negative");
+        }
+        if (count > 0) {
+            arena.checkAddr(dataAddr, count * 4);
+        }
+    }
+
+    private ArenaIntSpliterator(MemoryArena arena, int dataAddr, int index, int fence) {
+        this.arena = arena;
+        this.dataAddr = dataAddr;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public OfInt trySplit() {
+        int mid = (index + fence) >>> 1;
+        if (mid - index < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        ArenaIntSpliterator prefix = new ArenaIntSpliterator(arena, dataAddr, index, mid);
+        index = mid;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (index >= fence) {
+            return false;
+        }
+        action.accept(arena.getIntUnchecked(dataAddr + (index++ * 4)));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        int end = fence;
+        for (int i = index; i < end; i++) {
+            action.accept(arena.getIntUnchecked(dataAddr + (i * 4)));
+        }
+        index = end;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+}
@@ -0,0 +1,42 @@
+import java.util.NoSuchElementException;
+
+public class ArenaLongCursor implements LongCursor {
+    private final MemoryArena arena;
+    private int addr;
+    private int end;
+
+    public ArenaLongCursor(MemoryArena arena) {
+        this.arena = arena;
+    }
+
+    public ArenaLongCursor reset(int dataAddr, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Cursor count cannot be negative");
+        }
+        if (count > 0) {
+            arena.checkAddr(dataAddr, count * 8);
+        }
+        this.addr = dataAddr;
+        this.end = dataAddr + (count * 8);
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return addr < end;
+    }
+
+    @Override
+    public long next() {
+        if (addr >= end) {
+            throw new NoSuchElementException("Cursor is exhausted");
+        }
+        long value = arena.getLongUnchecked(addr);
+        addr += 8;
+        return value;
+    }
+
+    public int remaining() {
+        return (end - addr) / 8;
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ArenaPool {
+    private static final ThreadLocal<MemoryArena> CURRENT = new ThreadLocal<>();
+
+    private final int arenaSize;
+    private final int maxIdle;
+    private final int maxArenas;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<MemoryArena> idle = new ConcurrentLinkedQueue<>();
+    private final Set<MemoryArena> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+    private final LongAdder tasks = new LongAdder();
+
+    public ArenaPool(int arenaSize, int maxIdle) {
+        this(arenaSize, maxIdle, Integer.MAX_VALUE);
+    }
+
+    public ArenaPool(int arenaSize, int maxIdle, int maxArenas) {
+        if (arenaSize <= 0) {
+            throw new IllegalArgumentException("Arena size must be positive: " + arenaSize);
+        }
+        if (maxIdle < 0) {
+            throw new IllegalArgumentException("Max idle arenas cannot be negative: " + maxIdle);
+        }
+        if (maxArenas <= 0) {
+            throw new IllegalArgumentException("Max arenas must be positive: " + maxArenas);
+        }
+        this.arenaSize = arenaSize;
+        this.maxIdle = maxIdle;
+        this.maxArenas = maxArenas;
+        this.permits = new Semaphore(maxArenas);
+    }
+
+    public static MemoryArena current() {
+        MemoryArena arena = CURRENT.get();
+        if (arena == null) {
+            throw new IllegalStateException("No arena is bound to the current task");
+        }
+        return arena;
+    }
+
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    public int getArenaSize() {
+        return arenaSize;
+    }
+
+    public int getMaxArenas() {
+        return maxArenas;
+    }
+
+    public boolean isBounded() {
+        return maxArenas != Integer.MAX_VALUE;
+    }
+
+    public int getOutstandingCount() {
+        return leased.size();
+    }
+
+    public MemoryArena acquire() throws InterruptedException {
+        permits.acquire();
+        return take();
+    }
+
+    public MemoryArena tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        return take();
+    }
+
+    private MemoryArena take() {
+        MemoryArena arena = idle.poll();
+        if (arena != null) {
+            idleCount.decrementAndGet();
+            reused.increment();
+        } else {
+            created.increment();
+            arena = new MemoryArena(arenaSize);
+        }
+        leased.add(arena);
+        return arena;
+    }
+
+    public void release(MemoryArena arena) {
+        if (arena == null || !leased.remove(arena)) {
+            throw new IllegalArgumentException("Arena is not leased from this pool (already released or foreign)");
+        }
+        arena.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(arena);
+        } else {
+            idleCount.decrementAndGet();
+            discarded.increment();
+        }
+        permits.release();
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        MemoryArena arena = acquire();
+        MemoryArena previous = CURRENT.get();
+        CURRENT.set(arena);
+        tasks.increment();
+        try {
+            return task.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            release(arena);
+        }
+    }
+
+    public void run(Runnable task) {
+        try {
+            call(() -> {
+                task.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    public long getReusedCount() {
+        return reused.sum();
+    }
+
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+
+    public long getTaskCount() {
+        return tasks.sum();
+    }
+
+    public void printStats() {
+        System.out.println("Arena pool (" + arenaSize + "-byte arenas, max idle " + maxIdle + ", "
+            + (isBounded() ? "max " + maxArenas + " outstanding" : "unbounded") + "): " + getTaskCount()
+            + " tasks, " + getCreatedCount() + " arenas created, " + getReusedCount() + " reused, "
+            + getDiscardedCount() + " discarded, " + getIdleCount() + " idle");
+    }
+}
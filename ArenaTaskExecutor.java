@@ -0,0 +1,52 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ArenaTaskExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+    private final ArenaPool pool;
+
+    public ArenaTaskExecutor(ExecutorService executor, ArenaPool pool) {
+        if (executor == null || pool == null) {
+            throw new IllegalArgumentException("Executor and pool cannot be null");
+        }
+        this.executor = executor;
+        this.pool = pool;
+    }
+
+    public ArenaPool getPool() {
+        return pool;
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(() -> pool.call(task));
+    }
+
+    public Future<?> submit(Runnable task) {
+        return executor.submit(() -> pool.run(task));
+    }
+
+    public <T> List<Future<T>> submitAll(List<? extends Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(submit(task));
+        }
+        return futures;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,7 +1,12 @@
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 public class ArrayStore {
     private final MemoryArena arena;
     private static final int LENGTH_OFFSET = 0;
-    private static final int DATA_OFFSET = 4;
+    private static final int ELEMENT_SIZE_OFFSET = 4;
+    private static final int DATA_OFFSET = 8;
+    private static final int DEFAULT_RADIX_BITS = 8;
 
     public ArrayStore(MemoryArena arena) {
         this.arena = arena;
@@ -19,6 +24,7 @@ public class ArrayStore {
         int arrayAddr = arena.alloc(totalSize);
         
         arena.putInt(arrayAddr + LENGTH_OFFSET, length);
+        arena.putInt(arrayAddr + ELEMENT_SIZE_OFFSET, elementSize);
         
         return arrayAddr;
     }
@@ -28,41 +34,248 @@ public class ArrayStore {
         return arena.getInt(arrayAddr + LENGTH_OFFSET);
     }
 
-    public int getElementSize(int arrayAddr) {
+    public int getDataAddr(int arrayAddr) {
         checkArrayPtr(arrayAddr);
-        int length = getLength(arrayAddr);
-        int totalSize = arena.used() - arrayAddr;
-        int headerSize = DATA_OFFSET;
-        int dataSize = totalSize - headerSize;
-        
-        if (length == 0) {
-            throw new RuntimeException("Cannot determine element size for empty array");
-        }
-        return dataSize / length;
+        return arrayAddr + DATA_OFFSET;
     }
 
-    public int getInt(int arrayAddr, int index) {
-        checkArrayPtr(arrayAddr);
-        int length = getLength(arrayAddr);
-        if (index < 0 || index >= length) {
-            throw new IndexOutOfBoundsException(
-                "Index " + index + " out of bounds for array of length " + length
+    public int getDataAddr(int arrayAddr, int elementSize) {
+        int actual = getElementSize(arrayAddr);
+        if (actual != elementSize) {
+            throw new IllegalArgumentException(
+                "Array at " + arrayAddr + " has " + actual + "-byte elements, expected " + elementSize
             );
         }
-        int elementAddr = arrayAddr + DATA_OFFSET + (index * 4);
+        return arrayAddr + DATA_OFFSET;
+    }
+
+    public int getElementSize(int arrayAddr) {
+        checkArrayPtr(arrayAddr);
+        return arena.getInt(arrayAddr + ELEMENT_SIZE_OFFSET);
+    }
+
+    public int getInt(int arrayAddr, int index) {
+        int elementAddr = elementAddr(arrayAddr, index, 4);
         return arena.getInt(elementAddr);
     }
 
     public void setInt(int arrayAddr, int index, int value) {
-        checkArrayPtr(arrayAddr);
+        int elementAddr = elementAddr(arrayAddr, index, 4);
+        arena.putInt(elementAddr, value);
+    }
+
+    public long getLong(int arrayAddr, int index) {
+        int elementAddr = elementAddr(arrayAddr, index, 8);
+        return arena.getLong(elementAddr);
+    }
+
+    public void setLong(int arrayAddr, int index, long value) {
+        int elementAddr = elementAddr(arrayAddr, index, 8);
+        arena.putLong(elementAddr, value);
+    }
+
+    public ArenaIntCursor intCursor(int arrayAddr) {
+        return intCursor(arrayAddr, new ArenaIntCursor(arena));
+    }
+
+    public ArenaIntCursor intCursor(int arrayAddr, ArenaIntCursor cursor) {
+        return cursor.reset(getDataAddr(arrayAddr, 4), getLength(arrayAddr));
+    }
+
+    public ArenaLongCursor longCursor(int arrayAddr) {
+        return longCursor(arrayAddr, new ArenaLongCursor(arena));
+    }
+
+    public ArenaLongCursor longCursor(int arrayAddr, ArenaLongCursor cursor) {
+        return cursor.reset(getDataAddr(arrayAddr, 8), getLength(arrayAddr));
+    }
+
+    public ArenaIntSpliterator spliterator(int arrayAddr) {
+        return new ArenaIntSpliterator(arena, getDataAddr(arrayAddr, 4), getLength(arrayAddr));
+    }
+
+    public IntStream intStream(int arrayAddr, boolean parallel) {
+        return StreamSupport.intStream(spliterator(arrayAddr), parallel);
+    }
+
+    public void sortInts(int arrayAddr) {
+        getDataAddr(arrayAddr, 4);
         int length = getLength(arrayAddr);
-        if (index < 0 || index >= length) {
-            throw new IndexOutOfBoundsException(
-                "Index " + index + " out of bounds for array of length " + length
-            );
+        int scratchAddr = createArray(length, 4);
+        sortInts(arrayAddr, scratchAddr, DEFAULT_RADIX_BITS);
+        arena.release(scratchAddr, DATA_OFFSET + (length * 4));
+    }
+
+    public void sortInts(int arrayAddr, int scratchAddr, int radixBits) {
+        checkRadixBits(radixBits);
+        int data = getDataAddr(arrayAddr, 4);
+        int length = getLength(arrayAddr);
+        int dst = checkScratch(scratchAddr, length, 4);
+        if (length < 2) {
+            return;
+        }
+
+        int radix = 1 << radixBits;
+        int mask = radix - 1;
+        int passes = (32 + radixBits - 1) / radixBits;
+        int[][] counts = new int[passes][radix];
+
+        int src = data;
+        for (int i = 0; i < length; i++) {
+            int key = arena.getInt(src + (i * 4)) ^ Integer.MIN_VALUE;
+            for (int p = 0; p < passes; p++) {
+                counts[p][(key >>> (p * radixBits)) & mask]++;
+            }
+        }
+
+        for (int p = 0; p < passes; p++) {
+            int[] count = counts[p];
+            if (isSingleDigit(count, length)) {
+                continue;
+            }
+            int shift = p * radixBits;
+            toStartPositions(count);
+            for (int i = 0; i < length; i++) {
+                int value = arena.getInt(src + (i * 4));
+                int digit = ((value ^ Integer.MIN_VALUE) >>> shift) & mask;
+                arena.putInt(dst + (count[digit]++ * 4), value);
+            }
+            int tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+
+        if (src != data) {
+            arena.copy(src, data, length * 4);
         }
-        int elementAddr = arrayAddr + DATA_OFFSET + (index * 4);
-        arena.putInt(elementAddr, value);
+    }
+
+    public void sortLongs(int arrayAddr) {
+        getDataAddr(arrayAddr, 8);
+        int length = getLength(arrayAddr);
+        int scratchAddr = createArray(length, 8);
+        sortLongs(arrayAddr, scratchAddr, DEFAULT_RADIX_BITS);
+        arena.release(scratchAddr, DATA_OFFSET + (length * 8));
+    }
+
+    public void sortLongs(int arrayAddr, int scratchAddr, int radixBits) {
+        checkRadixBits(radixBits);
+        int data = getDataAddr(arrayAddr, 8);
+        int length = getLength(arrayAddr);
+        int dst = checkScratch(scratchAddr, length, 8);
+        if (length < 2) {
+            return;
+        }
+
+        int radix = 1 << radixBits;
+        int mask = radix - 1;
+        int passes = (64 + radixBits - 1) / radixBits;
+        int[][] counts = new int[passes][radix];
+
+        int src = data;
+        for (int i = 0; i < length; i++) {
+            long key = arena.getLong(src + (i * 8)) ^ Long.MIN_VALUE;
+            for (int p = 0; p < passes; p++) {
+                counts[p][(int) (key >>> (p * radixBits)) & mask]++;
+            }
+        }
+
+        for (int p = 0; p < passes; p++) {
+            int[] count = counts[p];
+            if (isSingleDigit(count, length)) {
+                continue;
+            }
+            int shift = p * radixBits;
+            toStartPositions(count);
+            for (int i = 0; i < length; i++) {
+                long value = arena.getLong(src + (i * 8));
+                int digit = (int) ((value ^ Long.MIN_VALUE) >>> shift) & mask;
+                arena.putLong(dst + (count[digit]++ * 8), value);
+            }
+            int tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+
+        if (src != data) {
+            arena.copy(src, data, length * 8);
+        }
+    }
+
+    public int binarySearchInt(int arrayAddr, int key) {
+        int index = lowerBoundInt(arrayAddr, key);
+        if (index < getLength(arrayAddr) && arena.getInt(getDataAddr(arrayAddr, 4) + (index * 4)) == key) {
+            return index;
+        }
+        return -(index + 1);
+    }
+
+    public int lowerBoundInt(int arrayAddr, int key) {
+        int low = 0;
+        int high = getLength(arrayAddr);
+        int data = getDataAddr(arrayAddr, 4);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getInt(data + (mid * 4)) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int upperBoundInt(int arrayAddr, int key) {
+        int low = 0;
+        int high = getLength(arrayAddr);
+        int data = getDataAddr(arrayAddr, 4);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getInt(data + (mid * 4)) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int binarySearchLong(int arrayAddr, long key) {
+        int index = lowerBoundLong(arrayAddr, key);
+        if (index < getLength(arrayAddr) && arena.getLong(getDataAddr(arrayAddr, 8) + (index * 8)) == key) {
+            return index;
+        }
+        return -(index + 1);
+    }
+
+    public int lowerBoundLong(int arrayAddr, long key) {
+        int low = 0;
+        int high = getLength(arrayAddr);
+        int data = getDataAddr(arrayAddr, 8);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getLong(data + (mid * 8)) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int upperBoundLong(int arrayAddr, long key) {
+        int low = 0;
+        int high = getLength(arrayAddr);
+        int data = getDataAddr(arrayAddr, 8);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getLong(data + (mid * 8)) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
     }
 
     public void printArray(int arrayAddr) {
@@ -86,5 +299,52 @@ public class ArrayStore {
             throw new InvalidPointerException(ptr, DATA_OFFSET, arena.used(), arena.capacity());
         }
     }
-}
 
+    private void checkRadixBits(int radixBits) {
+        if (radixBits != 8 && radixBits != 11) {
+            throw new IllegalArgumentException("Radix bits must be 8 or 11, got " + radixBits);
+        }
+    }
+
+    private int checkScratch(int scratchAddr, int length, int elementSize) {
+        int data = getDataAddr(scratchAddr, elementSize);
+        if (getLength(scratchAddr) < length) {
+            throw new IllegalArgumentException(
+                "Scratch array of length " + getLength(scratchAddr) + " is too small for " + length + " elements"
+            );
+        }
+        return data;
+    }
+
+    private int elementAddr(int arrayAddr, int index, int elementSize) {
+        int data = getDataAddr(arrayAddr, elementSize);
+        int length = getLength(arrayAddr);
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(
+                "Index " + index + " out of bounds for array of length " + length
+            );
+        }
+        return data + (index * elementSize);
+    }
+
+    private static boolean isSingleDigit(int[] count, int length) {
+        for (int c : count) {
+            if (c == length) {
+                return true;
+            }
+            if (c != 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void toStartPositions(int[] count) {
+        int sum = 0;
+        for (int d = 0; d < count.length; d++) {
+            int c = count[d];
+            count[d] = sum;
+            sum += c;
+        }
+    }
+}
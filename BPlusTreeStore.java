@@ -0,0 +1,630 @@
+public class BPlusTreeStore {
+    public interface RangeVisitor {
+        void accept(long key, int value);
+    }
+
+    private final MemoryArena arena;
+    private final ArrayStore arrayStore;
+    private static final int ROOT_OFFSET = 0;
+    private static final int HEIGHT_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int FIRST_LEAF_OFFSET = 12;
+    private static final int NODE_SIZE_OFFSET = 16;
+    private static final int NODE_COUNT_OFFSET = 20;
+    private static final int LEAF_CAPACITY_OFFSET = 24;
+    private static final int INNER_CAPACITY_OFFSET = 28;
+    private static final int FREE_NODE_OFFSET = 32;
+    private static final int FREE_COUNT_OFFSET = 36;
+    private static final int TREE_HEADER_SIZE = 40;
+    private static final int NODE_TYPE_OFFSET = 0;
+    private static final int NODE_KEY_COUNT_OFFSET = 4;
+    private static final int NODE_NEXT_OFFSET = 8;
+    private static final int NODE_HEADER_SIZE = 16;
+    private static final int KEYS_OFFSET = NODE_HEADER_SIZE;
+    private static final int TYPE_LEAF = 1;
+    private static final int TYPE_INNER = 2;
+    private static final int NODE_ALIGNMENT = 64;
+    private static final int MIN_NODE_SIZE = 256;
+    private static final int MAX_NODE_SIZE = 1 << 16;
+    public static final int DEFAULT_NODE_SIZE = 4096;
+
+    private int[] pathScratch = new int[8];
+    private int[] slotScratch = new int[8];
+    private long[] keyScratch = new long[0];
+    private int[] intScratch = new int[0];
+
+    public BPlusTreeStore(MemoryArena arena) {
+        this.arena = arena;
+        this.arrayStore = new ArrayStore(arena);
+    }
+
+    public int createTree() {
+        return createTree(DEFAULT_NODE_SIZE);
+    }
+
+    public int createTree(int nodeSize) {
+        if (nodeSize < MIN_NODE_SIZE || nodeSize > MAX_NODE_SIZE || (nodeSize & (nodeSize - 1)) != 0) {
+            throw new IllegalArgumentException("Node size must be a power of two in [" + MIN_NODE_SIZE + ", "
+                + MAX_NODE_SIZE + "]: " + nodeSize);
+        }
+        int treeAddr = arena.alloc(TREE_HEADER_SIZE);
+        arena.putInt(treeAddr + NODE_SIZE_OFFSET, nodeSize);
+        arena.putInt(treeAddr + LEAF_CAPACITY_OFFSET, (nodeSize - NODE_HEADER_SIZE) / 12);
+        arena.putInt(treeAddr + INNER_CAPACITY_OFFSET, (nodeSize - NODE_HEADER_SIZE - 4) / 12);
+        arena.putInt(treeAddr + NODE_COUNT_OFFSET, 0);
+        arena.putInt(treeAddr + FREE_NODE_OFFSET, -1);
+        arena.putInt(treeAddr + FREE_COUNT_OFFSET, 0);
+        int root = allocNode(treeAddr, TYPE_LEAF);
+        arena.putInt(treeAddr + ROOT_OFFSET, root);
+        arena.putInt(treeAddr + HEIGHT_OFFSET, 1);
+        arena.putInt(treeAddr + SIZE_OFFSET, 0);
+        arena.putInt(treeAddr + FIRST_LEAF_OFFSET, root);
+        return treeAddr;
+    }
+
+    public int size(int treeAddr) {
+        checkTreePtr(treeAddr);
+        return arena.getInt(treeAddr + SIZE_OFFSET);
+    }
+
+    public int getHeight(int treeAddr) {
+        checkTreePtr(treeAddr);
+        return arena.getInt(treeAddr + HEIGHT_OFFSET);
+    }
+
+    public int getNodeCount(int treeAddr) {
+        checkTreePtr(treeAddr);
+        return arena.getInt(treeAddr + NODE_COUNT_OFFSET);
+    }
+
+    public int getFreeNodeCount(int treeAddr) {
+        checkTreePtr(treeAddr);
+        return arena.getInt(treeAddr + FREE_COUNT_OFFSET);
+    }
+
+    public long getMemoryUsage(int treeAddr) {
+        checkTreePtr(treeAddr);
+        long nodes = arena.getInt(treeAddr + NODE_COUNT_OFFSET) + arena.getInt(treeAddr + FREE_COUNT_OFFSET);
+        return TREE_HEADER_SIZE + nodes * arena.getInt(treeAddr + NODE_SIZE_OFFSET);
+    }
+
+    public Integer get(int treeAddr, long key) {
+        checkTreePtr(treeAddr);
+        int leaf = findLeaf(treeAddr, key);
+        int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+        int pos = lowerBound(leaf, count, key);
+        if (pos < count && arena.getLong(leaf + KEYS_OFFSET + pos * 8) == key) {
+            return arena.getInt(leafValues(treeAddr, leaf) + pos * 4);
+        }
+        return null;
+    }
+
+    public int getOrDefault(int treeAddr, long key, int defaultValue) {
+        Integer value = get(treeAddr, key);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean contains(int treeAddr, long key) {
+        return get(treeAddr, key) != null;
+    }
+
+    public void put(int treeAddr, long key, int value) {
+        checkTreePtr(treeAddr);
+        int height = arena.getInt(treeAddr + HEIGHT_OFFSET);
+        int node = descend(treeAddr, key);
+        int count = arena.getInt(node + NODE_KEY_COUNT_OFFSET);
+        int pos = lowerBound(node, count, key);
+        int values = leafValues(treeAddr, node);
+        if (pos < count && arena.getLong(node + KEYS_OFFSET + pos * 8) == key) {
+            arena.putInt(values + pos * 4, value);
+            return;
+        }
+        arena.putInt(treeAddr + SIZE_OFFSET, arena.getInt(treeAddr + SIZE_OFFSET) + 1);
+        int leafCapacity = arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET);
+        if (count < leafCapacity) {
+            insertLeafEntry(node, values, count, pos, key, value);
+            return;
+        }
+
+        ensureSplitScratch(leafCapacity);
+        long[] keys = keyScratch;
+        int[] vals = intScratch;
+        for (int i = 0, j = 0; i <= count; i++) {
+            if (i == pos) {
+                keys[i] = key;
+                vals[i] = value;
+            } else {
+                keys[i] = arena.getLong(node + KEYS_OFFSET + j * 8);
+                vals[i] = arena.getInt(values + j * 4);
+                j++;
+            }
+        }
+        int right = allocNode(treeAddr, TYPE_LEAF);
+        int rightValues = leafValues(treeAddr, right);
+        int mid = (count + 1) / 2;
+        writeLeaf(node, values, keys, vals, 0, mid);
+        writeLeaf(right, rightValues, keys, vals, mid, count + 1);
+        arena.putInt(right + NODE_NEXT_OFFSET, arena.getInt(node + NODE_NEXT_OFFSET));
+        arena.putInt(node + NODE_NEXT_OFFSET, right);
+        insertIntoParent(treeAddr, height - 2, node, keys[mid], right);
+    }
+
+    public boolean remove(int treeAddr, long key) {
+        checkTreePtr(treeAddr);
+        int height = arena.getInt(treeAddr + HEIGHT_OFFSET);
+        int leaf = descend(treeAddr, key);
+        int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+        int pos = lowerBound(leaf, count, key);
+        if (pos >= count || arena.getLong(leaf + KEYS_OFFSET + pos * 8) != key) {
+            return false;
+        }
+        int values = leafValues(treeAddr, leaf);
+        int tail = count - pos - 1;
+        if (tail > 0) {
+            arena.copy(leaf + KEYS_OFFSET + (pos + 1) * 8, leaf + KEYS_OFFSET + pos * 8, tail * 8);
+            arena.copy(values + (pos + 1) * 4, values + pos * 4, tail * 4);
+        }
+        arena.putInt(leaf + NODE_KEY_COUNT_OFFSET, count - 1);
+        arena.putInt(treeAddr + SIZE_OFFSET, arena.getInt(treeAddr + SIZE_OFFSET) - 1);
+        if (height > 1 && count - 1 < arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET) / 4) {
+            rebalanceLeaf(treeAddr, height - 2, leaf);
+        }
+        return true;
+    }
+
+    public int scan(int treeAddr, long fromKey, long toKey, RangeVisitor visitor) {
+        return scan(treeAddr, fromKey, toKey, false, visitor);
+    }
+
+    public int scan(int treeAddr, long fromKey, long toKey, boolean toInclusive, RangeVisitor visitor) {
+        checkTreePtr(treeAddr);
+        if (toInclusive ? fromKey > toKey : fromKey >= toKey) {
+            return 0;
+        }
+        int leaf = findLeaf(treeAddr, fromKey);
+        int pos = lowerBound(leaf, arena.getInt(leaf + NODE_KEY_COUNT_OFFSET), fromKey);
+        int visited = 0;
+        while (leaf != -1) {
+            int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+            int values = leafValues(treeAddr, leaf);
+            for (; pos < count; pos++) {
+                long key = arena.getLong(leaf + KEYS_OFFSET + pos * 8);
+                if (toInclusive ? key > toKey : key >= toKey) {
+                    return visited;
+                }
+                visitor.accept(key, arena.getInt(values + pos * 4));
+                visited++;
+            }
+            leaf = arena.getInt(leaf + NODE_NEXT_OFFSET);
+            pos = 0;
+        }
+        return visited;
+    }
+
+    public void forEach(int treeAddr, RangeVisitor visitor) {
+        checkTreePtr(treeAddr);
+        for (int leaf = arena.getInt(treeAddr + FIRST_LEAF_OFFSET); leaf != -1; leaf = arena.getInt(leaf + NODE_NEXT_OFFSET)) {
+            int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+            int values = leafValues(treeAddr, leaf);
+            for (int pos = 0; pos < count; pos++) {
+                visitor.accept(arena.getLong(leaf + KEYS_OFFSET + pos * 8), arena.getInt(values + pos * 4));
+            }
+        }
+    }
+
+    public int bulkLoad(int keyArrayAddr, int valueArrayAddr) {
+        return bulkLoad(keyArrayAddr, valueArrayAddr, 100, DEFAULT_NODE_SIZE);
+    }
+
+    public int bulkLoad(int keyArrayAddr, int valueArrayAddr, int fillPercent, int nodeSize) {
+        if (fillPercent < 10 || fillPercent > 100) {
+            throw new IllegalArgumentException("Fill percent must be in [10, 100]: " + fillPercent);
+        }
+        int n = arrayStore.getLength(keyArrayAddr);
+        if (valueArrayAddr != -1 && arrayStore.getLength(valueArrayAddr) != n) {
+            throw new IllegalArgumentException("Key and value arrays differ in length: "
+                + n + " != " + arrayStore.getLength(valueArrayAddr));
+        }
+        int keyData = arrayStore.getDataAddr(keyArrayAddr, 8);
+        int valueData = valueArrayAddr == -1 ? -1 : arrayStore.getDataAddr(valueArrayAddr, 4);
+        if (n > 0) {
+            arena.checkAddr(keyData, n * 8);
+            if (valueData != -1) {
+                arena.checkAddr(valueData, n * 4);
+            }
+        }
+        for (int i = 1; i < n; i++) {
+            if (arena.getLong(keyData + i * 8) <= arena.getLong(keyData + (i - 1) * 8)) {
+                throw new IllegalArgumentException("Keys must be strictly ascending; index " + i + " is out of order");
+            }
+        }
+
+        int treeAddr = createTree(nodeSize);
+        if (n == 0) {
+            return treeAddr;
+        }
+        int leafCapacity = arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET);
+        int innerCapacity = arena.getInt(treeAddr + INNER_CAPACITY_OFFSET);
+        int perLeaf = Math.max(1, leafCapacity * fillPercent / 100);
+        int leafCount = (n + perLeaf - 1) / perLeaf;
+
+        int[] level = new int[leafCount];
+        long[] firstKeys = new long[leafCount];
+        int previous = -1;
+        for (int i = 0; i < leafCount; i++) {
+            int start = (int) ((long) n * i / leafCount);
+            int end = (int) ((long) n * (i + 1) / leafCount);
+            int leaf = i == 0 ? arena.getInt(treeAddr + ROOT_OFFSET) : allocNode(treeAddr, TYPE_LEAF);
+            int values = leafValues(treeAddr, leaf);
+            arena.copy(keyData + start * 8, leaf + KEYS_OFFSET, (end - start) * 8);
+            if (valueData != -1) {
+                arena.copy(valueData + start * 4, values, (end - start) * 4);
+            } else {
+                for (int j = start; j < end; j++) {
+                    arena.putInt(values + (j - start) * 4, j);
+                }
+            }
+            arena.putInt(leaf + NODE_KEY_COUNT_OFFSET, end - start);
+            if (previous != -1) {
+                arena.putInt(previous + NODE_NEXT_OFFSET, leaf);
+            }
+            previous = leaf;
+            level[i] = leaf;
+            firstKeys[i] = arena.getLong(keyData + start * 8);
+        }
+
+        int height = 1;
+        int perInner = Math.max(4, (innerCapacity + 1) * fillPercent / 100);
+        while (level.length > 1) {
+            int groups = (level.length + perInner - 1) / perInner;
+            int[] parents = new int[groups];
+            long[] parentKeys = new long[groups];
+            for (int g = 0; g < groups; g++) {
+                int start = (int) ((long) level.length * g / groups);
+                int end = (int) ((long) level.length * (g + 1) / groups);
+                int inner = allocNode(treeAddr, TYPE_INNER);
+                int children = innerChildren(treeAddr, inner);
+                for (int c = start; c < end; c++) {
+                    arena.putInt(children + (c - start) * 4, level[c]);
+                    if (c > start) {
+                        arena.putLong(inner + KEYS_OFFSET + (c - start - 1) * 8, firstKeys[c]);
+                    }
+                }
+                arena.putInt(inner + NODE_KEY_COUNT_OFFSET, end - start - 1);
+                parents[g] = inner;
+                parentKeys[g] = firstKeys[start];
+            }
+            level = parents;
+            firstKeys = parentKeys;
+            height++;
+        }
+        arena.putInt(treeAddr + ROOT_OFFSET, level[0]);
+        arena.putInt(treeAddr + HEIGHT_OFFSET, height);
+        arena.putInt(treeAddr + SIZE_OFFSET, n);
+        return treeAddr;
+    }
+
+    private void insertIntoParent(int treeAddr, int depth, int left, long key, int right) {
+        if (depth < 0) {
+            int root = allocNode(treeAddr, TYPE_INNER);
+            int children = innerChildren(treeAddr, root);
+            arena.putLong(root + KEYS_OFFSET, key);
+            arena.putInt(children, left);
+            arena.putInt(children + 4, right);
+            arena.putInt(root + NODE_KEY_COUNT_OFFSET, 1);
+            arena.putInt(treeAddr + ROOT_OFFSET, root);
+            arena.putInt(treeAddr + HEIGHT_OFFSET, arena.getInt(treeAddr + HEIGHT_OFFSET) + 1);
+            return;
+        }
+        int node = pathScratch[depth];
+        int slot = slotScratch[depth];
+        int count = arena.getInt(node + NODE_KEY_COUNT_OFFSET);
+        int children = innerChildren(treeAddr, node);
+        if (count < arena.getInt(treeAddr + INNER_CAPACITY_OFFSET)) {
+            int tail = count - slot;
+            if (tail > 0) {
+                arena.copy(node + KEYS_OFFSET + slot * 8, node + KEYS_OFFSET + (slot + 1) * 8, tail * 8);
+                arena.copy(children + (slot + 1) * 4, children + (slot + 2) * 4, tail * 4);
+            }
+            arena.putLong(node + KEYS_OFFSET + slot * 8, key);
+            arena.putInt(children + (slot + 1) * 4, right);
+            arena.putInt(node + NODE_KEY_COUNT_OFFSET, count + 1);
+            return;
+        }
+
+        long[] keys = keyScratch;
+        int[] kids = intScratch;
+        for (int i = 0, j = 0; i <= count; i++) {
+            keys[i] = i == slot ? key : arena.getLong(node + KEYS_OFFSET + j++ * 8);
+        }
+        for (int i = 0, j = 0; i <= count + 1; i++) {
+            kids[i] = i == slot + 1 ? right : arena.getInt(children + j++ * 4);
+        }
+        int mid = (count + 1) / 2;
+        int sibling = allocNode(treeAddr, TYPE_INNER);
+        writeInner(node, children, keys, kids, 0, mid);
+        writeInner(sibling, innerChildren(treeAddr, sibling), keys, kids, mid + 1, count + 1);
+        insertIntoParent(treeAddr, depth - 1, node, keys[mid], sibling);
+    }
+
+    private void rebalanceLeaf(int treeAddr, int depth, int leaf) {
+        int parent = pathScratch[depth];
+        int slot = slotScratch[depth];
+        int parentCount = arena.getInt(parent + NODE_KEY_COUNT_OFFSET);
+        int children = innerChildren(treeAddr, parent);
+        int leafCapacity = arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET);
+        int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+        if (slot < parentCount) {
+            int right = arena.getInt(children + (slot + 1) * 4);
+            if (count + arena.getInt(right + NODE_KEY_COUNT_OFFSET) <= leafCapacity) {
+                appendLeaf(treeAddr, leaf, right);
+                removeChild(treeAddr, depth, slot + 1);
+                return;
+            }
+        }
+        if (slot > 0) {
+            int left = arena.getInt(children + (slot - 1) * 4);
+            if (arena.getInt(left + NODE_KEY_COUNT_OFFSET) + count <= leafCapacity) {
+                appendLeaf(treeAddr, left, leaf);
+                removeChild(treeAddr, depth, slot);
+                return;
+            }
+        }
+        if (count == 0) {
+            int previous = previousLeaf(treeAddr, depth);
+            int next = arena.getInt(leaf + NODE_NEXT_OFFSET);
+            if (previous == -1) {
+                arena.putInt(treeAddr + FIRST_LEAF_OFFSET, next);
+            } else {
+                arena.putInt(previous + NODE_NEXT_OFFSET, next);
+            }
+            freeNode(treeAddr, leaf);
+            removeChild(treeAddr, depth, slot);
+        }
+    }
+
+    private void appendLeaf(int treeAddr, int leaf, int source) {
+        int count = arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+        int moved = arena.getInt(source + NODE_KEY_COUNT_OFFSET);
+        if (moved > 0) {
+            arena.copy(source + KEYS_OFFSET, leaf + KEYS_OFFSET + count * 8, moved * 8);
+            arena.copy(leafValues(treeAddr, source), leafValues(treeAddr, leaf) + count * 4, moved * 4);
+        }
+        arena.putInt(leaf + NODE_KEY_COUNT_OFFSET, count + moved);
+        arena.putInt(leaf + NODE_NEXT_OFFSET, arena.getInt(source + NODE_NEXT_OFFSET));
+        freeNode(treeAddr, source);
+    }
+
+    private void removeChild(int treeAddr, int depth, int slot) {
+        int node = pathScratch[depth];
+        int count = arena.getInt(node + NODE_KEY_COUNT_OFFSET);
+        if (count == 0 && depth > 0) {
+            freeNode(treeAddr, node);
+            removeChild(treeAddr, depth - 1, slotScratch[depth - 1]);
+            return;
+        }
+        int children = innerChildren(treeAddr, node);
+        int keyIndex = slot == 0 ? 0 : slot - 1;
+        int keyTail = count - keyIndex - 1;
+        if (keyTail > 0) {
+            arena.copy(node + KEYS_OFFSET + (keyIndex + 1) * 8, node + KEYS_OFFSET + keyIndex * 8, keyTail * 8);
+        }
+        int childTail = count - slot;
+        if (childTail > 0) {
+            arena.copy(children + (slot + 1) * 4, children + slot * 4, childTail * 4);
+        }
+        arena.putInt(node + NODE_KEY_COUNT_OFFSET, count - 1);
+        if (depth == 0) {
+            collapseRoot(treeAddr);
+        } else if (count - 1 < arena.getInt(treeAddr + INNER_CAPACITY_OFFSET) / 4) {
+            rebalanceInner(treeAddr, depth);
+        }
+    }
+
+    private void rebalanceInner(int treeAddr, int depth) {
+        int node = pathScratch[depth];
+        int parent = pathScratch[depth - 1];
+        int slot = slotScratch[depth - 1];
+        int parentCount = arena.getInt(parent + NODE_KEY_COUNT_OFFSET);
+        int children = innerChildren(treeAddr, parent);
+        int innerCapacity = arena.getInt(treeAddr + INNER_CAPACITY_OFFSET);
+        int count = arena.getInt(node + NODE_KEY_COUNT_OFFSET);
+        if (slot < parentCount) {
+            int right = arena.getInt(children + (slot + 1) * 4);
+            if (count + 1 + arena.getInt(right + NODE_KEY_COUNT_OFFSET) <= innerCapacity) {
+                appendInner(treeAddr, node, arena.getLong(parent + KEYS_OFFSET + slot * 8), right);
+                removeChild(treeAddr, depth - 1, slot + 1);
+                return;
+            }
+        }
+        if (slot > 0) {
+            int left = arena.getInt(children + (slot - 1) * 4);
+            if (arena.getInt(left + NODE_KEY_COUNT_OFFSET) + 1 + count <= innerCapacity) {
+                appendInner(treeAddr, left, arena.getLong(parent + KEYS_OFFSET + (slot - 1) * 8), node);
+                removeChild(treeAddr, depth - 1, slot);
+            }
+        }
+    }
+
+    private void appendInner(int treeAddr, int node, long separator, int source) {
+        int count = arena.getInt(node + NODE_KEY_COUNT_OFFSET);
+        int moved = arena.getInt(source + NODE_KEY_COUNT_OFFSET);
+        arena.putLong(node + KEYS_OFFSET + count * 8, separator);
+        if (moved > 0) {
+            arena.copy(source + KEYS_OFFSET, node + KEYS_OFFSET + (count + 1) * 8, moved * 8);
+        }
+        arena.copy(innerChildren(treeAddr, source), innerChildren(treeAddr, node) + (count + 1) * 4, (moved + 1) * 4);
+        arena.putInt(node + NODE_KEY_COUNT_OFFSET, count + 1 + moved);
+        freeNode(treeAddr, source);
+    }
+
+    private void collapseRoot(int treeAddr) {
+        int root = arena.getInt(treeAddr + ROOT_OFFSET);
+        int height = arena.getInt(treeAddr + HEIGHT_OFFSET);
+        while (height > 1 && arena.getInt(root + NODE_KEY_COUNT_OFFSET) == 0) {
+            int child = arena.getInt(innerChildren(treeAddr, root));
+            freeNode(treeAddr, root);
+            root = child;
+            height--;
+        }
+        arena.putInt(treeAddr + ROOT_OFFSET, root);
+        arena.putInt(treeAddr + HEIGHT_OFFSET, height);
+    }
+
+    private int previousLeaf(int treeAddr, int depth) {
+        int height = arena.getInt(treeAddr + HEIGHT_OFFSET);
+        for (int level = depth; level >= 0; level--) {
+            int slot = slotScratch[level];
+            if (slot > 0) {
+                int node = arena.getInt(innerChildren(treeAddr, pathScratch[level]) + (slot - 1) * 4);
+                for (int below = level + 1; below < height - 1; below++) {
+                    node = arena.getInt(innerChildren(treeAddr, node) + arena.getInt(node + NODE_KEY_COUNT_OFFSET) * 4);
+                }
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    private void insertLeafEntry(int leaf, int values, int count, int pos, long key, int value) {
+        int tail = count - pos;
+        if (tail > 0) {
+            arena.copy(leaf + KEYS_OFFSET + pos * 8, leaf + KEYS_OFFSET + (pos + 1) * 8, tail * 8);
+            arena.copy(values + pos * 4, values + (pos + 1) * 4, tail * 4);
+        }
+        arena.putLong(leaf + KEYS_OFFSET + pos * 8, key);
+        arena.putInt(values + pos * 4, value);
+        arena.putInt(leaf + NODE_KEY_COUNT_OFFSET, count + 1);
+    }
+
+    private void writeLeaf(int leaf, int values, long[] keys, int[] vals, int from, int to) {
+        for (int i = from; i < to; i++) {
+            arena.putLong(leaf + KEYS_OFFSET + (i - from) * 8, keys[i]);
+            arena.putInt(values + (i - from) * 4, vals[i]);
+        }
+        arena.putInt(leaf + NODE_KEY_COUNT_OFFSET, to - from);
+    }
+
+    private void writeInner(int node, int children, long[] keys, int[] kids, int from, int to) {
+        for (int i = from; i < to; i++) {
+            arena.putLong(node + KEYS_OFFSET + (i - from) * 8, keys[i]);
+        }
+        for (int i = from; i <= to; i++) {
+            arena.putInt(children + (i - from) * 4, kids[i]);
+        }
+        arena.putInt(node + NODE_KEY_COUNT_OFFSET, to - from);
+    }
+
+    private int descend(int treeAddr, long key) {
+        int height = arena.getInt(treeAddr + HEIGHT_OFFSET);
+        if (pathScratch.length < height) {
+            pathScratch = new int[height * 2];
+            slotScratch = new int[height * 2];
+        }
+        int node = arena.getInt(treeAddr + ROOT_OFFSET);
+        for (int level = 0; level < height - 1; level++) {
+            int slot = upperBound(node, arena.getInt(node + NODE_KEY_COUNT_OFFSET), key);
+            pathScratch[level] = node;
+            slotScratch[level] = slot;
+            node = arena.getInt(innerChildren(treeAddr, node) + slot * 4);
+        }
+        return node;
+    }
+
+    private void ensureSplitScratch(int leafCapacity) {
+        if (keyScratch.length <= leafCapacity) {
+            keyScratch = new long[leafCapacity + 1];
+            intScratch = new int[leafCapacity + 2];
+        }
+    }
+
+    private int findLeaf(int treeAddr, long key) {
+        int node = arena.getInt(treeAddr + ROOT_OFFSET);
+        for (int level = arena.getInt(treeAddr + HEIGHT_OFFSET); level > 1; level--) {
+            int slot = upperBound(node, arena.getInt(node + NODE_KEY_COUNT_OFFSET), key);
+            node = arena.getInt(innerChildren(treeAddr, node) + slot * 4);
+        }
+        return node;
+    }
+
+    private int lowerBound(int node, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getLong(node + KEYS_OFFSET + mid * 8) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(int node, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arena.getLong(node + KEYS_OFFSET + mid * 8) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int leafValues(int treeAddr, int leaf) {
+        return leaf + KEYS_OFFSET + arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET) * 8;
+    }
+
+    private int innerChildren(int treeAddr, int node) {
+        return node + KEYS_OFFSET + arena.getInt(treeAddr + INNER_CAPACITY_OFFSET) * 8;
+    }
+
+    private int allocNode(int treeAddr, int type) {
+        int node = arena.getInt(treeAddr + FREE_NODE_OFFSET);
+        if (node != -1) {
+            arena.putInt(treeAddr + FREE_NODE_OFFSET, arena.getInt(node + NODE_NEXT_OFFSET));
+            arena.putInt(treeAddr + FREE_COUNT_OFFSET, arena.getInt(treeAddr + FREE_COUNT_OFFSET) - 1);
+        } else {
+            node = arena.allocAligned(arena.getInt(treeAddr + NODE_SIZE_OFFSET), NODE_ALIGNMENT);
+        }
+        arena.putInt(node + NODE_TYPE_OFFSET, type);
+        arena.putInt(node + NODE_KEY_COUNT_OFFSET, 0);
+        arena.putInt(node + NODE_NEXT_OFFSET, -1);
+        arena.putInt(treeAddr + NODE_COUNT_OFFSET, arena.getInt(treeAddr + NODE_COUNT_OFFSET) + 1);
+        return node;
+    }
+
+    private void freeNode(int treeAddr, int node) {
+        arena.putInt(node + NODE_TYPE_OFFSET, 0);
+        arena.putInt(node + NODE_KEY_COUNT_OFFSET, 0);
+        arena.putInt(node + NODE_NEXT_OFFSET, arena.getInt(treeAddr + FREE_NODE_OFFSET));
+        arena.putInt(treeAddr + FREE_NODE_OFFSET, node);
+        arena.putInt(treeAddr + NODE_COUNT_OFFSET, arena.getInt(treeAddr + NODE_COUNT_OFFSET) - 1);
+        arena.putInt(treeAddr + FREE_COUNT_OFFSET, arena.getInt(treeAddr + FREE_COUNT_OFFSET) + 1);
+    }
+
+    public void printStats(int treeAddr) {
+        checkTreePtr(treeAddr);
+        int leaves = 0;
+        long leafEntries = 0;
+        for (int leaf = arena.getInt(treeAddr + FIRST_LEAF_OFFSET); leaf != -1; leaf = arena.getInt(leaf + NODE_NEXT_OFFSET)) {
+            leaves++;
+            leafEntries += arena.getInt(leaf + NODE_KEY_COUNT_OFFSET);
+        }
+        int leafCapacity = arena.getInt(treeAddr + LEAF_CAPACITY_OFFSET);
+        System.out.println("B+tree: " + size(treeAddr) + " keys, height " + getHeight(treeAddr) + ", "
+            + getNodeCount(treeAddr) + " nodes of " + arena.getInt(treeAddr + NODE_SIZE_OFFSET) + " bytes ("
+            + leaves + " leaves, " + String.format("%.1f", leaves == 0 ? 0.0 : 100.0 * leafEntries / ((long) leaves * leafCapacity))
+            + "% leaf fill, " + getFreeNodeCount(treeAddr) + " free), " + getMemoryUsage(treeAddr) + " bytes");
+    }
+
+    private void checkTreePtr(int ptr) {
+        if (ptr < 0 || ptr + TREE_HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, TREE_HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
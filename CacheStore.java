@@ -0,0 +1,285 @@
+import java.util.function.LongSupplier;
+
+public class CacheStore {
+    private final MemoryArena arena;
+    private final LongSupplier clock;
+
+    private static final int CAPACITY_OFFSET = 0;
+    private static final int INDEX_SIZE_OFFSET = 4;
+    private static final int ENTRIES_OFFSET = 8;
+    private static final int INDEX_OFFSET = 12;
+    private static final int HAND_OFFSET = 16;
+    private static final int FILL_OFFSET = 20;
+    private static final int SIZE_OFFSET = 24;
+    private static final int TTL_OFFSET = 28;
+    private static final int HITS_OFFSET = 36;
+    private static final int MISSES_OFFSET = 44;
+    private static final int EVICTIONS_OFFSET = 52;
+    private static final int EXPIRATIONS_OFFSET = 60;
+    private static final int HEADER_SIZE = 68;
+
+    private static final int ENTRY_KEY_OFFSET = 0;
+    private static final int ENTRY_VALUE_OFFSET = 4;
+    private static final int ENTRY_EXPIRES_OFFSET = 8;
+    private static final int ENTRY_FLAGS_OFFSET = 16;
+    private static final int ENTRY_SIZE = 17;
+
+    private static final byte FLAG_OCCUPIED = 1;
+    private static final byte FLAG_REFERENCED = 2;
+
+    public CacheStore(MemoryArena arena) {
+        this(arena, System::currentTimeMillis);
+    }
+
+    public CacheStore(MemoryArena arena, LongSupplier clock) {
+        this.arena = arena;
+        this.clock = clock;
+    }
+
+    public int createCache(int byteBudget) {
+        return createCache(byteBudget, 0L);
+    }
+
+    public int createCache(int byteBudget, long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("TTL cannot be negative: " + ttlMillis);
+        }
+        int capacity = Math.max(0, (byteBudget - HEADER_SIZE) / (ENTRY_SIZE + 6));
+        int indexSize = 1;
+        while (indexSize < capacity + (capacity / 3) + 1) {
+            indexSize <<= 1;
+        }
+        capacity = Math.min(capacity, (byteBudget - HEADER_SIZE - (indexSize * 4)) / ENTRY_SIZE);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Byte budget too small for a cache: " + byteBudget);
+        }
+
+        int cacheAddr = arena.alloc(HEADER_SIZE);
+        int entries = arena.alloc(capacity * ENTRY_SIZE);
+        int index = arena.alloc(indexSize * 4);
+        for (int i = 0; i < indexSize; i++) {
+            arena.putInt(index + (i * 4), -1);
+        }
+        arena.putInt(cacheAddr + CAPACITY_OFFSET, capacity);
+        arena.putInt(cacheAddr + INDEX_SIZE_OFFSET, indexSize);
+        arena.putInt(cacheAddr + ENTRIES_OFFSET, entries);
+        arena.putInt(cacheAddr + INDEX_OFFSET, index);
+        arena.putInt(cacheAddr + HAND_OFFSET, 0);
+        arena.putInt(cacheAddr + FILL_OFFSET, 0);
+        arena.putInt(cacheAddr + SIZE_OFFSET, 0);
+        arena.putLong(cacheAddr + TTL_OFFSET, ttlMillis);
+        arena.putLong(cacheAddr + HITS_OFFSET, 0L);
+        arena.putLong(cacheAddr + MISSES_OFFSET, 0L);
+        arena.putLong(cacheAddr + EVICTIONS_OFFSET, 0L);
+        arena.putLong(cacheAddr + EXPIRATIONS_OFFSET, 0L);
+        return cacheAddr;
+    }
+
+    public Integer get(int cacheAddr, int key) {
+        checkCachePtr(cacheAddr);
+        int slot = findSlot(cacheAddr, key);
+        if (slot == -1) {
+            increment(cacheAddr + MISSES_OFFSET);
+            return null;
+        }
+        int entry = entryAddr(cacheAddr, arena.getInt(slot));
+        if (isExpired(cacheAddr, entry)) {
+            evict(cacheAddr, entry, EXPIRATIONS_OFFSET);
+            increment(cacheAddr + MISSES_OFFSET);
+            return null;
+        }
+        arena.putByte(entry + ENTRY_FLAGS_OFFSET, (byte) (FLAG_OCCUPIED | FLAG_REFERENCED));
+        increment(cacheAddr + HITS_OFFSET);
+        return arena.getInt(entry + ENTRY_VALUE_OFFSET);
+    }
+
+    public void put(int cacheAddr, int key, int value) {
+        checkCachePtr(cacheAddr);
+        long ttl = arena.getLong(cacheAddr + TTL_OFFSET);
+        long expiresAt = ttl == 0 ? Long.MAX_VALUE : clock.getAsLong() + ttl;
+
+        int slot = findSlot(cacheAddr, key);
+        int entry;
+        if (slot != -1) {
+            entry = entryAddr(cacheAddr, arena.getInt(slot));
+            arena.putByte(entry + ENTRY_FLAGS_OFFSET, (byte) (FLAG_OCCUPIED | FLAG_REFERENCED));
+        } else {
+            int entryIndex = claimEntry(cacheAddr);
+            entry = entryAddr(cacheAddr, entryIndex);
+            arena.putInt(entry + ENTRY_KEY_OFFSET, key);
+            arena.putByte(entry + ENTRY_FLAGS_OFFSET, FLAG_OCCUPIED);
+            insertIndex(cacheAddr, key, entryIndex);
+            arena.putInt(cacheAddr + SIZE_OFFSET, arena.getInt(cacheAddr + SIZE_OFFSET) + 1);
+        }
+        arena.putInt(entry + ENTRY_VALUE_OFFSET, value);
+        arena.putLong(entry + ENTRY_EXPIRES_OFFSET, expiresAt);
+    }
+
+    public boolean remove(int cacheAddr, int key) {
+        checkCachePtr(cacheAddr);
+        int slot = findSlot(cacheAddr, key);
+        if (slot == -1) {
+            return false;
+        }
+        removeEntry(cacheAddr, slot);
+        return true;
+    }
+
+    public int getSize(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getInt(cacheAddr + SIZE_OFFSET);
+    }
+
+    public int getCapacity(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getInt(cacheAddr + CAPACITY_OFFSET);
+    }
+
+    public int getByteSize(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return HEADER_SIZE + (getCapacity(cacheAddr) * ENTRY_SIZE) + (arena.getInt(cacheAddr + INDEX_SIZE_OFFSET) * 4);
+    }
+
+    public long getHitCount(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getLong(cacheAddr + HITS_OFFSET);
+    }
+
+    public long getMissCount(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getLong(cacheAddr + MISSES_OFFSET);
+    }
+
+    public long getEvictionCount(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getLong(cacheAddr + EVICTIONS_OFFSET);
+    }
+
+    public long getExpirationCount(int cacheAddr) {
+        checkCachePtr(cacheAddr);
+        return arena.getLong(cacheAddr + EXPIRATIONS_OFFSET);
+    }
+
+    public double getHitRatio(int cacheAddr) {
+        long hits = getHitCount(cacheAddr);
+        long total = hits + getMissCount(cacheAddr);
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public void printStats(int cacheAddr) {
+        System.out.println("Cache (size: " + getSize(cacheAddr) + "/" + getCapacity(cacheAddr)
+            + ", bytes: " + getByteSize(cacheAddr) + "):");
+        System.out.println("  Hits: " + getHitCount(cacheAddr) + ", misses: " + getMissCount(cacheAddr)
+            + ", hit ratio: " + String.format("%.1f%%", getHitRatio(cacheAddr) * 100));
+        System.out.println("  Evictions: " + getEvictionCount(cacheAddr) + ", expirations: " + getExpirationCount(cacheAddr));
+    }
+
+    private int claimEntry(int cacheAddr) {
+        int capacity = arena.getInt(cacheAddr + CAPACITY_OFFSET);
+        int fill = arena.getInt(cacheAddr + FILL_OFFSET);
+        if (fill < capacity) {
+            arena.putInt(cacheAddr + FILL_OFFSET, fill + 1);
+            return fill;
+        }
+
+        int hand = arena.getInt(cacheAddr + HAND_OFFSET);
+        while (true) {
+            int entry = entryAddr(cacheAddr, hand);
+            byte flags = arena.getByte(entry + ENTRY_FLAGS_OFFSET);
+            int victim = hand;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+
+            if ((flags & FLAG_OCCUPIED) == 0) {
+                arena.putInt(cacheAddr + HAND_OFFSET, hand);
+                return victim;
+            }
+            if (isExpired(cacheAddr, entry)) {
+                evict(cacheAddr, entry, EXPIRATIONS_OFFSET);
+                arena.putInt(cacheAddr + HAND_OFFSET, hand);
+                return victim;
+            }
+            if ((flags & FLAG_REFERENCED) != 0) {
+                arena.putByte(entry + ENTRY_FLAGS_OFFSET, FLAG_OCCUPIED);
+                continue;
+            }
+            evict(cacheAddr, entry, EVICTIONS_OFFSET);
+            arena.putInt(cacheAddr + HAND_OFFSET, hand);
+            return victim;
+        }
+    }
+
+    private void evict(int cacheAddr, int entry, int counterOffset) {
+        int slot = findSlot(cacheAddr, arena.getInt(entry + ENTRY_KEY_OFFSET));
+        removeEntry(cacheAddr, slot);
+        increment(cacheAddr + counterOffset);
+    }
+
+    private void removeEntry(int cacheAddr, int slot) {
+        int entry = entryAddr(cacheAddr, arena.getInt(slot));
+        arena.putByte(entry + ENTRY_FLAGS_OFFSET, (byte) 0);
+        arena.putInt(cacheAddr + SIZE_OFFSET, arena.getInt(cacheAddr + SIZE_OFFSET) - 1);
+
+        int index = arena.getInt(cacheAddr + INDEX_OFFSET);
+        int mask = arena.getInt(cacheAddr + INDEX_SIZE_OFFSET) - 1;
+        int hole = (slot - index) / 4;
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            int entryIndex = arena.getInt(index + (next * 4));
+            if (entryIndex == -1) {
+                break;
+            }
+            int home = RobinHoodHashTableStore.mix(arena.getInt(entryAddr(cacheAddr, entryIndex) + ENTRY_KEY_OFFSET)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                arena.putInt(index + (hole * 4), entryIndex);
+                hole = next;
+            }
+        }
+        arena.putInt(index + (hole * 4), -1);
+    }
+
+    private int findSlot(int cacheAddr, int key) {
+        int index = arena.getInt(cacheAddr + INDEX_OFFSET);
+        int mask = arena.getInt(cacheAddr + INDEX_SIZE_OFFSET) - 1;
+        int i = RobinHoodHashTableStore.mix(key) & mask;
+        while (true) {
+            int entryIndex = arena.getInt(index + (i * 4));
+            if (entryIndex == -1) {
+                return -1;
+            }
+            if (arena.getInt(entryAddr(cacheAddr, entryIndex) + ENTRY_KEY_OFFSET) == key) {
+                return index + (i * 4);
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    private void insertIndex(int cacheAddr, int key, int entryIndex) {
+        int index = arena.getInt(cacheAddr + INDEX_OFFSET);
+        int mask = arena.getInt(cacheAddr + INDEX_SIZE_OFFSET) - 1;
+        int i = RobinHoodHashTableStore.mix(key) & mask;
+        while (arena.getInt(index + (i * 4)) != -1) {
+            i = (i + 1) & mask;
+        }
+        arena.putInt(index + (i * 4), entryIndex);
+    }
+
+    private boolean isExpired(int cacheAddr, int entry) {
+        return arena.getLong(cacheAddr + TTL_OFFSET) != 0
+            && clock.getAsLong() >= arena.getLong(entry + ENTRY_EXPIRES_OFFSET);
+    }
+
+    private int entryAddr(int cacheAddr, int entryIndex) {
+        return arena.getInt(cacheAddr + ENTRIES_OFFSET) + (entryIndex * ENTRY_SIZE);
+    }
+
+    private void increment(int counterAddr) {
+        arena.putLong(counterAddr, arena.getLong(counterAddr) + 1);
+    }
+
+    private void checkCachePtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
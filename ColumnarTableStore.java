@@ -0,0 +1,488 @@
+public class ColumnarTableStore {
+    public enum ColumnType {
+        INT(4),
+        LONG(8),
+        DOUBLE(8),
+        STRING(4);
+
+        private final int elementSize;
+
+        ColumnType(int elementSize) {
+            this.elementSize = elementSize;
+        }
+
+        public int getElementSize() {
+            return elementSize;
+        }
+    }
+
+    public interface RowScanner {
+        void accept(int row, long[] values, long nullBits);
+
+        static boolean isNull(long nullBits, int index) {
+            return (nullBits & (1L << index)) != 0;
+        }
+
+        static double asDouble(long value) {
+            return Double.longBitsToDouble(value);
+        }
+    }
+
+    private final MemoryArena arena;
+    private final StringStore stringStore;
+    private static final int ROW_COUNT_OFFSET = 0;
+    private static final int ROW_CAPACITY_OFFSET = 4;
+    private static final int COLUMN_COUNT_OFFSET = 8;
+    private static final int ROW_GROUP_SIZE_OFFSET = 12;
+    private static final int COLUMNS_OFFSET = 16;
+    private static final int COLUMN_TYPE_OFFSET = 0;
+    private static final int COLUMN_DATA_PTR_OFFSET = 4;
+    private static final int COLUMN_NULLS_PTR_OFFSET = 8;
+    private static final int COLUMN_STATS_PTR_OFFSET = 12;
+    private static final int COLUMN_DESCRIPTOR_SIZE = 16;
+    private static final int STATS_MIN_OFFSET = 0;
+    private static final int STATS_MAX_OFFSET = 8;
+    private static final int STATS_ENTRY_SIZE = 16;
+    private static final int DEFAULT_ROW_GROUP_SIZE = 1024;
+    private static final int MAX_PROJECTION = 64;
+    private static final ColumnType[] TYPES = ColumnType.values();
+
+    public ColumnarTableStore(MemoryArena arena) {
+        this.arena = arena;
+        this.stringStore = new StringStore(arena);
+    }
+
+    public StringStore getStringStore() {
+        return stringStore;
+    }
+
+    public int createTable(ColumnType[] schema, int rowGroupSize, int initialRowCapacity) {
+        if (schema == null || schema.length == 0) {
+            throw new IllegalArgumentException("Schema must contain at least one column");
+        }
+        if (initialRowCapacity < 0) {
+            throw new IllegalArgumentException("Initial row capacity cannot be negative");
+        }
+        if (rowGroupSize <= 0) {
+            rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+        }
+
+        int headerSize = COLUMNS_OFFSET + (schema.length * COLUMN_DESCRIPTOR_SIZE);
+        int tableAddr = arena.alloc(headerSize);
+        arena.putInt(tableAddr + ROW_COUNT_OFFSET, 0);
+        arena.putInt(tableAddr + ROW_CAPACITY_OFFSET, 0);
+        arena.putInt(tableAddr + COLUMN_COUNT_OFFSET, schema.length);
+        arena.putInt(tableAddr + ROW_GROUP_SIZE_OFFSET, rowGroupSize);
+
+        for (int col = 0; col < schema.length; col++) {
+            if (schema[col] == null) {
+                throw new IllegalArgumentException("Column type cannot be null (column " + col + ")");
+            }
+            int descAddr = columnAddr(tableAddr, col);
+            arena.putInt(descAddr + COLUMN_TYPE_OFFSET, schema[col].ordinal());
+            arena.putInt(descAddr + COLUMN_DATA_PTR_OFFSET, -1);
+            arena.putInt(descAddr + COLUMN_NULLS_PTR_OFFSET, -1);
+            arena.putInt(descAddr + COLUMN_STATS_PTR_OFFSET, -1);
+        }
+
+        if (initialRowCapacity > 0) {
+            growRows(tableAddr, initialRowCapacity);
+        }
+        return tableAddr;
+    }
+
+    public int getRowCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + ROW_COUNT_OFFSET);
+    }
+
+    public int getRowCapacity(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + ROW_CAPACITY_OFFSET);
+    }
+
+    public int getColumnCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + COLUMN_COUNT_OFFSET);
+    }
+
+    public int getRowGroupSize(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + ROW_GROUP_SIZE_OFFSET);
+    }
+
+    public int getRowGroupCount(int tableAddr) {
+        int rowGroupSize = getRowGroupSize(tableAddr);
+        return (getRowCount(tableAddr) + rowGroupSize - 1) / rowGroupSize;
+    }
+
+    public ColumnType getColumnType(int tableAddr, int column) {
+        checkColumn(tableAddr, column);
+        return TYPES[arena.getInt(columnAddr(tableAddr, column) + COLUMN_TYPE_OFFSET)];
+    }
+
+    public int appendRow(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int row = arena.getInt(tableAddr + ROW_COUNT_OFFSET);
+        int capacity = arena.getInt(tableAddr + ROW_CAPACITY_OFFSET);
+        if (row >= capacity) {
+            growRows(tableAddr, capacity == 0 ? getRowGroupSize(tableAddr) : capacity * 2);
+        }
+
+        int columnCount = arena.getInt(tableAddr + COLUMN_COUNT_OFFSET);
+        for (int col = 0; col < columnCount; col++) {
+            setNullBit(columnAddr(tableAddr, col), row, true);
+        }
+        arena.putInt(tableAddr + ROW_COUNT_OFFSET, row + 1);
+        return row;
+    }
+
+    public void setInt(int tableAddr, int row, int column, int value) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.INT);
+        arena.putInt(elementAddr(descAddr, row, 4), value);
+        setNullBit(descAddr, row, false);
+        updateStats(tableAddr, descAddr, row, value);
+    }
+
+    public void setLong(int tableAddr, int row, int column, long value) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.LONG);
+        arena.putLong(elementAddr(descAddr, row, 8), value);
+        setNullBit(descAddr, row, false);
+        updateStats(tableAddr, descAddr, row, value);
+    }
+
+    public void setDouble(int tableAddr, int row, int column, double value) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.DOUBLE);
+        arena.putDouble(elementAddr(descAddr, row, 8), value);
+        setNullBit(descAddr, row, false);
+
+        int statsAddr = statsAddr(tableAddr, descAddr, row);
+        if (value < arena.getDouble(statsAddr + STATS_MIN_OFFSET)) {
+            arena.putDouble(statsAddr + STATS_MIN_OFFSET, value);
+        }
+        if (value > arena.getDouble(statsAddr + STATS_MAX_OFFSET)) {
+            arena.putDouble(statsAddr + STATS_MAX_OFFSET, value);
+        }
+    }
+
+    public void setString(int tableAddr, int row, int column, String value) {
+        setStringAddr(tableAddr, row, column, stringStore.createPackedString(value));
+    }
+
+    public void setStringAddr(int tableAddr, int row, int column, int stringAddr) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.STRING);
+        arena.putInt(elementAddr(descAddr, row, 4), stringAddr);
+        setNullBit(descAddr, row, false);
+    }
+
+    public void setNull(int tableAddr, int row, int column) {
+        checkRow(tableAddr, row);
+        checkColumn(tableAddr, column);
+        setNullBit(columnAddr(tableAddr, column), row, true);
+    }
+
+    public boolean isNull(int tableAddr, int row, int column) {
+        checkRow(tableAddr, row);
+        checkColumn(tableAddr, column);
+        return isNullBit(columnAddr(tableAddr, column), row);
+    }
+
+    public int getInt(int tableAddr, int row, int column) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.INT);
+        return arena.getInt(elementAddr(descAddr, row, 4));
+    }
+
+    public long getLong(int tableAddr, int row, int column) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.LONG);
+        return arena.getLong(elementAddr(descAddr, row, 8));
+    }
+
+    public double getDouble(int tableAddr, int row, int column) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.DOUBLE);
+        return arena.getDouble(elementAddr(descAddr, row, 8));
+    }
+
+    public int getStringAddr(int tableAddr, int row, int column) {
+        int descAddr = checkCell(tableAddr, row, column, ColumnType.STRING);
+        if (isNullBit(descAddr, row)) {
+            return -1;
+        }
+        return arena.getInt(elementAddr(descAddr, row, 4));
+    }
+
+    public String getString(int tableAddr, int row, int column) {
+        int stringAddr = getStringAddr(tableAddr, row, column);
+        return stringAddr == -1 ? null : stringStore.getString(stringAddr);
+    }
+
+    public long getGroupMin(int tableAddr, int column, int group) {
+        return arena.getLong(groupStatsAddr(tableAddr, column, group) + STATS_MIN_OFFSET);
+    }
+
+    public long getGroupMax(int tableAddr, int column, int group) {
+        return arena.getLong(groupStatsAddr(tableAddr, column, group) + STATS_MAX_OFFSET);
+    }
+
+    public double getGroupMinDouble(int tableAddr, int column, int group) {
+        return arena.getDouble(groupStatsAddr(tableAddr, column, group) + STATS_MIN_OFFSET);
+    }
+
+    public double getGroupMaxDouble(int tableAddr, int column, int group) {
+        return arena.getDouble(groupStatsAddr(tableAddr, column, group) + STATS_MAX_OFFSET);
+    }
+
+    public int scan(int tableAddr, int[] columns, RowScanner scanner) {
+        int[] descAddrs = resolveProjection(tableAddr, columns);
+        long[] values = new long[columns.length];
+        int rowCount = getRowCount(tableAddr);
+        for (int row = 0; row < rowCount; row++) {
+            long nullBits = readRow(descAddrs, row, values);
+            scanner.accept(row, values, nullBits);
+        }
+        return rowCount;
+    }
+
+    public int scan(int tableAddr, int[] columns, int filterColumn, long min, long max, RowScanner scanner) {
+        ColumnType filterType = getColumnType(tableAddr, filterColumn);
+        if (filterType != ColumnType.INT && filterType != ColumnType.LONG) {
+            throw new IllegalArgumentException("Range filters are supported on INT and LONG columns, got " + filterType);
+        }
+        int[] descAddrs = resolveProjection(tableAddr, columns);
+        long[] values = new long[columns.length];
+        int filterDesc = columnAddr(tableAddr, filterColumn);
+        int filterStats = arena.getInt(filterDesc + COLUMN_STATS_PTR_OFFSET);
+        int rowCount = getRowCount(tableAddr);
+        int rowGroupSize = getRowGroupSize(tableAddr);
+        int groupCount = getRowGroupCount(tableAddr);
+        int emitted = 0;
+
+        for (int group = 0; group < groupCount; group++) {
+            int statsAddr = filterStats + (group * STATS_ENTRY_SIZE);
+            if (arena.getLong(statsAddr + STATS_MAX_OFFSET) < min || arena.getLong(statsAddr + STATS_MIN_OFFSET) > max) {
+                continue;
+            }
+            int end = Math.min(rowCount, (group + 1) * rowGroupSize);
+            for (int row = group * rowGroupSize; row < end; row++) {
+                if (isNullBit(filterDesc, row)) {
+                    continue;
+                }
+                long key = filterType == ColumnType.INT
+                    ? arena.getInt(elementAddr(filterDesc, row, 4))
+                    : arena.getLong(elementAddr(filterDesc, row, 8));
+                if (key < min || key > max) {
+                    continue;
+                }
+                long nullBits = readRow(descAddrs, row, values);
+                scanner.accept(row, values, nullBits);
+                emitted++;
+            }
+        }
+        return emitted;
+    }
+
+    public void printTable(int tableAddr) {
+        int rowCount = getRowCount(tableAddr);
+        int columnCount = getColumnCount(tableAddr);
+        System.out.println("ColumnarTable (rows: " + rowCount + ", columns: " + columnCount
+            + ", row groups: " + getRowGroupCount(tableAddr) + "):");
+        for (int row = 0; row < rowCount; row++) {
+            System.out.print("  [");
+            for (int col = 0; col < columnCount; col++) {
+                if (col > 0) {
+                    System.out.print(", ");
+                }
+                System.out.print(formatCell(tableAddr, row, col));
+            }
+            System.out.println("]");
+        }
+    }
+
+    private String formatCell(int tableAddr, int row, int column) {
+        if (isNull(tableAddr, row, column)) {
+            return "null";
+        }
+        switch (getColumnType(tableAddr, column)) {
+            case INT:
+                return String.valueOf(getInt(tableAddr, row, column));
+            case LONG:
+                return String.valueOf(getLong(tableAddr, row, column));
+            case DOUBLE:
+                return String.valueOf(getDouble(tableAddr, row, column));
+            default:
+                return "\"" + getString(tableAddr, row, column) + "\"";
+        }
+    }
+
+    private int[] resolveProjection(int tableAddr, int[] columns) {
+        if (columns == null) {
+            throw new IllegalArgumentException("Projection cannot be null");
+        }
+        if (columns.length > MAX_PROJECTION) {
+            throw new IllegalArgumentException("Projection is limited to " + MAX_PROJECTION + " columns, got " + columns.length);
+        }
+        int[] descAddrs = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            checkColumn(tableAddr, columns[i]);
+            descAddrs[i] = columnAddr(tableAddr, columns[i]);
+        }
+        return descAddrs;
+    }
+
+    private long readRow(int[] descAddrs, int row, long[] values) {
+        long nullBits = 0;
+        for (int i = 0; i < descAddrs.length; i++) {
+            int descAddr = descAddrs[i];
+            if (isNullBit(descAddr, row)) {
+                values[i] = 0;
+                nullBits |= 1L << i;
+            } else if (TYPES[arena.getInt(descAddr + COLUMN_TYPE_OFFSET)].getElementSize() == 4) {
+                values[i] = arena.getInt(elementAddr(descAddr, row, 4));
+            } else {
+                values[i] = arena.getLong(elementAddr(descAddr, row, 8));
+            }
+        }
+        return nullBits;
+    }
+
+    private void growRows(int tableAddr, int newCapacity) {
+        int oldCapacity = arena.getInt(tableAddr + ROW_CAPACITY_OFFSET);
+        int rowGroupSize = arena.getInt(tableAddr + ROW_GROUP_SIZE_OFFSET);
+        int oldGroups = (oldCapacity + rowGroupSize - 1) / rowGroupSize;
+        int newGroups = (newCapacity + rowGroupSize - 1) / rowGroupSize;
+        int columnCount = arena.getInt(tableAddr + COLUMN_COUNT_OFFSET);
+
+        for (int col = 0; col < columnCount; col++) {
+            int descAddr = columnAddr(tableAddr, col);
+            ColumnType type = TYPES[arena.getInt(descAddr + COLUMN_TYPE_OFFSET)];
+            int size = type.getElementSize();
+
+            int dataPtr = resizeBuffer(arena.getInt(descAddr + COLUMN_DATA_PTR_OFFSET), oldCapacity * size, newCapacity * size);
+            arena.putInt(descAddr + COLUMN_DATA_PTR_OFFSET, dataPtr);
+
+            int nullsPtr = resizeBuffer(arena.getInt(descAddr + COLUMN_NULLS_PTR_OFFSET), (oldCapacity + 7) / 8, (newCapacity + 7) / 8);
+            arena.putInt(descAddr + COLUMN_NULLS_PTR_OFFSET, nullsPtr);
+
+            if (type == ColumnType.STRING) {
+                continue;
+            }
+            int statsPtr = resizeBuffer(arena.getInt(descAddr + COLUMN_STATS_PTR_OFFSET), oldGroups * STATS_ENTRY_SIZE, newGroups * STATS_ENTRY_SIZE);
+            arena.putInt(descAddr + COLUMN_STATS_PTR_OFFSET, statsPtr);
+            for (int group = oldGroups; group < newGroups; group++) {
+                int statsAddr = statsPtr + (group * STATS_ENTRY_SIZE);
+                if (type == ColumnType.DOUBLE) {
+                    arena.putDouble(statsAddr + STATS_MIN_OFFSET, Double.POSITIVE_INFINITY);
+                    arena.putDouble(statsAddr + STATS_MAX_OFFSET, Double.NEGATIVE_INFINITY);
+                } else {
+                    arena.putLong(statsAddr + STATS_MIN_OFFSET, Long.MAX_VALUE);
+                    arena.putLong(statsAddr + STATS_MAX_OFFSET, Long.MIN_VALUE);
+                }
+            }
+        }
+
+        arena.putInt(tableAddr + ROW_CAPACITY_OFFSET, newCapacity);
+    }
+
+    private int resizeBuffer(int oldPtr, int oldSize, int newSize) {
+        if (oldPtr != -1 && arena.extend(oldPtr, oldSize, newSize - oldSize)) {
+            return oldPtr;
+        }
+        int newPtr = arena.alloc(newSize);
+        if (oldPtr != -1) {
+            if (oldSize > 0) {
+                arena.copy(oldPtr, newPtr, oldSize);
+            }
+            arena.abandon(oldPtr, oldSize);
+        }
+        return newPtr;
+    }
+
+    private void updateStats(int tableAddr, int descAddr, int row, long value) {
+        int statsAddr = statsAddr(tableAddr, descAddr, row);
+        if (value < arena.getLong(statsAddr + STATS_MIN_OFFSET)) {
+            arena.putLong(statsAddr + STATS_MIN_OFFSET, value);
+        }
+        if (value > arena.getLong(statsAddr + STATS_MAX_OFFSET)) {
+            arena.putLong(statsAddr + STATS_MAX_OFFSET, value);
+        }
+    }
+
+    private int statsAddr(int tableAddr, int descAddr, int row) {
+        int group = row / arena.getInt(tableAddr + ROW_GROUP_SIZE_OFFSET);
+        return arena.getInt(descAddr + COLUMN_STATS_PTR_OFFSET) + (group * STATS_ENTRY_SIZE);
+    }
+
+    private int groupStatsAddr(int tableAddr, int column, int group) {
+        ColumnType type = getColumnType(tableAddr, column);
+        if (type == ColumnType.STRING) {
+            throw new IllegalArgumentException("STRING columns have no row group statistics");
+        }
+        int groupCount = getRowGroupCount(tableAddr);
+        if (group < 0 || group >= groupCount) {
+            throw new IndexOutOfBoundsException(
+                "Row group " + group + " out of bounds for table with " + groupCount + " row groups"
+            );
+        }
+        int descAddr = columnAddr(tableAddr, column);
+        return arena.getInt(descAddr + COLUMN_STATS_PTR_OFFSET) + (group * STATS_ENTRY_SIZE);
+    }
+
+    private void setNullBit(int descAddr, int row, boolean isNull) {
+        int byteAddr = arena.getInt(descAddr + COLUMN_NULLS_PTR_OFFSET) + (row >>> 3);
+        int bits = arena.getByte(byteAddr);
+        int mask = 1 << (row & 7);
+        arena.putByte(byteAddr, (byte) (isNull ? bits | mask : bits & ~mask));
+    }
+
+    private boolean isNullBit(int descAddr, int row) {
+        int byteAddr = arena.getInt(descAddr + COLUMN_NULLS_PTR_OFFSET) + (row >>> 3);
+        return (arena.getByte(byteAddr) & (1 << (row & 7))) != 0;
+    }
+
+    private int elementAddr(int descAddr, int row, int elementSize) {
+        return arena.getInt(descAddr + COLUMN_DATA_PTR_OFFSET) + (row * elementSize);
+    }
+
+    private int columnAddr(int tableAddr, int column) {
+        return tableAddr + COLUMNS_OFFSET + (column * COLUMN_DESCRIPTOR_SIZE);
+    }
+
+    private int checkCell(int tableAddr, int row, int column, ColumnType expected) {
+        checkRow(tableAddr, row);
+        ColumnType actual = getColumnType(tableAddr, column);
+        if (actual != expected) {
+            throw new IllegalArgumentException(
+                "Column " + column + " has type " + actual + ", not " + expected
+            );
+        }
+        return columnAddr(tableAddr, column);
+    }
+
+    private void checkRow(int tableAddr, int row) {
+        int rowCount = getRowCount(tableAddr);
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(
+                "Row " + row + " out of bounds for table with " + rowCount + " rows"
+            );
+        }
+    }
+
+    private void checkColumn(int tableAddr, int column) {
+        int columnCount = getColumnCount(tableAddr);
+        if (column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException(
+                "Column " + column + " out of bounds for table with " + columnCount + " columns"
+            );
+        }
+    }
+
+    private void checkTablePtr(int ptr) {
+        if (ptr < 0 || ptr + COLUMNS_OFFSET > arena.used()) {
+            throw new InvalidPointerException(ptr, COLUMNS_OFFSET, arena.used(), arena.capacity());
+        }
+        int columnCount = arena.getInt(ptr + COLUMN_COUNT_OFFSET);
+        int headerSize = COLUMNS_OFFSET + (columnCount * COLUMN_DESCRIPTOR_SIZE);
+        if (columnCount <= 0 || ptr + headerSize > arena.used()) {
+            throw new InvalidPointerException(ptr, headerSize, arena.used(), arena.capacity());
+        }
+    }
+}
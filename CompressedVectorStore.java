@@ -0,0 +1,401 @@
+import java.util.function.IntConsumer;
+
+public class CompressedVectorStore {
+    public enum Encoding {
+        FRAME_OF_REFERENCE,
+        DELTA,
+        VARINT
+    }
+
+    public static final int BLOCK_SIZE = 128;
+
+    private final MemoryArena arena;
+    private final VectorStore vectorStore;
+    private static final int LENGTH_OFFSET = 0;
+    private static final int ENCODING_OFFSET = 4;
+    private static final int BLOCK_INDEX_OFFSET = 8;
+    private static final int TAIL_PTR_OFFSET = 12;
+    private static final int BLOCK_BYTES_OFFSET = 16;
+    private static final int HEADER_SIZE = 20;
+    private static final int FOR_BASE_OFFSET = 0;
+    private static final int FOR_BIT_WIDTH_OFFSET = 4;
+    private static final int FOR_DATA_OFFSET = 8;
+    private static final int DELTA_FIRST_OFFSET = 0;
+    private static final int DELTA_BASE_OFFSET = 4;
+    private static final int DELTA_BIT_WIDTH_OFFSET = 8;
+    private static final int DELTA_DATA_OFFSET = 12;
+    private static final int VARINT_DATA_OFFSET = 0;
+    private static final Encoding[] ENCODINGS = Encoding.values();
+
+    public CompressedVectorStore(MemoryArena arena) {
+        this.arena = arena;
+        this.vectorStore = new VectorStore(arena, VectorStore.GrowthPolicy.DOUBLE);
+    }
+
+    public int createVector(Encoding encoding) {
+        if (encoding == null) {
+            throw new IllegalArgumentException("Encoding cannot be null");
+        }
+        int vectorAddr = arena.alloc(HEADER_SIZE);
+        int blockIndex = vectorStore.createVector(4);
+        int tailPtr = arena.alloc(BLOCK_SIZE * 4);
+
+        arena.putInt(vectorAddr + LENGTH_OFFSET, 0);
+        arena.putInt(vectorAddr + ENCODING_OFFSET, encoding.ordinal());
+        arena.putInt(vectorAddr + BLOCK_INDEX_OFFSET, blockIndex);
+        arena.putInt(vectorAddr + TAIL_PTR_OFFSET, tailPtr);
+        arena.putInt(vectorAddr + BLOCK_BYTES_OFFSET, 0);
+        return vectorAddr;
+    }
+
+    public int getLength(int vectorAddr) {
+        checkVectorPtr(vectorAddr);
+        return arena.getInt(vectorAddr + LENGTH_OFFSET);
+    }
+
+    public Encoding getEncoding(int vectorAddr) {
+        checkVectorPtr(vectorAddr);
+        return ENCODINGS[arena.getInt(vectorAddr + ENCODING_OFFSET)];
+    }
+
+    public int getBlockCount(int vectorAddr) {
+        return getLength(vectorAddr) / BLOCK_SIZE;
+    }
+
+    public int getCompressedSize(int vectorAddr) {
+        checkVectorPtr(vectorAddr);
+        int blockIndex = arena.getInt(vectorAddr + BLOCK_INDEX_OFFSET);
+        return HEADER_SIZE
+            + (BLOCK_SIZE * 4)
+            + 12 + (vectorStore.getCapacity(blockIndex) * 4)
+            + arena.getInt(vectorAddr + BLOCK_BYTES_OFFSET);
+    }
+
+    public void append(int vectorAddr, int value) {
+        checkVectorPtr(vectorAddr);
+        int length = arena.getInt(vectorAddr + LENGTH_OFFSET);
+        int tailPtr = arena.getInt(vectorAddr + TAIL_PTR_OFFSET);
+        int tailCount = length % BLOCK_SIZE;
+
+        arena.putInt(tailPtr + (tailCount * 4), value);
+        arena.putInt(vectorAddr + LENGTH_OFFSET, length + 1);
+
+        if (tailCount + 1 == BLOCK_SIZE) {
+            int[] values = new int[BLOCK_SIZE];
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                values[i] = arena.getInt(tailPtr + (i * 4));
+            }
+            flushBlock(vectorAddr, values);
+        }
+    }
+
+    public void appendAll(int vectorAddr, int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        checkVectorPtr(vectorAddr);
+        int i = 0;
+        int[] block = new int[BLOCK_SIZE];
+        while (i < values.length) {
+            int length = arena.getInt(vectorAddr + LENGTH_OFFSET);
+            if (length % BLOCK_SIZE == 0 && values.length - i >= BLOCK_SIZE) {
+                System.arraycopy(values, i, block, 0, BLOCK_SIZE);
+                arena.putInt(vectorAddr + LENGTH_OFFSET, length + BLOCK_SIZE);
+                flushBlock(vectorAddr, block);
+                i += BLOCK_SIZE;
+            } else {
+                append(vectorAddr, values[i++]);
+            }
+        }
+    }
+
+    public int get(int vectorAddr, int index) {
+        int length = getLength(vectorAddr);
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(
+                "Index " + index + " out of bounds for vector of length " + length
+            );
+        }
+
+        int block = index / BLOCK_SIZE;
+        int offsetInBlock = index % BLOCK_SIZE;
+        if (block == length / BLOCK_SIZE) {
+            return arena.getInt(arena.getInt(vectorAddr + TAIL_PTR_OFFSET) + (offsetInBlock * 4));
+        }
+
+        int blockAddr = vectorStore.get(arena.getInt(vectorAddr + BLOCK_INDEX_OFFSET), block);
+        switch (ENCODINGS[arena.getInt(vectorAddr + ENCODING_OFFSET)]) {
+            case FRAME_OF_REFERENCE:
+                return arena.getInt(blockAddr + FOR_BASE_OFFSET)
+                    + unpackOne(blockAddr + FOR_DATA_OFFSET, arena.getInt(blockAddr + FOR_BIT_WIDTH_OFFSET), offsetInBlock);
+            case DELTA:
+                int value = arena.getInt(blockAddr + DELTA_FIRST_OFFSET);
+                int base = arena.getInt(blockAddr + DELTA_BASE_OFFSET);
+                int bitWidth = arena.getInt(blockAddr + DELTA_BIT_WIDTH_OFFSET);
+                for (int j = 1; j <= offsetInBlock; j++) {
+                    value += base + unpackOne(blockAddr + DELTA_DATA_OFFSET, bitWidth, j);
+                }
+                return value;
+            default:
+                int addr = blockAddr + VARINT_DATA_OFFSET;
+                int result = 0;
+                for (int j = 0; j <= offsetInBlock; j++) {
+                    int encoded = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        b = arena.getByte(addr++);
+                        encoded |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    result = (encoded >>> 1) ^ -(encoded & 1);
+                }
+                return result;
+        }
+    }
+
+    public int decodeBlock(int vectorAddr, int block, int[] out) {
+        int length = getLength(vectorAddr);
+        int blockCount = length / BLOCK_SIZE;
+        if (block < 0 || block > blockCount || (block == blockCount && length % BLOCK_SIZE == 0)) {
+            throw new IndexOutOfBoundsException(
+                "Block " + block + " out of bounds for vector with " + ((length + BLOCK_SIZE - 1) / BLOCK_SIZE) + " blocks"
+            );
+        }
+        if (out == null || out.length < BLOCK_SIZE) {
+            throw new IllegalArgumentException("Output buffer must hold at least " + BLOCK_SIZE + " values");
+        }
+
+        if (block == blockCount) {
+            int tailPtr = arena.getInt(vectorAddr + TAIL_PTR_OFFSET);
+            int tailCount = length % BLOCK_SIZE;
+            for (int i = 0; i < tailCount; i++) {
+                out[i] = arena.getInt(tailPtr + (i * 4));
+            }
+            return tailCount;
+        }
+
+        int blockAddr = vectorStore.get(arena.getInt(vectorAddr + BLOCK_INDEX_OFFSET), block);
+        switch (ENCODINGS[arena.getInt(vectorAddr + ENCODING_OFFSET)]) {
+            case FRAME_OF_REFERENCE:
+                unpack(blockAddr + FOR_DATA_OFFSET, arena.getInt(blockAddr + FOR_BIT_WIDTH_OFFSET), out);
+                int base = arena.getInt(blockAddr + FOR_BASE_OFFSET);
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    out[i] += base;
+                }
+                break;
+            case DELTA:
+                unpack(blockAddr + DELTA_DATA_OFFSET, arena.getInt(blockAddr + DELTA_BIT_WIDTH_OFFSET), out);
+                int minDelta = arena.getInt(blockAddr + DELTA_BASE_OFFSET);
+                int value = arena.getInt(blockAddr + DELTA_FIRST_OFFSET);
+                out[0] = value;
+                for (int i = 1; i < BLOCK_SIZE; i++) {
+                    value += out[i] + minDelta;
+                    out[i] = value;
+                }
+                break;
+            default:
+                int addr = blockAddr + VARINT_DATA_OFFSET;
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    int encoded = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        b = arena.getByte(addr++);
+                        encoded |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    out[i] = (encoded >>> 1) ^ -(encoded & 1);
+                }
+                break;
+        }
+        return BLOCK_SIZE;
+    }
+
+    public void forEach(int vectorAddr, IntConsumer consumer) {
+        int length = getLength(vectorAddr);
+        int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] buffer = new int[BLOCK_SIZE];
+        for (int block = 0; block < blocks; block++) {
+            int count = decodeBlock(vectorAddr, block, buffer);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(buffer[i]);
+            }
+        }
+    }
+
+    public long sum(int vectorAddr) {
+        int length = getLength(vectorAddr);
+        int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] buffer = new int[BLOCK_SIZE];
+        long sum = 0;
+        for (int block = 0; block < blocks; block++) {
+            int count = decodeBlock(vectorAddr, block, buffer);
+            for (int i = 0; i < count; i++) {
+                sum += buffer[i];
+            }
+        }
+        return sum;
+    }
+
+    public void printVector(int vectorAddr) {
+        int length = getLength(vectorAddr);
+        System.out.print("[");
+        for (int i = 0; i < length; i++) {
+            System.out.print(get(vectorAddr, i));
+            if (i < length - 1) {
+                System.out.print(", ");
+            }
+        }
+        System.out.println("] (" + getEncoding(vectorAddr) + ", " + getCompressedSize(vectorAddr) + " bytes)");
+    }
+
+    private void flushBlock(int vectorAddr, int[] values) {
+        int blockAddr;
+        switch (ENCODINGS[arena.getInt(vectorAddr + ENCODING_OFFSET)]) {
+            case FRAME_OF_REFERENCE:
+                blockAddr = encodeFrameOfReference(values);
+                break;
+            case DELTA:
+                blockAddr = encodeDelta(values);
+                break;
+            default:
+                blockAddr = encodeVarint(values);
+                break;
+        }
+        int blockBytes = arena.used() - blockAddr;
+        vectorStore.append(arena.getInt(vectorAddr + BLOCK_INDEX_OFFSET), blockAddr);
+        arena.putInt(vectorAddr + BLOCK_BYTES_OFFSET, arena.getInt(vectorAddr + BLOCK_BYTES_OFFSET) + blockBytes);
+    }
+
+    private int encodeFrameOfReference(int[] values) {
+        int min = values[0];
+        for (int v : values) {
+            min = Math.min(min, v);
+        }
+        int bitWidth = bitWidth(values, 0, min);
+
+        int blockAddr = arena.alloc(FOR_DATA_OFFSET + (bitWidth * BLOCK_SIZE / 8));
+        arena.putInt(blockAddr + FOR_BASE_OFFSET, min);
+        arena.putInt(blockAddr + FOR_BIT_WIDTH_OFFSET, bitWidth);
+        pack(blockAddr + FOR_DATA_OFFSET, bitWidth, values, 0, min);
+        return blockAddr;
+    }
+
+    private int encodeDelta(int[] values) {
+        int[] deltas = new int[BLOCK_SIZE];
+        for (int i = 1; i < BLOCK_SIZE; i++) {
+            deltas[i] = values[i] - values[i - 1];
+        }
+        int min = 0;
+        for (int d : deltas) {
+            min = Math.min(min, d);
+        }
+        int bitWidth = bitWidth(deltas, 0, min);
+
+        int blockAddr = arena.alloc(DELTA_DATA_OFFSET + (bitWidth * BLOCK_SIZE / 8));
+        arena.putInt(blockAddr + DELTA_FIRST_OFFSET, values[0]);
+        arena.putInt(blockAddr + DELTA_BASE_OFFSET, min);
+        arena.putInt(blockAddr + DELTA_BIT_WIDTH_OFFSET, bitWidth);
+        pack(blockAddr + DELTA_DATA_OFFSET, bitWidth, deltas, 0, min);
+        return blockAddr;
+    }
+
+    private int encodeVarint(int[] values) {
+        int size = 0;
+        for (int v : values) {
+            size += varintSize((v << 1) ^ (v >> 31));
+        }
+
+        int blockAddr = arena.alloc(VARINT_DATA_OFFSET + size);
+        int addr = blockAddr + VARINT_DATA_OFFSET;
+        for (int v : values) {
+            int encoded = (v << 1) ^ (v >> 31);
+            while ((encoded & ~0x7F) != 0) {
+                arena.putByte(addr++, (byte) ((encoded & 0x7F) | 0x80));
+                encoded >>>= 7;
+            }
+            arena.putByte(addr++, (byte) encoded);
+        }
+        return blockAddr;
+    }
+
+    private static int varintSize(int encoded) {
+        int size = 1;
+        while ((encoded & ~0x7F) != 0) {
+            encoded >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int bitWidth(int[] values, int from, int base) {
+        int bits = 0;
+        for (int i = from; i < values.length; i++) {
+            bits |= values[i] - base;
+        }
+        return 32 - Integer.numberOfLeadingZeros(bits);
+    }
+
+    private void pack(int addr, int bitWidth, int[] values, int from, int base) {
+        if (bitWidth == 0) {
+            return;
+        }
+        long mask = bitWidth == 32 ? 0xFFFFFFFFL : (1L << bitWidth) - 1;
+        long buffer = 0;
+        int bits = 0;
+        for (int i = from; i < values.length; i++) {
+            buffer |= ((values[i] - base) & mask) << bits;
+            bits += bitWidth;
+            if (bits >= 32) {
+                arena.putInt(addr, (int) buffer);
+                addr += 4;
+                buffer >>>= 32;
+                bits -= 32;
+            }
+        }
+    }
+
+    private void unpack(int addr, int bitWidth, int[] out) {
+        if (bitWidth == 0) {
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                out[i] = 0;
+            }
+            return;
+        }
+        long mask = bitWidth == 32 ? 0xFFFFFFFFL : (1L << bitWidth) - 1;
+        long buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (bits < bitWidth) {
+                buffer |= (arena.getInt(addr) & 0xFFFFFFFFL) << bits;
+                addr += 4;
+                bits += 32;
+            }
+            out[i] = (int) (buffer & mask);
+            buffer >>>= bitWidth;
+            bits -= bitWidth;
+        }
+    }
+
+    private int unpackOne(int addr, int bitWidth, int index) {
+        if (bitWidth == 0) {
+            return 0;
+        }
+        long mask = bitWidth == 32 ? 0xFFFFFFFFL : (1L << bitWidth) - 1;
+        int bitPos = index * bitWidth;
+        int wordAddr = addr + ((bitPos >>> 5) * 4);
+        int shift = bitPos & 31;
+        long bits = (arena.getInt(wordAddr) & 0xFFFFFFFFL) >>> shift;
+        if (shift + bitWidth > 32) {
+            bits |= (arena.getInt(wordAddr + 4) & 0xFFFFFFFFL) << (32 - shift);
+        }
+        return (int) (bits & mask);
+    }
+
+    private void checkVectorPtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+import java.lang.invoke.VarHandle;
+
+public class ConcurrentHashTableStore {
+    private final ConcurrentMemoryArena arena;
+
+    private static final int TABLE_OFFSET = 0;
+    private static final int STRIPE_COUNT_OFFSET = 4;
+    private static final int STRIPES_OFFSET = 8;
+    private static final int RESIZE_COUNT_OFFSET = 12;
+    private static final int HEADER_SIZE = 16;
+
+    private static final int BUCKET_COUNT_OFFSET = 0;
+    private static final int BUCKET_ARRAY_OFFSET = 4;
+
+    private static final int STRIPE_SEQ_OFFSET = 0;
+    private static final int STRIPE_SIZE_OFFSET = 4;
+    private static final int STRIPE_CHUNK_NEXT_OFFSET = 8;
+    private static final int STRIPE_CHUNK_END_OFFSET = 12;
+    private static final int STRIPE_FREE_HEAD_OFFSET = 16;
+    private static final int STRIPE_STRIDE = 64;
+
+    private static final int ENTRY_KEY_OFFSET = 0;
+    private static final int ENTRY_VALUE_OFFSET = 4;
+    private static final int ENTRY_NEXT_OFFSET = 8;
+    private static final int ENTRY_SIZE = 12;
+
+    private static final int DEFAULT_BUCKET_COUNT = 16;
+    private static final int MIN_CHUNK_ENTRIES = 16;
+    private static final int MAX_CHUNK_ENTRIES = 1024;
+
+    public ConcurrentHashTableStore(ConcurrentMemoryArena arena) {
+        if (arena == null) {
+            throw new IllegalArgumentException("Arena cannot be null");
+        }
+        this.arena = arena;
+    }
+
+    public int createTable(int initialCapacity, int concurrencyLevel) {
+        int stripeCount = 1;
+        while (stripeCount < concurrencyLevel) {
+            stripeCount <<= 1;
+        }
+        int bucketCount = Math.max(DEFAULT_BUCKET_COUNT, stripeCount);
+        while (bucketCount < initialCapacity) {
+            bucketCount <<= 1;
+        }
+
+        int chunkEntries = Math.min(MAX_CHUNK_ENTRIES, Math.max(MIN_CHUNK_ENTRIES, (initialCapacity + stripeCount - 1) / stripeCount));
+        int tableAddr = arena.allocAligned(HEADER_SIZE, 8);
+        int stripes = arena.allocAligned(stripeCount * STRIPE_STRIDE, STRIPE_STRIDE);
+        for (int i = 0; i < stripeCount; i++) {
+            int stripe = stripes + (i * STRIPE_STRIDE);
+            int chunk = arena.allocAligned(chunkEntries * ENTRY_SIZE, 4);
+            arena.putInt(stripe + STRIPE_SEQ_OFFSET, 0);
+            arena.putInt(stripe + STRIPE_SIZE_OFFSET, 0);
+            arena.putInt(stripe + STRIPE_CHUNK_NEXT_OFFSET, chunk);
+            arena.putInt(stripe + STRIPE_CHUNK_END_OFFSET, chunk + (chunkEntries * ENTRY_SIZE));
+            arena.putInt(stripe + STRIPE_FREE_HEAD_OFFSET, -1);
+        }
+        arena.putInt(tableAddr + STRIPE_COUNT_OFFSET, stripeCount);
+        arena.putInt(tableAddr + STRIPES_OFFSET, stripes);
+        arena.putInt(tableAddr + RESIZE_COUNT_OFFSET, 0);
+        arena.putIntRelease(tableAddr + TABLE_OFFSET, allocBuckets(bucketCount));
+        return tableAddr;
+    }
+
+    public void put(int tableAddr, int key, int value) {
+        checkTablePtr(tableAddr);
+        int h = RobinHoodHashTableStore.mix(key);
+        int stripe = stripeFor(tableAddr, h);
+        boolean grow;
+
+        int seq = lock(stripe);
+        try {
+            int table = arena.getIntAcquire(tableAddr + TABLE_OFFSET);
+            int bucketCount = arena.getInt(table + BUCKET_COUNT_OFFSET);
+            int bucketAddr = table + BUCKET_ARRAY_OFFSET + ((h & (bucketCount - 1)) * 4);
+            int head = arena.getIntAcquire(bucketAddr);
+            int entry = findEntry(head, key);
+            if (entry != -1) {
+                arena.putIntRelease(entry + ENTRY_VALUE_OFFSET, value);
+                return;
+            }
+
+            int newEntry = allocEntry(stripe);
+            arena.putInt(newEntry + ENTRY_KEY_OFFSET, key);
+            arena.putInt(newEntry + ENTRY_VALUE_OFFSET, value);
+            arena.putInt(newEntry + ENTRY_NEXT_OFFSET, head);
+            arena.putIntRelease(bucketAddr, newEntry);
+
+            int stripeSize = arena.getInt(stripe + STRIPE_SIZE_OFFSET) + 1;
+            arena.putIntRelease(stripe + STRIPE_SIZE_OFFSET, stripeSize);
+            grow = stripeSize > bucketCount / arena.getInt(tableAddr + STRIPE_COUNT_OFFSET);
+        } finally {
+            unlock(stripe, seq);
+        }
+
+        if (grow) {
+            resize(tableAddr);
+        }
+    }
+
+    public Integer get(int tableAddr, int key) {
+        checkTablePtr(tableAddr);
+        int h = RobinHoodHashTableStore.mix(key);
+        int stripe = stripeFor(tableAddr, h);
+        while (true) {
+            int seq = arena.getIntAcquire(stripe + STRIPE_SEQ_OFFSET);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int entry = readEntry(tableAddr, stripe, h, key);
+            int value = entry == -1 ? 0 : arena.getIntAcquire(entry + ENTRY_VALUE_OFFSET);
+            VarHandle.acquireFence();
+            if (arena.getIntAcquire(stripe + STRIPE_SEQ_OFFSET) == seq) {
+                return entry == -1 ? null : value;
+            }
+        }
+    }
+
+    public int getOrDefault(int tableAddr, int key, int defaultValue) {
+        Integer value = get(tableAddr, key);
+        return value == null ? defaultValue : value;
+    }
+
+    public boolean containsKey(int tableAddr, int key) {
+        return get(tableAddr, key) != null;
+    }
+
+    public boolean remove(int tableAddr, int key) {
+        checkTablePtr(tableAddr);
+        int h = RobinHoodHashTableStore.mix(key);
+        int stripe = stripeFor(tableAddr, h);
+
+        int seq = lock(stripe);
+        try {
+            int table = arena.getIntAcquire(tableAddr + TABLE_OFFSET);
+            int bucketCount = arena.getInt(table + BUCKET_COUNT_OFFSET);
+            int linkAddr = table + BUCKET_ARRAY_OFFSET + ((h & (bucketCount - 1)) * 4);
+            int current = arena.getIntAcquire(linkAddr);
+            while (current != -1) {
+                if (arena.getInt(current + ENTRY_KEY_OFFSET) == key) {
+                    arena.putIntRelease(linkAddr, arena.getIntAcquire(current + ENTRY_NEXT_OFFSET));
+                    arena.putIntRelease(stripe + STRIPE_SIZE_OFFSET, arena.getInt(stripe + STRIPE_SIZE_OFFSET) - 1);
+                    arena.putIntRelease(current + ENTRY_NEXT_OFFSET, arena.getInt(stripe + STRIPE_FREE_HEAD_OFFSET));
+                    arena.putInt(stripe + STRIPE_FREE_HEAD_OFFSET, current);
+                    return true;
+                }
+                linkAddr = current + ENTRY_NEXT_OFFSET;
+                current = arena.getIntAcquire(linkAddr);
+            }
+            return false;
+        } finally {
+            unlock(stripe, seq);
+        }
+    }
+
+    public int getSize(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int stripes = arena.getInt(tableAddr + STRIPES_OFFSET);
+        int stripeCount = arena.getInt(tableAddr + STRIPE_COUNT_OFFSET);
+        int size = 0;
+        for (int i = 0; i < stripeCount; i++) {
+            size += arena.getIntAcquire(stripes + (i * STRIPE_STRIDE) + STRIPE_SIZE_OFFSET);
+        }
+        return size;
+    }
+
+    public int getBucketCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(arena.getIntAcquire(tableAddr + TABLE_OFFSET) + BUCKET_COUNT_OFFSET);
+    }
+
+    public int getStripeCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + STRIPE_COUNT_OFFSET);
+    }
+
+    public int getResizeCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getIntAcquire(tableAddr + RESIZE_COUNT_OFFSET);
+    }
+
+    public void printStats(int tableAddr) {
+        System.out.println("ConcurrentHashTable (size: " + getSize(tableAddr) + ", buckets: " + getBucketCount(tableAddr)
+            + ", stripes: " + getStripeCount(tableAddr) + ", resizes: " + getResizeCount(tableAddr) + ")");
+    }
+
+    private int readEntry(int tableAddr, int stripe, int h, int key) {
+        int table = arena.getIntAcquire(tableAddr + TABLE_OFFSET);
+        int bucketCount = arena.getIntAcquire(table + BUCKET_COUNT_OFFSET);
+        int entry = arena.getIntAcquire(table + BUCKET_ARRAY_OFFSET + ((h & (bucketCount - 1)) * 4));
+        int limit = arena.getIntAcquire(stripe + STRIPE_SIZE_OFFSET);
+        for (int steps = 0; entry != -1 && steps <= limit; steps++) {
+            if (arena.getIntAcquire(entry + ENTRY_KEY_OFFSET) == key) {
+                return entry;
+            }
+            entry = arena.getIntAcquire(entry + ENTRY_NEXT_OFFSET);
+        }
+        return -1;
+    }
+
+    private int findEntry(int head, int key) {
+        int current = head;
+        while (current != -1) {
+            if (arena.getInt(current + ENTRY_KEY_OFFSET) == key) {
+                return current;
+            }
+            current = arena.getIntAcquire(current + ENTRY_NEXT_OFFSET);
+        }
+        return -1;
+    }
+
+    private void resize(int tableAddr) {
+        int stripes = arena.getInt(tableAddr + STRIPES_OFFSET);
+        int stripeCount = arena.getInt(tableAddr + STRIPE_COUNT_OFFSET);
+        int[] seqs = new int[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            seqs[i] = lock(stripes + (i * STRIPE_STRIDE));
+        }
+        try {
+            int table = arena.getIntAcquire(tableAddr + TABLE_OFFSET);
+            int bucketCount = arena.getInt(table + BUCKET_COUNT_OFFSET);
+            int maxStripeSize = 0;
+            for (int i = 0; i < stripeCount; i++) {
+                maxStripeSize = Math.max(maxStripeSize, arena.getInt(stripes + (i * STRIPE_STRIDE) + STRIPE_SIZE_OFFSET));
+            }
+            if (maxStripeSize <= bucketCount / stripeCount) {
+                return;
+            }
+
+            int newBucketCount = bucketCount * 2;
+            int newTable = allocBuckets(newBucketCount);
+            int[] tails = new int[newBucketCount];
+            java.util.Arrays.fill(tails, -1);
+            for (int b = 0; b < bucketCount; b++) {
+                int entry = arena.getIntAcquire(table + BUCKET_ARRAY_OFFSET + (b * 4));
+                while (entry != -1) {
+                    int next = arena.getIntAcquire(entry + ENTRY_NEXT_OFFSET);
+                    int index = RobinHoodHashTableStore.mix(arena.getInt(entry + ENTRY_KEY_OFFSET)) & (newBucketCount - 1);
+                    int linkAddr = tails[index] == -1
+                        ? newTable + BUCKET_ARRAY_OFFSET + (index * 4)
+                        : tails[index] + ENTRY_NEXT_OFFSET;
+                    arena.putIntRelease(linkAddr, entry);
+                    arena.putIntRelease(entry + ENTRY_NEXT_OFFSET, -1);
+                    tails[index] = entry;
+                    entry = next;
+                }
+            }
+            arena.putIntRelease(tableAddr + TABLE_OFFSET, newTable);
+            arena.putIntRelease(tableAddr + RESIZE_COUNT_OFFSET, arena.getInt(tableAddr + RESIZE_COUNT_OFFSET) + 1);
+            arena.abandon(table, BUCKET_ARRAY_OFFSET + (bucketCount * 4));
+        } finally {
+            for (int i = stripeCount - 1; i >= 0; i--) {
+                unlock(stripes + (i * STRIPE_STRIDE), seqs[i]);
+            }
+        }
+    }
+
+    private int allocEntry(int stripe) {
+        int entry = arena.getInt(stripe + STRIPE_FREE_HEAD_OFFSET);
+        if (entry != -1) {
+            arena.putInt(stripe + STRIPE_FREE_HEAD_OFFSET, arena.getInt(entry + ENTRY_NEXT_OFFSET));
+            return entry;
+        }
+        entry = arena.getInt(stripe + STRIPE_CHUNK_NEXT_OFFSET);
+        if (entry == arena.getInt(stripe + STRIPE_CHUNK_END_OFFSET)) {
+            int chunkEntries = Math.min(MAX_CHUNK_ENTRIES, Math.max(MIN_CHUNK_ENTRIES, arena.getInt(stripe + STRIPE_SIZE_OFFSET)));
+            entry = arena.allocAligned(chunkEntries * ENTRY_SIZE, 4);
+            arena.putInt(stripe + STRIPE_CHUNK_END_OFFSET, entry + (chunkEntries * ENTRY_SIZE));
+        }
+        arena.putInt(stripe + STRIPE_CHUNK_NEXT_OFFSET, entry + ENTRY_SIZE);
+        return entry;
+    }
+
+    private int allocBuckets(int bucketCount) {
+        int table = arena.allocAligned(BUCKET_ARRAY_OFFSET + (bucketCount * 4), 8);
+        arena.putInt(table + BUCKET_COUNT_OFFSET, bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            arena.putInt(table + BUCKET_ARRAY_OFFSET + (i * 4), -1);
+        }
+        return table;
+    }
+
+    private int stripeFor(int tableAddr, int h) {
+        int stripeCount = arena.getInt(tableAddr + STRIPE_COUNT_OFFSET);
+        return arena.getInt(tableAddr + STRIPES_OFFSET) + ((h & (stripeCount - 1)) * STRIPE_STRIDE);
+    }
+
+    private int lock(int stripe) {
+        while (true) {
+            int seq = arena.getIntVolatile(stripe + STRIPE_SEQ_OFFSET);
+            if ((seq & 1) == 0 && arena.compareAndSetInt(stripe + STRIPE_SEQ_OFFSET, seq, seq + 1)) {
+                return seq + 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlock(int stripe, int seq) {
+        arena.putIntRelease(stripe + STRIPE_SEQ_OFFSET, seq + 1);
+    }
+
+    private void checkTablePtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
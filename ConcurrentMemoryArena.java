@@ -0,0 +1,45 @@
+public class ConcurrentMemoryArena extends MemoryArena {
+    public ConcurrentMemoryArena(int size) {
+        super(size);
+    }
+
+    @Override
+    public synchronized int alloc(int size) {
+        return super.alloc(size);
+    }
+
+    @Override
+    public synchronized int allocAligned(int size, int alignment) {
+        return super.allocAligned(size, alignment);
+    }
+
+    @Override
+    public synchronized boolean release(int addr, int size) {
+        return super.release(addr, size);
+    }
+
+    @Override
+    public synchronized boolean extend(int addr, int size, int extraSize) {
+        return super.extend(addr, size, extraSize);
+    }
+
+    @Override
+    public synchronized void abandon(int addr, int size) {
+        super.abandon(addr, size);
+    }
+
+    @Override
+    public synchronized void reset() {
+        super.reset();
+    }
+
+    @Override
+    public synchronized void restore(int used, int alignmentWaste, int abandonedBytes, int generation) {
+        super.restore(used, alignmentWaste, abandonedBytes, generation);
+    }
+
+    @Override
+    public synchronized void resetAlignmentWaste() {
+        super.resetAlignmentWaste();
+    }
+}
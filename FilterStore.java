@@ -0,0 +1,327 @@
+public class FilterStore {
+    public static final int TYPE_BLOOM = 0;
+    public static final int TYPE_CUCKOO = 1;
+
+    private final MemoryArena arena;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int SLOT_COUNT_OFFSET = 4;
+    private static final int HASH_COUNT_OFFSET = 8;
+    private static final int SIZE_OFFSET = 12;
+    private static final int DATA_OFFSET = 16;
+    private static final int VICTIM_FINGERPRINT_OFFSET = 20;
+    private static final int VICTIM_INDEX_OFFSET = 24;
+    private static final int QUERIES_OFFSET = 28;
+    private static final int REJECTED_OFFSET = 36;
+    private static final int FALSE_POSITIVES_OFFSET = 44;
+    private static final int HEADER_SIZE = 52;
+
+    private static final int BLOCK_SIZE = 64;
+    private static final int BLOCK_BITS = BLOCK_SIZE * 8;
+    private static final int BUCKET_SLOTS = 4;
+    private static final int BUCKET_SIZE = BUCKET_SLOTS * 2;
+    private static final int MAX_KICKS = 500;
+
+    public FilterStore(MemoryArena arena) {
+        this.arena = arena;
+    }
+
+    public int createBloomFilter(int expectedItems, int bitsPerItem) {
+        if (expectedItems <= 0 || bitsPerItem <= 0) {
+            throw new IllegalArgumentException("Expected items and bits per item must be positive");
+        }
+        int blocks = 1;
+        while ((long) blocks * BLOCK_BITS < (long) expectedItems * bitsPerItem) {
+            blocks <<= 1;
+        }
+        int hashCount = Math.max(1, Math.min(16, Math.round(bitsPerItem * 0.6931f)));
+        return createFilter(TYPE_BLOOM, blocks, hashCount, blocks * BLOCK_SIZE);
+    }
+
+    public int createCuckooFilter(int expectedItems) {
+        if (expectedItems <= 0) {
+            throw new IllegalArgumentException("Expected items must be positive");
+        }
+        int buckets = 1;
+        while ((long) buckets * BUCKET_SLOTS * 95 < (long) expectedItems * 100) {
+            buckets <<= 1;
+        }
+        return createFilter(TYPE_CUCKOO, buckets, 2, buckets * BUCKET_SIZE);
+    }
+
+    public int getType(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getInt(filterAddr + TYPE_OFFSET);
+    }
+
+    public boolean supportsDeletion(int filterAddr) {
+        return getType(filterAddr) == TYPE_CUCKOO;
+    }
+
+    public int getSize(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getInt(filterAddr + SIZE_OFFSET);
+    }
+
+    public int getByteSize(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        int slots = arena.getInt(filterAddr + SLOT_COUNT_OFFSET);
+        return HEADER_SIZE + slots * (getType(filterAddr) == TYPE_BLOOM ? BLOCK_SIZE : BUCKET_SIZE);
+    }
+
+    public boolean isFull(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getInt(filterAddr + TYPE_OFFSET) == TYPE_CUCKOO
+            && arena.getInt(filterAddr + VICTIM_FINGERPRINT_OFFSET) != -1;
+    }
+
+    public void abandon(int filterAddr) {
+        int byteSize = getByteSize(filterAddr);
+        arena.abandon(arena.getInt(filterAddr + DATA_OFFSET), byteSize - HEADER_SIZE);
+        arena.abandon(filterAddr, HEADER_SIZE);
+    }
+
+    public boolean add(int filterAddr, int key) {
+        checkFilterPtr(filterAddr);
+        long h = LongHashMapStore.mix64(key);
+        boolean changed = arena.getInt(filterAddr + TYPE_OFFSET) == TYPE_BLOOM
+            ? bloomAdd(filterAddr, h)
+            : cuckooAdd(filterAddr, h);
+        arena.putInt(filterAddr + SIZE_OFFSET, arena.getInt(filterAddr + SIZE_OFFSET) + 1);
+        return changed;
+    }
+
+    public boolean mightContain(int filterAddr, int key) {
+        checkFilterPtr(filterAddr);
+        long h = LongHashMapStore.mix64(key);
+        boolean result = arena.getInt(filterAddr + TYPE_OFFSET) == TYPE_BLOOM
+            ? bloomContains(filterAddr, h)
+            : cuckooFind(filterAddr, h) != -1;
+        increment(filterAddr + QUERIES_OFFSET);
+        if (!result) {
+            increment(filterAddr + REJECTED_OFFSET);
+        }
+        return result;
+    }
+
+    public boolean remove(int filterAddr, int key) {
+        checkFilterPtr(filterAddr);
+        if (arena.getInt(filterAddr + TYPE_OFFSET) != TYPE_CUCKOO) {
+            throw new UnsupportedOperationException("Bloom filters do not support deletion");
+        }
+        long h = LongHashMapStore.mix64(key);
+        int slot = cuckooFind(filterAddr, h);
+        if (slot == -1) {
+            return false;
+        }
+        if (slot == filterAddr + VICTIM_FINGERPRINT_OFFSET) {
+            arena.putInt(filterAddr + VICTIM_FINGERPRINT_OFFSET, -1);
+        } else {
+            arena.putShort(slot, (short) 0);
+            reinsertVictim(filterAddr);
+        }
+        arena.putInt(filterAddr + SIZE_OFFSET, arena.getInt(filterAddr + SIZE_OFFSET) - 1);
+        return true;
+    }
+
+    public void recordFalsePositive(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        increment(filterAddr + FALSE_POSITIVES_OFFSET);
+    }
+
+    public long getQueryCount(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getLong(filterAddr + QUERIES_OFFSET);
+    }
+
+    public long getRejectedCount(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getLong(filterAddr + REJECTED_OFFSET);
+    }
+
+    public long getFalsePositiveCount(int filterAddr) {
+        checkFilterPtr(filterAddr);
+        return arena.getLong(filterAddr + FALSE_POSITIVES_OFFSET);
+    }
+
+    public double getFalsePositiveRate(int filterAddr) {
+        long falsePositives = getFalsePositiveCount(filterAddr);
+        long negatives = falsePositives + getRejectedCount(filterAddr);
+        return negatives == 0 ? 0.0 : (double) falsePositives / negatives;
+    }
+
+    public void printStats(int filterAddr) {
+        String type = getType(filterAddr) == TYPE_BLOOM ? "Blocked Bloom" : "Cuckoo";
+        System.out.println(type + " filter (items: " + getSize(filterAddr) + ", bytes: " + getByteSize(filterAddr) + "):");
+        System.out.println("  Queries: " + getQueryCount(filterAddr)
+            + ", rejected without probing: " + getRejectedCount(filterAddr)
+            + ", false positives: " + getFalsePositiveCount(filterAddr));
+        System.out.println("  Observed false-positive rate: " + String.format("%.3f%%", getFalsePositiveRate(filterAddr) * 100));
+    }
+
+    private int createFilter(int type, int slotCount, int hashCount, int dataSize) {
+        int filterAddr = arena.alloc(HEADER_SIZE);
+        int data = arena.allocAligned(dataSize, BLOCK_SIZE);
+        for (int i = 0; i < dataSize; i++) {
+            arena.putByte(data + i, (byte) 0);
+        }
+        arena.putInt(filterAddr + TYPE_OFFSET, type);
+        arena.putInt(filterAddr + SLOT_COUNT_OFFSET, slotCount);
+        arena.putInt(filterAddr + HASH_COUNT_OFFSET, hashCount);
+        arena.putInt(filterAddr + SIZE_OFFSET, 0);
+        arena.putInt(filterAddr + DATA_OFFSET, data);
+        arena.putInt(filterAddr + VICTIM_FINGERPRINT_OFFSET, -1);
+        arena.putInt(filterAddr + VICTIM_INDEX_OFFSET, 0);
+        arena.putLong(filterAddr + QUERIES_OFFSET, 0L);
+        arena.putLong(filterAddr + REJECTED_OFFSET, 0L);
+        arena.putLong(filterAddr + FALSE_POSITIVES_OFFSET, 0L);
+        return filterAddr;
+    }
+
+    private boolean bloomAdd(int filterAddr, long h) {
+        int block = bloomBlock(filterAddr, h);
+        int hashCount = arena.getInt(filterAddr + HASH_COUNT_OFFSET);
+        long g = h * 0x9E3779B97F4A7C15L;
+        int a = (int) (g >>> 32);
+        int b = (int) g | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (a + (i * b)) >>> 23;
+            int byteAddr = block + (bit >>> 3);
+            byte current = arena.getByte(byteAddr);
+            byte updated = (byte) (current | (1 << (bit & 7)));
+            if (updated != current) {
+                arena.putByte(byteAddr, updated);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean bloomContains(int filterAddr, long h) {
+        int block = bloomBlock(filterAddr, h);
+        int hashCount = arena.getInt(filterAddr + HASH_COUNT_OFFSET);
+        long g = h * 0x9E3779B97F4A7C15L;
+        int a = (int) (g >>> 32);
+        int b = (int) g | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (a + (i * b)) >>> 23;
+            if ((arena.getByte(block + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bloomBlock(int filterAddr, long h) {
+        int blocks = arena.getInt(filterAddr + SLOT_COUNT_OFFSET);
+        int index = (int) (h >>> 32) & (blocks - 1);
+        return arena.getInt(filterAddr + DATA_OFFSET) + (index * BLOCK_SIZE);
+    }
+
+    private boolean cuckooAdd(int filterAddr, long h) {
+        if (arena.getInt(filterAddr + VICTIM_FINGERPRINT_OFFSET) != -1) {
+            throw new RuntimeException("Cuckoo filter at " + filterAddr + " is full");
+        }
+        int fingerprint = fingerprint(h);
+        int index = (int) h & (arena.getInt(filterAddr + SLOT_COUNT_OFFSET) - 1);
+        if (insertFingerprint(filterAddr, index, fingerprint)
+                || insertFingerprint(filterAddr, altIndex(filterAddr, index, fingerprint), fingerprint)) {
+            return true;
+        }
+
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = bucketAddr(filterAddr, index) + (((kick + fingerprint) & (BUCKET_SLOTS - 1)) * 2);
+            int evicted = arena.getShort(slot) & 0xFFFF;
+            arena.putShort(slot, (short) fingerprint);
+            fingerprint = evicted;
+            index = altIndex(filterAddr, index, fingerprint);
+            if (insertFingerprint(filterAddr, index, fingerprint)) {
+                return true;
+            }
+        }
+        arena.putInt(filterAddr + VICTIM_FINGERPRINT_OFFSET, fingerprint);
+        arena.putInt(filterAddr + VICTIM_INDEX_OFFSET, index);
+        return true;
+    }
+
+    private int cuckooFind(int filterAddr, long h) {
+        int fingerprint = fingerprint(h);
+        int index = (int) h & (arena.getInt(filterAddr + SLOT_COUNT_OFFSET) - 1);
+        int slot = findFingerprint(filterAddr, index, fingerprint);
+        if (slot != -1) {
+            return slot;
+        }
+        int alt = altIndex(filterAddr, index, fingerprint);
+        slot = findFingerprint(filterAddr, alt, fingerprint);
+        if (slot != -1) {
+            return slot;
+        }
+        int victimIndex = arena.getInt(filterAddr + VICTIM_INDEX_OFFSET);
+        if (arena.getInt(filterAddr + VICTIM_FINGERPRINT_OFFSET) == fingerprint
+                && (victimIndex == index || victimIndex == alt)) {
+            return filterAddr + VICTIM_FINGERPRINT_OFFSET;
+        }
+        return -1;
+    }
+
+    private void reinsertVictim(int filterAddr) {
+        int fingerprint = arena.getInt(filterAddr + VICTIM_FINGERPRINT_OFFSET);
+        if (fingerprint == -1) {
+            return;
+        }
+        int index = arena.getInt(filterAddr + VICTIM_INDEX_OFFSET);
+        if (insertFingerprint(filterAddr, index, fingerprint)
+                || insertFingerprint(filterAddr, altIndex(filterAddr, index, fingerprint), fingerprint)) {
+            arena.putInt(filterAddr + VICTIM_FINGERPRINT_OFFSET, -1);
+        }
+    }
+
+    private boolean insertFingerprint(int filterAddr, int index, int fingerprint) {
+        int bucket = bucketAddr(filterAddr, index);
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            if (arena.getShort(bucket + (i * 2)) == 0) {
+                arena.putShort(bucket + (i * 2), (short) fingerprint);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int findFingerprint(int filterAddr, int index, int fingerprint) {
+        int bucket = bucketAddr(filterAddr, index);
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            if ((arena.getShort(bucket + (i * 2)) & 0xFFFF) == fingerprint) {
+                return bucket + (i * 2);
+            }
+        }
+        return -1;
+    }
+
+    private int altIndex(int filterAddr, int index, int fingerprint) {
+        int mask = arena.getInt(filterAddr + SLOT_COUNT_OFFSET) - 1;
+        return (index ^ RobinHoodHashTableStore.mix(fingerprint)) & mask;
+    }
+
+    private int bucketAddr(int filterAddr, int index) {
+        return arena.getInt(filterAddr + DATA_OFFSET) + (index * BUCKET_SIZE);
+    }
+
+    private static int fingerprint(long h) {
+        int fingerprint = (int) (h >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private void increment(int counterAddr) {
+        if (!arena.isWritable()) {
+            return;
+        }
+        arena.putLong(counterAddr, arena.getLong(counterAddr) + 1);
+    }
+
+    private void checkFilterPtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
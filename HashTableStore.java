@@ -1,15 +1,92 @@
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 public class HashTableStore {
+    private class EntrySpliterator implements Spliterator.OfInt {
+        private final int tableAddr;
+        private final int fieldOffset;
+        private final long entryCount;
+        private final int bucketCount;
+        private int bucket;
+        private int fence;
+        private int current = -1;
+
+        EntrySpliterator(int tableAddr, int fieldOffset, int bucket, int fence) {
+            this.tableAddr = tableAddr;
+            this.fieldOffset = fieldOffset;
+            this.bucket = bucket;
+            this.fence = fence;
+            this.entryCount = arena.getInt(tableAddr + ENTRY_COUNT_OFFSET);
+            this.bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
+        }
+
+        @Override
+        public OfInt trySplit() {
+            if (current != -1) {
+                return null;
+            }
+            int mid = (bucket + fence) >>> 1;
+            if (mid <= bucket) {
+                return null;
+            }
+            EntrySpliterator prefix = new EntrySpliterator(tableAddr, fieldOffset, bucket, mid);
+            bucket = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            while (current == -1) {
+                if (bucket >= fence) {
+                    return false;
+                }
+                current = arena.getInt(tableAddr + BUCKET_ARRAY_OFFSET + (bucket++ * 4));
+            }
+            action.accept(arena.getInt(current + fieldOffset));
+            current = arena.getInt(current + ENTRY_NEXT_OFFSET);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (entryCount * (fence - bucket) + bucketCount - 1) / bucketCount;
+        }
+
+        @Override
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+
+    private static final class ProbeScratch {
+        final int[] lanes = new int[PROBE_GROUP_SIZE];
+        final int[] cursors = new int[PROBE_GROUP_SIZE];
+        final int[] found = new int[PROBE_GROUP_SIZE];
+    }
+
+    public static final int HANDLE_TAG = 3;
+
     private final MemoryArena arena;
+    private final FilterStore filterStore;
     private static final int BUCKET_COUNT_OFFSET = 0;
-    private static final int BUCKET_ARRAY_OFFSET = 4;
+    private static final int FREE_HEAD_OFFSET = 4;
+    private static final int FILTER_OFFSET = 8;
+    private static final int ENTRY_COUNT_OFFSET = 12;
+    private static final int BUCKET_ARRAY_OFFSET = 16;
     private static final int ENTRY_KEY_OFFSET = 0;
     private static final int ENTRY_VALUE_OFFSET = 4;
     private static final int ENTRY_NEXT_OFFSET = 8;
     private static final int ENTRY_SIZE = 12;
     private static final int DEFAULT_BUCKET_COUNT = 16;
+    private static final int PROBE_GROUP_SIZE = 16;
+    private static final int MIN_BATCH_SIZE = 4;
+    private static final ThreadLocal<ProbeScratch> PROBE_SCRATCH = ThreadLocal.withInitial(ProbeScratch::new);
 
     public HashTableStore(MemoryArena arena) {
         this.arena = arena;
+        this.filterStore = new FilterStore(arena);
     }
 
     public int createHashTable(int bucketCount) {
@@ -21,6 +98,9 @@ public class HashTableStore {
         int tableAddr = arena.alloc(headerSize);
         
         arena.putInt(tableAddr + BUCKET_COUNT_OFFSET, bucketCount);
+        arena.putInt(tableAddr + FREE_HEAD_OFFSET, -1);
+        arena.putInt(tableAddr + FILTER_OFFSET, -1);
+        arena.putInt(tableAddr + ENTRY_COUNT_OFFSET, 0);
         
         for (int i = 0; i < bucketCount; i++) {
             int bucketPtrAddr = tableAddr + BUCKET_ARRAY_OFFSET + (i * 4);
@@ -35,9 +115,21 @@ public class HashTableStore {
         return arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
     }
 
+    public long createHashTableHandle(int bucketCount) {
+        return arena.handle(createHashTable(bucketCount), HANDLE_TAG);
+    }
+
     public void put(int tableAddr, int key, int value) {
         checkTablePtr(tableAddr);
-        int bucketCount = getBucketCount(tableAddr);
+        putEntry(tableAddr, key, value);
+    }
+
+    public void put(long tableHandle, int key, int value) {
+        putEntry(arena.resolve(tableHandle, HANDLE_TAG), key, value);
+    }
+
+    private void putEntry(int tableAddr, int key, int value) {
+        int bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
         int bucketIndex = hash(key, bucketCount);
         
         int bucketPtrAddr = tableAddr + BUCKET_ARRAY_OFFSET + (bucketIndex * 4);
@@ -48,35 +140,132 @@ public class HashTableStore {
         if (entryAddr != -1) {
             arena.putInt(entryAddr + ENTRY_VALUE_OFFSET, value);
         } else {
-            int newEntryAddr = createEntry(key, value);
+            int filterAddr = arena.getInt(tableAddr + FILTER_OFFSET);
+            if (filterAddr != -1) {
+                if (filterStore.isFull(filterAddr)) {
+                    filterAddr = growFilter(tableAddr, filterAddr);
+                }
+                filterStore.add(filterAddr, key);
+            }
+            int newEntryAddr = createEntry(tableAddr, key, value);
             arena.putInt(newEntryAddr + ENTRY_NEXT_OFFSET, headAddr);
             arena.putInt(bucketPtrAddr, newEntryAddr);
+            arena.putInt(tableAddr + ENTRY_COUNT_OFFSET, arena.getInt(tableAddr + ENTRY_COUNT_OFFSET) + 1);
         }
     }
 
     public Integer get(int tableAddr, int key) {
         checkTablePtr(tableAddr);
-        int bucketCount = getBucketCount(tableAddr);
+        return getEntry(tableAddr, key);
+    }
+
+    public Integer get(long tableHandle, int key) {
+        return getEntry(arena.resolve(tableHandle, HANDLE_TAG), key);
+    }
+
+    private Integer getEntry(int tableAddr, int key) {
+        int entryAddr = lookupEntry(tableAddr, key);
+        return entryAddr == -1 ? null : arena.getInt(entryAddr + ENTRY_VALUE_OFFSET);
+    }
+
+    private int lookupEntry(int tableAddr, int key) {
+        int filterAddr = arena.getInt(tableAddr + FILTER_OFFSET);
+        if (filterAddr != -1 && !filterStore.mightContain(filterAddr, key)) {
+            return -1;
+        }
+        int bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
         int bucketIndex = hash(key, bucketCount);
         
         int bucketPtrAddr = tableAddr + BUCKET_ARRAY_OFFSET + (bucketIndex * 4);
         int headAddr = arena.getInt(bucketPtrAddr);
         
         int entryAddr = findEntry(headAddr, key);
-        if (entryAddr == -1) {
-            return null;
+        if (entryAddr == -1 && filterAddr != -1) {
+            filterStore.recordFalsePositive(filterAddr);
+        }
+        return entryAddr;
+    }
+
+    public int getAll(int tableAddr, int[] keys, int[] out, int missingValue) {
+        checkTablePtr(tableAddr);
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("Output array too small: " + out.length + " < " + keys.length);
+        }
+        int hits = 0;
+        if (keys.length < MIN_BATCH_SIZE) {
+            for (int i = 0; i < keys.length; i++) {
+                int entryAddr = lookupEntry(tableAddr, keys[i]);
+                if (entryAddr != -1) {
+                    out[i] = arena.getInt(entryAddr + ENTRY_VALUE_OFFSET);
+                    hits++;
+                } else {
+                    out[i] = missingValue;
+                }
+            }
+            return hits;
+        }
+        ProbeScratch scratch = PROBE_SCRATCH.get();
+        int[] found = scratch.found;
+        for (int base = 0; base < keys.length; base += PROBE_GROUP_SIZE) {
+            int count = Math.min(PROBE_GROUP_SIZE, keys.length - base);
+            probeGroup(scratch, tableAddr, keys, base, count);
+            for (int i = 0; i < count; i++) {
+                if (found[i] != -1) {
+                    out[base + i] = arena.getInt(found[i] + ENTRY_VALUE_OFFSET);
+                    hits++;
+                } else {
+                    out[base + i] = missingValue;
+                }
+            }
+        }
+        return hits;
+    }
+
+    public void putAll(int tableAddr, int[] keys, int[] values) {
+        checkTablePtr(tableAddr);
+        if (values.length < keys.length) {
+            throw new IllegalArgumentException("Value array too small: " + values.length + " < " + keys.length);
+        }
+        if (keys.length < MIN_BATCH_SIZE) {
+            for (int i = 0; i < keys.length; i++) {
+                putEntry(tableAddr, keys[i], values[i]);
+            }
+            return;
+        }
+        ProbeScratch scratch = PROBE_SCRATCH.get();
+        int[] found = scratch.found;
+        for (int base = 0; base < keys.length; base += PROBE_GROUP_SIZE) {
+            int count = Math.min(PROBE_GROUP_SIZE, keys.length - base);
+            probeGroup(scratch, tableAddr, keys, base, count);
+            for (int i = 0; i < count; i++) {
+                if (found[i] != -1) {
+                    arena.putInt(found[i] + ENTRY_VALUE_OFFSET, values[base + i]);
+                } else {
+                    putEntry(tableAddr, keys[base + i], values[base + i]);
+                }
+            }
         }
-        
-        return arena.getInt(entryAddr + ENTRY_VALUE_OFFSET);
     }
 
     public boolean contains(int tableAddr, int key) {
         return get(tableAddr, key) != null;
     }
 
+    public boolean contains(long tableHandle, int key) {
+        return get(tableHandle, key) != null;
+    }
+
     public void remove(int tableAddr, int key) {
         checkTablePtr(tableAddr);
-        int bucketCount = getBucketCount(tableAddr);
+        removeEntry(tableAddr, key);
+    }
+
+    public void remove(long tableHandle, int key) {
+        removeEntry(arena.resolve(tableHandle, HANDLE_TAG), key);
+    }
+
+    private void removeEntry(int tableAddr, int key) {
+        int bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
         int bucketIndex = hash(key, bucketCount);
         
         int bucketPtrAddr = tableAddr + BUCKET_ARRAY_OFFSET + (bucketIndex * 4);
@@ -89,6 +278,8 @@ public class HashTableStore {
         if (arena.getInt(headAddr + ENTRY_KEY_OFFSET) == key) {
             int nextAddr = arena.getInt(headAddr + ENTRY_NEXT_OFFSET);
             arena.putInt(bucketPtrAddr, nextAddr);
+            freeEntry(tableAddr, headAddr);
+            removeFromFilter(tableAddr, key);
             return;
         }
         
@@ -102,6 +293,8 @@ public class HashTableStore {
             if (arena.getInt(nextAddr + ENTRY_KEY_OFFSET) == key) {
                 int nextNextAddr = arena.getInt(nextAddr + ENTRY_NEXT_OFFSET);
                 arena.putInt(current + ENTRY_NEXT_OFFSET, nextNextAddr);
+                freeEntry(tableAddr, nextAddr);
+                removeFromFilter(tableAddr, key);
                 return;
             }
             
@@ -109,6 +302,131 @@ public class HashTableStore {
         }
     }
 
+    public void attachFilter(int tableAddr, int filterAddr) {
+        checkTablePtr(tableAddr);
+        arena.putInt(tableAddr + FILTER_OFFSET, fillFilter(tableAddr, filterAddr));
+    }
+
+    private int fillFilter(int tableAddr, int filterAddr) {
+        int bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
+        for (int i = 0; i < bucketCount; i++) {
+            int current = arena.getInt(tableAddr + BUCKET_ARRAY_OFFSET + (i * 4));
+            while (current != -1) {
+                if (filterStore.isFull(filterAddr)) {
+                    int expected = Math.max(DEFAULT_BUCKET_COUNT, arena.getInt(tableAddr + ENTRY_COUNT_OFFSET) * 2);
+                    return fillFilter(tableAddr, filterStore.createCuckooFilter(expected));
+                }
+                filterStore.add(filterAddr, arena.getInt(current + ENTRY_KEY_OFFSET));
+                current = arena.getInt(current + ENTRY_NEXT_OFFSET);
+            }
+        }
+        return filterAddr;
+    }
+
+    private int growFilter(int tableAddr, int filterAddr) {
+        int expected = Math.max(DEFAULT_BUCKET_COUNT, filterStore.getSize(filterAddr) * 2);
+        int grown = fillFilter(tableAddr, filterStore.createCuckooFilter(expected));
+        arena.putInt(tableAddr + FILTER_OFFSET, grown);
+        filterStore.abandon(filterAddr);
+        return grown;
+    }
+
+    public int getFilter(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + FILTER_OFFSET);
+    }
+
+    public MemoryArena getArena() {
+        return arena;
+    }
+
+    public FilterStore getFilterStore() {
+        return filterStore;
+    }
+
+    public int getFreeListSize(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int count = 0;
+        int current = arena.getInt(tableAddr + FREE_HEAD_OFFSET);
+        while (current != -1) {
+            count++;
+            current = arena.getInt(current + ENTRY_NEXT_OFFSET);
+        }
+        return count;
+    }
+
+    public int getEntryCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + ENTRY_COUNT_OFFSET);
+    }
+
+    public int compact(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int bucketCount = getBucketCount(tableAddr);
+        int entryCount = getEntryCount(tableAddr);
+        int freeCount = getFreeListSize(tableAddr);
+
+        int[] keys = new int[entryCount];
+        int[] values = new int[entryCount];
+        int[] bucketEnds = new int[bucketCount];
+        int[] slots = new int[entryCount + freeCount];
+        int n = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int current = arena.getInt(tableAddr + BUCKET_ARRAY_OFFSET + (i * 4));
+            while (current != -1) {
+                keys[n] = arena.getInt(current + ENTRY_KEY_OFFSET);
+                values[n] = arena.getInt(current + ENTRY_VALUE_OFFSET);
+                slots[n++] = current;
+                current = arena.getInt(current + ENTRY_NEXT_OFFSET);
+            }
+            bucketEnds[i] = n;
+        }
+        int free = arena.getInt(tableAddr + FREE_HEAD_OFFSET);
+        while (free != -1) {
+            slots[n++] = free;
+            free = arena.getInt(free + ENTRY_NEXT_OFFSET);
+        }
+        java.util.Arrays.sort(slots);
+
+        int start = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int end = bucketEnds[i];
+            for (int e = start; e < end; e++) {
+                arena.putInt(slots[e] + ENTRY_KEY_OFFSET, keys[e]);
+                arena.putInt(slots[e] + ENTRY_VALUE_OFFSET, values[e]);
+                arena.putInt(slots[e] + ENTRY_NEXT_OFFSET, e + 1 < end ? slots[e + 1] : -1);
+            }
+            arena.putInt(tableAddr + BUCKET_ARRAY_OFFSET + (i * 4), start < end ? slots[start] : -1);
+            start = end;
+        }
+
+        int top = slots.length;
+        while (top > entryCount && arena.release(slots[top - 1], ENTRY_SIZE)) {
+            top--;
+        }
+        for (int e = entryCount; e < top; e++) {
+            arena.putInt(slots[e] + ENTRY_NEXT_OFFSET, e + 1 < top ? slots[e + 1] : -1);
+        }
+        arena.putInt(tableAddr + FREE_HEAD_OFFSET, top > entryCount ? slots[entryCount] : -1);
+        return entryCount;
+    }
+
+    public Spliterator.OfInt keySpliterator(int tableAddr) {
+        return new EntrySpliterator(tableAddr, ENTRY_KEY_OFFSET, 0, getBucketCount(tableAddr));
+    }
+
+    public Spliterator.OfInt valueSpliterator(int tableAddr) {
+        return new EntrySpliterator(tableAddr, ENTRY_VALUE_OFFSET, 0, getBucketCount(tableAddr));
+    }
+
+    public IntStream keys(int tableAddr, boolean parallel) {
+        return StreamSupport.intStream(keySpliterator(tableAddr), parallel);
+    }
+
+    public IntStream values(int tableAddr, boolean parallel) {
+        return StreamSupport.intStream(valueSpliterator(tableAddr), parallel);
+    }
+
     public void printHashTable(int tableAddr) {
         checkTablePtr(tableAddr);
         int bucketCount = getBucketCount(tableAddr);
@@ -127,17 +445,79 @@ public class HashTableStore {
     }
 
     private int hash(int key, int bucketCount) {
-        return Math.abs(key) % bucketCount;
+        return Integer.remainderUnsigned(key, bucketCount);
     }
 
-    private int createEntry(int key, int value) {
-        int entryAddr = arena.alloc(ENTRY_SIZE);
+    private int createEntry(int tableAddr, int key, int value) {
+        int entryAddr = arena.getInt(tableAddr + FREE_HEAD_OFFSET);
+        if (entryAddr != -1) {
+            arena.putInt(tableAddr + FREE_HEAD_OFFSET, arena.getInt(entryAddr + ENTRY_NEXT_OFFSET));
+        } else {
+            entryAddr = arena.alloc(ENTRY_SIZE);
+        }
         arena.putInt(entryAddr + ENTRY_KEY_OFFSET, key);
         arena.putInt(entryAddr + ENTRY_VALUE_OFFSET, value);
         arena.putInt(entryAddr + ENTRY_NEXT_OFFSET, -1);
         return entryAddr;
     }
 
+    private void probeGroup(ProbeScratch scratch, int tableAddr, int[] keys, int base, int count) {
+        int[] lanes = scratch.lanes;
+        int[] cursors = scratch.cursors;
+        int[] found = scratch.found;
+        int bucketCount = arena.getInt(tableAddr + BUCKET_COUNT_OFFSET);
+        int filterAddr = arena.getInt(tableAddr + FILTER_OFFSET);
+        int active = 0;
+        for (int i = 0; i < count; i++) {
+            found[i] = -1;
+            int key = keys[base + i];
+            if (filterAddr != -1 && !filterStore.mightContain(filterAddr, key)) {
+                continue;
+            }
+            lanes[active] = i;
+            cursors[active] = tableAddr + BUCKET_ARRAY_OFFSET + (hash(key, bucketCount) * 4);
+            active++;
+        }
+        for (int i = 0; i < active; i++) {
+            cursors[i] = arena.getInt(cursors[i]);
+        }
+
+        while (active > 0) {
+            int next = 0;
+            for (int i = 0; i < active; i++) {
+                int entryAddr = cursors[i];
+                int lane = lanes[i];
+                if (entryAddr == -1) {
+                    if (filterAddr != -1) {
+                        filterStore.recordFalsePositive(filterAddr);
+                    }
+                    continue;
+                }
+                if (arena.getInt(entryAddr + ENTRY_KEY_OFFSET) == keys[base + lane]) {
+                    found[lane] = entryAddr;
+                    continue;
+                }
+                cursors[next] = arena.getInt(entryAddr + ENTRY_NEXT_OFFSET);
+                lanes[next] = lane;
+                next++;
+            }
+            active = next;
+        }
+    }
+
+    private void removeFromFilter(int tableAddr, int key) {
+        int filterAddr = arena.getInt(tableAddr + FILTER_OFFSET);
+        if (filterAddr != -1 && filterStore.supportsDeletion(filterAddr)) {
+            filterStore.remove(filterAddr, key);
+        }
+    }
+
+    private void freeEntry(int tableAddr, int entryAddr) {
+        arena.putInt(tableAddr + ENTRY_COUNT_OFFSET, arena.getInt(tableAddr + ENTRY_COUNT_OFFSET) - 1);
+        arena.putInt(entryAddr + ENTRY_NEXT_OFFSET, arena.getInt(tableAddr + FREE_HEAD_OFFSET));
+        arena.putInt(tableAddr + FREE_HEAD_OFFSET, entryAddr);
+    }
+
     private int findEntry(int headAddr, int key) {
         int current = headAddr;
         while (current != -1) {
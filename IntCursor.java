@@ -0,0 +1,5 @@
+public interface IntCursor {
+    boolean hasNext();
+
+    int next();
+}
@@ -0,0 +1,5 @@
+public interface LongCursor {
+    boolean hasNext();
+
+    long next();
+}
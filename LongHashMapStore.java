@@ -0,0 +1,279 @@
+public class LongHashMapStore {
+    public interface EntryVisitor {
+        void visit(long key, long value);
+    }
+
+    private final MemoryArena arena;
+
+    private static final int SIZE_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int VALUE_SIZE_OFFSET = 8;
+    private static final int CTRL_OFFSET = 12;
+    private static final int SLOTS_OFFSET = 16;
+    private static final int HEADER_SIZE = 20;
+
+    private static final int SLOT_KEY_OFFSET = 0;
+    private static final int SLOT_VALUE_OFFSET = 8;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 80;
+
+    public LongHashMapStore(MemoryArena arena) {
+        this.arena = arena;
+    }
+
+    public int createLongMap(int initialCapacity) {
+        return createMap(initialCapacity, 8);
+    }
+
+    public int createIntMap(int initialCapacity) {
+        return createMap(initialCapacity, 4);
+    }
+
+    public int getSize(int mapAddr) {
+        checkMapPtr(mapAddr);
+        return arena.getInt(mapAddr + SIZE_OFFSET);
+    }
+
+    public int getCapacity(int mapAddr) {
+        checkMapPtr(mapAddr);
+        return arena.getInt(mapAddr + CAPACITY_OFFSET);
+    }
+
+    public void putLong(int mapAddr, long key, long value) {
+        checkMapPtr(mapAddr);
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) != 8) {
+            throw new IllegalArgumentException("Map at " + mapAddr + " stores int values");
+        }
+        writeValue(mapAddr, findOrInsert(mapAddr, key), value);
+    }
+
+    public void putInt(int mapAddr, long key, int value) {
+        checkMapPtr(mapAddr);
+        writeValue(mapAddr, findOrInsert(mapAddr, key), value);
+    }
+
+    public long getLong(int mapAddr, long key, long defaultValue) {
+        checkMapPtr(mapAddr);
+        int slot = find(mapAddr, key);
+        return slot == -1 ? defaultValue : readValue(mapAddr, slot);
+    }
+
+    public int getInt(int mapAddr, long key, int defaultValue) {
+        checkMapPtr(mapAddr);
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) != 4) {
+            throw new IllegalArgumentException("Map at " + mapAddr + " stores long values");
+        }
+        int slot = find(mapAddr, key);
+        return slot == -1 ? defaultValue : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    public boolean containsKey(int mapAddr, long key) {
+        checkMapPtr(mapAddr);
+        return find(mapAddr, key) != -1;
+    }
+
+    public boolean remove(int mapAddr, long key) {
+        checkMapPtr(mapAddr);
+        int capacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        int mask = capacity - 1;
+
+        long h = mix64(key);
+        int index = indexOf(mapAddr, key, h);
+        if (index == -1) {
+            return false;
+        }
+
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            if (arena.getByte(ctrl + next) == 0) {
+                break;
+            }
+            int home = (int) mix64(arena.getLong(slots + (next * slotSize) + SLOT_KEY_OFFSET)) & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                arena.putByte(ctrl + index, arena.getByte(ctrl + next));
+                arena.copy(slots + (next * slotSize), slots + (index * slotSize), slotSize);
+                index = next;
+            }
+        }
+        arena.putByte(ctrl + index, (byte) 0);
+        arena.putInt(mapAddr + SIZE_OFFSET, arena.getInt(mapAddr + SIZE_OFFSET) - 1);
+        return true;
+    }
+
+    public void abandon(int mapAddr) {
+        checkMapPtr(mapAddr);
+        int capacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        arena.abandon(arena.getInt(mapAddr + SLOTS_OFFSET), capacity * slotSize(mapAddr));
+        arena.abandon(arena.getInt(mapAddr + CTRL_OFFSET), capacity);
+        arena.abandon(mapAddr, HEADER_SIZE);
+    }
+
+    public void forEach(int mapAddr, EntryVisitor visitor) {
+        checkMapPtr(mapAddr);
+        int capacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        for (int i = 0; i < capacity; i++) {
+            if (arena.getByte(ctrl + i) != 0) {
+                int slot = slots + (i * slotSize);
+                visitor.visit(arena.getLong(slot + SLOT_KEY_OFFSET), readValue(mapAddr, slot));
+            }
+        }
+    }
+
+    public void printMap(int mapAddr) {
+        System.out.println("LongHashMap (size: " + getSize(mapAddr) + ", capacity: " + getCapacity(mapAddr)
+            + ", value bytes: " + arena.getInt(mapAddr + VALUE_SIZE_OFFSET) + "):");
+        forEach(mapAddr, (key, value) -> System.out.println("  " + key + " -> " + value));
+    }
+
+    private int createMap(int initialCapacity, int valueSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while ((long) capacity * MAX_LOAD_PERCENT < (long) initialCapacity * 100) {
+            capacity <<= 1;
+        }
+        int mapAddr = arena.alloc(HEADER_SIZE);
+        arena.putInt(mapAddr + SIZE_OFFSET, 0);
+        arena.putInt(mapAddr + VALUE_SIZE_OFFSET, valueSize);
+        allocTable(mapAddr, capacity);
+        return mapAddr;
+    }
+
+    private void allocTable(int mapAddr, int capacity) {
+        int ctrl = arena.alloc(capacity);
+        for (int i = 0; i < capacity; i++) {
+            arena.putByte(ctrl + i, (byte) 0);
+        }
+        int slots;
+        try {
+            slots = arena.alloc(capacity * slotSize(mapAddr));
+        } catch (OutOfMemoryException e) {
+            arena.release(ctrl, capacity);
+            throw e;
+        }
+        arena.putInt(mapAddr + CAPACITY_OFFSET, capacity);
+        arena.putInt(mapAddr + CTRL_OFFSET, ctrl);
+        arena.putInt(mapAddr + SLOTS_OFFSET, slots);
+    }
+
+    private int find(int mapAddr, long key) {
+        int index = indexOf(mapAddr, key, mix64(key));
+        return index == -1 ? -1 : arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize(mapAddr));
+    }
+
+    private int indexOf(int mapAddr, long key, long h) {
+        int mask = arena.getInt(mapAddr + CAPACITY_OFFSET) - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        byte fingerprint = fingerprint(h);
+        int index = (int) h & mask;
+        while (true) {
+            byte c = arena.getByte(ctrl + index);
+            if (c == 0) {
+                return -1;
+            }
+            if (c == fingerprint && arena.getLong(slots + (index * slotSize) + SLOT_KEY_OFFSET) == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int findOrInsert(int mapAddr, long key) {
+        long h = mix64(key);
+        int index = indexOf(mapAddr, key, h);
+        int slotSize = slotSize(mapAddr);
+        if (index != -1) {
+            return arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize);
+        }
+
+        int size = arena.getInt(mapAddr + SIZE_OFFSET) + 1;
+        if ((long) size * 100 > (long) arena.getInt(mapAddr + CAPACITY_OFFSET) * MAX_LOAD_PERCENT) {
+            rehash(mapAddr, arena.getInt(mapAddr + CAPACITY_OFFSET) * 2);
+        }
+
+        int mask = arena.getInt(mapAddr + CAPACITY_OFFSET) - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        index = (int) h & mask;
+        while (arena.getByte(ctrl + index) != 0) {
+            index = (index + 1) & mask;
+        }
+        int slot = arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize);
+        arena.putLong(slot + SLOT_KEY_OFFSET, key);
+        arena.putByte(ctrl + index, fingerprint(h));
+        arena.putInt(mapAddr + SIZE_OFFSET, size);
+        return slot;
+    }
+
+    private void rehash(int mapAddr, int newCapacity) {
+        int oldCapacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int oldCtrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int oldSlots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+
+        allocTable(mapAddr, newCapacity);
+        int mask = newCapacity - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        for (int i = 0; i < oldCapacity; i++) {
+            byte c = arena.getByte(oldCtrl + i);
+            if (c == 0) {
+                continue;
+            }
+            int oldSlot = oldSlots + (i * slotSize);
+            int index = (int) mix64(arena.getLong(oldSlot + SLOT_KEY_OFFSET)) & mask;
+            while (arena.getByte(ctrl + index) != 0) {
+                index = (index + 1) & mask;
+            }
+            arena.putByte(ctrl + index, c);
+            arena.copy(oldSlot, slots + (index * slotSize), slotSize);
+        }
+        arena.abandon(oldSlots, oldCapacity * slotSize);
+        arena.abandon(oldCtrl, oldCapacity);
+    }
+
+    private long readValue(int mapAddr, int slot) {
+        return arena.getInt(mapAddr + VALUE_SIZE_OFFSET) == 8
+            ? arena.getLong(slot + SLOT_VALUE_OFFSET)
+            : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    private void writeValue(int mapAddr, int slot, long value) {
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) == 8) {
+            arena.putLong(slot + SLOT_VALUE_OFFSET, value);
+        } else {
+            arena.putInt(slot + SLOT_VALUE_OFFSET, (int) value);
+        }
+    }
+
+    private int slotSize(int mapAddr) {
+        return SLOT_VALUE_OFFSET + arena.getInt(mapAddr + VALUE_SIZE_OFFSET);
+    }
+
+    private static byte fingerprint(long h) {
+        return (byte) (0x80 | (int) (h >>> 57));
+    }
+
+    static long mix64(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void checkMapPtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -1,6 +1,10 @@
 public class Main {
     public static void main(String[] args) {
-        
+        if (args.length == 2 && args[0].equals("--shared-reader")) {
+            runSharedReader(java.nio.file.Paths.get(args[1]));
+            return;
+        }
+
         testBasicAllocation();
         testAlignmentFeatures();
         testNodeStore();
@@ -15,6 +19,31 @@ public class Main {
         testStringStore();
         testHashTableStore();
         testMemoryRegions();
+        testArraySorting();
+        testVectorGrowth();
+        testColumnarTableStore();
+        testCompressedVectorStore();
+        testCursorsAndSpliterators();
+        testCompactStrings();
+        testStringInterning();
+        testArenaCharSequence();
+        testRadixTree();
+        testRobinHoodHashTable();
+        testSpecializedHashMaps();
+        testConcurrentHashTable();
+        testHashTableRecycling();
+        testNegativeLookupFilters();
+        testCacheStore();
+        testBatchedHashLookups();
+        testQueryOperators();
+        testStructLayout();
+        testArenaImage();
+        testWriteAheadLog();
+        testSharedMemoryArena();
+        testArenaPerTask();
+        testGenerationHandles();
+        testPriorityQueue();
+        testBPlusTree();
     }
 
     static void testBasicAllocation() {
@@ -354,9 +383,9 @@ public class Main {
         }
         
         System.out.println("\nMemory layout:");
-        System.out.println("  Header (length): address " + arrayAddr + " (4 bytes)");
-        System.out.println("  Data start: address " + (arrayAddr + 4) + " (20 bytes for 5 ints)");
-        System.out.println("  Total size: " + (4 + 5 * 4) + " bytes");
+        System.out.println("  Header (length, element size): address " + arrayAddr + " (8 bytes)");
+        System.out.println("  Data start: address " + arrayStore.getDataAddr(arrayAddr) + " (20 bytes for 5 ints)");
+        System.out.println("  Total size: " + (8 + 5 * 4) + " bytes");
         System.out.println();
     }
 
@@ -395,14 +424,15 @@ public class Main {
         
         System.out.println("\nTesting growth behavior:");
         System.out.println("  Vector grows when length >= capacity");
-        System.out.println("  Growth factor: 1.5x");
-        System.out.println("  Old data is copied to new location");
-        System.out.println("  Old space remains allocated (bump allocator limitation)");
+        System.out.println("  Growth factor: 1.5x (default policy)");
+        System.out.println("  Data at the arena tail is extended in place");
+        System.out.println("  Otherwise old data is copied to a new location");
+        System.out.println("  Abandoned bytes so far: " + arena.getAbandonedBytes());
         System.out.println();
     }
 
     static void testStringStore() {
-        System.out.println("Test 12: String Storage (UTF-16)");
+        System.out.println("Test 12: String Storage (Latin-1/UTF-16)");
         MemoryArena arena = new MemoryArena(512);
         StringStore stringStore = new StringStore(arena);
         
@@ -452,10 +482,10 @@ public class Main {
         System.out.println("  New string: \"" + stringStore.getString(str1Addr) + "\"");
         
         System.out.println("\nMemory layout for \"Hello\":");
-        System.out.println("  Header (length): address " + str1Addr + " (4 bytes)");
-        System.out.println("  Char data start: address " + (str1Addr + 4) + " (10 bytes for 5 chars)");
-        System.out.println("  Total size: " + (4 + 5 * 2) + " bytes");
-        System.out.println("  UTF-16 encoding: 2 bytes per character");
+        System.out.println("  Header (length, coder, hash): address " + str1Addr + " (12 bytes)");
+        System.out.println("  Char data start: address " + (str1Addr + 12) + " (5 bytes for 5 chars)");
+        System.out.println("  Total size: " + stringStore.getByteSize(str1Addr) + " bytes");
+        System.out.println("  Latin-1 encoding: 1 byte per character (UTF-16 fallback: 2 bytes)");
         System.out.println();
     }
 
@@ -511,7 +541,7 @@ public class Main {
         hashTable.printHashTable(tableAddr);
         
         System.out.println("\nHash table details:");
-        System.out.println("  Layout: [bucketCount][bucket array pointers]");
+        System.out.println("  Layout: [bucketCount][freeHead][filter][entryCount][bucket array pointers]");
         System.out.println("  Entry layout: [key:4B][value:4B][next:4B]");
         System.out.println("  Collision resolution: Chaining (linked lists)");
         System.out.println("  Hash function: key % bucketCount");
@@ -567,4 +597,2013 @@ public class Main {
         System.out.println("  Overlap detection prevents invalid memory organization");
         System.out.println();
     }
+
+    static void testArraySorting() {
+        System.out.println("Test 15: Radix Sort and Sorted Search");
+        MemoryArena arena = new MemoryArena(1024);
+        ArrayStore arrayStore = new ArrayStore(arena);
+
+        int[] values = {42, -7, 1000, 0, Integer.MIN_VALUE, 42, Integer.MAX_VALUE, -300, 5};
+        int arrayAddr = arrayStore.createArray(values.length, 4);
+        for (int i = 0; i < values.length; i++) {
+            arrayStore.setInt(arrayAddr, i, values[i]);
+        }
+        System.out.print("  Before: ");
+        arrayStore.printArray(arrayAddr);
+        int usedBefore = arena.used();
+        arrayStore.sortInts(arrayAddr);
+        System.out.print("  After (8-bit digits): ");
+        arrayStore.printArray(arrayAddr);
+        System.out.println("  Scratch buffer released: " + (arena.used() == usedBefore));
+
+        System.out.println("\nSorted search:");
+        System.out.println("  binarySearchInt(42) = " + arrayStore.binarySearchInt(arrayAddr, 42));
+        System.out.println("  lowerBoundInt(42) = " + arrayStore.lowerBoundInt(arrayAddr, 42));
+        System.out.println("  upperBoundInt(42) = " + arrayStore.upperBoundInt(arrayAddr, 42));
+        System.out.println("  binarySearchInt(6) = " + arrayStore.binarySearchInt(arrayAddr, 6));
+
+        System.out.println("\nSorting longs with 11-bit digits:");
+        long[] longValues = {Long.MAX_VALUE, -1L, 1L << 40, Long.MIN_VALUE, 0L, -(1L << 40)};
+        int longAddr = arrayStore.createArray(longValues.length, 8);
+        int longScratch = arrayStore.createArray(longValues.length, 8);
+        for (int i = 0; i < longValues.length; i++) {
+            arrayStore.setLong(longAddr, i, longValues[i]);
+        }
+        arrayStore.sortLongs(longAddr, longScratch, 11);
+        boolean longsSorted = true;
+        for (int i = 1; i < longValues.length; i++) {
+            longsSorted &= arrayStore.getLong(longAddr, i - 1) <= arrayStore.getLong(longAddr, i);
+        }
+        System.out.println("  Sorted: " + longsSorted);
+        System.out.println("  binarySearchLong(1 << 40) = " + arrayStore.binarySearchLong(longAddr, 1L << 40));
+        try {
+            arrayStore.sortLongs(arrayAddr);
+        } catch (IllegalArgumentException e) {
+            System.out.println("  Caught expected error sorting an int array as longs: " + e.getMessage());
+        }
+
+        System.out.println("\nBenchmark (200000 random ints):");
+        int n = 200000;
+        java.util.Random random = new java.util.Random(26);
+        int[] data = new int[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = random.nextInt();
+        }
+        MemoryArena benchArena = new MemoryArena((8 + n * 4) * 2);
+        ArrayStore benchStore = new ArrayStore(benchArena);
+        int benchAddr = benchStore.createArray(n, 4);
+        int benchScratch = benchStore.createArray(n, 4);
+        for (int i = 0; i < n; i++) {
+            benchStore.setInt(benchAddr, i, data[i]);
+        }
+        long start = System.nanoTime();
+        benchStore.sortInts(benchAddr, benchScratch, 11);
+        long radixNanos = System.nanoTime() - start;
+
+        int[] copy = data.clone();
+        start = System.nanoTime();
+        java.util.Arrays.sort(copy);
+        long sortNanos = System.nanoTime() - start;
+
+        int[] parallelCopy = data.clone();
+        start = System.nanoTime();
+        java.util.Arrays.parallelSort(parallelCopy);
+        long parallelNanos = System.nanoTime() - start;
+
+        boolean matches = true;
+        for (int i = 0; i < n; i++) {
+            matches &= benchStore.getInt(benchAddr, i) == copy[i];
+        }
+        System.out.println("  Arena radix sort: " + (radixNanos / 1000) + " us");
+        System.out.println("  Arrays.sort: " + (sortNanos / 1000) + " us");
+        System.out.println("  Arrays.parallelSort: " + (parallelNanos / 1000) + " us");
+        System.out.println("  Results match: " + matches);
+        System.out.println();
+    }
+
+    static void testVectorGrowth() {
+        System.out.println("Test 16: Vector Growth Policies and Bulk Append");
+        MemoryArena arena = new MemoryArena(4096);
+        VectorStore vectorStore = new VectorStore(arena, VectorStore.GrowthPolicy.DOUBLE);
+
+        System.out.println("Reserving capacity up front:");
+        int vectorAddr = vectorStore.createVector(0);
+        vectorStore.reserve(vectorAddr, 8);
+        System.out.println("  Capacity after reserve(8): " + vectorStore.getCapacity(vectorAddr));
+
+        System.out.println("\nBulk append at the arena tail (grows in place):");
+        int dataPtr = vectorStore.getDataPtr(vectorAddr);
+        vectorStore.appendAll(vectorAddr, new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        vectorStore.printVector(vectorAddr);
+        System.out.println("  Data pointer unchanged: " + (dataPtr == vectorStore.getDataPtr(vectorAddr)));
+        System.out.println("  Abandoned bytes: " + arena.getAbandonedBytes());
+
+        System.out.println("\nGrowth after another allocation (relocates):");
+        arena.alloc(16);
+        vectorStore.appendAll(vectorAddr, new int[] {11, 12, 13, 14, 15, 16, 17});
+        vectorStore.printVector(vectorAddr);
+        System.out.println("  Data pointer moved: " + (dataPtr != vectorStore.getDataPtr(vectorAddr)));
+        System.out.println("  Abandoned bytes: " + arena.getAbandonedBytes());
+
+        System.out.println("\nTruncate and shrink to fit:");
+        vectorStore.truncate(vectorAddr, 5);
+        int usedBefore = arena.used();
+        vectorStore.shrinkToFit(vectorAddr);
+        vectorStore.printVector(vectorAddr);
+        System.out.println("  Bytes returned to arena: " + (usedBefore - arena.used()));
+
+        System.out.println("\nChunk-linear policy (chunk size 4):");
+        VectorStore chunkStore = new VectorStore(arena, VectorStore.GrowthPolicy.CHUNK_LINEAR, 4);
+        int chunkAddr = chunkStore.createVector(0);
+        for (int i = 0; i < 9; i++) {
+            chunkStore.append(chunkAddr, i);
+        }
+        chunkStore.printVector(chunkAddr);
+        System.out.println();
+    }
+
+    static void testColumnarTableStore() {
+        System.out.println("Test 17: Columnar Table Store");
+        MemoryArena arena = new MemoryArena(8192);
+        ColumnarTableStore tableStore = new ColumnarTableStore(arena);
+
+        System.out.println("Creating table (id INT, bytes LONG, latency DOUBLE, host STRING), row groups of 4:");
+        ColumnarTableStore.ColumnType[] schema = {
+            ColumnarTableStore.ColumnType.INT,
+            ColumnarTableStore.ColumnType.LONG,
+            ColumnarTableStore.ColumnType.DOUBLE,
+            ColumnarTableStore.ColumnType.STRING
+        };
+        int tableAddr = tableStore.createTable(schema, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            int row = tableStore.appendRow(tableAddr);
+            tableStore.setInt(tableAddr, row, 0, i * 10);
+            tableStore.setLong(tableAddr, row, 1, 1000L * i);
+            if (i % 3 != 0) {
+                tableStore.setDouble(tableAddr, row, 2, i * 0.5);
+            }
+            tableStore.setString(tableAddr, row, 3, "host-" + (i % 2));
+        }
+        tableStore.printTable(tableAddr);
+        System.out.println("  Row capacity: " + tableStore.getRowCapacity(tableAddr));
+
+        System.out.println("\nRow group statistics for id:");
+        for (int group = 0; group < tableStore.getRowGroupCount(tableAddr); group++) {
+            System.out.println("  Group " + group + ": min=" + tableStore.getGroupMin(tableAddr, 0, group)
+                + ", max=" + tableStore.getGroupMax(tableAddr, 0, group));
+        }
+
+        System.out.println("\nProjection scan of (id, bytes):");
+        long[] bytesSum = new long[1];
+        int scanned = tableStore.scan(tableAddr, new int[] {0, 1}, (row, values, nullBits) -> bytesSum[0] += values[1]);
+        System.out.println("  Rows scanned: " + scanned + ", sum(bytes) = " + bytesSum[0]);
+
+        System.out.println("\nFiltered scan where 45 <= id <= 65 (group 0 and 2 skipped):");
+        int matched = tableStore.scan(tableAddr, new int[] {0, 3}, 0, 45, 65, (row, values, nullBits) ->
+            System.out.println("  row " + row + ": id=" + values[0] + ", host=" + tableStore.getStringStore().getString((int) values[1])));
+        System.out.println("  Rows matched: " + matched);
+
+        System.out.println("\nNull handling:");
+        System.out.println("  isNull(row 3, latency) = " + tableStore.isNull(tableAddr, 3, 2));
+        System.out.println("  isNull(row 4, latency) = " + tableStore.isNull(tableAddr, 4, 2));
+        System.out.print("  Scanned latency (null mask, DOUBLE as raw bits):");
+        tableStore.scan(tableAddr, new int[] {2}, (row, values, nullBits) -> System.out.print(" "
+            + (ColumnarTableStore.RowScanner.isNull(nullBits, 0) ? "null" : String.valueOf(ColumnarTableStore.RowScanner.asDouble(values[0])))));
+        System.out.println();
+        System.out.println();
+    }
+
+    static void testCompressedVectorStore() {
+        System.out.println("Test 18: Compressed Integer Vectors");
+        MemoryArena arena = new MemoryArena(1 << 22);
+        CompressedVectorStore compressedStore = new CompressedVectorStore(arena);
+        VectorStore vectorStore = new VectorStore(arena);
+
+        int n = 100000;
+        java.util.Random random = new java.util.Random(29);
+        int[] sortedIds = new int[n];
+        int[] counters = new int[n];
+        int id = 1000000;
+        for (int i = 0; i < n; i++) {
+            id += 1 + random.nextInt(16);
+            sortedIds[i] = id;
+            counters[i] = random.nextInt(200) - 20;
+        }
+
+        int plainAddr = vectorStore.createVector(n);
+        vectorStore.appendAll(plainAddr, sortedIds);
+        int plainBytes = 12 + n * 4;
+
+        CompressedVectorStore.Encoding[] encodings = CompressedVectorStore.Encoding.values();
+        for (CompressedVectorStore.Encoding encoding : encodings) {
+            int[] input = encoding == CompressedVectorStore.Encoding.DELTA ? sortedIds : counters;
+            int vectorAddr = compressedStore.createVector(encoding);
+            compressedStore.appendAll(vectorAddr, input);
+            compressedStore.append(vectorAddr, 7);
+
+            boolean matches = compressedStore.get(vectorAddr, n) == 7;
+            for (int i = 0; i < n; i += 997) {
+                matches &= compressedStore.get(vectorAddr, i) == input[i];
+            }
+            long expectedSum = 7;
+            for (int v : input) {
+                expectedSum += v;
+            }
+            matches &= compressedStore.sum(vectorAddr) == expectedSum;
+
+            int size = compressedStore.getCompressedSize(vectorAddr);
+            System.out.println("  " + encoding + ": " + size + " bytes vs " + plainBytes
+                + " plain (" + String.format("%.1f", (double) plainBytes / size) + "x), random access and scan match: " + matches);
+        }
+
+        int forAddr = compressedStore.createVector(CompressedVectorStore.Encoding.DELTA);
+        compressedStore.appendAll(forAddr, sortedIds);
+        long start = System.nanoTime();
+        long compressedSum = compressedStore.sum(forAddr);
+        long compressedNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long plainSum = 0;
+        for (int i = 0; i < n; i++) {
+            plainSum += vectorStore.get(plainAddr, i);
+        }
+        long plainNanos = System.nanoTime() - start;
+        System.out.println("\nScan of " + n + " sorted ids:");
+        System.out.println("  Delta block decode: " + (compressedNanos / 1000) + " us");
+        System.out.println("  VectorStore.get loop: " + (plainNanos / 1000) + " us");
+        System.out.println("  Sums match: " + (compressedSum == plainSum));
+
+        System.out.println("\nSmall frame-of-reference vector (tail not yet packed):");
+        int smallAddr = compressedStore.createVector(CompressedVectorStore.Encoding.FRAME_OF_REFERENCE);
+        compressedStore.appendAll(smallAddr, new int[] {5, 3, 9, 1});
+        compressedStore.printVector(smallAddr);
+        System.out.println();
+    }
+
+    static void testCursorsAndSpliterators() {
+        System.out.println("Test 19: Primitive Cursors and Spliterators");
+        MemoryArena arena = new MemoryArena(1 << 20);
+        VectorStore vectorStore = new VectorStore(arena);
+        ArrayStore arrayStore = new ArrayStore(arena);
+        NodeStore nodeStore = new NodeStore(arena);
+        HashTableStore hashTable = new HashTableStore(arena);
+
+        int n = 50000;
+        int vectorAddr = vectorStore.createVector(n);
+        for (int i = 0; i < n; i++) {
+            vectorStore.append(vectorAddr, i);
+        }
+
+        System.out.println("Vector cursor (header read once):");
+        ArenaIntCursor cursor = vectorStore.cursor(vectorAddr);
+        long cursorSum = 0;
+        while (cursor.hasNext()) {
+            cursorSum += cursor.next();
+        }
+        System.out.println("  Sum via cursor: " + cursorSum);
+
+        System.out.println("\nParallel IntStream over vector:");
+        long streamSum = vectorStore.intStream(vectorAddr, true).asLongStream().sum();
+        System.out.println("  Sum via parallel stream: " + streamSum);
+        System.out.println("  Match: " + (streamSum == cursorSum));
+
+        System.out.println("\nArray spliterator split:");
+        int arrayAddr = arrayStore.createArray(4096, 4);
+        for (int i = 0; i < 4096; i++) {
+            arrayStore.setInt(arrayAddr, i, i % 10);
+        }
+        java.util.Spliterator.OfInt spliterator = arrayStore.spliterator(arrayAddr);
+        java.util.Spliterator.OfInt prefix = spliterator.trySplit();
+        System.out.println("  Prefix size: " + prefix.estimateSize() + ", suffix size: " + spliterator.estimateSize());
+        System.out.println("  Count of 7s (parallel): " + arrayStore.intStream(arrayAddr, true).filter(v -> v == 7).count());
+
+        System.out.println("\nLong array cursor:");
+        int longAddr = arrayStore.createArray(3, 8);
+        arrayStore.setLong(longAddr, 0, 1L << 40);
+        arrayStore.setLong(longAddr, 1, -5L);
+        arrayStore.setLong(longAddr, 2, 99L);
+        ArenaLongCursor longCursor = arrayStore.longCursor(longAddr);
+        System.out.print("  Values:");
+        while (longCursor.hasNext()) {
+            System.out.print(" " + longCursor.next());
+        }
+        System.out.println();
+
+        System.out.println("\nNode list cursor:");
+        int head = nodeStore.createNode(1);
+        int second = nodeStore.createNode(2);
+        int third = nodeStore.createNode(3);
+        nodeStore.setNext(head, second);
+        nodeStore.setNext(second, third);
+        IntCursor listCursor = nodeStore.cursor(head);
+        System.out.print("  Values:");
+        while (listCursor.hasNext()) {
+            System.out.print(" " + listCursor.next());
+        }
+        System.out.println();
+
+        System.out.println("\nHash table key/value streams:");
+        int tableAddr = hashTable.createHashTable(64);
+        for (int i = 1; i <= 100; i++) {
+            hashTable.put(tableAddr, i, i * 2);
+        }
+        System.out.println("  Key count (parallel): " + hashTable.keys(tableAddr, true).count());
+        java.util.Spliterator.OfInt keys = hashTable.keySpliterator(tableAddr);
+        System.out.print("  Estimated size: " + keys.estimateSize());
+        java.util.Spliterator.OfInt firstHalf = keys.trySplit();
+        System.out.println(", after split: " + firstHalf.estimateSize() + " + " + keys.estimateSize());
+        System.out.println("  Key sum: " + hashTable.keys(tableAddr, true).sum());
+        System.out.println("  Value sum: " + hashTable.values(tableAddr, false).sum());
+        System.out.println();
+    }
+
+    static void testCompactStrings() {
+        System.out.println("Test 20: Compact String Encoding");
+        MemoryArena arena = new MemoryArena(65536);
+        StringStore stringStore = new StringStore(arena);
+        String[] coderNames = {"LATIN1", "UTF16", "UTF8"};
+
+        String[] samples = {"tenant-00042", "caf\u00e9", "\u4f60\u597d\u4e16\u754c", "log \u2192 line with an arrow", "emoji \ud83d\ude00"};
+        for (String sample : samples) {
+            int plainAddr = stringStore.createString(sample);
+            int packedAddr = stringStore.createPackedString(sample);
+            int compactAddr = stringStore.createCompactString(sample);
+            System.out.println("  \"" + sample + "\": createString -> " + coderNames[stringStore.getCoder(plainAddr)]
+                + " (" + stringStore.getByteSize(plainAddr) + " bytes), createPackedString -> "
+                + coderNames[stringStore.getCoder(packedAddr)] + " (" + stringStore.getByteSize(packedAddr) + " bytes), createCompactString -> "
+                + coderNames[stringStore.getCoder(compactAddr)] + " (" + stringStore.getByteSize(compactAddr) + " bytes)"
+                + ", round trip: " + (sample.equals(stringStore.getString(plainAddr)) && sample.equals(stringStore.getString(packedAddr))
+                && sample.equals(stringStore.getString(compactAddr))));
+        }
+
+        System.out.println("\nASCII footprint (1000 keys):");
+        int utf16Bytes = 0;
+        int compactBytes = 0;
+        for (int i = 0; i < 1000; i++) {
+            String key = "metric.name." + i;
+            utf16Bytes += 4 + key.length() * 2;
+            compactBytes += stringStore.getByteSize(stringStore.createPackedString(key));
+        }
+        System.out.println("  Previous UTF-16 layout: " + utf16Bytes + " bytes, Latin-1: " + compactBytes + " bytes ("
+            + String.format("%.2fx", (double) utf16Bytes / compactBytes) + " smaller)");
+
+        System.out.println("\nsetCharAt with a wide character:");
+        int mutableAddr = stringStore.createString("abc");
+        stringStore.setCharAt(mutableAddr, 0, '\u4f60');
+        System.out.println("  createString(\"abc\") after setCharAt(0, '\u4f60'): " + stringStore.getString(mutableAddr));
+        int latinAddr = stringStore.createPackedString("abc");
+        try {
+            stringStore.setCharAt(latinAddr, 0, '\u4f60');
+        } catch (IllegalArgumentException e) {
+            System.out.println("  Caught: " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    static void testStringInterning() {
+        System.out.println("Test 21: String Interning");
+        MemoryArena arena = new MemoryArena(1 << 16);
+        StringInternStore internStore = new StringInternStore(arena);
+        int tableAddr = internStore.createInternTable(16);
+
+        System.out.println("Interning tenant ids:");
+        int first = internStore.intern(tableAddr, "tenant-a");
+        int second = internStore.intern(tableAddr, "tenant-b");
+        int again = internStore.intern(tableAddr, "tenant-a");
+        System.out.println("  intern(\"tenant-a\") = " + first);
+        System.out.println("  intern(\"tenant-b\") = " + second);
+        System.out.println("  intern(\"tenant-a\") again = " + again + " (same address: " + (first == again) + ")");
+
+        System.out.println("\nInterning from a char[] slice (no java.lang.String):");
+        char[] buffer = "xxtenant-byy".toCharArray();
+        int fromChars = internStore.intern(tableAddr, buffer, 2, 8);
+        System.out.println("  intern(chars[2..10]) = " + fromChars + " (same as tenant-b: " + (fromChars == second) + ")");
+        System.out.println("  Cached hash matches String.hashCode: "
+            + (internStore.getStringStore().getHash(second) == "tenant-b".hashCode()));
+
+        System.out.println("\nInterning 10000 metric names drawn from 50 distinct values:");
+        int usedBefore = arena.used();
+        for (int i = 0; i < 10000; i++) {
+            internStore.intern(tableAddr, "metric." + (i % 50));
+        }
+        System.out.println("  Bytes used: " + (arena.used() - usedBefore));
+        internStore.printStats(tableAddr);
+        System.out.println();
+    }
+
+    static void testArenaCharSequence() {
+        System.out.println("Test 22: Zero-Copy String Views");
+        MemoryArena arena = new MemoryArena(4096);
+        StringStore stringStore = new StringStore(arena);
+
+        int apple = stringStore.createString("apple pie");
+        int apricot = stringStore.createString("apricot");
+        int applePie = stringStore.createString("apple pie");
+        int wide = stringStore.createString("apple \u4f60\u597d");
+        int utf8 = stringStore.createCompactString("apple \u2192 pie");
+
+        System.out.println("Comparisons in arena memory:");
+        System.out.println("  equals(apple pie, apple pie) = " + stringStore.equals(apple, applePie));
+        System.out.println("  compare(apple pie, apricot) < 0: " + (stringStore.compare(apple, apricot) < 0));
+        System.out.println("  compare(apple pie, \"apple\") > 0: " + (stringStore.compare(apple, "apple") > 0));
+        System.out.println("  startsWith(apple \u4f60\u597d, \"apple\") = " + stringStore.startsWith(wide, "apple"));
+        System.out.println("  indexOf(apple pie, \"pie\") = " + stringStore.indexOf(apple, "pie"));
+        System.out.println("  indexOf(apple \u2192 pie, '\u2192') = " + stringStore.indexOf(utf8, '\u2192'));
+
+        System.out.println("\nFlyweight rebinding:");
+        ArenaCharSequence view = new ArenaCharSequence(stringStore);
+        ArenaCharSequence other = new ArenaCharSequence(stringStore);
+        int[] addrs = {apple, apricot, wide, utf8};
+        for (int addr : addrs) {
+            view.bind(addr);
+            System.out.println("  bound to " + addr + ": length=" + view.length()
+                + ", charAt(1)='" + view.charAt(1) + "'"
+                + ", hashCode matches String: " + (view.hashCode() == view.toString().hashCode())
+                + ", startsWith(\"ap\"): " + view.startsWith("ap"));
+        }
+        view.bind(apple);
+        other.bind(applePie);
+        System.out.println("  view.equals(other) = " + view.equals(other));
+        System.out.println("  view.compareTo(apricot) < 0: " + (view.compareTo(other.bind(apricot)) < 0));
+
+        System.out.println("\nDecoding into a reusable buffer:");
+        char[] buffer = new char[32];
+        int length = stringStore.getChars(utf8, buffer, 0);
+        System.out.println("  Decoded " + length + " chars: " + new String(buffer, 0, length));
+        System.out.println();
+    }
+
+    static void testRadixTree() {
+        System.out.println("Test 23: Adaptive Radix Tree");
+        MemoryArena arena = new MemoryArena(1 << 24);
+        RadixTreeStore treeStore = new RadixTreeStore(arena);
+        int treeAddr = treeStore.createTree();
+
+        String[] routes = {"/api/users", "/api/users/me", "/api/orders", "/api", "/health", "/api/users/42"};
+        for (int i = 0; i < routes.length; i++) {
+            treeStore.put(treeAddr, routes[i], i);
+        }
+        treeStore.printTree(treeAddr);
+
+        System.out.println("\nLookups:");
+        System.out.println("  get(\"/api/users/me\") = " + treeStore.get(treeAddr, "/api/users/me"));
+        System.out.println("  get(\"/api\") = " + treeStore.get(treeAddr, "/api"));
+        System.out.println("  get(\"/ap\") = " + treeStore.get(treeAddr, "/ap"));
+
+        System.out.println("\nPrefix scan \"/api/users\":");
+        treeStore.scanPrefix(treeAddr, "/api/users", (keyAddr, value) ->
+            System.out.println("  " + treeStore.getStringStore().getString(keyAddr) + " -> " + value));
+
+        System.out.println("\nRemoving \"/api/users\" and \"/health\":");
+        treeStore.remove(treeAddr, "/api/users");
+        treeStore.remove(treeAddr, "/health");
+        treeStore.printTree(treeAddr);
+
+        System.out.println("\nRandomized check against TreeMap (50000 operations):");
+        java.util.Random random = new java.util.Random(42);
+        java.util.TreeMap<String, Integer> reference = new java.util.TreeMap<>();
+        int checkTree = treeStore.createTree();
+        for (int i = 0; i < 50000; i++) {
+            String[] suffixes = {"", "/x", "\u00ff", "\u4e2d", "\u00e9"};
+            String head = random.nextBoolean() ? "k" : "/shared/long/prefix/\u00ff/";
+            String key = head + Integer.toString(random.nextInt(5000), 36) + suffixes[random.nextInt(suffixes.length)];
+            if (random.nextInt(4) == 0) {
+                boolean expected = reference.remove(key) != null;
+                if (treeStore.remove(checkTree, key) != expected) {
+                    throw new RuntimeException("remove mismatch for " + key);
+                }
+            } else {
+                reference.put(key, i);
+                treeStore.put(checkTree, key, i);
+            }
+        }
+        java.util.List<String> ordered = new java.util.ArrayList<>();
+        treeStore.forEach(checkTree, (keyAddr, value) -> ordered.add(treeStore.getStringStore().getString(keyAddr)));
+        System.out.println("  Size matches: " + (treeStore.getSize(checkTree) == reference.size()));
+        System.out.println("  Ordered iteration matches: " + ordered.equals(new java.util.ArrayList<>(reference.keySet())));
+        boolean lookups = true;
+        for (java.util.Map.Entry<String, Integer> entry : reference.entrySet()) {
+            lookups &= treeStore.getOrDefault(checkTree, entry.getKey(), -1) == entry.getValue();
+        }
+        System.out.println("  Lookups match: " + lookups);
+
+        System.out.println("\nBenchmark against TreeMap<String, Integer> (100000 URL-like keys):");
+        int count = 100000;
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = "/tenant/" + (i % 100) + "/item/" + i;
+        }
+        int usedBefore = arena.used();
+        int benchTree = treeStore.createTree();
+        for (String key : keys) {
+            treeStore.put(benchTree, key, key.length());
+        }
+        int treeBytes = arena.used() - usedBefore;
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        java.util.TreeMap<String, Integer> treeMap = new java.util.TreeMap<>();
+        for (String key : keys) {
+            treeMap.put(new String(key.toCharArray()), key.length());
+        }
+        System.gc();
+        long heapBytes = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            for (String key : keys) {
+                checksum += treeStore.getOrDefault(benchTree, key, 0) - treeMap.get(key);
+            }
+        }
+        long radixNanos = Long.MAX_VALUE;
+        long treeMapNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (String key : keys) {
+                checksum += treeStore.getOrDefault(benchTree, key, 0);
+            }
+            radixNanos = Math.min(radixNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            for (String key : keys) {
+                checksum -= treeMap.get(key);
+            }
+            treeMapNanos = Math.min(treeMapNanos, System.nanoTime() - start);
+        }
+
+        System.out.println("  Radix tree arena bytes: " + treeBytes);
+        System.out.println("  TreeMap heap bytes (approx): " + heapBytes);
+        System.out.println("  Radix tree lookups (best of 5): " + (radixNanos / count) + " ns/op");
+        System.out.println("  TreeMap lookups (best of 5): " + (treeMapNanos / count) + " ns/op");
+        System.out.println("  Checksums agree: " + (checksum == 0));
+        System.out.println();
+    }
+
+    static void testRobinHoodHashTable() {
+        System.out.println("Test 24: Robin Hood Hash Table");
+        MemoryArena arena = new MemoryArena(1 << 24);
+        RobinHoodHashTableStore tableStore = new RobinHoodHashTableStore(arena);
+        int tableAddr = tableStore.createTable(4);
+
+        System.out.println("Edge-case keys:");
+        tableStore.put(tableAddr, Integer.MIN_VALUE, 1);
+        tableStore.put(tableAddr, -1, 2);
+        tableStore.put(tableAddr, 0, 3);
+        System.out.println("  get(Integer.MIN_VALUE) = " + tableStore.get(tableAddr, Integer.MIN_VALUE));
+        System.out.println("  get(-1) = " + tableStore.get(tableAddr, -1));
+        System.out.println("  get(0) = " + tableStore.get(tableAddr, 0));
+
+        System.out.println("\nIncremental resize while inserting patterned keys (multiples of 1024):");
+        int resizes = 0;
+        boolean wasResizing = false;
+        for (int i = 0; i < 20000; i++) {
+            tableStore.put(tableAddr, i * 1024, i);
+            boolean resizing = tableStore.isResizing(tableAddr);
+            if (resizing && !wasResizing) {
+                resizes++;
+            }
+            wasResizing = resizing;
+        }
+        System.out.println("  Resizes started: " + resizes);
+        tableStore.printStats(tableAddr);
+
+        System.out.println("\nRandomized check against HashMap (200000 operations):");
+        java.util.Random random = new java.util.Random(7);
+        java.util.HashMap<Integer, Integer> reference = new java.util.HashMap<>();
+        int checkTable = tableStore.createTable(16, 0.75f);
+        boolean consistent = true;
+        for (int i = 0; i < 200000; i++) {
+            int key = random.nextInt(50000) - 25000;
+            int op = random.nextInt(3);
+            if (op == 0) {
+                consistent &= tableStore.remove(checkTable, key) == (reference.remove(key) != null);
+            } else if (op == 1) {
+                tableStore.put(checkTable, key, i);
+                reference.put(key, i);
+            } else {
+                consistent &= java.util.Objects.equals(tableStore.get(checkTable, key), reference.get(key));
+            }
+        }
+        consistent &= tableStore.getSize(checkTable) == reference.size();
+        System.out.println("  Consistent: " + consistent + ", size: " + tableStore.getSize(checkTable));
+
+        System.out.println("\nLookup benchmark on 20000 patterned keys:");
+        HashTableStore chained = new HashTableStore(arena);
+        int chainedTable = chained.createHashTable(1024);
+        for (int i = 0; i < 20000; i++) {
+            chained.put(chainedTable, i * 1024, i);
+        }
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 20000; i++) {
+                checksum += tableStore.getOrDefault(tableAddr, i * 1024, 0) - chained.get(chainedTable, i * 1024);
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 20000; i++) {
+            checksum += tableStore.getOrDefault(tableAddr, i * 1024, 0);
+        }
+        long robinHoodNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 20000; i++) {
+            checksum -= chained.get(chainedTable, i * 1024);
+        }
+        long chainedNanos = System.nanoTime() - start;
+        System.out.println("  RobinHoodHashTableStore: " + (robinHoodNanos / 20000) + " ns/op");
+        System.out.println("  HashTableStore (1024 buckets): " + (chainedNanos / 20000) + " ns/op");
+        System.out.println("  Checksums agree: " + (checksum == 0));
+        System.out.println();
+    }
+
+    static void testSpecializedHashMaps() {
+        System.out.println("Test 25: Long-Key and String-Key Hash Maps");
+        MemoryArena arena = new MemoryArena(1 << 24);
+        LongHashMapStore longMaps = new LongHashMapStore(arena);
+        StringHashMapStore stringMaps = new StringHashMapStore(arena);
+
+        int entityVersions = longMaps.createLongMap(4);
+        longMaps.putLong(entityVersions, 9_000_000_001L, 17L);
+        longMaps.putLong(entityVersions, Long.MIN_VALUE, -1L);
+        longMaps.putLong(entityVersions, 9_000_000_001L, 18L);
+        longMaps.printMap(entityVersions);
+
+        int shardOf = longMaps.createIntMap(4);
+        for (long id = 1; id <= 5; id++) {
+            longMaps.putInt(shardOf, id << 40, (int) (id % 3));
+        }
+        System.out.println("  shardOf(3 << 40) = " + longMaps.getInt(shardOf, 3L << 40, -1));
+        System.out.println("  shardOf(missing) = " + longMaps.getInt(shardOf, 42L, -1));
+        try {
+            longMaps.putLong(shardOf, 1L, 5L);
+        } catch (IllegalArgumentException e) {
+            System.out.println("  Caught: " + e.getMessage());
+        }
+
+        System.out.println("\nSession map with inline and external keys:");
+        int sessions = stringMaps.createLongMap(4);
+        stringMaps.putLong(sessions, "sess-1", 1_700_000_000_000L);
+        stringMaps.putLong(sessions, "sess-2", 1_700_000_000_500L);
+        stringMaps.putLong(sessions, "session-with-a-long-id", 1_700_000_001_000L);
+        stringMaps.putLong(sessions, "\u4f1a\u8bdd-7", 1_700_000_002_000L);
+        stringMaps.printMap(sessions);
+        ArenaCharSequence view = new ArenaCharSequence(stringMaps.getStringStore());
+        view.bind(stringMaps.getStringStore().createString("sess-2"));
+        System.out.println("  Lookup with an arena string view: " + stringMaps.getLong(sessions, view, -1L));
+        stringMaps.remove(sessions, "session-with-a-long-id");
+        System.out.println("  After remove: containsKey = " + stringMaps.containsKey(sessions, "session-with-a-long-id")
+            + ", size = " + stringMaps.getSize(sessions));
+
+        MemoryArena tight = new MemoryArena(2048);
+        StringHashMapStore tightMaps = new StringHashMapStore(tight);
+        int tightMap = tightMaps.createLongMap(16);
+        int inserted = 0;
+        String failedKey = null;
+        try {
+            for (int i = 0; ; i++) {
+                failedKey = "tenant-" + i + "-external-session-key";
+                tightMaps.putLong(tightMap, failedKey, i);
+                inserted++;
+            }
+        } catch (OutOfMemoryException e) {
+            boolean intact = tightMaps.getSize(tightMap) == inserted && !tightMaps.containsKey(tightMap, failedKey);
+            for (int i = 0; i < inserted; i++) {
+                intact &= tightMaps.getLong(tightMap, "tenant-" + i + "-external-session-key", -1L) == i;
+            }
+            System.out.println("  Arena exhausted after " + inserted + " external keys; map intact: " + intact);
+        }
+
+        System.out.println("\nRandomized check against HashMap (100000 operations):");
+        java.util.Random random = new java.util.Random(11);
+        java.util.HashMap<Long, Long> longReference = new java.util.HashMap<>();
+        java.util.HashMap<String, Integer> stringReference = new java.util.HashMap<>();
+        int longCheck = longMaps.createLongMap(16);
+        int stringCheck = stringMaps.createIntMap(16);
+        boolean consistent = true;
+        for (int i = 0; i < 100000; i++) {
+            long longKey = random.nextInt(20000) * 0x1_0000_0001L;
+            String stringKey = "user:" + random.nextInt(20000) + (random.nextInt(4) == 0 ? ":profile-settings" : "");
+            if (random.nextInt(3) == 0) {
+                consistent &= longMaps.remove(longCheck, longKey) == (longReference.remove(longKey) != null);
+                consistent &= stringMaps.remove(stringCheck, stringKey) == (stringReference.remove(stringKey) != null);
+            } else {
+                longMaps.putLong(longCheck, longKey, i);
+                longReference.put(longKey, (long) i);
+                stringMaps.putInt(stringCheck, stringKey, i);
+                stringReference.put(stringKey, i);
+            }
+        }
+        for (java.util.Map.Entry<Long, Long> entry : longReference.entrySet()) {
+            consistent &= longMaps.getLong(longCheck, entry.getKey(), -1L) == entry.getValue();
+        }
+        for (java.util.Map.Entry<String, Integer> entry : stringReference.entrySet()) {
+            consistent &= stringMaps.getInt(stringCheck, entry.getKey(), -1) == entry.getValue();
+        }
+        consistent &= longMaps.getSize(longCheck) == longReference.size();
+        consistent &= stringMaps.getSize(stringCheck) == stringReference.size();
+        System.out.println("  Consistent: " + consistent);
+
+        System.out.println("\nLookup benchmark against HashMap<String, Long> (50000 session ids):");
+        int count = 50000;
+        String[] keys = new String[count];
+        int benchMap = stringMaps.createLongMap(count);
+        java.util.HashMap<String, Long> boxed = new java.util.HashMap<>();
+        for (int i = 0; i < count; i++) {
+            keys[i] = "s" + Integer.toString(i * 7919, 36);
+            stringMaps.putLong(benchMap, keys[i], i);
+            boxed.put(keys[i], (long) i);
+        }
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) {
+            for (String key : keys) {
+                checksum += stringMaps.getLong(benchMap, key, 0L) - boxed.get(key);
+            }
+        }
+        long start = System.nanoTime();
+        for (String key : keys) {
+            checksum += stringMaps.getLong(benchMap, key, 0L);
+        }
+        long arenaNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (String key : keys) {
+            checksum -= boxed.get(key);
+        }
+        long boxedNanos = System.nanoTime() - start;
+        System.out.println("  StringHashMapStore: " + (arenaNanos / count) + " ns/op, "
+            + stringMaps.getInlineKeyCount(benchMap) + "/" + count + " keys inline");
+        System.out.println("  HashMap<String, Long>: " + (boxedNanos / count) + " ns/op");
+        System.out.println("  Checksums agree: " + (checksum == 0));
+        System.out.println();
+    }
+
+    static void testConcurrentHashTable() {
+        System.out.println("Test 26: Concurrent Hash Table");
+        ConcurrentMemoryArena arena = new ConcurrentMemoryArena(1 << 24);
+        ConcurrentHashTableStore tableStore = new ConcurrentHashTableStore(arena);
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        int tableAddr = tableStore.createTable(16, threads * 4);
+
+        System.out.println("Concurrent inserts from " + threads + " threads (25000 keys each):");
+        runThreads(threads, t -> {
+            for (int i = 0; i < 25000; i++) {
+                int key = (i * threads) + t;
+                tableStore.put(tableAddr, key, key * 2);
+            }
+        });
+        boolean complete = true;
+        for (int key = 0; key < threads * 25000; key++) {
+            complete &= tableStore.getOrDefault(tableAddr, key, -1) == key * 2;
+        }
+        tableStore.printStats(tableAddr);
+        System.out.println("  All keys present with correct values: " + complete);
+
+        System.out.println("\nConcurrent removes of even keys while readers check odd keys:");
+        java.util.concurrent.atomic.AtomicInteger misses = new java.util.concurrent.atomic.AtomicInteger();
+        runThreads(threads, t -> {
+            for (int i = 0; i < 25000; i++) {
+                int key = (i * threads) + t;
+                if ((key & 1) == 0) {
+                    tableStore.remove(tableAddr, key);
+                } else if (tableStore.get(tableAddr, key) == null) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        System.out.println("  Size after removes: " + tableStore.getSize(tableAddr) + ", odd-key misses: " + misses.get());
+        int usedBeforeRefill = arena.used();
+        runThreads(threads, t -> {
+            for (int i = 0; i < 25000; i++) {
+                int key = (i * threads) + t;
+                if ((key & 1) == 0) {
+                    tableStore.put(tableAddr, key, key * 2);
+                }
+            }
+        });
+        System.out.println("  Re-inserting the even keys reuses freed entries: size " + tableStore.getSize(tableAddr)
+            + ", arena grew by " + (arena.used() - usedBeforeRefill) + " bytes");
+        System.out.println("  Bucket arrays abandoned by " + tableStore.getResizeCount(tableAddr) + " resizes: "
+            + arena.getAbandonedBytes() + " bytes");
+
+        System.out.println("\nRead-mostly throughput (99% get, 1% put, "
+            + Runtime.getRuntime().availableProcessors() + " available cores):");
+        HashTableStore plainStore = new HashTableStore(arena);
+        int plainTable = plainStore.createHashTable(1 << 16);
+        for (int key = 1; key < threads * 25000; key += 2) {
+            plainStore.put(plainTable, key, key * 2);
+        }
+        Object globalLock = new Object();
+        for (int n = 1; n <= threads; n *= 2) {
+            int workers = n;
+            long stripedNanos = Long.MAX_VALUE;
+            long lockedNanos = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                runThreads(workers, t -> {
+                    java.util.Random random = new java.util.Random(t);
+                    for (int i = 0; i < 400000; i++) {
+                        int key = random.nextInt(threads * 25000);
+                        if (i % 100 == 0) {
+                            tableStore.put(tableAddr, key | 1, key);
+                        } else {
+                            tableStore.get(tableAddr, key);
+                        }
+                    }
+                });
+                stripedNanos = Math.min(stripedNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                runThreads(workers, t -> {
+                    java.util.Random random = new java.util.Random(t);
+                    for (int i = 0; i < 400000; i++) {
+                        int key = random.nextInt(threads * 25000);
+                        synchronized (globalLock) {
+                            if (i % 100 == 0) {
+                                plainStore.put(plainTable, key | 1, key);
+                            } else {
+                                plainStore.get(plainTable, key);
+                            }
+                        }
+                    }
+                });
+                lockedNanos = Math.min(lockedNanos, System.nanoTime() - start);
+            }
+            System.out.println("  " + workers + " thread(s): seqlock "
+                + String.format("%.1f", 400000.0 * workers * 1000 / stripedNanos) + " Mops/s, global lock "
+                + String.format("%.1f", 400000.0 * workers * 1000 / lockedNanos) + " Mops/s");
+        }
+        if (Runtime.getRuntime().availableProcessors() < threads) {
+            System.out.println("  (fewer cores than threads: these numbers do not measure multi-core scaling)");
+        }
+        System.out.println();
+    }
+
+    interface ThreadBody {
+        void run(int threadIndex);
+    }
+
+    static void runThreads(int count, ThreadBody body) {
+        Thread[] workers = new Thread[count];
+        for (int t = 0; t < count; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> body.run(index));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    static void testHashTableRecycling() {
+        System.out.println("Test 27: Hash Table Entry Recycling and Compaction");
+        MemoryArena arena = new MemoryArena(1 << 16);
+        HashTableStore hashTable = new HashTableStore(arena);
+        int tableAddr = hashTable.createHashTable(64);
+
+        for (int key = 0; key < 1000; key++) {
+            hashTable.put(tableAddr, key, key);
+        }
+        int usedAfterFill = arena.used();
+        System.out.println("Cache-like churn: 100 rounds of removing and re-adding 1000 keys");
+        for (int round = 1; round <= 100; round++) {
+            for (int key = 0; key < 1000; key++) {
+                hashTable.remove(tableAddr, (round - 1) * 1000 + key);
+            }
+            for (int key = 0; key < 1000; key++) {
+                hashTable.put(tableAddr, round * 1000 + key, key);
+            }
+        }
+        System.out.println("  Bytes used after fill: " + usedAfterFill);
+        System.out.println("  Bytes used after churn: " + arena.used() + " (without recycling: "
+            + (usedAfterFill + (100 * 1000 * 12)) + ", over the 65536-byte arena)");
+        System.out.println("  Live entries: " + hashTable.getEntryCount(tableAddr)
+            + ", free list: " + hashTable.getFreeListSize(tableAddr));
+
+        System.out.println("\nRemoving every other key, then compacting:");
+        for (int key = 100000; key < 101000; key += 2) {
+            hashTable.remove(tableAddr, key);
+        }
+        System.out.println("  Before compact: live " + hashTable.getEntryCount(tableAddr)
+            + ", free " + hashTable.getFreeListSize(tableAddr) + ", used " + arena.used());
+        int moved = hashTable.compact(tableAddr);
+        System.out.println("  Compacted " + moved + " entries: free " + hashTable.getFreeListSize(tableAddr)
+            + ", used " + arena.used() + ", abandoned " + arena.getAbandonedBytes());
+        boolean intact = true;
+        for (int key = 100001; key < 101000; key += 2) {
+            intact &= hashTable.get(tableAddr, key) == key - 100000;
+        }
+        System.out.println("  All remaining keys intact: " + intact);
+        int usedAfterCompact = arena.used();
+        for (int key = 0; key < 500; key++) {
+            hashTable.put(tableAddr, 200000 + key, key);
+        }
+        System.out.println("  Re-adding 500 keys: free " + hashTable.getFreeListSize(tableAddr)
+            + ", used " + arena.used() + " (grew by " + (arena.used() - usedAfterCompact) + " bytes)");
+
+        int oddTable = hashTable.createHashTable(7);
+        hashTable.put(oddTable, Integer.MIN_VALUE, 1);
+        hashTable.put(oddTable, -1, 2);
+        System.out.println("  7-bucket table: get(MIN_VALUE) = " + hashTable.get(oddTable, Integer.MIN_VALUE)
+            + ", get(-1) = " + hashTable.get(oddTable, -1) + ", entries = " + hashTable.getEntryCount(oddTable)
+            + ", free list = " + hashTable.getFreeListSize(oddTable));
+        System.out.println();
+    }
+
+    static void testNegativeLookupFilters() {
+        System.out.println("Test 28: Bloom and Cuckoo Filters for Negative Lookups");
+        MemoryArena arena = new MemoryArena(1 << 23);
+        HashTableStore hashTable = new HashTableStore(arena);
+        FilterStore filterStore = hashTable.getFilterStore();
+
+        int plainTable = hashTable.createHashTable(4096);
+        int bloomTable = hashTable.createHashTable(4096);
+        int cuckooTable = hashTable.createHashTable(4096);
+        for (int i = 0; i < 50000; i++) {
+            int key = i * 7;
+            hashTable.put(plainTable, key, i);
+            hashTable.put(bloomTable, key, i);
+        }
+        hashTable.attachFilter(bloomTable, filterStore.createBloomFilter(50000, 10));
+        hashTable.attachFilter(cuckooTable, filterStore.createCuckooFilter(50000));
+        for (int i = 0; i < 50000; i++) {
+            hashTable.put(cuckooTable, i * 7, i);
+        }
+
+        System.out.println("Dedup workload: 500000 lookups, ~90% misses");
+        int[] tables = {plainTable, bloomTable, cuckooTable};
+        String[] names = {"No filter", "Blocked Bloom (10 bits/key)", "Cuckoo (16-bit fingerprints)"};
+        for (int t = 0; t < tables.length; t++) {
+            java.util.Random random = new java.util.Random(3);
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < 500000; i++) {
+                int key = random.nextInt(10) == 0 ? random.nextInt(50000) * 7 : random.nextInt(350000) * 7 + 1;
+                if (hashTable.contains(tables[t], key)) {
+                    hits++;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.println("  " + names[t] + ": " + (nanos / 500000) + " ns/lookup, hits " + hits);
+        }
+        filterStore.printStats(hashTable.getFilter(bloomTable));
+        filterStore.printStats(hashTable.getFilter(cuckooTable));
+
+        System.out.println("\nDeleting through a cuckoo filter:");
+        int cuckooFilter = hashTable.getFilter(cuckooTable);
+        System.out.println("  mightContain(70) before remove: " + filterStore.mightContain(cuckooFilter, 70));
+        hashTable.remove(cuckooTable, 70);
+        System.out.println("  mightContain(70) after remove: " + filterStore.mightContain(cuckooFilter, 70));
+        System.out.println("  Filter items: " + filterStore.getSize(cuckooFilter));
+        try {
+            filterStore.remove(hashTable.getFilter(bloomTable), 70);
+        } catch (UnsupportedOperationException e) {
+            System.out.println("  Caught: " + e.getMessage());
+        }
+
+        System.out.println("\nFilling a cuckoo filter sized for 4 keys with 10000 keys:");
+        int smallTable = hashTable.createHashTable(1024);
+        int smallFilter = filterStore.createCuckooFilter(4);
+        int initialFilterBytes = filterStore.getByteSize(smallFilter);
+        hashTable.attachFilter(smallTable, smallFilter);
+        for (int key = 0; key < 10000; key++) {
+            hashTable.put(smallTable, key, key);
+        }
+        int falseNegatives = 0;
+        for (int key = 0; key < 10000; key++) {
+            if (hashTable.get(smallTable, key) == null) {
+                falseNegatives++;
+            }
+        }
+        int grownFilter = hashTable.getFilter(smallTable);
+        System.out.println("  Entries: " + hashTable.getEntryCount(smallTable) + ", false negatives: " + falseNegatives);
+        System.out.println("  Filter grew from " + initialFilterBytes + " to "
+            + filterStore.getByteSize(grownFilter) + " bytes, items: " + filterStore.getSize(grownFilter));
+        System.out.println();
+    }
+
+    static void testCacheStore() {
+        System.out.println("Test 29: Bounded Cache with CLOCK Eviction");
+        MemoryArena arena = new MemoryArena(1 << 20);
+        long[] now = {1_000L};
+        CacheStore cacheStore = new CacheStore(arena, () -> now[0]);
+
+        int cacheAddr = cacheStore.createCache(16 * 1024);
+        int usedBefore = arena.used();
+        System.out.println("16 KB budget holds " + cacheStore.getCapacity(cacheAddr) + " entries in "
+            + cacheStore.getByteSize(cacheAddr) + " bytes");
+
+        System.out.println("\nSkewed workload: 200000 lookups over 20000 keys (80% of traffic on 1% of keys)");
+        java.util.Random random = new java.util.Random(5);
+        for (int i = 0; i < 200000; i++) {
+            int key = random.nextInt(5) < 4 ? random.nextInt(200) : random.nextInt(20000);
+            if (cacheStore.get(cacheAddr, key) == null) {
+                cacheStore.put(cacheAddr, key, key * 10);
+            }
+        }
+        cacheStore.printStats(cacheAddr);
+        System.out.println("  Arena growth during workload: " + (arena.used() - usedBefore) + " bytes");
+
+        boolean hotResident = true;
+        for (int key = 0; key < 200; key++) {
+            Integer value = cacheStore.get(cacheAddr, key);
+            hotResident &= value == null || value == key * 10;
+        }
+        System.out.println("  Cached values correct: " + hotResident);
+
+        System.out.println("\nTTL expiry (ttl = 500 ms, manual clock):");
+        int ttlCache = cacheStore.createCache(4096, 500L);
+        cacheStore.put(ttlCache, 1, 100);
+        now[0] += 400;
+        System.out.println("  get(1) at +400ms = " + cacheStore.get(ttlCache, 1));
+        now[0] += 200;
+        System.out.println("  get(1) at +600ms = " + cacheStore.get(ttlCache, 1));
+        cacheStore.printStats(ttlCache);
+
+        try {
+            cacheStore.createCache(64);
+        } catch (IllegalArgumentException e) {
+            System.out.println("  Caught: " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    static void testBatchedHashLookups() {
+        System.out.println("Test 30: Batched Multi-Get and Multi-Put");
+        MemoryArena arena = new MemoryArena(1 << 23);
+        HashTableStore hashTable = new HashTableStore(arena);
+        int tableAddr = hashTable.createHashTable(1 << 16);
+
+        int count = 1 << 18;
+        java.util.Random random = new java.util.Random(9);
+        int[] keys = new int[count];
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = random.nextInt(Integer.MAX_VALUE);
+            values[i] = i;
+        }
+        hashTable.putAll(tableAddr, keys, values);
+        System.out.println("putAll inserted " + hashTable.getEntryCount(tableAddr) + " entries");
+
+        int[] small = {keys[0], 12345, keys[1], keys[0]};
+        int[] smallOut = {99, 99, 99, 99};
+        int hits = hashTable.getAll(tableAddr, small, smallOut, -1);
+        System.out.println("getAll([k0, 12345, k1, k0], missing -1) -> hits " + hits + ", values " + java.util.Arrays.toString(smallOut));
+
+        int[] probes = new int[count];
+        for (int i = 0; i < count; i++) {
+            probes[i] = keys[random.nextInt(count)];
+        }
+        int[] out = new int[count];
+        long expected = 0;
+        for (int round = 0; round < 2; round++) {
+            expected = 0;
+            for (int key : probes) {
+                expected += hashTable.get(tableAddr, key);
+            }
+            hashTable.getAll(tableAddr, probes, out, 0);
+        }
+
+        System.out.println("\nLookup sweep over " + count + " keys (~4 entries per chain, best of 3 rounds):");
+        long sum = 0;
+        long singleNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            sum = 0;
+            for (int key : probes) {
+                sum += hashTable.get(tableAddr, key);
+            }
+            singleNanos = Math.min(singleNanos, System.nanoTime() - start);
+        }
+        System.out.println("  single get(): " + (singleNanos / count) + " ns/key");
+
+        int[] batchSizes = {1, 4, 16, 64, 256, 1024};
+        for (int batchSize : batchSizes) {
+            int[] batch = new int[batchSize];
+            int[] batchOut = new int[batchSize];
+            long batchSum = 0;
+            long nanos = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                batchSum = 0;
+                long start = System.nanoTime();
+                for (int base = 0; base < count; base += batchSize) {
+                    System.arraycopy(probes, base, batch, 0, batchSize);
+                    hashTable.getAll(tableAddr, batch, batchOut, 0);
+                    for (int v : batchOut) {
+                        batchSum += v;
+                    }
+                }
+                nanos = Math.min(nanos, System.nanoTime() - start);
+            }
+            System.out.println("  getAll() batch " + batchSize + ": " + (nanos / count) + " ns/key"
+                + (batchSum == sum ? "" : " (MISMATCH)"));
+        }
+        System.out.println("  Sums agree with single gets: " + (sum == expected));
+
+        int threads = 4;
+        java.util.concurrent.atomic.AtomicInteger wrong = new java.util.concurrent.atomic.AtomicInteger();
+        Thread[] readers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * (count / threads);
+            readers[t] = new Thread(() -> {
+                int[] batch = new int[64];
+                int[] batchOut = new int[64];
+                for (int base = offset; base + 64 <= offset + count / threads; base += 64) {
+                    System.arraycopy(probes, base, batch, 0, 64);
+                    hashTable.getAll(tableAddr, batch, batchOut, -1);
+                    for (int i = 0; i < 64; i++) {
+                        if (keys[batchOut[i]] != batch[i]) {
+                            wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (Thread reader : readers) {
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        System.out.println("  " + threads + " threads sharing the store with getAll(): wrong values = " + wrong.get());
+        System.out.println();
+    }
+
+    static void testQueryOperators() {
+        System.out.println("Test 31: Hash Join and Group-By Operators");
+        MemoryArena arena = new MemoryArena(1 << 26);
+        ArrayStore arrayStore = new ArrayStore(arena);
+        QueryOperatorStore operators = new QueryOperatorStore(arena);
+        VectorStore vectorStore = operators.getVectorStore();
+
+        int customers = arrayStore.createArray(4, 4);
+        int[] customerIds = {7, 3, 9, 3};
+        for (int i = 0; i < customerIds.length; i++) {
+            arrayStore.setInt(customers, i, customerIds[i]);
+        }
+        int orders = arrayStore.createArray(5, 4);
+        int[] orderCustomers = {3, 9, 4, 7, 3};
+        for (int i = 0; i < orderCustomers.length; i++) {
+            arrayStore.setInt(orders, i, orderCustomers[i]);
+        }
+        int buildRows = vectorStore.createVector(8);
+        int probeRows = vectorStore.createVector(8);
+        int matches = operators.hashJoin(customers, orders, buildRows, probeRows);
+        System.out.println("customers " + java.util.Arrays.toString(customerIds) + " JOIN orders "
+            + java.util.Arrays.toString(orderCustomers) + ": " + matches + " matches");
+        for (int i = 0; i < matches; i++) {
+            System.out.println("  customer row " + vectorStore.get(buildRows, i) + " <-> order row " + vectorStore.get(probeRows, i));
+        }
+
+        System.out.println("\nGroup-by region (sum/count/min/max of amount):");
+        int[] regions = {1, 2, 1, 3, 2, 1};
+        int[] amounts = {10, 5, 30, 7, 15, 20};
+        int regionCol = arrayStore.createArray(regions.length, 4);
+        int amountCol = arrayStore.createArray(amounts.length, 4);
+        for (int i = 0; i < regions.length; i++) {
+            arrayStore.setInt(regionCol, i, regions[i]);
+            arrayStore.setInt(amountCol, i, amounts[i]);
+        }
+        int abandonedBefore = arena.getAbandonedBytes();
+        int grouped = operators.groupBy(regionCol, amountCol);
+        System.out.println("Columns: [key, count, sum, min, max]");
+        operators.getTableStore().printTable(grouped);
+        System.out.println("Scratch bytes abandoned (aggregates + group index): " + (arena.getAbandonedBytes() - abandonedBefore));
+        try {
+            operators.groupBy(arrayStore.createArray(regions.length, 8), amountCol);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Caught: " + e.getMessage());
+        }
+        int emptyVec = vectorStore.createVector(0);
+        int ordersVec = vectorStore.createVector(orderCustomers.length);
+        vectorStore.appendAll(ordersVec, orderCustomers);
+        int emptyMatches = operators.hashJoinVectors(emptyVec, ordersVec, buildRows, probeRows)
+            + operators.hashJoinVectors(ordersVec, emptyVec, buildRows, probeRows);
+        int emptyGroups = operators.getTableStore().getRowCount(operators.groupByVectors(emptyVec, emptyVec));
+        System.out.println("Empty vector inputs: join matches = " + emptyMatches + ", groups = " + emptyGroups);
+
+        System.out.println("\nLarge join: 500000-row build side, 2000000-row probe side");
+        int buildSize = 500000;
+        int probeSize = 2000000;
+        java.util.Random random = new java.util.Random(21);
+        int build = arrayStore.createArray(buildSize, 4);
+        int probe = arrayStore.createArray(probeSize, 4);
+        for (int i = 0; i < buildSize; i++) {
+            arrayStore.setInt(build, i, i * 3);
+        }
+        for (int i = 0; i < probeSize; i++) {
+            arrayStore.setInt(probe, i, random.nextInt(buildSize * 6));
+        }
+        int expected = 0;
+        for (int i = 0; i < probeSize; i++) {
+            int key = arrayStore.getInt(probe, i);
+            if (key % 3 == 0 && key / 3 < buildSize) {
+                expected++;
+            }
+        }
+
+        for (int round = 0; round < 2; round++) {
+            int hashBuild = vectorStore.createVector(expected);
+            int hashProbe = vectorStore.createVector(expected);
+            long start = System.nanoTime();
+            int hashMatches = operators.hashJoin(build, probe, hashBuild, hashProbe);
+            long hashNanos = System.nanoTime() - start;
+
+            int radixBuild = vectorStore.createVector(expected);
+            int radixProbe = vectorStore.createVector(expected);
+            start = System.nanoTime();
+            int radixMatches = operators.radixJoin(build, probe, radixBuild, radixProbe);
+            long radixNanos = System.nanoTime() - start;
+
+            if (round == 1) {
+                boolean pairsValid = true;
+                for (int i = 0; i < radixMatches; i += 997) {
+                    pairsValid &= arrayStore.getInt(build, vectorStore.get(radixBuild, i))
+                        == arrayStore.getInt(probe, vectorStore.get(radixProbe, i));
+                }
+                System.out.println("  Expected matches: " + expected);
+                System.out.println("  Hash join: " + hashMatches + " matches in " + (hashNanos / 1_000_000) + " ms");
+                System.out.println("  Radix join (" + (1 << QueryOperatorStore.choosePartitionBits(buildSize))
+                    + " partitions): " + radixMatches + " matches in " + (radixNanos / 1_000_000) + " ms");
+                System.out.println("  Sampled pairs have equal keys: " + pairsValid);
+            }
+        }
+        System.out.println();
+    }
+
+    static final StructLayout PARTICLE = StructLayout.builder("Particle")
+        .intField("id")
+        .byteField("flags")
+        .doubleField("x")
+        .doubleField("y")
+        .shortField("kind")
+        .build();
+    static final StructLayout.IntField PARTICLE_ID = PARTICLE.intField("id");
+    static final StructLayout.ByteField PARTICLE_FLAGS = PARTICLE.byteField("flags");
+    static final StructLayout.DoubleField PARTICLE_X = PARTICLE.doubleField("x");
+    static final StructLayout.DoubleField PARTICLE_Y = PARTICLE.doubleField("y");
+    static final StructLayout.ShortField PARTICLE_KIND = PARTICLE.shortField("kind");
+
+    static void testStructLayout() {
+        System.out.println("Test 32: Declarative Struct Layouts");
+        MemoryArena arena = new MemoryArena(1 << 24);
+        PARTICLE.printLayout();
+
+        StructLayout entryLayout = StructLayout.builder("HashEntry")
+            .intField("key")
+            .intField("value")
+            .intField("next")
+            .build()
+            .bind(arena);
+        StructLayout.IntField entryKey = entryLayout.intField("key");
+        StructLayout.IntField entryValue = entryLayout.intField("value");
+        StructLayout.IntField entryNext = entryLayout.intField("next");
+        HashTableStore hashTable = new HashTableStore(arena);
+        int table = hashTable.createHashTable(4);
+        hashTable.put(table, 42, 4200);
+        int entry = arena.getInt(table + 16 + (42 % 4) * 4);
+        System.out.println("\nHashEntry layout over a HashTableStore entry: size=" + entryLayout.getSize()
+            + ", key=" + entryKey.get(arena, entry) + ", value=" + entryValue.get(arena, entry)
+            + ", next=" + entryNext.get(arena, entry));
+
+        try {
+            entryLayout.longField("key");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Caught expected type mismatch: " + e.getMessage());
+        }
+
+        StructLayout particles = PARTICLE.bind(arena);
+        int count = 200000;
+        int array = particles.allocateArray(count);
+        System.out.println("\nAllocated " + count + " particles at " + array + " (aligned to " + particles.getAlignment() + ")");
+        particles.forEach(array, count, (index, addr) -> {
+            PARTICLE_ID.set(arena, addr, index);
+            PARTICLE_FLAGS.set(arena, addr, (byte) (index & 3));
+            PARTICLE_X.set(arena, addr, index * 0.5);
+            PARTICLE_Y.set(arena, addr, -index);
+            PARTICLE_KIND.set(arena, addr, (short) (index % 7));
+        });
+        int last = particles.elementAddress(array, count - 1);
+        System.out.println("Last particle: id=" + PARTICLE_ID.get(arena, last) + ", flags=" + PARTICLE_FLAGS.get(arena, last)
+            + ", x=" + PARTICLE_X.get(arena, last) + ", y=" + PARTICLE_Y.get(arena, last)
+            + ", kind=" + PARTICLE_KIND.get(arena, last));
+
+        for (int round = 0; round < 10; round++) {
+            long start = System.nanoTime();
+            double layoutSum = sumParticleX(arena, particles, array, count);
+            long layoutNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            double manualSum = sumAtOffset(arena, array, count, particles.getSize(), particles.offsetOf("x"));
+            long manualNanos = System.nanoTime() - start;
+            if (round == 9) {
+                System.out.println("Strided sum of x: layout cursor " + layoutSum + " in " + (layoutNanos / 1000) + " us, "
+                    + "hand-coded offsets " + manualSum + " in " + (manualNanos / 1000) + " us");
+            }
+        }
+        System.out.println();
+    }
+
+    static void testArenaImage() {
+        System.out.println("Test 33: Arena Image Export and Import");
+        int entries = 200000;
+        long start = System.nanoTime();
+        MemoryArena arena = new MemoryArena(1 << 24);
+        arena.createRegionAtOffset(64, "Header");
+        HashTableStore hashTable = new HashTableStore(arena);
+        StringStore stringStore = new StringStore(arena);
+        int table = hashTable.createHashTable(1 << 16);
+        for (int i = 0; i < entries; i++) {
+            hashTable.put(table, i, stringStore.createString("item-" + i));
+        }
+        long buildNanos = System.nanoTime() - start;
+
+        ArenaImage image = new ArenaImage(arena).putRoot("lookup", table).putRoot("missing", -1);
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("arena", ".img");
+            start = System.nanoTime();
+            long bytes = image.write(path);
+            long writeNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            ArenaImage loaded = ArenaImage.read(path);
+            long readNanos = System.nanoTime() - start;
+            loaded.printImage();
+
+            MemoryArena loadedArena = loaded.getArena();
+            HashTableStore loadedTable = new HashTableStore(loadedArena);
+            StringStore loadedStrings = new StringStore(loadedArena);
+            int loadedRoot = loaded.getRoot("lookup");
+            boolean valid = loadedArena.used() == arena.used();
+            for (int i = 0; i < entries; i += 997) {
+                valid &= loadedStrings.getString(loadedTable.get(loadedRoot, i)).equals("item-" + i);
+            }
+            System.out.println("Lookups after load match: " + valid + ", get(123456) = "
+                + loadedStrings.getString(loadedTable.get(loadedRoot, 123456)));
+            System.out.println("Build " + entries + " entries: " + (buildNanos / 1_000_000) + " ms, write "
+                + bytes + " bytes: " + (writeNanos / 1_000_000) + " ms, load: " + (readNanos / 1_000_000) + " ms");
+
+            java.nio.file.Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+            try {
+                ArenaImage.read(path);
+            } catch (java.io.IOException e) {
+                System.out.println("Caught expected error: " + e.getMessage());
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("Image I/O failed: " + e.getMessage());
+        } finally {
+            if (path != null) {
+                path.toFile().delete();
+            }
+        }
+        System.out.println();
+    }
+
+    static void testWriteAheadLog() {
+        System.out.println("Test 34: Write-Ahead Log with Group Commit");
+        java.nio.file.Path dir = null;
+        try {
+            dir = java.nio.file.Files.createTempDirectory("wal");
+            java.nio.file.Path snapshot = dir.resolve("table.img");
+            java.nio.file.Path logPath = dir.resolve("table.wal");
+
+            MemoryArena arena = new MemoryArena(1 << 24);
+            HashTableStore hashTable = new HashTableStore(arena);
+            int table = hashTable.createHashTable(1 << 16);
+            int threads = 8;
+            int perThread = 20000;
+            int[] lateTableHolder = new int[1];
+            try (WriteAheadLog wal = new WriteAheadLog(logPath, 200, java.util.concurrent.TimeUnit.MICROSECONDS)) {
+                wal.checkpoint(hashTable, new ArenaImage(arena).putRoot("table", table), snapshot);
+                int batch = 32;
+                long start = System.nanoTime();
+                runThreads(threads, index -> {
+                    int[] keys = new int[batch];
+                    int[] values = new int[batch];
+                    for (int i = 0; i < perThread; i += batch) {
+                        for (int j = 0; j < batch; j++) {
+                            keys[j] = index * perThread + i + j;
+                            values[j] = keys[j] * 2;
+                        }
+                        wal.putAll(hashTable, table, keys, values);
+                    }
+                });
+                long nanos = System.nanoTime() - start;
+                System.out.println(threads + " writers, " + (threads * perThread) + " durable puts in batches of " + batch + ": "
+                    + String.format("%.0f", threads * perThread / (nanos / 1e9)) + " ops/s");
+                wal.printStats();
+
+                int[] writerCounts = {1, threads};
+                for (int w = 0; w < writerCounts.length; w++) {
+                    int writers = writerCounts[w];
+                    int offset = w;
+                    long syncsBefore = wal.getSyncCount();
+                    start = System.nanoTime();
+                    runThreads(writers, index -> {
+                        for (int key = offset + index * 2; key < threads * perThread; key += writers * 20) {
+                            wal.remove(hashTable, table, key);
+                        }
+                    });
+                    nanos = System.nanoTime() - start;
+                    int removes = threads * perThread / 20;
+                    System.out.println(writers + " writer(s), " + removes + " single durable removes: "
+                        + String.format("%.0f", removes / (nanos / 1e9)) + " ops/s, "
+                        + String.format("%.1f", (double) removes / (wal.getSyncCount() - syncsBefore)) + " records per fsync");
+                }
+                int lateTable = wal.createTable(hashTable, 64);
+                int untrackedTable = hashTable.createHashTable(64);
+                for (int key = 0; key < 100; key++) {
+                    wal.put(hashTable, lateTable, key, -key);
+                }
+                wal.put(hashTable, untrackedTable, 1, 1);
+                lateTableHolder[0] = lateTable;
+                System.out.println("Log size before crash: " + wal.size() + " bytes");
+            }
+
+            try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(logPath,
+                    java.nio.file.StandardOpenOption.WRITE, java.nio.file.StandardOpenOption.APPEND)) {
+                channel.write(java.nio.ByteBuffer.wrap(new byte[] {1, 0, 0, 0, 64, 0, 0}));
+            }
+
+            ArenaImage image = ArenaImage.read(snapshot);
+            MemoryArena recoveredArena = image.getArena();
+            HashTableStore recovered = new HashTableStore(recoveredArena);
+            int recoveredTable = image.getRoot("table");
+            try (WriteAheadLog wal = new WriteAheadLog(logPath, 200, java.util.concurrent.TimeUnit.MICROSECONDS)) {
+                System.out.println("Entries in snapshot: " + recovered.getEntryCount(recoveredTable));
+                int replayed = wal.replay(recovered);
+                boolean valid = recovered.getEntryCount(recoveredTable) == hashTable.getEntryCount(table);
+                for (int key = 0; key < threads * perThread; key += 7) {
+                    valid &= java.util.Objects.equals(recovered.get(recoveredTable, key), hashTable.get(table, key));
+                }
+                System.out.println("Replayed " + replayed + " records (torn tail dropped, log now " + wal.size()
+                    + " bytes), entries " + recovered.getEntryCount(recoveredTable) + ", matches pre-crash table: " + valid);
+                int lateTable = wal.getReplayedTable(lateTableHolder[0]);
+                System.out.println("Table created after the checkpoint: " + recovered.getEntryCount(lateTable)
+                    + " entries, get(99) = " + recovered.get(lateTable, 99) + "; records for an unlogged table skipped: "
+                    + wal.getSkippedRecordCount());
+
+                wal.checkpoint(recovered, new ArenaImage(recoveredArena).putRoot("table", recoveredTable), snapshot);
+                System.out.println("After checkpoint: log " + wal.size() + " bytes, snapshot "
+                    + java.nio.file.Files.size(snapshot) + " bytes");
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("WAL I/O failed: " + e.getMessage());
+        } finally {
+            if (dir != null) {
+                for (java.io.File file : dir.toFile().listFiles()) {
+                    file.delete();
+                }
+                dir.toFile().delete();
+            }
+        }
+        System.out.println();
+    }
+
+    static void testSharedMemoryArena() {
+        System.out.println("Test 35: Shared-Memory Arena Across Processes");
+        java.nio.file.Path shm = java.nio.file.Paths.get("/dev/shm");
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.isDirectory(shm)
+                ? java.nio.file.Files.createTempFile(shm, "arena", ".shm")
+                : java.nio.file.Files.createTempFile("arena", ".shm");
+            try (SharedMemoryArena writer = SharedMemoryArena.create(path, 1 << 22)) {
+                HashTableStore hashTable = new HashTableStore(writer);
+                StringStore stringStore = new StringStore(writer);
+                int table = hashTable.createHashTable(4096);
+                for (int i = 0; i < 50000; i++) {
+                    hashTable.put(table, i, stringStore.createString("row-" + i));
+                }
+                writer.setRoot(0, table);
+                writer.publish();
+                writer.printStats();
+
+                ProcessBuilder builder = new ProcessBuilder(
+                    java.nio.file.Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), "Main", "--shared-reader", path.toString());
+                builder.redirectErrorStream(true);
+                Process process = builder.start();
+                String output = new String(process.getInputStream().readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+                int exit = process.waitFor();
+                for (String line : output.split("\n")) {
+                    if (!line.isEmpty()) {
+                        System.out.println("  [reader process] " + line);
+                    }
+                }
+                System.out.println("Reader process exit code: " + exit);
+
+                try (SharedMemoryArena reader = SharedMemoryArena.openReadOnly(path)) {
+                    HashTableStore readerTable = new HashTableStore(reader);
+                    int pairTable = hashTable.createHashTable(16);
+                    writer.setRoot(1, pairTable);
+                    writer.beginWrite();
+                    hashTable.put(pairTable, 1, 0);
+                    hashTable.put(pairTable, 2, 0);
+                    writer.publish();
+
+                    int rounds = 20000;
+                    int[] torn = new int[1];
+                    Thread readerThread = new Thread(() -> {
+                        for (int i = 0; i < rounds; i++) {
+                            int[] pair = reader.read(() -> {
+                                int root = reader.getRoot(1);
+                                return new int[] {readerTable.get(root, 1), readerTable.get(root, 2)};
+                            });
+                            if (pair[0] != pair[1]) {
+                                torn[0]++;
+                            }
+                        }
+                    });
+                    readerThread.start();
+                    for (int v = 1; v <= rounds; v++) {
+                        writer.beginWrite();
+                        hashTable.put(pairTable, 1, v);
+                        hashTable.put(pairTable, 2, v);
+                        writer.publish();
+                    }
+                    readerThread.join();
+                    System.out.println("In-process reader: " + rounds + " snapshot reads during " + rounds
+                        + " paired updates, torn snapshots: " + torn[0]);
+                    reader.printStats();
+
+                    try {
+                        reader.alloc(16);
+                    } catch (UnsupportedOperationException e) {
+                        System.out.println("Caught expected error: " + e.getMessage().replace(path.toString(), path.getFileName().toString()));
+                    }
+
+                    int label = stringStore.createString("shared");
+                    stringStore.setCharAt(label, 0, 'S');
+                    writer.setRoot(2, label);
+                    writer.publish();
+                    StringStore readerStrings = new StringStore(reader);
+                    int readerHash = reader.read(() -> readerStrings.getHash(reader.getRoot(2)));
+                    System.out.println("Read-only getHash(\"Shared\") after the writer cleared the cached hash: "
+                        + (readerHash == "Shared".hashCode() ? "matches String.hashCode()" : "MISMATCH"));
+                }
+
+                java.nio.file.Path imagePath = java.nio.file.Files.createTempFile("shared", ".img");
+                try {
+                    long imageBytes = new ArenaImage(writer).putRoot("table", table).write(imagePath);
+                    ArenaImage copy = ArenaImage.read(imagePath);
+                    HashTableStore copyTable = new HashTableStore(copy.getArena());
+                    String row = new StringStore(copy.getArena()).getString(copyTable.get(copy.getRoot("table"), 31337));
+                    System.out.println("ArenaImage of the shared arena: " + imageBytes + " bytes, heap copy get(31337) = " + row
+                        + ", generation carried over: " + (copy.getArena().getGeneration() == writer.getGeneration()));
+                } finally {
+                    java.nio.file.Files.deleteIfExists(imagePath);
+                }
+
+                try (SharedMemoryArena reader = SharedMemoryArena.openReadOnly(path)) {
+                    long handle = writer.handle(table, HashTableStore.HANDLE_TAG);
+                    HashTableStore readerTable = new HashTableStore(reader);
+                    System.out.println("Reader resolves the writer's handle: get(7) via handle = "
+                        + new StringStore(reader).getString(reader.read(() -> readerTable.get(handle, 7))));
+                    writer.reset();
+                    writer.publish();
+                    try {
+                        reader.read(() -> readerTable.get(handle, 7));
+                    } catch (StaleHandleException e) {
+                        System.out.println("After writer reset: caught " + e.getMessage());
+                    }
+                }
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("Shared arena I/O failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (path != null) {
+                path.toFile().delete();
+            }
+        }
+        System.out.println();
+    }
+
+    static void runSharedReader(java.nio.file.Path path) {
+        try (SharedMemoryArena arena = SharedMemoryArena.openReadOnly(path)) {
+            HashTableStore hashTable = new HashTableStore(arena);
+            StringStore stringStore = new StringStore(arena);
+            String[] found = arena.read(() -> {
+                int table = arena.getRoot(0);
+                return new String[] {
+                    stringStore.getString(hashTable.get(table, 0)),
+                    stringStore.getString(hashTable.get(table, 31337)),
+                    String.valueOf(hashTable.getEntryCount(table))
+                };
+            });
+            arena.printStats();
+            System.out.println("get(0) = " + found[0] + ", get(31337) = " + found[1] + ", entries = " + found[2]);
+        } catch (java.io.IOException e) {
+            System.out.println("Shared arena I/O failed: " + e.getMessage());
+        }
+    }
+
+    static void testArenaPerTask() {
+        System.out.println("Test 36: Arena-per-Task Execution");
+        int workers = Math.max(4, Runtime.getRuntime().availableProcessors());
+        ArenaPool pool = new ArenaPool(1 << 16, 32, workers);
+        try {
+            ArenaPool.current();
+        } catch (IllegalStateException e) {
+            System.out.println("Caught expected error outside a task: " + e.getMessage());
+        }
+
+        ArenaPool capped = new ArenaPool(1 << 10, 1, 1);
+        try {
+            MemoryArena held = capped.acquire();
+            MemoryArena blocked = capped.tryAcquire(10, java.util.concurrent.TimeUnit.MILLISECONDS);
+            System.out.println("Pool capped at 1 arena, second acquire while one is held: "
+                + (blocked == null ? "timed out" : "granted"));
+            capped.release(held);
+            MemoryArena again = capped.tryAcquire(10, java.util.concurrent.TimeUnit.MILLISECONDS);
+            System.out.println("After release: " + (again == held ? "reused the same arena" : "got a different arena"));
+            capped.release(again);
+            try {
+                capped.release(again);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Caught expected error on double release: " + e.getMessage());
+            }
+            System.out.println("Outstanding after double release attempt: " + capped.getOutstandingCount()
+                + ", idle: " + capped.getIdleCount());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Default pool bounded: " + new ArenaPool(1 << 10, 1).isBounded());
+
+        int taskCount = 100000;
+        try (ArenaTaskExecutor executor = new ArenaTaskExecutor(java.util.concurrent.Executors.newFixedThreadPool(workers), pool)) {
+            long start = System.nanoTime();
+            java.util.List<java.util.concurrent.Future<Integer>> futures = new java.util.ArrayList<>(taskCount);
+            for (int t = 0; t < taskCount; t++) {
+                int request = t;
+                futures.add(executor.submit(() -> {
+                    HashTableStore hashTable = new HashTableStore(ArenaPool.current());
+                    int table = hashTable.createHashTable(16);
+                    for (int i = 0; i < 32; i++) {
+                        hashTable.put(table, i, request + i);
+                    }
+                    return hashTable.get(table, 31) - hashTable.get(table, 0);
+                }));
+            }
+            boolean valid = true;
+            for (java.util.concurrent.Future<Integer> future : futures) {
+                valid &= future.get() == 31;
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.println(taskCount + " tasks on " + workers + " workers: " + (nanos / 1_000_000) + " ms ("
+                + String.format("%.0f", taskCount / (nanos / 1e9)) + " tasks/s), all results valid: " + valid);
+            pool.printStats();
+            System.out.println("Outstanding arenas after tasks finished: " + pool.getOutstandingCount());
+            System.out.println("Bound after tasks finished: " + ArenaPool.isBound());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            System.out.println("Task failed: " + e.getCause());
+        }
+        System.out.println();
+    }
+
+    static void testGenerationHandles() {
+        System.out.println("Test 37: Generation-Tagged Handles");
+        MemoryArena arena = new MemoryArena(1 << 22);
+        NodeStore nodeStore = new NodeStore(arena);
+        StringStore stringStore = new StringStore(arena);
+        HashTableStore hashTable = new HashTableStore(arena);
+
+        long head = nodeStore.createNodeHandle(10);
+        long second = nodeStore.createNodeHandle(20);
+        nodeStore.setNext(head, second);
+        long greeting = stringStore.createStringHandle("hello");
+        long table = hashTable.createHashTableHandle(64);
+        hashTable.put(table, 7, 700);
+        System.out.println("Generation " + arena.getGeneration() + ": head=0x" + Long.toHexString(head)
+            + " (address " + MemoryArena.handleAddress(head) + ", tag " + MemoryArena.handleTag(head) + ")");
+        System.out.print("List via handles: ");
+        for (long node = head; node != MemoryArena.NULL_HANDLE; node = nodeStore.getNext(node)) {
+            System.out.print(nodeStore.getValue(node) + " ");
+        }
+        System.out.println();
+        System.out.println("String: " + stringStore.getString(greeting) + ", table.get(7) = " + hashTable.get(table, 7));
+
+        int rawHead = MemoryArena.handleAddress(head);
+        arena.reset();
+        nodeStore.createNode(99);
+        System.out.println("\nAfter reset (generation " + arena.getGeneration() + "):");
+        System.out.println("  Raw int address " + rawHead + " silently reads new data: " + nodeStore.getValue(rawHead));
+        try {
+            nodeStore.getValue(head);
+        } catch (StaleHandleException e) {
+            System.out.println("  Caught expected error: " + e.getMessage());
+        }
+        long fresh = hashTable.createHashTableHandle(1 << 14);
+        try {
+            stringStore.getString(fresh);
+        } catch (StaleHandleException e) {
+            System.out.println("  Caught expected error: " + e.getMessage());
+        }
+
+        int tableAddr = MemoryArena.handleAddress(fresh);
+        int keys = 1 << 14;
+        for (int key = 0; key < keys; key++) {
+            hashTable.put(fresh, key, key);
+        }
+        System.out.println("\nLookups on a " + hashTable.getBucketCount(tableAddr) + "-bucket table with " + keys + " entries (2M per round):");
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long addrSum = sumByAddress(hashTable, tableAddr, keys);
+            long addrNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            long handleSum = sumByHandle(hashTable, fresh, keys);
+            long handleNanos = System.nanoTime() - start;
+            if (round == 4) {
+                System.out.println("  int address (checkTablePtr): " + (addrNanos / 1_000_000) + " ms, "
+                    + "handle (one compare): " + (handleNanos / 1_000_000) + " ms, sums equal: " + (addrSum == handleSum));
+            }
+        }
+        System.out.println();
+    }
+
+    static long sumByAddress(HashTableStore hashTable, int tableAddr, int keys) {
+        long sum = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            sum += hashTable.get(tableAddr, i & (keys - 1));
+        }
+        return sum;
+    }
+
+    static long sumByHandle(HashTableStore hashTable, long tableHandle, int keys) {
+        long sum = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            sum += hashTable.get(tableHandle, i & (keys - 1));
+        }
+        return sum;
+    }
+
+    static void testPriorityQueue() {
+        System.out.println("Test 38: Priority Queue Store (4-ary Heap)");
+        MemoryArena arena = new MemoryArena(1 << 26);
+        PriorityQueueStore queues = new PriorityQueueStore(arena);
+        ArrayStore arrayStore = new ArrayStore(arena);
+
+        int timers = queues.createIndexedQueue(4, 16);
+        long[] deadlines = {500, 120, 900, 300, 750, 60};
+        for (int timer = 0; timer < deadlines.length; timer++) {
+            queues.push(timers, deadlines[timer], timer);
+        }
+        System.out.print("Timer heap: ");
+        queues.printQueue(timers);
+        queues.decreaseKey(timers, 2, 100);
+        System.out.println("decreaseKey(timer 2, 900 -> 100), priority now " + queues.getPriority(timers, 2));
+        System.out.print("Fire order: ");
+        while (!queues.isEmpty(timers)) {
+            long deadline = queues.peekPriority(timers);
+            System.out.print("t" + queues.pop(timers) + "@" + deadline + " ");
+        }
+        System.out.println();
+        try {
+            queues.pop(timers);
+        } catch (java.util.NoSuchElementException e) {
+            System.out.println("Caught expected error: " + e.getMessage());
+        }
+
+        int n = 1_000_000;
+        java.util.Random random = new java.util.Random(49);
+        int priorities = arrayStore.createArray(n, 8);
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextLong() >>> 1;
+            arrayStore.setLong(priorities, i, values[i]);
+        }
+        long[] sorted = values.clone();
+        java.util.Arrays.sort(sorted);
+
+        System.out.println("\n" + n + " random priorities:");
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int heap = queues.createQueue(n);
+            queues.heapify(heap, priorities, -1);
+            boolean ordered = true;
+            for (int i = 0; i < n; i++) {
+                ordered &= queues.peekPriority(heap) == sorted[i];
+                queues.pop(heap);
+            }
+            long heapNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            java.util.PriorityQueue<Long> javaQueue = new java.util.PriorityQueue<>();
+            for (int i = 0; i < n; i++) {
+                javaQueue.add(values[i]);
+            }
+            boolean javaOrdered = true;
+            for (int i = 0; i < n; i++) {
+                javaOrdered &= javaQueue.poll() == sorted[i];
+            }
+            long javaNanos = System.nanoTime() - start;
+
+            int k = 100;
+            start = System.nanoTime();
+            int topK = queues.createTopK(k);
+            queues.heapify(topK, priorities, -1);
+            long topNanos = System.nanoTime() - start;
+            boolean topValid = queues.size(topK) == k && queues.peekPriority(topK) == sorted[n - k];
+
+            if (round == 2) {
+                System.out.println("  Arena heap: heapify + " + n + " pops in " + (heapNanos / 1_000_000) + " ms, sorted: " + ordered);
+                System.out.println("  PriorityQueue<Long>: " + n + " adds + polls in " + (javaNanos / 1_000_000) + " ms, sorted: " + javaOrdered);
+                System.out.println("  Top-" + k + " over " + n + " items in " + (topNanos / 1_000_000) + " ms, k-th largest correct: " + topValid);
+            }
+            arena.reset();
+            priorities = arrayStore.createArray(n, 8);
+            for (int i = 0; i < n; i++) {
+                arrayStore.setLong(priorities, i, values[i]);
+            }
+        }
+        System.out.println("  Heap bytes per element: 12 (PriorityQueue<Long>: 4-8 byte slot + 16 byte Long)");
+        System.out.println();
+    }
+
+    static void testBPlusTree() {
+        System.out.println("Test 39: B+Tree Ordered Index");
+        MemoryArena arena = new MemoryArena(1 << 26);
+        BPlusTreeStore trees = new BPlusTreeStore(arena);
+        ArrayStore arrayStore = new ArrayStore(arena);
+
+        int small = trees.createTree(256);
+        java.util.TreeMap<Long, Integer> reference = new java.util.TreeMap<>();
+        java.util.Random random = new java.util.Random(50);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(10000);
+            trees.put(small, key, i);
+            reference.put(key, i);
+        }
+        for (int i = 0; i < 3000; i++) {
+            long key = random.nextInt(10000);
+            trees.remove(small, key);
+            reference.remove(key);
+        }
+        boolean matches = trees.size(small) == reference.size();
+        for (long key = 0; key < 10000; key++) {
+            matches &= java.util.Objects.equals(trees.get(small, key), reference.get(key));
+        }
+        trees.printStats(small);
+        System.out.println("Random puts/removes match TreeMap: " + matches);
+        System.out.print("scan [100, 130): ");
+        trees.scan(small, 100, 130, (key, value) -> System.out.print(key + " "));
+        System.out.println();
+
+        int nodesBefore = trees.getNodeCount(small);
+        for (int i = 0; i < 60000; i++) {
+            long key = random.nextInt(10000);
+            if (key % 50 != 0) {
+                trees.remove(small, key);
+                reference.remove(key);
+            }
+        }
+        java.util.List<Long> scanned = new java.util.ArrayList<>();
+        trees.forEach(small, (key, value) -> scanned.add(key));
+        boolean drained = trees.size(small) == reference.size() && scanned.equals(new java.util.ArrayList<>(reference.keySet()));
+        for (long key = 0; key < 10000; key++) {
+            drained &= java.util.Objects.equals(trees.get(small, key), reference.get(key));
+        }
+        System.out.println("After draining: " + trees.size(small) + " keys, nodes " + nodesBefore + " -> "
+            + trees.getNodeCount(small) + ", match TreeMap: " + drained);
+        trees.printStats(small);
+        for (int i = 0; i < 2000; i++) {
+            long key = random.nextInt(10000);
+            trees.put(small, key, i);
+            reference.put(key, i);
+        }
+        System.out.println("Refill reuses freed nodes: " + trees.getFreeNodeCount(small) + " still free, size matches: "
+            + (trees.size(small) == reference.size()));
+        trees.put(small, Long.MAX_VALUE, -1);
+        trees.put(small, Long.MAX_VALUE - 1, -2);
+        System.out.print("scan [MAX - 1, MAX]: ");
+        int inclusive = trees.scan(small, Long.MAX_VALUE - 1, Long.MAX_VALUE, true, (key, value) -> System.out.print(value + " "));
+        System.out.println("(" + inclusive + " keys, half-open finds "
+            + trees.scan(small, Long.MAX_VALUE - 1, Long.MAX_VALUE, (key, value) -> { }) + ")");
+
+        int n = 500_000;
+        int keys = arrayStore.createArray(n, 8);
+        for (int i = 0; i < n; i++) {
+            arrayStore.setLong(keys, i, i * 2L);
+        }
+        long start = System.nanoTime();
+        int tree = trees.bulkLoad(keys, -1);
+        long bulkNanos = System.nanoTime() - start;
+        System.out.println("\nBulk load of " + n + " sorted keys: " + (bulkNanos / 1_000_000) + " ms");
+        trees.printStats(tree);
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        java.util.TreeMap<Long, Integer> treeMap = new java.util.TreeMap<>();
+        for (int i = 0; i < n; i++) {
+            treeMap.put(i * 2L, i);
+        }
+        System.gc();
+        long treeMapBytes = runtime.totalMemory() - runtime.freeMemory() - before;
+        java.util.concurrent.ConcurrentSkipListMap<Long, Integer> skipList = new java.util.concurrent.ConcurrentSkipListMap<>(treeMap);
+        System.out.println("Memory: B+tree " + (trees.getMemoryUsage(tree) / n) + " bytes/key, TreeMap ~"
+            + (treeMapBytes / n) + " bytes/key (heap delta)");
+
+        int scans = 5000;
+        int width = 1000;
+        long[] sums = new long[3];
+        long[] nanos = new long[3];
+        for (int round = 0; round < 3; round++) {
+            java.util.Random scanRandom = new java.util.Random(7);
+            long[] acc = new long[1];
+            start = System.nanoTime();
+            for (int s = 0; s < scans; s++) {
+                long from = scanRandom.nextInt(n * 2 - width * 2);
+                trees.scan(tree, from, from + width * 2L, (key, value) -> acc[0] += value);
+            }
+            nanos[0] = System.nanoTime() - start;
+            sums[0] = acc[0];
+
+            scanRandom = new java.util.Random(7);
+            long sum = 0;
+            start = System.nanoTime();
+            for (int s = 0; s < scans; s++) {
+                long from = scanRandom.nextInt(n * 2 - width * 2);
+                for (int value : treeMap.subMap(from, from + width * 2L).values()) {
+                    sum += value;
+                }
+            }
+            nanos[1] = System.nanoTime() - start;
+            sums[1] = sum;
+
+            scanRandom = new java.util.Random(7);
+            sum = 0;
+            start = System.nanoTime();
+            for (int s = 0; s < scans; s++) {
+                long from = scanRandom.nextInt(n * 2 - width * 2);
+                for (int value : skipList.subMap(from, from + width * 2L).values()) {
+                    sum += value;
+                }
+            }
+            nanos[2] = System.nanoTime() - start;
+            sums[2] = sum;
+        }
+        long rows = (long) scans * width;
+        System.out.println(scans + " range scans of " + width + " keys (sums equal: " + (sums[0] == sums[1] && sums[1] == sums[2]) + "):");
+        System.out.println("  B+tree: " + (nanos[0] / 1_000_000) + " ms (" + String.format("%.1f", rows / (nanos[0] / 1e9) / 1e6) + " M rows/s)");
+        System.out.println("  TreeMap: " + (nanos[1] / 1_000_000) + " ms (" + String.format("%.1f", rows / (nanos[1] / 1e9) / 1e6) + " M rows/s)");
+        System.out.println("  ConcurrentSkipListMap: " + (nanos[2] / 1_000_000) + " ms (" + String.format("%.1f", rows / (nanos[2] / 1e9) / 1e6) + " M rows/s)");
+
+        java.nio.file.Path path = null;
+        try {
+            path = java.nio.file.Files.createTempFile("btree", ".shm");
+            try (SharedMemoryArena shared = SharedMemoryArena.create(path, 1 << 22)) {
+                BPlusTreeStore sharedTrees = new BPlusTreeStore(shared);
+                ArrayStore sharedArrays = new ArrayStore(shared);
+                int sharedKeys = sharedArrays.createArray(100000, 8);
+                for (int i = 0; i < 100000; i++) {
+                    sharedArrays.setLong(sharedKeys, i, i * 10L);
+                }
+                int sharedTree = sharedTrees.bulkLoad(sharedKeys, -1, 90, BPlusTreeStore.DEFAULT_NODE_SIZE);
+                sharedTrees.put(sharedTree, 5L, -5);
+                shared.setRoot(0, sharedTree);
+                shared.publish();
+                shared.force();
+            }
+            try (SharedMemoryArena mapped = SharedMemoryArena.openReadOnly(path)) {
+                BPlusTreeStore mappedTrees = new BPlusTreeStore(mapped);
+                int mappedTree = mapped.getRoot(0);
+                long[] count = new long[1];
+                mappedTrees.scan(mappedTree, 0, 50, (key, value) -> count[0]++);
+                System.out.println("\nReopened from mapped file: size " + mappedTrees.size(mappedTree) + ", get(5) = "
+                    + mappedTrees.get(mappedTree, 5L) + ", get(999990) = " + mappedTrees.get(mappedTree, 999990L)
+                    + ", keys in [0, 50): " + count[0]);
+            }
+        } catch (java.io.IOException e) {
+            System.out.println("Mapped B+tree I/O failed: " + e.getMessage());
+        } finally {
+            if (path != null) {
+                path.toFile().delete();
+            }
+        }
+        System.out.println();
+    }
+
+    static double sumParticleX(MemoryArena arena, StructLayout particles, int array, int count) {
+        double sum = 0;
+        StructLayout.StructCursor cursor = particles.cursor(array, count);
+        while (cursor.hasNext()) {
+            sum += PARTICLE_X.get(arena, cursor.next());
+        }
+        return sum;
+    }
+
+    static double sumAtOffset(MemoryArena arena, int array, int count, int stride, int offset) {
+        double sum = 0;
+        for (int i = 0, addr = array; i < count; i++, addr += stride) {
+            sum += arena.getDouble(addr + offset);
+        }
+        return sum;
+    }
 }
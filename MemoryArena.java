@@ -1,14 +1,35 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class MemoryArena {
+    private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    public static final long NULL_HANDLE = -1L;
+    public static final int MAX_HANDLE_TAG = 127;
+    private static final int GENERATION_MASK = 0xFFFFFF;
+
     public final byte[] memory;
+    private final int capacity;
     private int offset = 0;
     private int alignmentWaste = 0;
+    private int abandonedBytes = 0;
+    private int generation = 0;
     private List<MemoryRegion> regions = new ArrayList<>();
 
     public MemoryArena(int size) {
         memory = new byte[size];
+        capacity = size;
+    }
+
+    protected MemoryArena(byte[] memory, int capacity) {
+        this.memory = memory;
+        this.capacity = capacity;
     }
 
     public int align(int addr, int alignment) {
@@ -23,7 +44,7 @@ public class MemoryArena {
     }
 
     public int alloc(int size) {
-        if (offset + size > memory.length) {
+        if (offset + size > capacity) {
             throw new OutOfMemoryException(size, remaining(), capacity(), offset);
         }
         int start = offset;
@@ -35,7 +56,7 @@ public class MemoryArena {
         int alignedOffset = align(offset, alignment);
         int waste = alignedOffset - offset;
         
-        if (alignedOffset + size > memory.length) {
+        if (alignedOffset + size > capacity) {
             throw new OutOfMemoryException(size, remaining(), capacity(), offset);
         }
         
@@ -44,14 +65,99 @@ public class MemoryArena {
         return alignedOffset;
     }
 
+    public boolean release(int addr, int size) {
+        if (size < 0 || addr < 0 || addr + size != offset) {
+            return false;
+        }
+        offset = addr;
+        return true;
+    }
+
+    public boolean extend(int addr, int size, int extraSize) {
+        if (extraSize < 0 || addr < 0 || addr + size != offset) {
+            return false;
+        }
+        if (offset + extraSize > capacity) {
+            return false;
+        }
+        offset += extraSize;
+        return true;
+    }
+
+    public void abandon(int addr, int size) {
+        if (!release(addr, size)) {
+            abandonedBytes += size;
+        }
+    }
+
     public void reset() {
+        generation = (generation + 1) & GENERATION_MASK;
         offset = 0;
         alignmentWaste = 0;
+        abandonedBytes = 0;
         regions.clear();
     }
 
+    public void restore(int used, int alignmentWaste, int abandonedBytes) {
+        restore(used, alignmentWaste, abandonedBytes, generation);
+    }
+
+    public void restore(int used, int alignmentWaste, int abandonedBytes, int generation) {
+        if (used < 0 || used > capacity) {
+            throw new InvalidAddressException(0, used, offset, capacity());
+        }
+        if (alignmentWaste < 0 || abandonedBytes < 0 || alignmentWaste + abandonedBytes > used) {
+            throw new IllegalArgumentException("Invalid waste counters: alignment=" + alignmentWaste + ", abandoned=" + abandonedBytes);
+        }
+        if ((generation & ~GENERATION_MASK) != 0) {
+            throw new IllegalArgumentException("Generation must fit in 24 bits: " + generation);
+        }
+        this.generation = generation;
+        offset = used;
+        this.alignmentWaste = alignmentWaste;
+        this.abandonedBytes = abandonedBytes;
+        regions.clear();
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public long handle(int addr, int tag) {
+        if (tag <= 0 || tag > MAX_HANDLE_TAG) {
+            throw new IllegalArgumentException("Handle tag must be in [1, " + MAX_HANDLE_TAG + "]: " + tag);
+        }
+        if (addr == -1) {
+            return NULL_HANDLE;
+        }
+        checkAddr(addr, 0);
+        return ((long) ((tag << 24) | generation) << 32) | (addr & 0xFFFFFFFFL);
+    }
+
+    public int resolve(long handle, int tag) {
+        if ((int) (handle >>> 32) == ((tag << 24) | generation)) {
+            return (int) handle;
+        }
+        if (handle == NULL_HANDLE) {
+            return -1;
+        }
+        throw new StaleHandleException(handle, tag, generation);
+    }
+
+    public static int handleAddress(long handle) {
+        return (int) handle;
+    }
+
+    public static int handleGeneration(long handle) {
+        return (int) (handle >>> 32) & GENERATION_MASK;
+    }
+
+    public static int handleTag(long handle) {
+        return (int) (handle >>> 56);
+    }
+
     public int capacity() {
-        return memory.length;
+        return capacity;
     }
 
     public int used() {
@@ -59,7 +165,11 @@ public class MemoryArena {
     }
 
     public int remaining() {
-        return memory.length - offset;
+        return capacity - offset;
+    }
+
+    public boolean isWritable() {
+        return true;
     }
 
     public void putByte(int addr, byte x) {
@@ -86,6 +196,30 @@ public class MemoryArena {
         return reconstruct;
     }
 
+    public int getIntUnchecked(int addr) {
+        return (memory[addr] & 0xFF) << 24 | (memory[addr + 1] & 0xFF) << 16 | (memory[addr + 2] & 0xFF) << 8 | (memory[addr + 3] & 0xFF);
+    }
+
+    public int getIntAcquire(int addr) {
+        checkAddr(addr, 4);
+        return (int) INT_HANDLE.getAcquire(memory, addr);
+    }
+
+    public void putIntRelease(int addr, int x) {
+        checkAddr(addr, 4);
+        INT_HANDLE.setRelease(memory, addr, x);
+    }
+
+    public int getIntVolatile(int addr) {
+        checkAddr(addr, 4);
+        return (int) INT_HANDLE.getVolatile(memory, addr);
+    }
+
+    public boolean compareAndSetInt(int addr, int expected, int x) {
+        checkAddr(addr, 4);
+        return INT_HANDLE.compareAndSet(memory, addr, expected, x);
+    }
+
     public void putLong(int addr, long x) {
         long[] bytes = {
             (x >>> 56) & 0xFF, (x >>> 48) & 0xFF, (x >>> 40) & 0xFF, (x >>> 32) & 0xFF,
@@ -111,6 +245,18 @@ public class MemoryArena {
         return reconstruct;
     }
 
+    public long getLongUnchecked(int addr) {
+        return ((long) getIntUnchecked(addr) << 32) | (getIntUnchecked(addr + 4) & 0xFFFFFFFFL);
+    }
+
+    public void putDouble(int addr, double x) {
+        putLong(addr, Double.doubleToRawLongBits(x));
+    }
+
+    public double getDouble(int addr) {
+        return Double.longBitsToDouble(getLong(addr));
+    }
+
     public void putShort(int addr, short x) {
         byte[] bytes = {(byte)((x >>> 8) & 0xFF), (byte)((x >>> 0) & 0xFF)};
         checkAddr(addr, 2);
@@ -150,6 +296,37 @@ public class MemoryArena {
         return reconstruct;
     }
 
+    public void putBytes(int addr, byte[] src, int srcOffset, int length) {
+        checkAddr(addr, length);
+        System.arraycopy(src, srcOffset, memory, addr, length);
+    }
+
+    public void getBytes(int addr, byte[] dst, int dstOffset, int length) {
+        checkAddr(addr, length);
+        System.arraycopy(memory, addr, dst, dstOffset, length);
+    }
+
+    protected ByteBuffer dataView() {
+        return ByteBuffer.wrap(memory, 0, offset).asReadOnlyBuffer();
+    }
+
+    public String decode(int addr, int length, Charset charset) {
+        checkAddr(addr, length);
+        return new String(memory, addr, length, charset);
+    }
+
+    public int mismatch(int addrA, int addrB, int length) {
+        checkAddr(addrA, length);
+        checkAddr(addrB, length);
+        return Arrays.mismatch(memory, addrA, addrA + length, memory, addrB, addrB + length);
+    }
+
+    public void copy(int srcAddr, int dstAddr, int length) {
+        checkAddr(srcAddr, length);
+        checkAddr(dstAddr, length);
+        System.arraycopy(memory, srcAddr, memory, dstAddr, length);
+    }
+
     public boolean checkAddr(int addr, int bytesNeeded) {
         if (addr >= 0 && addr + bytesNeeded <= offset) {
             return true;
@@ -165,8 +342,12 @@ public class MemoryArena {
         alignmentWaste = 0;
     }
 
+    public int getAbandonedBytes() {
+        return abandonedBytes;
+    }
+
     public MemoryRegion createRegion(int startAddr, int size, String name) {
-        if (startAddr < 0 || startAddr + size > memory.length) {
+        if (startAddr < 0 || startAddr + size > capacity) {
             throw new InvalidAddressException(startAddr, size, offset, capacity());
         }
         
@@ -186,7 +367,7 @@ public class MemoryArena {
         int startAddr = offset;
         int endAddr = startAddr + size;
         
-        if (endAddr > memory.length) {
+        if (endAddr > capacity) {
             throw new OutOfMemoryException(size, remaining(), capacity(), offset);
         }
         
@@ -1,4 +1,35 @@
+import java.util.NoSuchElementException;
+
 public class NodeStore {
+    public class ListCursor implements IntCursor {
+        private int current = -1;
+
+        public ListCursor reset(int headAddr) {
+            checkNodePtr(headAddr);
+            current = headAddr;
+            return this;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != -1;
+        }
+
+        @Override
+        public int next() {
+            if (current == -1) {
+                throw new NoSuchElementException("Cursor is exhausted");
+            }
+            int value = arena.getInt(current + VALUE_OFFSET);
+            int next = arena.getInt(current + NEXT_OFFSET);
+            checkNodePtr(next);
+            current = next;
+            return value;
+        }
+    }
+
+    public static final int HANDLE_TAG = 1;
+
     private final MemoryArena arena;
     private static final int NODE_SIZE = 8;
     private static final int VALUE_OFFSET = 0;
@@ -43,6 +74,31 @@ public class NodeStore {
         return arena.getInt(nodeAddr + NEXT_OFFSET);
     }
 
+    public long createNodeHandle(int val) {
+        return arena.handle(createNode(val), HANDLE_TAG);
+    }
+
+    public int getValue(long nodeHandle) {
+        return arena.getInt(arena.resolve(nodeHandle, HANDLE_TAG) + VALUE_OFFSET);
+    }
+
+    public void setValue(long nodeHandle, int val) {
+        arena.putInt(arena.resolve(nodeHandle, HANDLE_TAG) + VALUE_OFFSET, val);
+    }
+
+    public void setNext(long nodeHandle, long nextHandle) {
+        int nodeAddr = arena.resolve(nodeHandle, HANDLE_TAG);
+        arena.putInt(nodeAddr + NEXT_OFFSET, arena.resolve(nextHandle, HANDLE_TAG));
+    }
+
+    public long getNext(long nodeHandle) {
+        return arena.handle(arena.getInt(arena.resolve(nodeHandle, HANDLE_TAG) + NEXT_OFFSET), HANDLE_TAG);
+    }
+
+    public ListCursor cursor(int headAddr) {
+        return new ListCursor().reset(headAddr);
+    }
+
     public void printList(int headAddr) {
         if (headAddr == -1) {
             return;
@@ -0,0 +1,334 @@
+import java.util.NoSuchElementException;
+
+public class PriorityQueueStore {
+    private final MemoryArena arena;
+    private final ArrayStore arrayStore;
+    private static final int ARITY = 4;
+    private static final int SIZE_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int HEAP_PTR_OFFSET = 8;
+    private static final int INDEX_PTR_OFFSET = 12;
+    private static final int INDEX_SIZE_OFFSET = 16;
+    private static final int LIMIT_OFFSET = 20;
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_PRIORITY_OFFSET = 0;
+    private static final int ENTRY_PAYLOAD_OFFSET = 8;
+    private static final int ENTRY_SIZE = 12;
+    private static final int HEAP_ALIGNMENT = 64;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    public PriorityQueueStore(MemoryArena arena) {
+        this.arena = arena;
+        this.arrayStore = new ArrayStore(arena);
+    }
+
+    public int createQueue(int initialCapacity) {
+        return create(initialCapacity, 0, 0);
+    }
+
+    public int createIndexedQueue(int initialCapacity, int payloadBound) {
+        if (payloadBound <= 0) {
+            throw new IllegalArgumentException("Payload bound must be positive: " + payloadBound);
+        }
+        return create(initialCapacity, payloadBound, 0);
+    }
+
+    public int createTopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        return create(k, 0, k);
+    }
+
+    private int create(int initialCapacity, int payloadBound, int limit) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity cannot be negative");
+        }
+        if (initialCapacity == 0) {
+            initialCapacity = DEFAULT_CAPACITY;
+        }
+        int queueAddr = arena.alloc(HEADER_SIZE);
+        int heapAddr = arena.allocAligned(initialCapacity * ENTRY_SIZE, HEAP_ALIGNMENT);
+        int indexAddr = -1;
+        if (payloadBound > 0) {
+            indexAddr = arena.alloc(payloadBound * 4);
+            for (int i = 0; i < payloadBound; i++) {
+                arena.putInt(indexAddr + i * 4, -1);
+            }
+        }
+        arena.putInt(queueAddr + SIZE_OFFSET, 0);
+        arena.putInt(queueAddr + CAPACITY_OFFSET, initialCapacity);
+        arena.putInt(queueAddr + HEAP_PTR_OFFSET, heapAddr);
+        arena.putInt(queueAddr + INDEX_PTR_OFFSET, indexAddr);
+        arena.putInt(queueAddr + INDEX_SIZE_OFFSET, payloadBound);
+        arena.putInt(queueAddr + LIMIT_OFFSET, limit);
+        return queueAddr;
+    }
+
+    public int size(int queueAddr) {
+        checkQueuePtr(queueAddr);
+        return arena.getInt(queueAddr + SIZE_OFFSET);
+    }
+
+    public boolean isEmpty(int queueAddr) {
+        return size(queueAddr) == 0;
+    }
+
+    public int getCapacity(int queueAddr) {
+        checkQueuePtr(queueAddr);
+        return arena.getInt(queueAddr + CAPACITY_OFFSET);
+    }
+
+    public boolean isTopK(int queueAddr) {
+        checkQueuePtr(queueAddr);
+        return arena.getInt(queueAddr + LIMIT_OFFSET) > 0;
+    }
+
+    public boolean push(int queueAddr, long priority, int payload) {
+        checkQueuePtr(queueAddr);
+        int size = arena.getInt(queueAddr + SIZE_OFFSET);
+        int limit = arena.getInt(queueAddr + LIMIT_OFFSET);
+        int indexAddr = arena.getInt(queueAddr + INDEX_PTR_OFFSET);
+        if (indexAddr != -1) {
+            checkPayload(queueAddr, payload);
+            if (arena.getInt(indexAddr + payload * 4) != -1) {
+                throw new IllegalArgumentException("Payload " + payload + " is already queued");
+            }
+        }
+        if (limit > 0 && size == limit) {
+            int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+            if (priority <= arena.getLong(heapAddr + ENTRY_PRIORITY_OFFSET)) {
+                return false;
+            }
+            if (indexAddr != -1) {
+                arena.putInt(indexAddr + arena.getInt(heapAddr + ENTRY_PAYLOAD_OFFSET) * 4, -1);
+            }
+            siftDown(heapAddr, indexAddr, size, 0, priority, payload);
+            return true;
+        }
+        if (size == arena.getInt(queueAddr + CAPACITY_OFFSET)) {
+            grow(queueAddr, size + 1);
+        }
+        int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        arena.putInt(queueAddr + SIZE_OFFSET, size + 1);
+        siftUp(heapAddr, indexAddr, size, priority, payload);
+        return true;
+    }
+
+    public long peekPriority(int queueAddr) {
+        checkNotEmpty(queueAddr);
+        return arena.getLong(arena.getInt(queueAddr + HEAP_PTR_OFFSET) + ENTRY_PRIORITY_OFFSET);
+    }
+
+    public int peekPayload(int queueAddr) {
+        checkNotEmpty(queueAddr);
+        return arena.getInt(arena.getInt(queueAddr + HEAP_PTR_OFFSET) + ENTRY_PAYLOAD_OFFSET);
+    }
+
+    public int pop(int queueAddr) {
+        checkNotEmpty(queueAddr);
+        int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        int indexAddr = arena.getInt(queueAddr + INDEX_PTR_OFFSET);
+        int size = arena.getInt(queueAddr + SIZE_OFFSET) - 1;
+        int payload = arena.getInt(heapAddr + ENTRY_PAYLOAD_OFFSET);
+        if (indexAddr != -1) {
+            arena.putInt(indexAddr + payload * 4, -1);
+        }
+        arena.putInt(queueAddr + SIZE_OFFSET, size);
+        if (size > 0) {
+            int lastAddr = heapAddr + size * ENTRY_SIZE;
+            siftDown(heapAddr, indexAddr, size, 0,
+                arena.getLong(lastAddr + ENTRY_PRIORITY_OFFSET), arena.getInt(lastAddr + ENTRY_PAYLOAD_OFFSET));
+        }
+        return payload;
+    }
+
+    public boolean contains(int queueAddr, int payload) {
+        return position(queueAddr, payload) != -1;
+    }
+
+    public long getPriority(int queueAddr, int payload) {
+        int pos = position(queueAddr, payload);
+        if (pos == -1) {
+            throw new NoSuchElementException("Payload " + payload + " is not queued");
+        }
+        return arena.getLong(arena.getInt(queueAddr + HEAP_PTR_OFFSET) + pos * ENTRY_SIZE + ENTRY_PRIORITY_OFFSET);
+    }
+
+    public void decreaseKey(int queueAddr, int payload, long newPriority) {
+        int pos = position(queueAddr, payload);
+        if (pos == -1) {
+            throw new NoSuchElementException("Payload " + payload + " is not queued");
+        }
+        int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        long current = arena.getLong(heapAddr + pos * ENTRY_SIZE + ENTRY_PRIORITY_OFFSET);
+        if (newPriority > current) {
+            throw new IllegalArgumentException("New priority " + newPriority + " is greater than current priority " + current);
+        }
+        siftUp(heapAddr, arena.getInt(queueAddr + INDEX_PTR_OFFSET), pos, newPriority, payload);
+    }
+
+    private int position(int queueAddr, int payload) {
+        checkQueuePtr(queueAddr);
+        int indexAddr = arena.getInt(queueAddr + INDEX_PTR_OFFSET);
+        if (indexAddr == -1) {
+            throw new UnsupportedOperationException("Queue has no position index; create it with createIndexedQueue");
+        }
+        checkPayload(queueAddr, payload);
+        return arena.getInt(indexAddr + payload * 4);
+    }
+
+    public void heapify(int queueAddr, int priorityArrayAddr, int payloadArrayAddr) {
+        checkQueuePtr(queueAddr);
+        int length = arrayStore.getLength(priorityArrayAddr);
+        if (payloadArrayAddr != -1 && arrayStore.getLength(payloadArrayAddr) != length) {
+            throw new IllegalArgumentException("Priority and payload arrays differ in length: "
+                + length + " != " + arrayStore.getLength(payloadArrayAddr));
+        }
+        int priorityData = arrayStore.getDataAddr(priorityArrayAddr, 8);
+        int payloadData = payloadArrayAddr == -1 ? -1 : arrayStore.getDataAddr(payloadArrayAddr, 4);
+        if (length > 0) {
+            arena.checkAddr(priorityData, length * 8);
+            if (payloadData != -1) {
+                arena.checkAddr(payloadData, length * 4);
+            }
+        }
+        if (arena.getInt(queueAddr + LIMIT_OFFSET) > 0 || arena.getInt(queueAddr + INDEX_PTR_OFFSET) != -1) {
+            for (int i = 0; i < length; i++) {
+                push(queueAddr, arena.getLong(priorityData + i * 8), payloadData == -1 ? i : arena.getInt(payloadData + i * 4));
+            }
+            return;
+        }
+
+        int size = arena.getInt(queueAddr + SIZE_OFFSET);
+        int newSize = size + length;
+        if (newSize > arena.getInt(queueAddr + CAPACITY_OFFSET)) {
+            grow(queueAddr, newSize);
+        }
+        int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        for (int i = 0; i < length; i++) {
+            int entryAddr = heapAddr + (size + i) * ENTRY_SIZE;
+            arena.putLong(entryAddr + ENTRY_PRIORITY_OFFSET, arena.getLong(priorityData + i * 8));
+            arena.putInt(entryAddr + ENTRY_PAYLOAD_OFFSET, payloadData == -1 ? i : arena.getInt(payloadData + i * 4));
+        }
+        arena.putInt(queueAddr + SIZE_OFFSET, newSize);
+        for (int pos = (newSize - 2) / ARITY; pos >= 0; pos--) {
+            int entryAddr = heapAddr + pos * ENTRY_SIZE;
+            siftDown(heapAddr, -1, newSize, pos,
+                arena.getLong(entryAddr + ENTRY_PRIORITY_OFFSET), arena.getInt(entryAddr + ENTRY_PAYLOAD_OFFSET));
+        }
+    }
+
+    public void clear(int queueAddr) {
+        checkQueuePtr(queueAddr);
+        int indexAddr = arena.getInt(queueAddr + INDEX_PTR_OFFSET);
+        if (indexAddr != -1) {
+            int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+            int size = arena.getInt(queueAddr + SIZE_OFFSET);
+            for (int i = 0; i < size; i++) {
+                arena.putInt(indexAddr + arena.getInt(heapAddr + i * ENTRY_SIZE + ENTRY_PAYLOAD_OFFSET) * 4, -1);
+            }
+        }
+        arena.putInt(queueAddr + SIZE_OFFSET, 0);
+    }
+
+    private void siftUp(int heapAddr, int indexAddr, int pos, long priority, int payload) {
+        while (pos > 0) {
+            int parent = (pos - 1) / ARITY;
+            int parentAddr = heapAddr + parent * ENTRY_SIZE;
+            long parentPriority = arena.getLong(parentAddr + ENTRY_PRIORITY_OFFSET);
+            if (parentPriority <= priority) {
+                break;
+            }
+            moveEntry(heapAddr, indexAddr, pos, parentPriority, arena.getInt(parentAddr + ENTRY_PAYLOAD_OFFSET));
+            pos = parent;
+        }
+        moveEntry(heapAddr, indexAddr, pos, priority, payload);
+    }
+
+    private void siftDown(int heapAddr, int indexAddr, int size, int pos, long priority, int payload) {
+        while (true) {
+            int first = pos * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, size);
+            int best = first;
+            long bestPriority = arena.getLong(heapAddr + first * ENTRY_SIZE + ENTRY_PRIORITY_OFFSET);
+            for (int child = first + 1; child < last; child++) {
+                long childPriority = arena.getLong(heapAddr + child * ENTRY_SIZE + ENTRY_PRIORITY_OFFSET);
+                if (childPriority < bestPriority) {
+                    best = child;
+                    bestPriority = childPriority;
+                }
+            }
+            if (priority <= bestPriority) {
+                break;
+            }
+            moveEntry(heapAddr, indexAddr, pos, bestPriority, arena.getInt(heapAddr + best * ENTRY_SIZE + ENTRY_PAYLOAD_OFFSET));
+            pos = best;
+        }
+        moveEntry(heapAddr, indexAddr, pos, priority, payload);
+    }
+
+    private void moveEntry(int heapAddr, int indexAddr, int pos, long priority, int payload) {
+        int entryAddr = heapAddr + pos * ENTRY_SIZE;
+        arena.putLong(entryAddr + ENTRY_PRIORITY_OFFSET, priority);
+        arena.putInt(entryAddr + ENTRY_PAYLOAD_OFFSET, payload);
+        if (indexAddr != -1) {
+            arena.putInt(indexAddr + payload * 4, pos);
+        }
+    }
+
+    private void grow(int queueAddr, int minCapacity) {
+        int oldCapacity = arena.getInt(queueAddr + CAPACITY_OFFSET);
+        int newCapacity = Math.max(minCapacity, oldCapacity * 2);
+        int oldHeap = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        if (arena.extend(oldHeap, oldCapacity * ENTRY_SIZE, (newCapacity - oldCapacity) * ENTRY_SIZE)) {
+            arena.putInt(queueAddr + CAPACITY_OFFSET, newCapacity);
+            return;
+        }
+        int newHeap = arena.allocAligned(newCapacity * ENTRY_SIZE, HEAP_ALIGNMENT);
+        int size = arena.getInt(queueAddr + SIZE_OFFSET);
+        if (size > 0) {
+            arena.copy(oldHeap, newHeap, size * ENTRY_SIZE);
+        }
+        arena.abandon(oldHeap, oldCapacity * ENTRY_SIZE);
+        arena.putInt(queueAddr + HEAP_PTR_OFFSET, newHeap);
+        arena.putInt(queueAddr + CAPACITY_OFFSET, newCapacity);
+    }
+
+    private void checkNotEmpty(int queueAddr) {
+        if (size(queueAddr) == 0) {
+            throw new NoSuchElementException("Priority queue is empty");
+        }
+    }
+
+    private void checkPayload(int queueAddr, int payload) {
+        int bound = arena.getInt(queueAddr + INDEX_SIZE_OFFSET);
+        if (payload < 0 || payload >= bound) {
+            throw new IllegalArgumentException("Payload " + payload + " is outside the indexed range [0, " + bound + ")");
+        }
+    }
+
+    public void printQueue(int queueAddr) {
+        checkQueuePtr(queueAddr);
+        int size = arena.getInt(queueAddr + SIZE_OFFSET);
+        int heapAddr = arena.getInt(queueAddr + HEAP_PTR_OFFSET);
+        System.out.print("[");
+        for (int i = 0; i < size; i++) {
+            int entryAddr = heapAddr + i * ENTRY_SIZE;
+            if (i > 0) {
+                System.out.print(", ");
+            }
+            System.out.print(arena.getLong(entryAddr + ENTRY_PRIORITY_OFFSET) + ":" + arena.getInt(entryAddr + ENTRY_PAYLOAD_OFFSET));
+        }
+        System.out.println("]");
+    }
+
+    private void checkQueuePtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -0,0 +1,292 @@
+public class QueryOperatorStore {
+    public static final int GROUP_KEY_COLUMN = 0;
+    public static final int GROUP_COUNT_COLUMN = 1;
+    public static final int GROUP_SUM_COLUMN = 2;
+    public static final int GROUP_MIN_COLUMN = 3;
+    public static final int GROUP_MAX_COLUMN = 4;
+
+    private static final ColumnarTableStore.ColumnType[] GROUP_SCHEMA = {
+        ColumnarTableStore.ColumnType.INT,
+        ColumnarTableStore.ColumnType.LONG,
+        ColumnarTableStore.ColumnType.LONG,
+        ColumnarTableStore.ColumnType.INT,
+        ColumnarTableStore.ColumnType.INT
+    };
+
+    private final MemoryArena arena;
+    private final ArrayStore arrayStore;
+    private final VectorStore vectorStore;
+    private final ColumnarTableStore tableStore;
+    private final LongHashMapStore mapStore;
+
+    private static final int AGG_COUNT_OFFSET = 0;
+    private static final int AGG_SUM_OFFSET = 8;
+    private static final int AGG_MIN_OFFSET = 16;
+    private static final int AGG_MAX_OFFSET = 20;
+    private static final int AGG_SIZE = 24;
+
+    private static final int PAIR_SIZE = 8;
+    private static final int CACHE_RESIDENT_BYTES = 256 * 1024;
+    private static final int MAX_PARTITION_BITS = 12;
+
+    public QueryOperatorStore(MemoryArena arena) {
+        this(arena, new ColumnarTableStore(arena));
+    }
+
+    public QueryOperatorStore(MemoryArena arena, ColumnarTableStore tableStore) {
+        this.arena = arena;
+        this.arrayStore = new ArrayStore(arena);
+        this.vectorStore = new VectorStore(arena);
+        this.tableStore = tableStore;
+        this.mapStore = new LongHashMapStore(arena);
+    }
+
+    public VectorStore getVectorStore() {
+        return vectorStore;
+    }
+
+    public ColumnarTableStore getTableStore() {
+        return tableStore;
+    }
+
+    public int hashJoin(int buildArrayAddr, int probeArrayAddr, int buildRowsVec, int probeRowsVec) {
+        return join(arrayData(buildArrayAddr), arrayStore.getLength(buildArrayAddr),
+            arrayData(probeArrayAddr), arrayStore.getLength(probeArrayAddr), buildRowsVec, probeRowsVec);
+    }
+
+    public int hashJoinVectors(int buildVec, int probeVec, int buildRowsVec, int probeRowsVec) {
+        return join(vectorStore.getDataPtr(buildVec), vectorStore.getLength(buildVec),
+            vectorStore.getDataPtr(probeVec), vectorStore.getLength(probeVec), buildRowsVec, probeRowsVec);
+    }
+
+    public int radixJoin(int buildArrayAddr, int probeArrayAddr, int buildRowsVec, int probeRowsVec) {
+        int buildLength = arrayStore.getLength(buildArrayAddr);
+        return radixJoin(buildArrayAddr, probeArrayAddr, buildRowsVec, probeRowsVec, choosePartitionBits(buildLength));
+    }
+
+    public int radixJoin(int buildArrayAddr, int probeArrayAddr, int buildRowsVec, int probeRowsVec, int partitionBits) {
+        if (partitionBits < 0 || partitionBits > MAX_PARTITION_BITS) {
+            throw new IllegalArgumentException("Partition bits must be between 0 and " + MAX_PARTITION_BITS + ": " + partitionBits);
+        }
+        int buildLength = arrayStore.getLength(buildArrayAddr);
+        int probeLength = arrayStore.getLength(probeArrayAddr);
+        int partitions = 1 << partitionBits;
+
+        int[] buildBounds = new int[partitions + 1];
+        int[] probeBounds = new int[partitions + 1];
+        int buildPairs = partition(arrayData(buildArrayAddr), buildLength, partitionBits, buildBounds);
+        int probePairs = partition(arrayData(probeArrayAddr), probeLength, partitionBits, probeBounds);
+
+        int maxPartition = 0;
+        for (int p = 0; p < partitions; p++) {
+            maxPartition = Math.max(maxPartition, buildBounds[p + 1] - buildBounds[p]);
+        }
+        int tableSize = tableSizeFor(maxPartition);
+        int heads = arena.alloc(tableSize * 4);
+        int next = arena.alloc(Math.max(1, maxPartition) * 4);
+
+        int matches = 0;
+        for (int p = 0; p < partitions; p++) {
+            int buildStart = buildBounds[p];
+            int buildSize = buildBounds[p + 1] - buildStart;
+            if (buildSize == 0 || probeBounds[p + 1] == probeBounds[p]) {
+                continue;
+            }
+            int mask = tableSizeFor(buildSize) - 1;
+            for (int i = 0; i <= mask; i++) {
+                arena.putInt(heads + (i * 4), -1);
+            }
+            for (int i = 0; i < buildSize; i++) {
+                int key = arena.getIntUnchecked(buildPairs + ((buildStart + i) * PAIR_SIZE));
+                int slot = heads + ((RobinHoodHashTableStore.mix(key) & mask) * 4);
+                arena.putInt(next + (i * 4), arena.getInt(slot));
+                arena.putInt(slot, i);
+            }
+            for (int j = probeBounds[p]; j < probeBounds[p + 1]; j++) {
+                int pair = probePairs + (j * PAIR_SIZE);
+                int key = arena.getIntUnchecked(pair);
+                int i = arena.getInt(heads + ((RobinHoodHashTableStore.mix(key) & mask) * 4));
+                while (i != -1) {
+                    int buildPair = buildPairs + ((buildStart + i) * PAIR_SIZE);
+                    if (arena.getIntUnchecked(buildPair) == key) {
+                        vectorStore.append(buildRowsVec, arena.getIntUnchecked(buildPair + 4));
+                        vectorStore.append(probeRowsVec, arena.getIntUnchecked(pair + 4));
+                        matches++;
+                    }
+                    i = arena.getInt(next + (i * 4));
+                }
+            }
+        }
+
+        arena.abandon(next, Math.max(1, maxPartition) * 4);
+        arena.abandon(heads, tableSize * 4);
+        arena.abandon(probePairs, probeLength * PAIR_SIZE);
+        arena.abandon(buildPairs, buildLength * PAIR_SIZE);
+        return matches;
+    }
+
+    public int groupBy(int keyArrayAddr, int valueArrayAddr) {
+        int length = arrayStore.getLength(keyArrayAddr);
+        if (arrayStore.getLength(valueArrayAddr) != length) {
+            throw new IllegalArgumentException("Key and value columns differ in length: "
+                + length + " != " + arrayStore.getLength(valueArrayAddr));
+        }
+        return aggregate(arrayData(keyArrayAddr), arrayData(valueArrayAddr), length);
+    }
+
+    public int groupByVectors(int keyVec, int valueVec) {
+        int length = vectorStore.getLength(keyVec);
+        if (vectorStore.getLength(valueVec) != length) {
+            throw new IllegalArgumentException("Key and value columns differ in length: "
+                + length + " != " + vectorStore.getLength(valueVec));
+        }
+        return aggregate(vectorStore.getDataPtr(keyVec), vectorStore.getDataPtr(valueVec), length);
+    }
+
+    public static int choosePartitionBits(int buildLength) {
+        int bits = 0;
+        while (bits < MAX_PARTITION_BITS && ((long) buildLength * (PAIR_SIZE + 8) >> bits) > CACHE_RESIDENT_BYTES) {
+            bits++;
+        }
+        return bits;
+    }
+
+    private int join(int buildData, int buildLength, int probeData, int probeLength, int buildRowsVec, int probeRowsVec) {
+        if (buildLength == 0 || probeLength == 0) {
+            return 0;
+        }
+        arena.checkAddr(buildData, buildLength * 4);
+        arena.checkAddr(probeData, probeLength * 4);
+        int tableSize = tableSizeFor(buildLength);
+        int mask = tableSize - 1;
+        int heads = arena.alloc(tableSize * 4);
+        int next = arena.alloc(Math.max(1, buildLength) * 4);
+        for (int i = 0; i < tableSize; i++) {
+            arena.putInt(heads + (i * 4), -1);
+        }
+
+        for (int row = 0; row < buildLength; row++) {
+            int slot = heads + ((RobinHoodHashTableStore.mix(arena.getIntUnchecked(buildData + (row * 4))) & mask) * 4);
+            arena.putInt(next + (row * 4), arena.getInt(slot));
+            arena.putInt(slot, row);
+        }
+
+        int matches = 0;
+        for (int row = 0; row < probeLength; row++) {
+            int key = arena.getIntUnchecked(probeData + (row * 4));
+            int buildRow = arena.getInt(heads + ((RobinHoodHashTableStore.mix(key) & mask) * 4));
+            while (buildRow != -1) {
+                if (arena.getIntUnchecked(buildData + (buildRow * 4)) == key) {
+                    vectorStore.append(buildRowsVec, buildRow);
+                    vectorStore.append(probeRowsVec, row);
+                    matches++;
+                }
+                buildRow = arena.getInt(next + (buildRow * 4));
+            }
+        }
+
+        arena.abandon(next, Math.max(1, buildLength) * 4);
+        arena.abandon(heads, tableSize * 4);
+        return matches;
+    }
+
+    private int partition(int data, int length, int bits, int[] bounds) {
+        arena.checkAddr(data, length * 4);
+        int pairs = arena.alloc(Math.max(1, length) * PAIR_SIZE);
+        int shift = 32 - bits;
+        for (int row = 0; row < length; row++) {
+            bounds[partitionOf(arena.getIntUnchecked(data + (row * 4)), bits, shift) + 1]++;
+        }
+        for (int p = 1; p < bounds.length; p++) {
+            bounds[p] += bounds[p - 1];
+        }
+        int[] cursor = java.util.Arrays.copyOf(bounds, bounds.length - 1);
+        for (int row = 0; row < length; row++) {
+            int key = arena.getIntUnchecked(data + (row * 4));
+            int pair = pairs + (cursor[partitionOf(key, bits, shift)]++ * PAIR_SIZE);
+            arena.putInt(pair, key);
+            arena.putInt(pair + 4, row);
+        }
+        return pairs;
+    }
+
+    private static int partitionOf(int key, int bits, int shift) {
+        return bits == 0 ? 0 : RobinHoodHashTableStore.mix(key) >>> shift;
+    }
+
+    private int aggregate(int keyData, int valueData, int length) {
+        if (length == 0) {
+            return tableStore.createTable(GROUP_SCHEMA, 0, 0);
+        }
+        arena.checkAddr(keyData, length * 4);
+        arena.checkAddr(valueData, length * 4);
+        int groups = mapStore.createIntMap(16);
+        int capacity = 64;
+        int aggs = arena.alloc(capacity * AGG_SIZE);
+        int groupCount = 0;
+
+        for (int row = 0; row < length; row++) {
+            int key = arena.getIntUnchecked(keyData + (row * 4));
+            int value = arena.getIntUnchecked(valueData + (row * 4));
+            int group = mapStore.getInt(groups, key, -1);
+            int agg;
+            if (group == -1) {
+                if (groupCount == capacity) {
+                    int grown = arena.alloc(capacity * 2 * AGG_SIZE);
+                    arena.copy(aggs, grown, capacity * AGG_SIZE);
+                    arena.abandon(aggs, capacity * AGG_SIZE);
+                    aggs = grown;
+                    capacity *= 2;
+                }
+                group = groupCount++;
+                mapStore.putInt(groups, key, group);
+                agg = aggs + (group * AGG_SIZE);
+                arena.putLong(agg + AGG_COUNT_OFFSET, 0L);
+                arena.putLong(agg + AGG_SUM_OFFSET, 0L);
+                arena.putInt(agg + AGG_MIN_OFFSET, value);
+                arena.putInt(agg + AGG_MAX_OFFSET, value);
+            } else {
+                agg = aggs + (group * AGG_SIZE);
+            }
+            arena.putLong(agg + AGG_COUNT_OFFSET, arena.getLong(agg + AGG_COUNT_OFFSET) + 1);
+            arena.putLong(agg + AGG_SUM_OFFSET, arena.getLong(agg + AGG_SUM_OFFSET) + value);
+            if (value < arena.getInt(agg + AGG_MIN_OFFSET)) {
+                arena.putInt(agg + AGG_MIN_OFFSET, value);
+            }
+            if (value > arena.getInt(agg + AGG_MAX_OFFSET)) {
+                arena.putInt(agg + AGG_MAX_OFFSET, value);
+            }
+        }
+
+        int[] groupKeys = new int[groupCount];
+        mapStore.forEach(groups, (key, group) -> groupKeys[(int) group] = (int) key);
+
+        int tableAddr = tableStore.createTable(GROUP_SCHEMA, 0, groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            int agg = aggs + (group * AGG_SIZE);
+            int row = tableStore.appendRow(tableAddr);
+            tableStore.setInt(tableAddr, row, GROUP_KEY_COLUMN, groupKeys[group]);
+            tableStore.setLong(tableAddr, row, GROUP_COUNT_COLUMN, arena.getLong(agg + AGG_COUNT_OFFSET));
+            tableStore.setLong(tableAddr, row, GROUP_SUM_COLUMN, arena.getLong(agg + AGG_SUM_OFFSET));
+            tableStore.setInt(tableAddr, row, GROUP_MIN_COLUMN, arena.getInt(agg + AGG_MIN_OFFSET));
+            tableStore.setInt(tableAddr, row, GROUP_MAX_COLUMN, arena.getInt(agg + AGG_MAX_OFFSET));
+        }
+        arena.abandon(aggs, capacity * AGG_SIZE);
+        mapStore.abandon(groups);
+        return tableAddr;
+    }
+
+    private int arrayData(int arrayAddr) {
+        int data = arrayStore.getDataAddr(arrayAddr, 4);
+        arena.checkAddr(data, arrayStore.getLength(arrayAddr) * 4);
+        return data;
+    }
+
+    private static int tableSizeFor(int rows) {
+        int size = 16;
+        while (size < rows) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
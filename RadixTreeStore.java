@@ -0,0 +1,770 @@
+public class RadixTreeStore {
+    public interface EntryVisitor {
+        void visit(int keyAddr, int value);
+    }
+
+    private static final class KeyScratch {
+        byte[] bytes = new byte[64];
+        int length;
+    }
+
+    private final MemoryArena arena;
+    private final StringStore stringStore;
+
+    private static final int ROOT_OFFSET = 0;
+    private static final int SIZE_OFFSET = 4;
+    private static final int TREE_HEADER_SIZE = 8;
+
+    private static final byte LEAF = 0;
+    private static final byte NODE4 = 1;
+    private static final byte NODE16 = 2;
+    private static final byte NODE48 = 3;
+    private static final byte NODE256 = 4;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int LEAF_VALUE_OFFSET = 4;
+    private static final int LEAF_KEY_OFFSET = 8;
+    private static final int LEAF_SIZE = 12;
+
+    private static final int COUNT_OFFSET = 2;
+    private static final int PREFIX_LEN_OFFSET = 4;
+    private static final int PREFIX_OFFSET = 8;
+    private static final int TERMINAL_OFFSET = 16;
+    private static final int NODE_HEADER_SIZE = 20;
+    private static final int MAX_PREFIX = 8;
+    private static final int WIDE_ESCAPE = 0xFF;
+    private static final ThreadLocal<KeyScratch> KEY_SCRATCH = ThreadLocal.withInitial(KeyScratch::new);
+
+    private static final int NODE4_KEYS_OFFSET = NODE_HEADER_SIZE;
+    private static final int NODE4_CHILDREN_OFFSET = NODE4_KEYS_OFFSET + 4;
+    private static final int NODE4_SIZE = NODE4_CHILDREN_OFFSET + (4 * 4);
+    private static final int NODE16_KEYS_OFFSET = NODE_HEADER_SIZE;
+    private static final int NODE16_CHILDREN_OFFSET = NODE16_KEYS_OFFSET + 16;
+    private static final int NODE16_SIZE = NODE16_CHILDREN_OFFSET + (16 * 4);
+    private static final int NODE48_INDEX_OFFSET = NODE_HEADER_SIZE;
+    private static final int NODE48_CHILDREN_OFFSET = NODE48_INDEX_OFFSET + 256;
+    private static final int NODE48_SIZE = NODE48_CHILDREN_OFFSET + (48 * 4);
+    private static final int NODE256_CHILDREN_OFFSET = NODE_HEADER_SIZE;
+    private static final int NODE256_SIZE = NODE256_CHILDREN_OFFSET + (256 * 4);
+
+    public RadixTreeStore(MemoryArena arena) {
+        this(arena, new StringStore(arena));
+    }
+
+    public RadixTreeStore(MemoryArena arena, StringStore stringStore) {
+        this.arena = arena;
+        this.stringStore = stringStore;
+    }
+
+    public StringStore getStringStore() {
+        return stringStore;
+    }
+
+    public int createTree() {
+        int treeAddr = arena.alloc(TREE_HEADER_SIZE);
+        arena.putInt(treeAddr + ROOT_OFFSET, -1);
+        arena.putInt(treeAddr + SIZE_OFFSET, 0);
+        return treeAddr;
+    }
+
+    public int getSize(int treeAddr) {
+        checkTreePtr(treeAddr);
+        return arena.getInt(treeAddr + SIZE_OFFSET);
+    }
+
+    public void put(int treeAddr, String key, int value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        insertRoot(treeAddr, key, -1, value);
+    }
+
+    public void putKeyAddr(int treeAddr, int keyAddr, int value) {
+        insertRoot(treeAddr, stringStore.getString(keyAddr), keyAddr, value);
+    }
+
+    public Integer get(int treeAddr, CharSequence key) {
+        int leaf = findLeaf(treeAddr, key);
+        if (leaf == -1) {
+            return null;
+        }
+        return arena.getInt(leaf + LEAF_VALUE_OFFSET);
+    }
+
+    public int getOrDefault(int treeAddr, CharSequence key, int defaultValue) {
+        int leaf = findLeaf(treeAddr, key);
+        return leaf == -1 ? defaultValue : arena.getInt(leaf + LEAF_VALUE_OFFSET);
+    }
+
+    public boolean contains(int treeAddr, CharSequence key) {
+        return findLeaf(treeAddr, key) != -1;
+    }
+
+    public boolean remove(int treeAddr, CharSequence key) {
+        checkTreePtr(treeAddr);
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        KeyScratch scratch = encodeKey(key);
+        boolean removed = remove(treeAddr + ROOT_OFFSET, key, scratch.bytes, scratch.length, 0);
+        if (removed) {
+            arena.putInt(treeAddr + SIZE_OFFSET, arena.getInt(treeAddr + SIZE_OFFSET) - 1);
+        }
+        return removed;
+    }
+
+    public void forEach(int treeAddr, EntryVisitor visitor) {
+        checkTreePtr(treeAddr);
+        visitAll(arena.getInt(treeAddr + ROOT_OFFSET), visitor);
+    }
+
+    public void scanPrefix(int treeAddr, CharSequence prefix, EntryVisitor visitor) {
+        checkTreePtr(treeAddr);
+        int node = arena.getInt(treeAddr + ROOT_OFFSET);
+        KeyScratch scratch = encodeKey(prefix);
+        byte[] prefixBytes = scratch.bytes;
+        int prefixLen = scratch.length;
+        int depth = 0;
+
+        while (node != -1) {
+            if (isLeaf(node)) {
+                if (stringStore.startsWith(arena.getInt(node + LEAF_KEY_OFFSET), prefix)) {
+                    visitor.visit(arena.getInt(node + LEAF_KEY_OFFSET), arena.getInt(node + LEAF_VALUE_OFFSET));
+                }
+                return;
+            }
+            if (depth == prefixLen) {
+                visitAll(node, visitor);
+                return;
+            }
+
+            int nodePrefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+            if (nodePrefixLen > 0) {
+                int mismatch = prefixMismatch(node, prefixBytes, prefixLen, depth);
+                if (mismatch < Math.min(nodePrefixLen, prefixLen - depth)) {
+                    return;
+                }
+                if (prefixLen - depth <= nodePrefixLen) {
+                    visitAll(node, visitor);
+                    return;
+                }
+                depth += nodePrefixLen;
+            }
+
+            int slot = findChild(node, prefixBytes[depth] & 0xFF);
+            if (slot == -1) {
+                return;
+            }
+            node = arena.getInt(slot);
+            depth++;
+        }
+    }
+
+    public void printTree(int treeAddr) {
+        System.out.println("RadixTree (keys: " + getSize(treeAddr) + "):");
+        forEach(treeAddr, (keyAddr, value) ->
+            System.out.println("  \"" + stringStore.getString(keyAddr) + "\" -> " + value));
+    }
+
+    private void insertRoot(int treeAddr, CharSequence key, int keyAddr, int value) {
+        checkTreePtr(treeAddr);
+        KeyScratch scratch = encodeKey(key);
+        if (!insert(treeAddr + ROOT_OFFSET, key, scratch.bytes, scratch.length, keyAddr, 0, value)) {
+            arena.putInt(treeAddr + SIZE_OFFSET, arena.getInt(treeAddr + SIZE_OFFSET) + 1);
+        }
+    }
+
+    private boolean insert(int ref, CharSequence key, byte[] keyBytes, int keyLen, int keyAddr, int depth, int value) {
+        int node = arena.getInt(ref);
+        if (node == -1) {
+            arena.putInt(ref, newLeaf(key, keyAddr, value));
+            return false;
+        }
+
+        if (isLeaf(node)) {
+            if (leafMatches(node, key)) {
+                arena.putInt(node + LEAF_VALUE_OFFSET, value);
+                return true;
+            }
+
+            int i = leafMismatch(node, keyBytes, keyLen, depth);
+
+            int split = newNode(NODE4);
+            int common = i - depth;
+            arena.putInt(split + PREFIX_LEN_OFFSET, common);
+            for (int p = 0; p < Math.min(common, MAX_PREFIX); p++) {
+                arena.putByte(split + PREFIX_OFFSET + p, keyBytes[depth + p]);
+            }
+
+            int newLeaf = newLeaf(key, keyAddr, value);
+            split = attach(split, node, leafByte(node, i));
+            arena.putInt(ref, attach(split, newLeaf, i == keyLen ? -1 : keyBytes[i] & 0xFF));
+            return false;
+        }
+
+        int prefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+        if (prefixLen > 0) {
+            int mismatch = prefixMismatch(node, keyBytes, keyLen, depth);
+            if (mismatch < prefixLen) {
+                int split = newNode(NODE4);
+                arena.putInt(split + PREFIX_LEN_OFFSET, mismatch);
+                for (int p = 0; p < Math.min(mismatch, MAX_PREFIX); p++) {
+                    arena.putByte(split + PREFIX_OFFSET + p, arena.getByte(node + PREFIX_OFFSET + p));
+                }
+
+                int remaining = prefixLen - (mismatch + 1);
+                int nodeByte;
+                if (prefixLen <= MAX_PREFIX) {
+                    nodeByte = arena.getByte(node + PREFIX_OFFSET + mismatch) & 0xFF;
+                    for (int p = 0; p < remaining; p++) {
+                        arena.putByte(node + PREFIX_OFFSET + p, arena.getByte(node + PREFIX_OFFSET + mismatch + 1 + p));
+                    }
+                } else {
+                    int min = minimum(node);
+                    nodeByte = leafByte(min, depth + mismatch);
+                    for (int p = 0; p < Math.min(remaining, MAX_PREFIX); p++) {
+                        arena.putByte(node + PREFIX_OFFSET + p, (byte) leafByte(min, depth + mismatch + 1 + p));
+                    }
+                }
+                arena.putInt(node + PREFIX_LEN_OFFSET, remaining);
+                split = addChild(split, nodeByte, node);
+
+                int newLeaf = newLeaf(key, keyAddr, value);
+                int at = depth + mismatch;
+                arena.putInt(ref, attach(split, newLeaf, at == keyLen ? -1 : keyBytes[at] & 0xFF));
+                return false;
+            }
+            depth += prefixLen;
+        }
+
+        if (depth == keyLen) {
+            int terminal = arena.getInt(node + TERMINAL_OFFSET);
+            if (terminal != -1) {
+                arena.putInt(terminal + LEAF_VALUE_OFFSET, value);
+                return true;
+            }
+            arena.putInt(node + TERMINAL_OFFSET, newLeaf(key, keyAddr, value));
+            return false;
+        }
+
+        int b = keyBytes[depth] & 0xFF;
+        int slot = findChild(node, b);
+        if (slot != -1) {
+            return insert(slot, key, keyBytes, keyLen, keyAddr, depth + 1, value);
+        }
+        arena.putInt(ref, addChild(node, b, newLeaf(key, keyAddr, value)));
+        return false;
+    }
+
+    private int attach(int node, int leaf, int b) {
+        if (b == -1) {
+            arena.putInt(node + TERMINAL_OFFSET, leaf);
+            return node;
+        }
+        return addChild(node, b, leaf);
+    }
+
+    private boolean remove(int ref, CharSequence key, byte[] keyBytes, int keyLen, int depth) {
+        int node = arena.getInt(ref);
+        if (node == -1) {
+            return false;
+        }
+        if (isLeaf(node)) {
+            if (!leafMatches(node, key)) {
+                return false;
+            }
+            arena.abandon(node, LEAF_SIZE);
+            arena.putInt(ref, -1);
+            return true;
+        }
+
+        int prefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+        if (prefixLen > 0) {
+            if (keyLen - depth < prefixLen) {
+                return false;
+            }
+            for (int p = 0; p < Math.min(prefixLen, MAX_PREFIX); p++) {
+                if (arena.getByte(node + PREFIX_OFFSET + p) != keyBytes[depth + p]) {
+                    return false;
+                }
+            }
+            depth += prefixLen;
+        }
+
+        if (depth == keyLen) {
+            int terminal = arena.getInt(node + TERMINAL_OFFSET);
+            if (terminal == -1 || !leafMatches(terminal, key)) {
+                return false;
+            }
+            arena.abandon(terminal, LEAF_SIZE);
+            arena.putInt(node + TERMINAL_OFFSET, -1);
+            arena.putInt(ref, shrink(node));
+            return true;
+        }
+
+        int b = keyBytes[depth] & 0xFF;
+        int slot = findChild(node, b);
+        if (slot == -1 || !remove(slot, key, keyBytes, keyLen, depth + 1)) {
+            return false;
+        }
+        if (arena.getInt(slot) == -1) {
+            removeChild(node, b);
+            arena.putInt(ref, shrink(node));
+        }
+        return true;
+    }
+
+    private int findLeaf(int treeAddr, CharSequence key) {
+        checkTreePtr(treeAddr);
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int node = arena.getInt(treeAddr + ROOT_OFFSET);
+        byte[] keyBytes = null;
+        int keyLen = key.length();
+        if (!isNarrow(key)) {
+            KeyScratch scratch = encodeKey(key);
+            keyBytes = scratch.bytes;
+            keyLen = scratch.length;
+        }
+        int depth = 0;
+
+        while (node != -1) {
+            if (isLeaf(node)) {
+                return leafMatches(node, key) ? node : -1;
+            }
+
+            int prefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+            if (prefixLen > 0) {
+                if (keyLen - depth < prefixLen) {
+                    return -1;
+                }
+                for (int p = 0; p < Math.min(prefixLen, MAX_PREFIX); p++) {
+                    if (arena.getByte(node + PREFIX_OFFSET + p) != keyByte(key, keyBytes, depth + p)) {
+                        return -1;
+                    }
+                }
+                depth += prefixLen;
+            }
+
+            if (depth == keyLen) {
+                int terminal = arena.getInt(node + TERMINAL_OFFSET);
+                return terminal != -1 && leafMatches(terminal, key) ? terminal : -1;
+            }
+
+            int slot = findChild(node, keyByte(key, keyBytes, depth) & 0xFF);
+            if (slot == -1) {
+                return -1;
+            }
+            node = arena.getInt(slot);
+            depth++;
+        }
+        return -1;
+    }
+
+    private int prefixMismatch(int node, byte[] keyBytes, int keyLen, int depth) {
+        int prefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+        int maxCompare = Math.min(Math.min(prefixLen, MAX_PREFIX), keyLen - depth);
+        int i = 0;
+        for (; i < maxCompare; i++) {
+            if (arena.getByte(node + PREFIX_OFFSET + i) != keyBytes[depth + i]) {
+                return i;
+            }
+        }
+
+        if (prefixLen > MAX_PREFIX) {
+            i = Math.min(leafMismatch(minimum(node), keyBytes, keyLen, depth + i) - depth, prefixLen);
+        }
+        return i;
+    }
+
+    private int minimum(int node) {
+        while (!isLeaf(node)) {
+            int terminal = arena.getInt(node + TERMINAL_OFFSET);
+            if (terminal != -1) {
+                return terminal;
+            }
+            node = firstChild(node);
+        }
+        return node;
+    }
+
+    private int firstChild(int node) {
+        switch (arena.getByte(node + TYPE_OFFSET)) {
+            case NODE4:
+                return arena.getInt(node + NODE4_CHILDREN_OFFSET);
+            case NODE16:
+                return arena.getInt(node + NODE16_CHILDREN_OFFSET);
+            case NODE48:
+                for (int b = 0; b < 256; b++) {
+                    int index = arena.getByte(node + NODE48_INDEX_OFFSET + b) & 0xFF;
+                    if (index != 0) {
+                        return arena.getInt(node + NODE48_CHILDREN_OFFSET + ((index - 1) * 4));
+                    }
+                }
+                return -1;
+            default:
+                for (int b = 0; b < 256; b++) {
+                    int child = arena.getInt(node + NODE256_CHILDREN_OFFSET + (b * 4));
+                    if (child != -1) {
+                        return child;
+                    }
+                }
+                return -1;
+        }
+    }
+
+    private int findChild(int node, int b) {
+        switch (arena.getByte(node + TYPE_OFFSET)) {
+            case NODE4:
+            case NODE16: {
+                boolean small = arena.getByte(node + TYPE_OFFSET) == NODE4;
+                int keys = node + (small ? NODE4_KEYS_OFFSET : NODE16_KEYS_OFFSET);
+                int children = node + (small ? NODE4_CHILDREN_OFFSET : NODE16_CHILDREN_OFFSET);
+                int count = arena.getShort(node + COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    if ((arena.getByte(keys + i) & 0xFF) == b) {
+                        return children + (i * 4);
+                    }
+                }
+                return -1;
+            }
+            case NODE48: {
+                int index = arena.getByte(node + NODE48_INDEX_OFFSET + b) & 0xFF;
+                return index == 0 ? -1 : node + NODE48_CHILDREN_OFFSET + ((index - 1) * 4);
+            }
+            default: {
+                int slot = node + NODE256_CHILDREN_OFFSET + (b * 4);
+                return arena.getInt(slot) == -1 ? -1 : slot;
+            }
+        }
+    }
+
+    private int addChild(int node, int b, int child) {
+        byte type = arena.getByte(node + TYPE_OFFSET);
+        int count = arena.getShort(node + COUNT_OFFSET);
+        switch (type) {
+            case NODE4:
+            case NODE16: {
+                int capacity = type == NODE4 ? 4 : 16;
+                if (count == capacity) {
+                    return addChild(grow(node), b, child);
+                }
+                int keys = node + (type == NODE4 ? NODE4_KEYS_OFFSET : NODE16_KEYS_OFFSET);
+                int children = node + (type == NODE4 ? NODE4_CHILDREN_OFFSET : NODE16_CHILDREN_OFFSET);
+                int pos = 0;
+                while (pos < count && (arena.getByte(keys + pos) & 0xFF) < b) {
+                    pos++;
+                }
+                for (int i = count; i > pos; i--) {
+                    arena.putByte(keys + i, arena.getByte(keys + i - 1));
+                    arena.putInt(children + (i * 4), arena.getInt(children + ((i - 1) * 4)));
+                }
+                arena.putByte(keys + pos, (byte) b);
+                arena.putInt(children + (pos * 4), child);
+                break;
+            }
+            case NODE48: {
+                if (count == 48) {
+                    return addChild(grow(node), b, child);
+                }
+                int pos = 0;
+                while (arena.getInt(node + NODE48_CHILDREN_OFFSET + (pos * 4)) != -1) {
+                    pos++;
+                }
+                arena.putInt(node + NODE48_CHILDREN_OFFSET + (pos * 4), child);
+                arena.putByte(node + NODE48_INDEX_OFFSET + b, (byte) (pos + 1));
+                break;
+            }
+            default:
+                arena.putInt(node + NODE256_CHILDREN_OFFSET + (b * 4), child);
+                break;
+        }
+        arena.putShort(node + COUNT_OFFSET, (short) (count + 1));
+        return node;
+    }
+
+    private void removeChild(int node, int b) {
+        byte type = arena.getByte(node + TYPE_OFFSET);
+        int count = arena.getShort(node + COUNT_OFFSET);
+        switch (type) {
+            case NODE4:
+            case NODE16: {
+                int keys = node + (type == NODE4 ? NODE4_KEYS_OFFSET : NODE16_KEYS_OFFSET);
+                int children = node + (type == NODE4 ? NODE4_CHILDREN_OFFSET : NODE16_CHILDREN_OFFSET);
+                int pos = 0;
+                while ((arena.getByte(keys + pos) & 0xFF) != b) {
+                    pos++;
+                }
+                for (int i = pos; i < count - 1; i++) {
+                    arena.putByte(keys + i, arena.getByte(keys + i + 1));
+                    arena.putInt(children + (i * 4), arena.getInt(children + ((i + 1) * 4)));
+                }
+                break;
+            }
+            case NODE48: {
+                int index = arena.getByte(node + NODE48_INDEX_OFFSET + b) & 0xFF;
+                arena.putByte(node + NODE48_INDEX_OFFSET + b, (byte) 0);
+                arena.putInt(node + NODE48_CHILDREN_OFFSET + ((index - 1) * 4), -1);
+                break;
+            }
+            default:
+                arena.putInt(node + NODE256_CHILDREN_OFFSET + (b * 4), -1);
+                break;
+        }
+        arena.putShort(node + COUNT_OFFSET, (short) (count - 1));
+    }
+
+    private int grow(int node) {
+        byte type = arena.getByte(node + TYPE_OFFSET);
+        int grown = newNode((byte) (type + 1));
+        copyHeader(node, grown);
+        forEachChild(node, (b, child) -> addChild(grown, b, child));
+        arena.abandon(node, nodeSize(type));
+        return grown;
+    }
+
+    private int shrink(int node) {
+        byte type = arena.getByte(node + TYPE_OFFSET);
+        int count = arena.getShort(node + COUNT_OFFSET);
+        int terminal = arena.getInt(node + TERMINAL_OFFSET);
+
+        if (type == NODE4) {
+            if (count == 0) {
+                arena.abandon(node, NODE4_SIZE);
+                return terminal;
+            }
+            if (count == 1 && terminal == -1) {
+                int b = arena.getByte(node + NODE4_KEYS_OFFSET) & 0xFF;
+                int child = arena.getInt(node + NODE4_CHILDREN_OFFSET);
+                if (!isLeaf(child)) {
+                    mergePrefix(node, b, child);
+                }
+                arena.abandon(node, NODE4_SIZE);
+                return child;
+            }
+            return node;
+        }
+
+        int threshold = type == NODE16 ? 3 : type == NODE48 ? 12 : 37;
+        if (count > threshold) {
+            return node;
+        }
+        int shrunk = newNode((byte) (type - 1));
+        copyHeader(node, shrunk);
+        forEachChild(node, (b, child) -> addChild(shrunk, b, child));
+        arena.abandon(node, nodeSize(type));
+        return shrunk;
+    }
+
+    private void mergePrefix(int node, int b, int child) {
+        int nodePrefixLen = arena.getInt(node + PREFIX_LEN_OFFSET);
+        int childPrefixLen = arena.getInt(child + PREFIX_LEN_OFFSET);
+        byte[] merged = new byte[MAX_PREFIX];
+        int n = 0;
+        for (int p = 0; p < Math.min(nodePrefixLen, MAX_PREFIX) && n < MAX_PREFIX; p++) {
+            merged[n++] = arena.getByte(node + PREFIX_OFFSET + p);
+        }
+        if (n < MAX_PREFIX) {
+            merged[n++] = (byte) b;
+        }
+        for (int p = 0; p < Math.min(childPrefixLen, MAX_PREFIX) && n < MAX_PREFIX; p++) {
+            merged[n++] = arena.getByte(child + PREFIX_OFFSET + p);
+        }
+        for (int p = 0; p < n; p++) {
+            arena.putByte(child + PREFIX_OFFSET + p, merged[p]);
+        }
+        arena.putInt(child + PREFIX_LEN_OFFSET, nodePrefixLen + 1 + childPrefixLen);
+    }
+
+    private interface ChildVisitor {
+        void visit(int b, int child);
+    }
+
+    private void forEachChild(int node, ChildVisitor visitor) {
+        byte type = arena.getByte(node + TYPE_OFFSET);
+        switch (type) {
+            case NODE4:
+            case NODE16: {
+                int keys = node + (type == NODE4 ? NODE4_KEYS_OFFSET : NODE16_KEYS_OFFSET);
+                int children = node + (type == NODE4 ? NODE4_CHILDREN_OFFSET : NODE16_CHILDREN_OFFSET);
+                int count = arena.getShort(node + COUNT_OFFSET);
+                for (int i = 0; i < count; i++) {
+                    visitor.visit(arena.getByte(keys + i) & 0xFF, arena.getInt(children + (i * 4)));
+                }
+                break;
+            }
+            case NODE48:
+                for (int b = 0; b < 256; b++) {
+                    int index = arena.getByte(node + NODE48_INDEX_OFFSET + b) & 0xFF;
+                    if (index != 0) {
+                        visitor.visit(b, arena.getInt(node + NODE48_CHILDREN_OFFSET + ((index - 1) * 4)));
+                    }
+                }
+                break;
+            default:
+                for (int b = 0; b < 256; b++) {
+                    int child = arena.getInt(node + NODE256_CHILDREN_OFFSET + (b * 4));
+                    if (child != -1) {
+                        visitor.visit(b, child);
+                    }
+                }
+                break;
+        }
+    }
+
+    private void visitAll(int node, EntryVisitor visitor) {
+        if (node == -1) {
+            return;
+        }
+        if (isLeaf(node)) {
+            visitor.visit(arena.getInt(node + LEAF_KEY_OFFSET), arena.getInt(node + LEAF_VALUE_OFFSET));
+            return;
+        }
+        int terminal = arena.getInt(node + TERMINAL_OFFSET);
+        if (terminal != -1) {
+            visitAll(terminal, visitor);
+        }
+        forEachChild(node, (b, child) -> visitAll(child, visitor));
+    }
+
+    private int newLeaf(CharSequence key, int keyAddr, int value) {
+        if (keyAddr == -1) {
+            keyAddr = stringStore.createPackedString(key.toString());
+        }
+        int leaf = arena.alloc(LEAF_SIZE);
+        arena.putByte(leaf + TYPE_OFFSET, LEAF);
+        arena.putInt(leaf + LEAF_VALUE_OFFSET, value);
+        arena.putInt(leaf + LEAF_KEY_OFFSET, keyAddr);
+        return leaf;
+    }
+
+    private int newNode(byte type) {
+        int node = arena.alloc(nodeSize(type));
+        arena.putByte(node + TYPE_OFFSET, type);
+        arena.putShort(node + COUNT_OFFSET, (short) 0);
+        arena.putInt(node + PREFIX_LEN_OFFSET, 0);
+        arena.putInt(node + TERMINAL_OFFSET, -1);
+        if (type == NODE48) {
+            for (int b = 0; b < 256; b++) {
+                arena.putByte(node + NODE48_INDEX_OFFSET + b, (byte) 0);
+            }
+            for (int i = 0; i < 48; i++) {
+                arena.putInt(node + NODE48_CHILDREN_OFFSET + (i * 4), -1);
+            }
+        } else if (type == NODE256) {
+            for (int b = 0; b < 256; b++) {
+                arena.putInt(node + NODE256_CHILDREN_OFFSET + (b * 4), -1);
+            }
+        }
+        return node;
+    }
+
+    private void copyHeader(int from, int to) {
+        arena.copy(from + PREFIX_LEN_OFFSET, to + PREFIX_LEN_OFFSET, NODE_HEADER_SIZE - PREFIX_LEN_OFFSET);
+    }
+
+    private static int nodeSize(byte type) {
+        switch (type) {
+            case NODE4:
+                return NODE4_SIZE;
+            case NODE16:
+                return NODE16_SIZE;
+            case NODE48:
+                return NODE48_SIZE;
+            default:
+                return NODE256_SIZE;
+        }
+    }
+
+    private boolean isLeaf(int node) {
+        return arena.getByte(node + TYPE_OFFSET) == LEAF;
+    }
+
+    private boolean leafMatches(int leaf, CharSequence key) {
+        return stringStore.contentEquals(arena.getInt(leaf + LEAF_KEY_OFFSET), key);
+    }
+
+    private int leafMismatch(int leaf, byte[] keyBytes, int keyLen, int from) {
+        int keyAddr = arena.getInt(leaf + LEAF_KEY_OFFSET);
+        int length = stringStore.getStringLength(keyAddr);
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            char c = stringStore.getCharAt(keyAddr, i);
+            int width = c < WIDE_ESCAPE ? 1 : 3;
+            if (pos + width <= from) {
+                pos += width;
+                continue;
+            }
+            for (int k = 0; k < width; k++, pos++) {
+                if (pos >= from && (pos >= keyLen || keyBytes[pos] != (byte) encodedByte(c, width, k))) {
+                    return pos;
+                }
+            }
+        }
+        return pos;
+    }
+
+    private int leafByte(int leaf, int index) {
+        int keyAddr = arena.getInt(leaf + LEAF_KEY_OFFSET);
+        int length = stringStore.getStringLength(keyAddr);
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            char c = stringStore.getCharAt(keyAddr, i);
+            int width = c < WIDE_ESCAPE ? 1 : 3;
+            if (index < pos + width) {
+                return encodedByte(c, width, index - pos);
+            }
+            pos += width;
+        }
+        return -1;
+    }
+
+    private static int encodedByte(char c, int width, int k) {
+        if (width == 1) {
+            return c;
+        }
+        return k == 0 ? WIDE_ESCAPE : k == 1 ? c >>> 8 : c & 0xFF;
+    }
+
+    private static boolean isNarrow(CharSequence key) {
+        for (int i = 0, length = key.length(); i < length; i++) {
+            if (key.charAt(i) >= WIDE_ESCAPE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte keyByte(CharSequence key, byte[] keyBytes, int index) {
+        return keyBytes == null ? (byte) key.charAt(index) : keyBytes[index];
+    }
+
+    private static KeyScratch encodeKey(CharSequence key) {
+        KeyScratch scratch = KEY_SCRATCH.get();
+        int length = key.length();
+        if (scratch.bytes.length < length * 3) {
+            scratch.bytes = new byte[Math.max(length * 3, scratch.bytes.length * 2)];
+        }
+        byte[] bytes = scratch.bytes;
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < WIDE_ESCAPE) {
+                bytes[n++] = (byte) c;
+            } else {
+                bytes[n++] = (byte) WIDE_ESCAPE;
+                bytes[n++] = (byte) (c >>> 8);
+                bytes[n++] = (byte) c;
+            }
+        }
+        scratch.length = n;
+        return scratch;
+    }
+
+    private void checkTreePtr(int ptr) {
+        if (ptr < 0 || ptr + TREE_HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, TREE_HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+public class RobinHoodHashTableStore {
+    public interface EntryVisitor {
+        void visit(int key, int value);
+    }
+
+    private final MemoryArena arena;
+
+    private static final int SIZE_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int LOAD_FACTOR_OFFSET = 12;
+    private static final int OLD_SLOTS_OFFSET = 16;
+    private static final int OLD_CAPACITY_OFFSET = 20;
+    private static final int MIGRATE_INDEX_OFFSET = 24;
+    private static final int HEADER_SIZE = 28;
+
+    private static final int SLOT_META_OFFSET = 0;
+    private static final int SLOT_KEY_OFFSET = 4;
+    private static final int SLOT_VALUE_OFFSET = 8;
+    private static final int SLOT_SIZE = 12;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.875f;
+    private static final int MIGRATE_STEP = 64;
+
+    public RobinHoodHashTableStore(MemoryArena arena) {
+        this.arena = arena;
+    }
+
+    public int createTable(int initialCapacity) {
+        return createTable(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    public int createTable(int initialCapacity, float loadFactor) {
+        if (loadFactor < 0.1f || loadFactor > 0.95f) {
+            throw new IllegalArgumentException("Load factor must be between 0.1 and 0.95: " + loadFactor);
+        }
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * loadFactor < initialCapacity) {
+            capacity <<= 1;
+        }
+
+        int tableAddr = arena.alloc(HEADER_SIZE);
+        arena.putInt(tableAddr + SIZE_OFFSET, 0);
+        arena.putInt(tableAddr + CAPACITY_OFFSET, capacity);
+        arena.putInt(tableAddr + SLOTS_OFFSET, allocSlots(capacity));
+        arena.putInt(tableAddr + LOAD_FACTOR_OFFSET, Math.round(loadFactor * 100));
+        arena.putInt(tableAddr + OLD_SLOTS_OFFSET, -1);
+        arena.putInt(tableAddr + OLD_CAPACITY_OFFSET, 0);
+        arena.putInt(tableAddr + MIGRATE_INDEX_OFFSET, 0);
+        return tableAddr;
+    }
+
+    public int getSize(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + SIZE_OFFSET);
+    }
+
+    public int getCapacity(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + CAPACITY_OFFSET);
+    }
+
+    public boolean isResizing(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + OLD_SLOTS_OFFSET) != -1;
+    }
+
+    public void put(int tableAddr, int key, int value) {
+        checkTablePtr(tableAddr);
+        migrateStep(tableAddr);
+
+        int size = arena.getInt(tableAddr + SIZE_OFFSET);
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int slots = arena.getInt(tableAddr + SLOTS_OFFSET);
+
+        if (arena.getInt(tableAddr + OLD_SLOTS_OFFSET) != -1) {
+            int oldSlot = findSlot(arena.getInt(tableAddr + OLD_SLOTS_OFFSET),
+                arena.getInt(tableAddr + OLD_CAPACITY_OFFSET), key);
+            if (oldSlot != -1) {
+                markMoved(oldSlot);
+                insert(slots, capacity, key, value);
+                return;
+            }
+        }
+
+        if (insert(slots, capacity, key, value)) {
+            size++;
+            arena.putInt(tableAddr + SIZE_OFFSET, size);
+            if ((long) size * 100 > (long) capacity * arena.getInt(tableAddr + LOAD_FACTOR_OFFSET)) {
+                startResize(tableAddr);
+            }
+        }
+    }
+
+    public Integer get(int tableAddr, int key) {
+        int slot = lookup(tableAddr, key);
+        return slot == -1 ? null : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    public int getOrDefault(int tableAddr, int key, int defaultValue) {
+        int slot = lookup(tableAddr, key);
+        return slot == -1 ? defaultValue : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    public boolean contains(int tableAddr, int key) {
+        return lookup(tableAddr, key) != -1;
+    }
+
+    public boolean remove(int tableAddr, int key) {
+        checkTablePtr(tableAddr);
+        migrateStep(tableAddr);
+
+        int slots = arena.getInt(tableAddr + SLOTS_OFFSET);
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int slot = findSlot(slots, capacity, key);
+        if (slot != -1) {
+            backwardShift(slots, capacity, slot);
+        } else {
+            int oldSlots = arena.getInt(tableAddr + OLD_SLOTS_OFFSET);
+            if (oldSlots == -1) {
+                return false;
+            }
+            slot = findSlot(oldSlots, arena.getInt(tableAddr + OLD_CAPACITY_OFFSET), key);
+            if (slot == -1) {
+                return false;
+            }
+            markMoved(slot);
+        }
+        arena.putInt(tableAddr + SIZE_OFFSET, arena.getInt(tableAddr + SIZE_OFFSET) - 1);
+        return true;
+    }
+
+    public void forEach(int tableAddr, EntryVisitor visitor) {
+        checkTablePtr(tableAddr);
+        visitSlots(arena.getInt(tableAddr + SLOTS_OFFSET), arena.getInt(tableAddr + CAPACITY_OFFSET), visitor);
+        int oldSlots = arena.getInt(tableAddr + OLD_SLOTS_OFFSET);
+        if (oldSlots != -1) {
+            visitSlots(oldSlots, arena.getInt(tableAddr + OLD_CAPACITY_OFFSET), visitor);
+        }
+    }
+
+    public int getMaxProbeDistance(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int slots = arena.getInt(tableAddr + SLOTS_OFFSET);
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int max = 0;
+        for (int i = 0; i < capacity; i++) {
+            max = Math.max(max, arena.getInt(slots + (i * SLOT_SIZE) + SLOT_META_OFFSET) - 1);
+        }
+        return max;
+    }
+
+    public double getAverageProbeDistance(int tableAddr) {
+        checkTablePtr(tableAddr);
+        int slots = arena.getInt(tableAddr + SLOTS_OFFSET);
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        long total = 0;
+        int occupied = 0;
+        for (int i = 0; i < capacity; i++) {
+            int meta = arena.getInt(slots + (i * SLOT_SIZE) + SLOT_META_OFFSET);
+            if (meta > 0) {
+                total += meta - 1;
+                occupied++;
+            }
+        }
+        return occupied == 0 ? 0.0 : (double) total / occupied;
+    }
+
+    public void printStats(int tableAddr) {
+        int size = getSize(tableAddr);
+        int capacity = getCapacity(tableAddr);
+        System.out.println("RobinHoodHashTable (size: " + size + ", capacity: " + capacity + "):");
+        System.out.println("  Load: " + String.format("%.1f%%", size * 100.0 / capacity)
+            + " (resize at " + arena.getInt(tableAddr + LOAD_FACTOR_OFFSET) + "%)");
+        System.out.println("  Probe distance: avg " + String.format("%.2f", getAverageProbeDistance(tableAddr))
+            + ", max " + getMaxProbeDistance(tableAddr));
+        System.out.println("  Resizing: " + isResizing(tableAddr));
+    }
+
+    private int lookup(int tableAddr, int key) {
+        checkTablePtr(tableAddr);
+        int slot = findSlot(arena.getInt(tableAddr + SLOTS_OFFSET), arena.getInt(tableAddr + CAPACITY_OFFSET), key);
+        if (slot == -1) {
+            int oldSlots = arena.getInt(tableAddr + OLD_SLOTS_OFFSET);
+            if (oldSlots != -1) {
+                slot = findSlot(oldSlots, arena.getInt(tableAddr + OLD_CAPACITY_OFFSET), key);
+            }
+        }
+        return slot;
+    }
+
+    private int findSlot(int slots, int capacity, int key) {
+        int mask = capacity - 1;
+        int index = mix(key) & mask;
+        for (int dist = 0; ; dist++) {
+            int slot = slots + (index * SLOT_SIZE);
+            int meta = arena.getInt(slot + SLOT_META_OFFSET);
+            if (meta == 0 || Math.abs(meta) - 1 < dist) {
+                return -1;
+            }
+            if (meta > 0 && arena.getInt(slot + SLOT_KEY_OFFSET) == key) {
+                return slot;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean insert(int slots, int capacity, int key, int value) {
+        int mask = capacity - 1;
+        int index = mix(key) & mask;
+        int dist = 0;
+        boolean swapped = false;
+        while (true) {
+            int slot = slots + (index * SLOT_SIZE);
+            int meta = arena.getInt(slot + SLOT_META_OFFSET);
+            if (meta == 0) {
+                writeSlot(slot, dist, key, value);
+                return true;
+            }
+            if (!swapped && meta - 1 == dist && arena.getInt(slot + SLOT_KEY_OFFSET) == key) {
+                arena.putInt(slot + SLOT_VALUE_OFFSET, value);
+                return false;
+            }
+            if (meta - 1 < dist) {
+                int residentKey = arena.getInt(slot + SLOT_KEY_OFFSET);
+                int residentValue = arena.getInt(slot + SLOT_VALUE_OFFSET);
+                writeSlot(slot, dist, key, value);
+                key = residentKey;
+                value = residentValue;
+                dist = meta - 1;
+                swapped = true;
+            }
+            index = (index + 1) & mask;
+            dist++;
+        }
+    }
+
+    private void backwardShift(int slots, int capacity, int slot) {
+        int mask = capacity - 1;
+        int index = (slot - slots) / SLOT_SIZE;
+        while (true) {
+            int next = (index + 1) & mask;
+            int nextSlot = slots + (next * SLOT_SIZE);
+            int meta = arena.getInt(nextSlot + SLOT_META_OFFSET);
+            int current = slots + (index * SLOT_SIZE);
+            if (meta <= 1) {
+                arena.putInt(current + SLOT_META_OFFSET, 0);
+                return;
+            }
+            writeSlot(current, meta - 2, arena.getInt(nextSlot + SLOT_KEY_OFFSET), arena.getInt(nextSlot + SLOT_VALUE_OFFSET));
+            index = next;
+        }
+    }
+
+    private void startResize(int tableAddr) {
+        if (arena.getInt(tableAddr + OLD_SLOTS_OFFSET) != -1) {
+            while (arena.getInt(tableAddr + OLD_SLOTS_OFFSET) != -1) {
+                migrateStep(tableAddr);
+            }
+        }
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        arena.putInt(tableAddr + OLD_SLOTS_OFFSET, arena.getInt(tableAddr + SLOTS_OFFSET));
+        arena.putInt(tableAddr + OLD_CAPACITY_OFFSET, capacity);
+        arena.putInt(tableAddr + MIGRATE_INDEX_OFFSET, 0);
+        arena.putInt(tableAddr + CAPACITY_OFFSET, capacity * 2);
+        arena.putInt(tableAddr + SLOTS_OFFSET, allocSlots(capacity * 2));
+    }
+
+    private void migrateStep(int tableAddr) {
+        int oldSlots = arena.getInt(tableAddr + OLD_SLOTS_OFFSET);
+        if (oldSlots == -1) {
+            return;
+        }
+        int oldCapacity = arena.getInt(tableAddr + OLD_CAPACITY_OFFSET);
+        int slots = arena.getInt(tableAddr + SLOTS_OFFSET);
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int index = arena.getInt(tableAddr + MIGRATE_INDEX_OFFSET);
+        int end = Math.min(index + MIGRATE_STEP, oldCapacity);
+
+        for (; index < end; index++) {
+            int slot = oldSlots + (index * SLOT_SIZE);
+            if (arena.getInt(slot + SLOT_META_OFFSET) > 0) {
+                insert(slots, capacity, arena.getInt(slot + SLOT_KEY_OFFSET), arena.getInt(slot + SLOT_VALUE_OFFSET));
+                markMoved(slot);
+            }
+        }
+
+        if (index == oldCapacity) {
+            arena.abandon(oldSlots, oldCapacity * SLOT_SIZE);
+            arena.putInt(tableAddr + OLD_SLOTS_OFFSET, -1);
+            arena.putInt(tableAddr + OLD_CAPACITY_OFFSET, 0);
+            arena.putInt(tableAddr + MIGRATE_INDEX_OFFSET, 0);
+        } else {
+            arena.putInt(tableAddr + MIGRATE_INDEX_OFFSET, index);
+        }
+    }
+
+    private void markMoved(int slot) {
+        int meta = arena.getInt(slot + SLOT_META_OFFSET);
+        arena.putInt(slot + SLOT_META_OFFSET, -meta);
+    }
+
+    private void visitSlots(int slots, int capacity, EntryVisitor visitor) {
+        for (int i = 0; i < capacity; i++) {
+            int slot = slots + (i * SLOT_SIZE);
+            if (arena.getInt(slot + SLOT_META_OFFSET) > 0) {
+                visitor.visit(arena.getInt(slot + SLOT_KEY_OFFSET), arena.getInt(slot + SLOT_VALUE_OFFSET));
+            }
+        }
+    }
+
+    private void writeSlot(int slot, int dist, int key, int value) {
+        arena.putInt(slot + SLOT_META_OFFSET, dist + 1);
+        arena.putInt(slot + SLOT_KEY_OFFSET, key);
+        arena.putInt(slot + SLOT_VALUE_OFFSET, value);
+    }
+
+    private int allocSlots(int capacity) {
+        int slots = arena.alloc(capacity * SLOT_SIZE);
+        for (int i = 0; i < capacity; i++) {
+            arena.putInt(slots + (i * SLOT_SIZE) + SLOT_META_OFFSET, 0);
+        }
+        return slots;
+    }
+
+    static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private void checkTablePtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -0,0 +1,397 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+public class SharedMemoryArena extends MemoryArena implements AutoCloseable {
+    private static final VarHandle INT_HANDLE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    public static final int MAGIC = 0x53484D41;
+    public static final int VERSION = 2;
+    public static final int ROOT_SLOTS = 8;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 12;
+    private static final int USED_OFFSET = 16;
+    private static final int ALIGNMENT_WASTE_OFFSET = 20;
+    private static final int ABANDONED_OFFSET = 24;
+    private static final int GENERATION_OFFSET = 28;
+    private static final int ROOTS_OFFSET = 32;
+    private static final int HEADER_SIZE = 64;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final boolean writable;
+    private final int[] roots = new int[ROOT_SLOTS];
+    private int sequence;
+
+    private SharedMemoryArena(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity, boolean writable) {
+        super(new byte[0], capacity);
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.writable = writable;
+        Arrays.fill(roots, -1);
+    }
+
+    public static SharedMemoryArena create(Path path, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) HEADER_SIZE + capacity);
+            SharedMemoryArena arena = new SharedMemoryArena(path, channel, buffer, capacity, true);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            arena.publish();
+            INT_HANDLE.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+            return arena;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static SharedMemoryArena openReadOnly(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a shared arena: " + path);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if ((int) INT_HANDLE.getAcquire(header, MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a shared arena: " + path);
+            }
+            if (header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported shared arena version " + header.getInt(VERSION_OFFSET));
+            }
+            int capacity = header.getInt(CAPACITY_OFFSET);
+            if (channel.size() < (long) HEADER_SIZE + capacity) {
+                throw new IOException("Shared arena file is truncated: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) HEADER_SIZE + capacity);
+            SharedMemoryArena arena = new SharedMemoryArena(path, channel, buffer, capacity, false);
+            arena.refresh();
+            return arena;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return writable;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public void setRoot(int slot, int addr) {
+        checkWritable();
+        checkSlot(slot);
+        if (addr != -1) {
+            checkAddr(addr, 1);
+        }
+        roots[slot] = addr;
+    }
+
+    public int getRoot(int slot) {
+        checkSlot(slot);
+        return roots[slot];
+    }
+
+    public void beginWrite() {
+        checkWritable();
+        if ((sequence & 1) == 0) {
+            sequence++;
+            INT_HANDLE.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+            VarHandle.storeStoreFence();
+        }
+    }
+
+    public void publish() {
+        beginWrite();
+        buffer.putInt(USED_OFFSET, used());
+        buffer.putInt(ALIGNMENT_WASTE_OFFSET, getAlignmentWaste());
+        buffer.putInt(ABANDONED_OFFSET, getAbandonedBytes());
+        buffer.putInt(GENERATION_OFFSET, getGeneration());
+        for (int i = 0; i < ROOT_SLOTS; i++) {
+            buffer.putInt(ROOTS_OFFSET + i * 4, roots[i]);
+        }
+        sequence++;
+        INT_HANDLE.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+    }
+
+    public int refresh() {
+        if (writable) {
+            return sequence;
+        }
+        while (true) {
+            int seq = (int) INT_HANDLE.getAcquire(buffer, SEQUENCE_OFFSET);
+            if ((seq & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int used = buffer.getInt(USED_OFFSET);
+            int alignmentWaste = buffer.getInt(ALIGNMENT_WASTE_OFFSET);
+            int abandonedBytes = buffer.getInt(ABANDONED_OFFSET);
+            int generation = buffer.getInt(GENERATION_OFFSET);
+            int[] snapshot = new int[ROOT_SLOTS];
+            for (int i = 0; i < ROOT_SLOTS; i++) {
+                snapshot[i] = buffer.getInt(ROOTS_OFFSET + i * 4);
+            }
+            VarHandle.acquireFence();
+            if ((int) INT_HANDLE.getAcquire(buffer, SEQUENCE_OFFSET) == seq) {
+                super.restore(used, alignmentWaste, abandonedBytes, generation);
+                System.arraycopy(snapshot, 0, roots, 0, ROOT_SLOTS);
+                sequence = seq;
+                return seq;
+            }
+        }
+    }
+
+    public boolean validate(int seq) {
+        VarHandle.acquireFence();
+        return (int) INT_HANDLE.getAcquire(buffer, SEQUENCE_OFFSET) == seq;
+    }
+
+    public <T> T read(Supplier<T> body) {
+        while (true) {
+            int seq = refresh();
+            T result;
+            try {
+                result = body.get();
+            } catch (RuntimeException e) {
+                if (validate(seq)) {
+                    throw e;
+                }
+                continue;
+            }
+            if (validate(seq)) {
+                return result;
+            }
+        }
+    }
+
+    private void checkWritable() {
+        if (!writable) {
+            throw new UnsupportedOperationException("Shared arena is mapped read-only: " + path);
+        }
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= ROOT_SLOTS) {
+            throw new IllegalArgumentException("Root slot must be in [0, " + ROOT_SLOTS + "): " + slot);
+        }
+    }
+
+    @Override
+    public int alloc(int size) {
+        checkWritable();
+        return super.alloc(size);
+    }
+
+    @Override
+    public int allocAligned(int size, int alignment) {
+        checkWritable();
+        return super.allocAligned(size, alignment);
+    }
+
+    @Override
+    public boolean extend(int addr, int size, int extraSize) {
+        checkWritable();
+        return super.extend(addr, size, extraSize);
+    }
+
+    @Override
+    public boolean release(int addr, int size) {
+        checkWritable();
+        return super.release(addr, size);
+    }
+
+    @Override
+    public void restore(int used, int alignmentWaste, int abandonedBytes, int generation) {
+        checkWritable();
+        super.restore(used, alignmentWaste, abandonedBytes, generation);
+    }
+
+    @Override
+    public void reset() {
+        checkWritable();
+        super.reset();
+    }
+
+    @Override
+    public void putByte(int addr, byte x) {
+        checkAddr(addr, 1);
+        buffer.put(HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public byte getByte(int addr) {
+        checkAddr(addr, 1);
+        return buffer.get(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public void putInt(int addr, int x) {
+        checkAddr(addr, 4);
+        buffer.putInt(HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public int getInt(int addr) {
+        checkAddr(addr, 4);
+        return buffer.getInt(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public int getIntUnchecked(int addr) {
+        return buffer.getInt(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public int getIntAcquire(int addr) {
+        checkAddr(addr, 4);
+        return (int) INT_HANDLE.getAcquire(buffer, HEADER_SIZE + addr);
+    }
+
+    @Override
+    public void putIntRelease(int addr, int x) {
+        checkAddr(addr, 4);
+        INT_HANDLE.setRelease(buffer, HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public int getIntVolatile(int addr) {
+        checkAddr(addr, 4);
+        return (int) INT_HANDLE.getVolatile(buffer, HEADER_SIZE + addr);
+    }
+
+    @Override
+    public boolean compareAndSetInt(int addr, int expected, int x) {
+        checkAddr(addr, 4);
+        return INT_HANDLE.compareAndSet(buffer, HEADER_SIZE + addr, expected, x);
+    }
+
+    @Override
+    public void putLong(int addr, long x) {
+        checkAddr(addr, 8);
+        buffer.putLong(HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public long getLong(int addr) {
+        checkAddr(addr, 8);
+        return buffer.getLong(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public long getLongUnchecked(int addr) {
+        return buffer.getLong(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public void putShort(int addr, short x) {
+        checkAddr(addr, 2);
+        buffer.putShort(HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public short getShort(int addr) {
+        checkAddr(addr, 2);
+        return buffer.getShort(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public void putChar(int addr, char x) {
+        checkAddr(addr, 2);
+        buffer.putChar(HEADER_SIZE + addr, x);
+    }
+
+    @Override
+    public char getChar(int addr) {
+        checkAddr(addr, 2);
+        return buffer.getChar(HEADER_SIZE + addr);
+    }
+
+    @Override
+    public void putBoolean(int addr, boolean x) {
+        putByte(addr, (byte) (x ? 1 : 0));
+    }
+
+    @Override
+    public boolean getBoolean(int addr) {
+        return (getByte(addr) & 0xFF) == 1;
+    }
+
+    @Override
+    public void putBytes(int addr, byte[] src, int srcOffset, int length) {
+        checkAddr(addr, length);
+        buffer.put(HEADER_SIZE + addr, src, srcOffset, length);
+    }
+
+    @Override
+    public void getBytes(int addr, byte[] dst, int dstOffset, int length) {
+        checkAddr(addr, length);
+        buffer.get(HEADER_SIZE + addr, dst, dstOffset, length);
+    }
+
+    @Override
+    protected ByteBuffer dataView() {
+        return buffer.slice(HEADER_SIZE, used()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public String decode(int addr, int length, Charset charset) {
+        byte[] bytes = new byte[length];
+        getBytes(addr, bytes, 0, length);
+        return new String(bytes, charset);
+    }
+
+    @Override
+    public int mismatch(int addrA, int addrB, int length) {
+        checkAddr(addrA, length);
+        checkAddr(addrB, length);
+        return buffer.slice(HEADER_SIZE + addrA, length).mismatch(buffer.slice(HEADER_SIZE + addrB, length));
+    }
+
+    @Override
+    public void copy(int srcAddr, int dstAddr, int length) {
+        byte[] bytes = new byte[length];
+        getBytes(srcAddr, bytes, 0, length);
+        putBytes(dstAddr, bytes, 0, length);
+    }
+
+    public void force() {
+        checkWritable();
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public void printStats() {
+        System.out.println("Shared arena " + path.getFileName() + " (" + (writable ? "writer" : "reader") + "): "
+            + used() + " of " + capacity() + " bytes published, sequence " + sequence);
+    }
+}
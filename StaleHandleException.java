@@ -0,0 +1,38 @@
+public class StaleHandleException extends MemoryException {
+    private static final long serialVersionUID = 1L;
+
+    private final long handle;
+    private final int expectedTag;
+    private final int arenaGeneration;
+
+    public StaleHandleException(long handle, int expectedTag, int arenaGeneration) {
+        super(describe(handle, expectedTag, arenaGeneration));
+        this.handle = handle;
+        this.expectedTag = expectedTag;
+        this.arenaGeneration = arenaGeneration;
+    }
+
+    private static String describe(long handle, int expectedTag, int arenaGeneration) {
+        int tag = MemoryArena.handleTag(handle);
+        int generation = MemoryArena.handleGeneration(handle);
+        int addr = MemoryArena.handleAddress(handle);
+        if (tag != expectedTag) {
+            return String.format("Invalid handle! Handle 0x%016X (address %d) has tag %d, expected tag %d.",
+                handle, addr, tag, expectedTag);
+        }
+        return String.format("Stale handle! Handle 0x%016X (address %d) is from arena generation %d, arena is at generation %d.",
+            handle, addr, generation, arenaGeneration);
+    }
+
+    public long getHandle() {
+        return handle;
+    }
+
+    public int getExpectedTag() {
+        return expectedTag;
+    }
+
+    public int getArenaGeneration() {
+        return arenaGeneration;
+    }
+}
@@ -0,0 +1,365 @@
+import java.nio.charset.StandardCharsets;
+
+public class StringHashMapStore {
+    public interface EntryVisitor {
+        void visit(String key, long value);
+    }
+
+    private final MemoryArena arena;
+    private final StringStore stringStore;
+
+    private static final int SIZE_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int VALUE_SIZE_OFFSET = 8;
+    private static final int CTRL_OFFSET = 12;
+    private static final int SLOTS_OFFSET = 16;
+    private static final int HEADER_SIZE = 20;
+
+    private static final int SLOT_HASH_OFFSET = 0;
+    private static final int SLOT_KEY_LENGTH_OFFSET = 4;
+    private static final int SLOT_KEY_OFFSET = 5;
+    private static final int SLOT_VALUE_OFFSET = 16;
+    private static final int MAX_INLINE_KEY = SLOT_VALUE_OFFSET - SLOT_KEY_OFFSET;
+    private static final int EXTERNAL_KEY = 0xFF;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 80;
+
+    public StringHashMapStore(MemoryArena arena) {
+        this(arena, new StringStore(arena));
+    }
+
+    public StringHashMapStore(MemoryArena arena, StringStore stringStore) {
+        this.arena = arena;
+        this.stringStore = stringStore;
+    }
+
+    public StringStore getStringStore() {
+        return stringStore;
+    }
+
+    public int createLongMap(int initialCapacity) {
+        return createMap(initialCapacity, 8);
+    }
+
+    public int createIntMap(int initialCapacity) {
+        return createMap(initialCapacity, 4);
+    }
+
+    public int getSize(int mapAddr) {
+        checkMapPtr(mapAddr);
+        return arena.getInt(mapAddr + SIZE_OFFSET);
+    }
+
+    public int getCapacity(int mapAddr) {
+        checkMapPtr(mapAddr);
+        return arena.getInt(mapAddr + CAPACITY_OFFSET);
+    }
+
+    public void putLong(int mapAddr, CharSequence key, long value) {
+        checkMapPtr(mapAddr);
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) != 8) {
+            throw new IllegalArgumentException("Map at " + mapAddr + " stores int values");
+        }
+        writeValue(mapAddr, findOrInsert(mapAddr, key), value);
+    }
+
+    public void putInt(int mapAddr, CharSequence key, int value) {
+        checkMapPtr(mapAddr);
+        writeValue(mapAddr, findOrInsert(mapAddr, key), value);
+    }
+
+    public long getLong(int mapAddr, CharSequence key, long defaultValue) {
+        checkMapPtr(mapAddr);
+        int slot = find(mapAddr, key);
+        return slot == -1 ? defaultValue : readValue(mapAddr, slot);
+    }
+
+    public int getInt(int mapAddr, CharSequence key, int defaultValue) {
+        checkMapPtr(mapAddr);
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) != 4) {
+            throw new IllegalArgumentException("Map at " + mapAddr + " stores long values");
+        }
+        int slot = find(mapAddr, key);
+        return slot == -1 ? defaultValue : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    public boolean containsKey(int mapAddr, CharSequence key) {
+        checkMapPtr(mapAddr);
+        return find(mapAddr, key) != -1;
+    }
+
+    public boolean remove(int mapAddr, CharSequence key) {
+        checkMapPtr(mapAddr);
+        int hash = hash(key);
+        int index = indexOf(mapAddr, key, hash);
+        if (index == -1) {
+            return false;
+        }
+
+        int mask = arena.getInt(mapAddr + CAPACITY_OFFSET) - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+
+        int removedSlot = slots + (index * slotSize);
+        if ((arena.getByte(removedSlot + SLOT_KEY_LENGTH_OFFSET) & 0xFF) == EXTERNAL_KEY) {
+            int keyAddr = arena.getInt(removedSlot + SLOT_KEY_OFFSET);
+            arena.abandon(keyAddr, stringStore.getByteSize(keyAddr));
+        }
+
+        int next = index;
+        while (true) {
+            next = (next + 1) & mask;
+            if (arena.getByte(ctrl + next) == 0) {
+                break;
+            }
+            int home = RobinHoodHashTableStore.mix(arena.getInt(slots + (next * slotSize) + SLOT_HASH_OFFSET)) & mask;
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                arena.putByte(ctrl + index, arena.getByte(ctrl + next));
+                arena.copy(slots + (next * slotSize), slots + (index * slotSize), slotSize);
+                index = next;
+            }
+        }
+        arena.putByte(ctrl + index, (byte) 0);
+        arena.putInt(mapAddr + SIZE_OFFSET, arena.getInt(mapAddr + SIZE_OFFSET) - 1);
+        return true;
+    }
+
+    public int getInlineKeyCount(int mapAddr) {
+        checkMapPtr(mapAddr);
+        int capacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        int inline = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (arena.getByte(ctrl + i) != 0
+                    && (arena.getByte(slots + (i * slotSize) + SLOT_KEY_LENGTH_OFFSET) & 0xFF) != EXTERNAL_KEY) {
+                inline++;
+            }
+        }
+        return inline;
+    }
+
+    public void forEach(int mapAddr, EntryVisitor visitor) {
+        checkMapPtr(mapAddr);
+        int capacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        for (int i = 0; i < capacity; i++) {
+            if (arena.getByte(ctrl + i) != 0) {
+                int slot = slots + (i * slotSize);
+                visitor.visit(getKey(slot), readValue(mapAddr, slot));
+            }
+        }
+    }
+
+    public void printMap(int mapAddr) {
+        System.out.println("StringHashMap (size: " + getSize(mapAddr) + ", capacity: " + getCapacity(mapAddr)
+            + ", inline keys: " + getInlineKeyCount(mapAddr) + "):");
+        forEach(mapAddr, (key, value) -> System.out.println("  \"" + key + "\" -> " + value));
+    }
+
+    private int createMap(int initialCapacity, int valueSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while ((long) capacity * MAX_LOAD_PERCENT < (long) initialCapacity * 100) {
+            capacity <<= 1;
+        }
+        int mapAddr = arena.alloc(HEADER_SIZE);
+        arena.putInt(mapAddr + SIZE_OFFSET, 0);
+        arena.putInt(mapAddr + VALUE_SIZE_OFFSET, valueSize);
+        allocTable(mapAddr, capacity);
+        return mapAddr;
+    }
+
+    private void allocTable(int mapAddr, int capacity) {
+        int ctrl = arena.alloc(capacity);
+        for (int i = 0; i < capacity; i++) {
+            arena.putByte(ctrl + i, (byte) 0);
+        }
+        int slots;
+        try {
+            slots = arena.alloc(capacity * slotSize(mapAddr));
+        } catch (OutOfMemoryException e) {
+            arena.release(ctrl, capacity);
+            throw e;
+        }
+        arena.putInt(mapAddr + CAPACITY_OFFSET, capacity);
+        arena.putInt(mapAddr + CTRL_OFFSET, ctrl);
+        arena.putInt(mapAddr + SLOTS_OFFSET, slots);
+    }
+
+    private int find(int mapAddr, CharSequence key) {
+        int index = indexOf(mapAddr, key, hash(key));
+        return index == -1 ? -1 : arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize(mapAddr));
+    }
+
+    private int indexOf(int mapAddr, CharSequence key, int hash) {
+        int mask = arena.getInt(mapAddr + CAPACITY_OFFSET) - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+        int mixed = RobinHoodHashTableStore.mix(hash);
+        byte fingerprint = fingerprint(mixed);
+        int index = mixed & mask;
+        while (true) {
+            byte c = arena.getByte(ctrl + index);
+            if (c == 0) {
+                return -1;
+            }
+            if (c == fingerprint) {
+                int slot = slots + (index * slotSize);
+                if (arena.getInt(slot + SLOT_HASH_OFFSET) == hash && keyEquals(slot, key)) {
+                    return index;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int findOrInsert(int mapAddr, CharSequence key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+        int hash = hash(key);
+        int index = indexOf(mapAddr, key, hash);
+        int slotSize = slotSize(mapAddr);
+        if (index != -1) {
+            return arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize);
+        }
+
+        int size = arena.getInt(mapAddr + SIZE_OFFSET) + 1;
+        if ((long) size * 100 > (long) arena.getInt(mapAddr + CAPACITY_OFFSET) * MAX_LOAD_PERCENT) {
+            rehash(mapAddr, arena.getInt(mapAddr + CAPACITY_OFFSET) * 2);
+        }
+        int externalKey = isInlineKey(key) ? -1 : stringStore.createPackedString(key.toString());
+
+        int mask = arena.getInt(mapAddr + CAPACITY_OFFSET) - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int mixed = RobinHoodHashTableStore.mix(hash);
+        index = mixed & mask;
+        while (arena.getByte(ctrl + index) != 0) {
+            index = (index + 1) & mask;
+        }
+        int slot = arena.getInt(mapAddr + SLOTS_OFFSET) + (index * slotSize);
+        arena.putInt(slot + SLOT_HASH_OFFSET, hash);
+        writeKey(slot, key, externalKey);
+        arena.putByte(ctrl + index, fingerprint(mixed));
+        arena.putInt(mapAddr + SIZE_OFFSET, size);
+        return slot;
+    }
+
+    private void rehash(int mapAddr, int newCapacity) {
+        int oldCapacity = arena.getInt(mapAddr + CAPACITY_OFFSET);
+        int oldCtrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int oldSlots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        int slotSize = slotSize(mapAddr);
+
+        allocTable(mapAddr, newCapacity);
+        int mask = newCapacity - 1;
+        int ctrl = arena.getInt(mapAddr + CTRL_OFFSET);
+        int slots = arena.getInt(mapAddr + SLOTS_OFFSET);
+        for (int i = 0; i < oldCapacity; i++) {
+            byte c = arena.getByte(oldCtrl + i);
+            if (c == 0) {
+                continue;
+            }
+            int oldSlot = oldSlots + (i * slotSize);
+            int index = RobinHoodHashTableStore.mix(arena.getInt(oldSlot + SLOT_HASH_OFFSET)) & mask;
+            while (arena.getByte(ctrl + index) != 0) {
+                index = (index + 1) & mask;
+            }
+            arena.putByte(ctrl + index, c);
+            arena.copy(oldSlot, slots + (index * slotSize), slotSize);
+        }
+        arena.abandon(oldSlots, oldCapacity * slotSize);
+        arena.abandon(oldCtrl, oldCapacity);
+    }
+
+    private boolean isInlineKey(CharSequence key) {
+        int length = key.length();
+        boolean inline = length <= MAX_INLINE_KEY;
+        for (int i = 0; i < length && inline; i++) {
+            inline = key.charAt(i) <= 0xFF;
+        }
+        return inline;
+    }
+
+    private void writeKey(int slot, CharSequence key, int externalKey) {
+        if (externalKey == -1) {
+            int length = key.length();
+            arena.putByte(slot + SLOT_KEY_LENGTH_OFFSET, (byte) length);
+            for (int i = 0; i < length; i++) {
+                arena.putByte(slot + SLOT_KEY_OFFSET + i, (byte) key.charAt(i));
+            }
+        } else {
+            arena.putByte(slot + SLOT_KEY_LENGTH_OFFSET, (byte) EXTERNAL_KEY);
+            arena.putInt(slot + SLOT_KEY_OFFSET, externalKey);
+        }
+    }
+
+    private boolean keyEquals(int slot, CharSequence key) {
+        int length = arena.getByte(slot + SLOT_KEY_LENGTH_OFFSET) & 0xFF;
+        if (length == EXTERNAL_KEY) {
+            return stringStore.contentEquals(arena.getInt(slot + SLOT_KEY_OFFSET), key);
+        }
+        if (length != key.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if ((arena.getByte(slot + SLOT_KEY_OFFSET + i) & 0xFF) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String getKey(int slot) {
+        int length = arena.getByte(slot + SLOT_KEY_LENGTH_OFFSET) & 0xFF;
+        if (length == EXTERNAL_KEY) {
+            return stringStore.getString(arena.getInt(slot + SLOT_KEY_OFFSET));
+        }
+        return arena.decode(slot + SLOT_KEY_OFFSET, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private long readValue(int mapAddr, int slot) {
+        return arena.getInt(mapAddr + VALUE_SIZE_OFFSET) == 8
+            ? arena.getLong(slot + SLOT_VALUE_OFFSET)
+            : arena.getInt(slot + SLOT_VALUE_OFFSET);
+    }
+
+    private void writeValue(int mapAddr, int slot, long value) {
+        if (arena.getInt(mapAddr + VALUE_SIZE_OFFSET) == 8) {
+            arena.putLong(slot + SLOT_VALUE_OFFSET, value);
+        } else {
+            arena.putInt(slot + SLOT_VALUE_OFFSET, (int) value);
+        }
+    }
+
+    private int slotSize(int mapAddr) {
+        return SLOT_VALUE_OFFSET + arena.getInt(mapAddr + VALUE_SIZE_OFFSET);
+    }
+
+    private static int hash(CharSequence key) {
+        if (key instanceof String || key instanceof ArenaCharSequence) {
+            return key.hashCode();
+        }
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return hash;
+    }
+
+    private static byte fingerprint(int mixed) {
+        return (byte) (0x80 | (mixed >>> 25));
+    }
+
+    private void checkMapPtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+public class StringInternStore {
+    private final MemoryArena arena;
+    private final StringStore stringStore;
+    private static final int SIZE_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SLOTS_PTR_OFFSET = 8;
+    private static final int LOOKUPS_OFFSET = 12;
+    private static final int HITS_OFFSET = 20;
+    private static final int HEADER_SIZE = 28;
+    private static final int SLOT_HASH_OFFSET = 0;
+    private static final int SLOT_STRING_OFFSET = 4;
+    private static final int SLOT_SIZE = 8;
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_LOAD_PERCENT = 75;
+
+    public StringInternStore(MemoryArena arena) {
+        this(arena, new StringStore(arena));
+    }
+
+    public StringInternStore(MemoryArena arena, StringStore stringStore) {
+        this.arena = arena;
+        this.stringStore = stringStore;
+    }
+
+    public StringStore getStringStore() {
+        return stringStore;
+    }
+
+    public int createInternTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, initialCapacity) - 1) << 1;
+        int tableAddr = arena.alloc(HEADER_SIZE);
+        arena.putInt(tableAddr + SIZE_OFFSET, 0);
+        arena.putInt(tableAddr + CAPACITY_OFFSET, capacity);
+        arena.putInt(tableAddr + SLOTS_PTR_OFFSET, allocSlots(capacity));
+        arena.putLong(tableAddr + LOOKUPS_OFFSET, 0L);
+        arena.putLong(tableAddr + HITS_OFFSET, 0L);
+        return tableAddr;
+    }
+
+    public int intern(int tableAddr, String s) {
+        if (s == null) {
+            throw new IllegalArgumentException("String cannot be null");
+        }
+        checkTablePtr(tableAddr);
+        int hash = s.hashCode();
+        int slotAddr = findSlot(tableAddr, hash, s, null, 0, s.length());
+        int existing = arena.getInt(slotAddr + SLOT_STRING_OFFSET);
+        if (existing != -1) {
+            recordLookup(tableAddr, true);
+            return existing;
+        }
+        recordLookup(tableAddr, false);
+        return insert(tableAddr, slotAddr, hash, stringStore.createPackedString(s));
+    }
+
+    public int intern(int tableAddr, char[] chars, int offset, int length) {
+        if (chars == null) {
+            throw new IllegalArgumentException("Chars cannot be null");
+        }
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + offset + ", " + (offset + length) + ") out of bounds for length " + chars.length
+            );
+        }
+        checkTablePtr(tableAddr);
+        int hash = StringStore.hash(chars, offset, length);
+        int slotAddr = findSlot(tableAddr, hash, null, chars, offset, length);
+        int existing = arena.getInt(slotAddr + SLOT_STRING_OFFSET);
+        if (existing != -1) {
+            recordLookup(tableAddr, true);
+            return existing;
+        }
+        recordLookup(tableAddr, false);
+        return insert(tableAddr, slotAddr, hash, stringStore.createPackedString(chars, offset, length));
+    }
+
+    public int lookup(int tableAddr, String s) {
+        checkTablePtr(tableAddr);
+        int slotAddr = findSlot(tableAddr, s.hashCode(), s, null, 0, s.length());
+        return arena.getInt(slotAddr + SLOT_STRING_OFFSET);
+    }
+
+    public int getSize(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + SIZE_OFFSET);
+    }
+
+    public int getCapacity(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getInt(tableAddr + CAPACITY_OFFSET);
+    }
+
+    public long getLookupCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getLong(tableAddr + LOOKUPS_OFFSET);
+    }
+
+    public long getHitCount(int tableAddr) {
+        checkTablePtr(tableAddr);
+        return arena.getLong(tableAddr + HITS_OFFSET);
+    }
+
+    public double getHitRatio(int tableAddr) {
+        long lookups = getLookupCount(tableAddr);
+        return lookups == 0 ? 0.0 : (double) getHitCount(tableAddr) / lookups;
+    }
+
+    public void printStats(int tableAddr) {
+        System.out.println("InternTable (strings: " + getSize(tableAddr) + ", capacity: " + getCapacity(tableAddr)
+            + ", lookups: " + getLookupCount(tableAddr) + ", hits: " + getHitCount(tableAddr)
+            + String.format(", hit ratio: %.2f%%)", getHitRatio(tableAddr) * 100));
+    }
+
+    private int findSlot(int tableAddr, int hash, String s, char[] chars, int offset, int length) {
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int slotsPtr = arena.getInt(tableAddr + SLOTS_PTR_OFFSET);
+        int mask = capacity - 1;
+        int index = spread(hash) & mask;
+        while (true) {
+            int slotAddr = slotsPtr + (index * SLOT_SIZE);
+            int stringAddr = arena.getInt(slotAddr + SLOT_STRING_OFFSET);
+            if (stringAddr == -1) {
+                return slotAddr;
+            }
+            if (arena.getInt(slotAddr + SLOT_HASH_OFFSET) == hash) {
+                boolean equal = s != null
+                    ? stringStore.contentEquals(stringAddr, s)
+                    : stringStore.contentEquals(stringAddr, chars, offset, length);
+                if (equal) {
+                    return slotAddr;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int insert(int tableAddr, int slotAddr, int hash, int stringAddr) {
+        arena.putInt(slotAddr + SLOT_HASH_OFFSET, hash);
+        arena.putInt(slotAddr + SLOT_STRING_OFFSET, stringAddr);
+        int size = arena.getInt(tableAddr + SIZE_OFFSET) + 1;
+        arena.putInt(tableAddr + SIZE_OFFSET, size);
+
+        int capacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        if (size * 100 > capacity * MAX_LOAD_PERCENT) {
+            resize(tableAddr, capacity * 2);
+        }
+        return stringAddr;
+    }
+
+    private void resize(int tableAddr, int newCapacity) {
+        int oldCapacity = arena.getInt(tableAddr + CAPACITY_OFFSET);
+        int oldSlots = arena.getInt(tableAddr + SLOTS_PTR_OFFSET);
+        int newSlots = allocSlots(newCapacity);
+        int mask = newCapacity - 1;
+
+        for (int i = 0; i < oldCapacity; i++) {
+            int oldSlotAddr = oldSlots + (i * SLOT_SIZE);
+            int stringAddr = arena.getInt(oldSlotAddr + SLOT_STRING_OFFSET);
+            if (stringAddr == -1) {
+                continue;
+            }
+            int hash = arena.getInt(oldSlotAddr + SLOT_HASH_OFFSET);
+            int index = spread(hash) & mask;
+            while (arena.getInt(newSlots + (index * SLOT_SIZE) + SLOT_STRING_OFFSET) != -1) {
+                index = (index + 1) & mask;
+            }
+            arena.putInt(newSlots + (index * SLOT_SIZE) + SLOT_HASH_OFFSET, hash);
+            arena.putInt(newSlots + (index * SLOT_SIZE) + SLOT_STRING_OFFSET, stringAddr);
+        }
+
+        arena.abandon(oldSlots, oldCapacity * SLOT_SIZE);
+        arena.putInt(tableAddr + CAPACITY_OFFSET, newCapacity);
+        arena.putInt(tableAddr + SLOTS_PTR_OFFSET, newSlots);
+    }
+
+    private int allocSlots(int capacity) {
+        int slotsPtr = arena.alloc(capacity * SLOT_SIZE);
+        for (int i = 0; i < capacity; i++) {
+            arena.putInt(slotsPtr + (i * SLOT_SIZE) + SLOT_STRING_OFFSET, -1);
+        }
+        return slotsPtr;
+    }
+
+    private void recordLookup(int tableAddr, boolean hit) {
+        arena.putLong(tableAddr + LOOKUPS_OFFSET, arena.getLong(tableAddr + LOOKUPS_OFFSET) + 1);
+        if (hit) {
+            arena.putLong(tableAddr + HITS_OFFSET, arena.getLong(tableAddr + HITS_OFFSET) + 1);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void checkTablePtr(int ptr) {
+        if (ptr < 0 || ptr + HEADER_SIZE > arena.used()) {
+            throw new InvalidPointerException(ptr, HEADER_SIZE, arena.used(), arena.capacity());
+        }
+    }
+}
@@ -1,7 +1,21 @@
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class StringStore {
+    public static final int CODER_LATIN1 = 0;
+    public static final int CODER_UTF16 = 1;
+    public static final int CODER_UTF8 = 2;
+    public static final int HANDLE_TAG = 2;
+
     private final MemoryArena arena;
-    private static final int LENGTH_OFFSET = 0;
-    private static final int DATA_OFFSET = 4;
+    private static final int HEADER_OFFSET = 0;
+    private static final int HASH_OFFSET = 4;
+    private static final int DATA_OFFSET = 8;
+    private static final int CODER_SHIFT = 30;
+    private static final int LENGTH_MASK = (1 << CODER_SHIFT) - 1;
+    private static final int UTF8_BYTES_OFFSET = DATA_OFFSET;
+    private static final int UTF8_DATA_OFFSET = DATA_OFFSET + 4;
     private static final int CHAR_SIZE = 2;
 
     public StringStore(MemoryArena arena) {
@@ -12,42 +26,172 @@ public class StringStore {
         if (s == null) {
             throw new IllegalArgumentException("String cannot be null");
         }
-        
-        int length = s.length();
-        int totalSize = DATA_OFFSET + (length * CHAR_SIZE);
-        int stringAddr = arena.alloc(totalSize);
-        
-        arena.putInt(stringAddr + LENGTH_OFFSET, length);
-        
-        for (int i = 0; i < length; i++) {
-            char c = s.charAt(i);
-            int charAddr = stringAddr + DATA_OFFSET + (i * CHAR_SIZE);
-            arena.putChar(charAddr, c);
+        return createUtf16(s);
+    }
+
+    public int createString(char[] chars, int offset, int length) {
+        checkChars(chars, offset, length);
+        int stringAddr = allocString(length, CODER_UTF16, hash(chars, offset, length), length * CHAR_SIZE);
+        putUtf16(stringAddr, CharBuffer.wrap(chars, offset, length), length);
+        return stringAddr;
+    }
+
+    public int createPackedString(String s) {
+        if (s == null) {
+            throw new IllegalArgumentException("String cannot be null");
+        }
+        return isLatin1(s) ? createLatin1(s) : createUtf16(s);
+    }
+
+    public int createPackedString(char[] chars, int offset, int length) {
+        checkChars(chars, offset, length);
+        boolean latin1 = true;
+        for (int i = offset; i < offset + length; i++) {
+            if (chars[i] > 0xFF) {
+                latin1 = false;
+                break;
+            }
+        }
+
+        int charSize = latin1 ? 1 : CHAR_SIZE;
+        int stringAddr = allocString(length, latin1 ? CODER_LATIN1 : CODER_UTF16, hash(chars, offset, length), length * charSize);
+        if (latin1) {
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) chars[offset + i];
+            }
+            arena.putBytes(stringAddr + DATA_OFFSET, bytes, 0, length);
+        } else {
+            putUtf16(stringAddr, CharBuffer.wrap(chars, offset, length), length);
+        }
+        return stringAddr;
+    }
+
+    public int createCompactString(String s) {
+        if (s == null) {
+            throw new IllegalArgumentException("String cannot be null");
+        }
+        if (isLatin1(s)) {
+            return createLatin1(s);
+        }
+        if (hasUnpairedSurrogate(s)) {
+            return createUtf16(s);
         }
-        
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        if (4 + utf8.length >= s.length() * CHAR_SIZE) {
+            return createUtf16(s);
+        }
+
+        int stringAddr = allocString(s.length(), CODER_UTF8, s.hashCode(), 4 + utf8.length);
+        arena.putInt(stringAddr + UTF8_BYTES_OFFSET, utf8.length);
+        arena.putBytes(stringAddr + UTF8_DATA_OFFSET, utf8, 0, utf8.length);
         return stringAddr;
     }
 
+    public long createStringHandle(String s) {
+        return arena.handle(createString(s), HANDLE_TAG);
+    }
+
+    public String getString(long stringHandle) {
+        return getString(arena.resolve(stringHandle, HANDLE_TAG));
+    }
+
     public String getString(int stringAddr) {
         checkStringPtr(stringAddr);
         int length = getStringLength(stringAddr);
-        
+
         if (length == 0) {
             return "";
         }
-        
-        char[] chars = new char[length];
-        for (int i = 0; i < length; i++) {
-            int charAddr = stringAddr + DATA_OFFSET + (i * CHAR_SIZE);
-            chars[i] = arena.getChar(charAddr);
+
+        switch (getCoder(stringAddr)) {
+            case CODER_LATIN1:
+                return arena.decode(stringAddr + DATA_OFFSET, length, StandardCharsets.ISO_8859_1);
+            case CODER_UTF8:
+                return arena.decode(stringAddr + UTF8_DATA_OFFSET, arena.getInt(stringAddr + UTF8_BYTES_OFFSET), StandardCharsets.UTF_8);
+            default:
+                byte[] bytes = new byte[length * CHAR_SIZE];
+                arena.getBytes(stringAddr + DATA_OFFSET, bytes, 0, bytes.length);
+                char[] chars = new char[length];
+                ByteBuffer.wrap(bytes).asCharBuffer().get(chars);
+                return new String(chars);
         }
-        
-        return new String(chars);
     }
 
     public int getStringLength(int stringAddr) {
         checkStringPtr(stringAddr);
-        return arena.getInt(stringAddr + LENGTH_OFFSET);
+        return arena.getInt(stringAddr + HEADER_OFFSET) & LENGTH_MASK;
+    }
+
+    public int getCoder(int stringAddr) {
+        checkStringPtr(stringAddr);
+        return arena.getInt(stringAddr + HEADER_OFFSET) >>> CODER_SHIFT;
+    }
+
+    public int getHash(int stringAddr) {
+        checkStringPtr(stringAddr);
+        int hash = arena.getInt(stringAddr + HASH_OFFSET);
+        if (hash == 0) {
+            hash = computeHash(stringAddr);
+            if (arena.isWritable()) {
+                arena.putInt(stringAddr + HASH_OFFSET, hash);
+            }
+        }
+        return hash;
+    }
+
+    public boolean contentEquals(int stringAddr, CharSequence s) {
+        if (s == null) {
+            return false;
+        }
+        int length = getStringLength(stringAddr);
+        if (length != s.length()) {
+            return false;
+        }
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            return getString(stringAddr).contentEquals(s);
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(stringAddr, coder, i) != s.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean contentEquals(int stringAddr, char[] chars, int offset, int length) {
+        if (getStringLength(stringAddr) != length) {
+            return false;
+        }
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            String s = getString(stringAddr);
+            for (int i = 0; i < length; i++) {
+                if (s.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(stringAddr, coder, i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getByteSize(int stringAddr) {
+        int length = getStringLength(stringAddr);
+        switch (getCoder(stringAddr)) {
+            case CODER_LATIN1:
+                return DATA_OFFSET + length;
+            case CODER_UTF8:
+                return UTF8_DATA_OFFSET + arena.getInt(stringAddr + UTF8_BYTES_OFFSET);
+            default:
+                return DATA_OFFSET + (length * CHAR_SIZE);
+        }
     }
 
     public char getCharAt(int stringAddr, int index) {
@@ -58,9 +202,16 @@ public class StringStore {
                 "Index " + index + " out of bounds for string of length " + length
             );
         }
-        
-        int charAddr = stringAddr + DATA_OFFSET + (index * CHAR_SIZE);
-        return arena.getChar(charAddr);
+
+        switch (getCoder(stringAddr)) {
+            case CODER_LATIN1:
+                return (char) (arena.getByte(stringAddr + DATA_OFFSET + index) & 0xFF);
+            case CODER_UTF8:
+                return getString(stringAddr).charAt(index);
+            default:
+                int charAddr = stringAddr + DATA_OFFSET + (index * CHAR_SIZE);
+                return arena.getChar(charAddr);
+        }
     }
 
     public void setCharAt(int stringAddr, int index, char c) {
@@ -71,9 +222,237 @@ public class StringStore {
                 "Index " + index + " out of bounds for string of length " + length
             );
         }
-        
-        int charAddr = stringAddr + DATA_OFFSET + (index * CHAR_SIZE);
-        arena.putChar(charAddr, c);
+
+        switch (getCoder(stringAddr)) {
+            case CODER_LATIN1:
+                if (c > 0xFF) {
+                    throw new IllegalArgumentException(
+                        "Character U+" + Integer.toHexString(c).toUpperCase()
+                            + " cannot be stored in a packed Latin-1 string; use createString for mutable strings"
+                    );
+                }
+                arena.putByte(stringAddr + DATA_OFFSET + index, (byte) c);
+                arena.putInt(stringAddr + HASH_OFFSET, 0);
+                break;
+            case CODER_UTF8:
+                throw new UnsupportedOperationException("UTF-8 strings cannot be modified in place");
+            default:
+                int charAddr = stringAddr + DATA_OFFSET + (index * CHAR_SIZE);
+                arena.putChar(charAddr, c);
+                arena.putInt(stringAddr + HASH_OFFSET, 0);
+                break;
+        }
+    }
+
+    public int getChars(int stringAddr, char[] dst, int dstOffset) {
+        int length = getStringLength(stringAddr);
+        if (dst == null || dstOffset < 0 || dstOffset + length > dst.length) {
+            throw new IllegalArgumentException("Destination buffer cannot hold " + length + " chars at offset " + dstOffset);
+        }
+
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            decodeUtf8(stringAddr, dst, dstOffset);
+            return length;
+        }
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = charAt(stringAddr, coder, i);
+        }
+        return length;
+    }
+
+    public boolean equals(int addrA, int addrB) {
+        int length = getStringLength(addrA);
+        if (length != getStringLength(addrB)) {
+            return false;
+        }
+        if (addrA == addrB) {
+            return true;
+        }
+        if (getHash(addrA) != getHash(addrB)) {
+            return false;
+        }
+
+        int coderA = getCoder(addrA);
+        int coderB = getCoder(addrB);
+        if (coderA == coderB) {
+            if (coderA == CODER_UTF8) {
+                int bytes = arena.getInt(addrA + UTF8_BYTES_OFFSET);
+                return bytes == arena.getInt(addrB + UTF8_BYTES_OFFSET)
+                    && arena.mismatch(addrA + UTF8_DATA_OFFSET, addrB + UTF8_DATA_OFFSET, bytes) == -1;
+            }
+            int bytes = coderA == CODER_LATIN1 ? length : length * CHAR_SIZE;
+            return arena.mismatch(addrA + DATA_OFFSET, addrB + DATA_OFFSET, bytes) == -1;
+        }
+        if (coderA == CODER_UTF8) {
+            return contentEquals(addrB, getString(addrA));
+        }
+        if (coderB == CODER_UTF8) {
+            return contentEquals(addrA, getString(addrB));
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(addrA, coderA, i) != charAt(addrB, coderB, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int compare(int addrA, int addrB) {
+        int lengthA = getStringLength(addrA);
+        int lengthB = getStringLength(addrB);
+        int coderA = getCoder(addrA);
+        int coderB = getCoder(addrB);
+        if (coderA == CODER_UTF8 || coderB == CODER_UTF8) {
+            return getString(addrA).compareTo(getString(addrB));
+        }
+
+        int min = Math.min(lengthA, lengthB);
+        if (coderA == coderB) {
+            int charSize = coderA == CODER_LATIN1 ? 1 : CHAR_SIZE;
+            int mismatch = arena.mismatch(addrA + DATA_OFFSET, addrB + DATA_OFFSET, min * charSize);
+            if (mismatch == -1) {
+                return lengthA - lengthB;
+            }
+            int index = mismatch / charSize;
+            return charAt(addrA, coderA, index) - charAt(addrB, coderB, index);
+        }
+        for (int i = 0; i < min; i++) {
+            int diff = charAt(addrA, coderA, i) - charAt(addrB, coderB, i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lengthA - lengthB;
+    }
+
+    public int compare(int stringAddr, CharSequence s) {
+        int length = getStringLength(stringAddr);
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            return compareChars(getString(stringAddr), s);
+        }
+
+        int min = Math.min(length, s.length());
+        for (int i = 0; i < min; i++) {
+            int diff = charAt(stringAddr, coder, i) - s.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - s.length();
+    }
+
+    public boolean startsWith(int stringAddr, CharSequence prefix) {
+        int length = getStringLength(stringAddr);
+        if (prefix.length() > length) {
+            return false;
+        }
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            return getString(stringAddr).startsWith(prefix.toString());
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (charAt(stringAddr, coder, i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean startsWith(int stringAddr, int prefixAddr) {
+        int length = getStringLength(stringAddr);
+        int prefixLength = getStringLength(prefixAddr);
+        if (prefixLength > length) {
+            return false;
+        }
+        int coder = getCoder(stringAddr);
+        int prefixCoder = getCoder(prefixAddr);
+        if (coder == CODER_UTF8 || prefixCoder == CODER_UTF8) {
+            return getString(stringAddr).startsWith(getString(prefixAddr));
+        }
+        if (coder == prefixCoder) {
+            int charSize = coder == CODER_LATIN1 ? 1 : CHAR_SIZE;
+            return arena.mismatch(stringAddr + DATA_OFFSET, prefixAddr + DATA_OFFSET, prefixLength * charSize) == -1;
+        }
+        for (int i = 0; i < prefixLength; i++) {
+            if (charAt(stringAddr, coder, i) != charAt(prefixAddr, prefixCoder, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int indexOf(int stringAddr, char c) {
+        int length = getStringLength(stringAddr);
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            return getString(stringAddr).indexOf(c);
+        }
+        if (coder == CODER_LATIN1 && c > 0xFF) {
+            return -1;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(stringAddr, coder, i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOf(int stringAddr, CharSequence needle) {
+        int length = getStringLength(stringAddr);
+        int coder = getCoder(stringAddr);
+        if (coder == CODER_UTF8) {
+            return getString(stringAddr).indexOf(needle.toString());
+        }
+
+        int needleLength = needle.length();
+        if (needleLength == 0) {
+            return 0;
+        }
+        char first = needle.charAt(0);
+        for (int i = 0; i <= length - needleLength; i++) {
+            if (charAt(stringAddr, coder, i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needleLength && charAt(stringAddr, coder, i + j) == needle.charAt(j)) {
+                j++;
+            }
+            if (j == needleLength) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int indexOf(int stringAddr, int needleAddr) {
+        int length = getStringLength(stringAddr);
+        int needleLength = getStringLength(needleAddr);
+        int coder = getCoder(stringAddr);
+        int needleCoder = getCoder(needleAddr);
+        if (coder == CODER_UTF8 || needleCoder == CODER_UTF8) {
+            return getString(stringAddr).indexOf(getString(needleAddr));
+        }
+        if (needleLength == 0) {
+            return 0;
+        }
+
+        char first = charAt(needleAddr, needleCoder, 0);
+        for (int i = 0; i <= length - needleLength; i++) {
+            if (charAt(stringAddr, coder, i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needleLength && charAt(stringAddr, coder, i + j) == charAt(needleAddr, needleCoder, j)) {
+                j++;
+            }
+            if (j == needleLength) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public void printString(int stringAddr) {
@@ -82,6 +461,133 @@ public class StringStore {
         System.out.println("\"" + s + "\" (length: " + getStringLength(stringAddr) + ")");
     }
 
+    private int allocString(int length, int coder, int hash, int dataSize) {
+        if (length > LENGTH_MASK) {
+            throw new IllegalArgumentException("String length " + length + " exceeds maximum of " + LENGTH_MASK);
+        }
+        int stringAddr = arena.alloc(DATA_OFFSET + dataSize);
+        arena.putInt(stringAddr + HEADER_OFFSET, (coder << CODER_SHIFT) | length);
+        arena.putInt(stringAddr + HASH_OFFSET, hash);
+        return stringAddr;
+    }
+
+    private int createLatin1(String s) {
+        int length = s.length();
+        int stringAddr = allocString(length, CODER_LATIN1, s.hashCode(), length);
+        arena.putBytes(stringAddr + DATA_OFFSET, s.getBytes(StandardCharsets.ISO_8859_1), 0, length);
+        return stringAddr;
+    }
+
+    private int createUtf16(String s) {
+        int length = s.length();
+        int stringAddr = allocString(length, CODER_UTF16, s.hashCode(), length * CHAR_SIZE);
+        putUtf16(stringAddr, CharBuffer.wrap(s), length);
+        return stringAddr;
+    }
+
+    private void putUtf16(int stringAddr, CharBuffer chars, int length) {
+        byte[] bytes = new byte[length * CHAR_SIZE];
+        ByteBuffer.wrap(bytes).asCharBuffer().put(chars);
+        arena.putBytes(stringAddr + DATA_OFFSET, bytes, 0, bytes.length);
+    }
+
+    private char charAt(int stringAddr, int coder, int index) {
+        if (coder == CODER_LATIN1) {
+            return (char) (arena.getByte(stringAddr + DATA_OFFSET + index) & 0xFF);
+        }
+        return arena.getChar(stringAddr + DATA_OFFSET + (index * CHAR_SIZE));
+    }
+
+    private void decodeUtf8(int stringAddr, char[] dst, int dstOffset) {
+        int addr = stringAddr + UTF8_DATA_OFFSET;
+        int end = addr + arena.getInt(stringAddr + UTF8_BYTES_OFFSET);
+        int out = dstOffset;
+        while (addr < end) {
+            int b = arena.getByte(addr++) & 0xFF;
+            if (b < 0x80) {
+                dst[out++] = (char) b;
+            } else if (b < 0xE0) {
+                dst[out++] = (char) (((b & 0x1F) << 6) | (arena.getByte(addr++) & 0x3F));
+            } else if (b < 0xF0) {
+                int b1 = arena.getByte(addr++) & 0x3F;
+                int b2 = arena.getByte(addr++) & 0x3F;
+                dst[out++] = (char) (((b & 0x0F) << 12) | (b1 << 6) | b2);
+            } else {
+                int b1 = arena.getByte(addr++) & 0x3F;
+                int b2 = arena.getByte(addr++) & 0x3F;
+                int b3 = arena.getByte(addr++) & 0x3F;
+                int codePoint = ((b & 0x07) << 18) | (b1 << 12) | (b2 << 6) | b3;
+                dst[out++] = Character.highSurrogate(codePoint);
+                dst[out++] = Character.lowSurrogate(codePoint);
+            }
+        }
+    }
+
+    private static int compareChars(CharSequence a, CharSequence b) {
+        int min = Math.min(a.length(), b.length());
+        for (int i = 0; i < min; i++) {
+            int diff = a.charAt(i) - b.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private int computeHash(int stringAddr) {
+        int header = arena.getInt(stringAddr + HEADER_OFFSET);
+        int coder = header >>> CODER_SHIFT;
+        if (coder == CODER_UTF8) {
+            return getString(stringAddr).hashCode();
+        }
+        int length = header & LENGTH_MASK;
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + charAt(stringAddr, coder, i);
+        }
+        return hash;
+    }
+
+    public static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasUnpairedSurrogate(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkChars(char[] chars, int offset, int length) {
+        if (chars == null) {
+            throw new IllegalArgumentException("Chars cannot be null");
+        }
+        if (offset < 0 || length < 0 || offset + length > chars.length) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + offset + ", " + (offset + length) + ") out of bounds for length " + chars.length
+            );
+        }
+    }
+
     private void checkStringPtr(int ptr) {
         if (ptr < 0) {
             throw new InvalidPointerException(ptr, DATA_OFFSET, arena.used(), arena.capacity());
@@ -91,4 +597,3 @@ public class StringStore {
         }
     }
 }
-
@@ -0,0 +1,359 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public final class StructLayout {
+    public enum FieldType {
+        BYTE(1),
+        SHORT(2),
+        CHAR(2),
+        INT(4),
+        LONG(8),
+        DOUBLE(8);
+
+        private final int size;
+
+        FieldType(int size) {
+            this.size = size;
+        }
+
+        public int getSize() {
+            return size;
+        }
+    }
+
+    public record Field(String name, FieldType type, int offset) {
+    }
+
+    public record ByteField(int offset) {
+        public byte get(MemoryArena arena, int addr) {
+            return arena.getByte(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, byte x) {
+            arena.putByte(addr + offset, x);
+        }
+    }
+
+    public record ShortField(int offset) {
+        public short get(MemoryArena arena, int addr) {
+            return arena.getShort(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, short x) {
+            arena.putShort(addr + offset, x);
+        }
+    }
+
+    public record CharField(int offset) {
+        public char get(MemoryArena arena, int addr) {
+            return arena.getChar(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, char x) {
+            arena.putChar(addr + offset, x);
+        }
+    }
+
+    public record IntField(int offset) {
+        public int get(MemoryArena arena, int addr) {
+            return arena.getInt(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, int x) {
+            arena.putInt(addr + offset, x);
+        }
+    }
+
+    public record LongField(int offset) {
+        public long get(MemoryArena arena, int addr) {
+            return arena.getLong(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, long x) {
+            arena.putLong(addr + offset, x);
+        }
+    }
+
+    public record DoubleField(int offset) {
+        public double get(MemoryArena arena, int addr) {
+            return arena.getDouble(addr + offset);
+        }
+
+        public void set(MemoryArena arena, int addr, double x) {
+            arena.putDouble(addr + offset, x);
+        }
+    }
+
+    public interface ElementVisitor {
+        void accept(int index, int addr);
+    }
+
+    public final class StructCursor {
+        private int next;
+        private int end;
+        private int current = -1;
+
+        public StructCursor reset(int arrayAddr, int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("Count cannot be negative: " + count);
+            }
+            if (count > 0) {
+                arena.checkAddr(arrayAddr, count * size);
+            }
+            next = arrayAddr;
+            end = arrayAddr + count * size;
+            current = -1;
+            return this;
+        }
+
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        public int next() {
+            if (next >= end) {
+                throw new NoSuchElementException("Cursor is exhausted");
+            }
+            current = next;
+            next += size;
+            return current;
+        }
+
+        public int address() {
+            return current;
+        }
+    }
+
+    public static final class Builder {
+        private final String name;
+        private final List<Field> fields = new ArrayList<>();
+        private int offset = 0;
+        private int alignment = 1;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        public Builder field(String fieldName, FieldType type) {
+            return field(fieldName, type, type.getSize());
+        }
+
+        public Builder field(String fieldName, FieldType type, int fieldAlignment) {
+            if (fieldAlignment <= 0 || (fieldAlignment & (fieldAlignment - 1)) != 0) {
+                throw new IllegalArgumentException("Alignment must be a positive power of two: " + fieldAlignment);
+            }
+            for (Field field : fields) {
+                if (field.name().equals(fieldName)) {
+                    throw new IllegalArgumentException("Duplicate field: " + fieldName);
+                }
+            }
+            offset = (offset + fieldAlignment - 1) & -fieldAlignment;
+            fields.add(new Field(fieldName, type, offset));
+            offset += type.getSize();
+            alignment = Math.max(alignment, fieldAlignment);
+            return this;
+        }
+
+        public Builder byteField(String fieldName) {
+            return field(fieldName, FieldType.BYTE);
+        }
+
+        public Builder shortField(String fieldName) {
+            return field(fieldName, FieldType.SHORT);
+        }
+
+        public Builder charField(String fieldName) {
+            return field(fieldName, FieldType.CHAR);
+        }
+
+        public Builder intField(String fieldName) {
+            return field(fieldName, FieldType.INT);
+        }
+
+        public Builder longField(String fieldName) {
+            return field(fieldName, FieldType.LONG);
+        }
+
+        public Builder doubleField(String fieldName) {
+            return field(fieldName, FieldType.DOUBLE);
+        }
+
+        public Builder padding(int bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("Padding cannot be negative: " + bytes);
+            }
+            offset += bytes;
+            return this;
+        }
+
+        public Builder alignTo(int structAlignment) {
+            if (structAlignment <= 0 || (structAlignment & (structAlignment - 1)) != 0) {
+                throw new IllegalArgumentException("Alignment must be a positive power of two: " + structAlignment);
+            }
+            alignment = Math.max(alignment, structAlignment);
+            return this;
+        }
+
+        public StructLayout build() {
+            if (fields.isEmpty()) {
+                throw new IllegalArgumentException("Struct " + name + " must declare at least one field");
+            }
+            int size = (offset + alignment - 1) & -alignment;
+            return new StructLayout(name, fields, size, alignment);
+        }
+    }
+
+    private final MemoryArena arena;
+    private final String name;
+    private final Map<String, Field> fields;
+    private final int size;
+    private final int alignment;
+
+    private StructLayout(String name, List<Field> fieldList, int size, int alignment) {
+        this(null, name, toMap(fieldList), size, alignment);
+    }
+
+    private StructLayout(MemoryArena arena, String name, Map<String, Field> fields, int size, int alignment) {
+        this.arena = arena;
+        this.name = name;
+        this.fields = fields;
+        this.size = size;
+        this.alignment = alignment;
+    }
+
+    private static Map<String, Field> toMap(List<Field> fieldList) {
+        Map<String, Field> map = new LinkedHashMap<>();
+        for (Field field : fieldList) {
+            map.put(field.name(), field);
+        }
+        return map;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public StructLayout bind(MemoryArena arena) {
+        if (arena == null) {
+            throw new IllegalArgumentException("Arena cannot be null");
+        }
+        return new StructLayout(arena, name, fields, size, alignment);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getAlignment() {
+        return alignment;
+    }
+
+    public List<Field> getFields() {
+        return new ArrayList<>(fields.values());
+    }
+
+    public int offsetOf(String fieldName) {
+        return field(fieldName, null).offset();
+    }
+
+    public ByteField byteField(String fieldName) {
+        return new ByteField(field(fieldName, FieldType.BYTE).offset());
+    }
+
+    public ShortField shortField(String fieldName) {
+        return new ShortField(field(fieldName, FieldType.SHORT).offset());
+    }
+
+    public CharField charField(String fieldName) {
+        return new CharField(field(fieldName, FieldType.CHAR).offset());
+    }
+
+    public IntField intField(String fieldName) {
+        return new IntField(field(fieldName, FieldType.INT).offset());
+    }
+
+    public LongField longField(String fieldName) {
+        return new LongField(field(fieldName, FieldType.LONG).offset());
+    }
+
+    public DoubleField doubleField(String fieldName) {
+        return new DoubleField(field(fieldName, FieldType.DOUBLE).offset());
+    }
+
+    private Field field(String fieldName, FieldType expected) {
+        Field field = fields.get(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Struct " + name + " has no field " + fieldName);
+        }
+        if (expected != null && field.type() != expected) {
+            throw new IllegalArgumentException("Field " + name + "." + fieldName + " is " + field.type() + ", not " + expected);
+        }
+        return field;
+    }
+
+    public int allocate() {
+        return allocateArray(1);
+    }
+
+    public int allocateArray(int count) {
+        checkBound();
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        int addr = arena.allocAligned(size * count, alignment);
+        for (int i = 0; i < size * count; i++) {
+            arena.putByte(addr + i, (byte) 0);
+        }
+        return addr;
+    }
+
+    public int elementAddress(int arrayAddr, int index) {
+        return arrayAddr + index * size;
+    }
+
+    public StructCursor cursor(int arrayAddr, int count) {
+        checkBound();
+        return new StructCursor().reset(arrayAddr, count);
+    }
+
+    public void forEach(int arrayAddr, int count, ElementVisitor visitor) {
+        checkBound();
+        if (count > 0) {
+            arena.checkAddr(arrayAddr, count * size);
+        }
+        int addr = arrayAddr;
+        for (int i = 0; i < count; i++) {
+            visitor.accept(i, addr);
+            addr += size;
+        }
+    }
+
+    private void checkBound() {
+        if (arena == null) {
+            throw new IllegalStateException("Struct " + name + " is not bound to an arena");
+        }
+    }
+
+    public void printLayout() {
+        System.out.println("Struct " + name + " (size=" + size + ", align=" + alignment + ")");
+        int expected = 0;
+        for (Field field : fields.values()) {
+            if (field.offset() > expected) {
+                System.out.println("  [" + expected + ".." + (field.offset() - 1) + "] padding");
+            }
+            System.out.println("  [" + field.offset() + ".." + (field.offset() + field.type().getSize() - 1) + "] "
+                + field.name() + ": " + field.type());
+            expected = field.offset() + field.type().getSize();
+        }
+        if (size > expected) {
+            System.out.println("  [" + expected + ".." + (size - 1) + "] padding");
+        }
+    }
+}
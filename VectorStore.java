@@ -1,14 +1,46 @@
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
 public class VectorStore {
+    public enum GrowthPolicy {
+        ONE_AND_HALF,
+        DOUBLE,
+        CHUNK_LINEAR
+    }
+
     private final MemoryArena arena;
+    private final GrowthPolicy growthPolicy;
+    private final int chunkSize;
     private static final int LENGTH_OFFSET = 0;
     private static final int CAPACITY_OFFSET = 4;
     private static final int DATA_PTR_OFFSET = 8;
     private static final int HEADER_SIZE = 12;
     private static final int ELEMENT_SIZE = 4;
     private static final double GROWTH_FACTOR = 1.5;
+    private static final int DEFAULT_CHUNK_SIZE = 64;
 
     public VectorStore(MemoryArena arena) {
+        this(arena, GrowthPolicy.ONE_AND_HALF);
+    }
+
+    public VectorStore(MemoryArena arena, GrowthPolicy growthPolicy) {
+        this(arena, growthPolicy, DEFAULT_CHUNK_SIZE);
+    }
+
+    public VectorStore(MemoryArena arena, GrowthPolicy growthPolicy, int chunkSize) {
+        if (growthPolicy == null) {
+            throw new IllegalArgumentException("Growth policy cannot be null");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
         this.arena = arena;
+        this.growthPolicy = growthPolicy;
+        this.chunkSize = chunkSize;
+    }
+
+    public GrowthPolicy getGrowthPolicy() {
+        return growthPolicy;
     }
 
     public int createVector(int initialCapacity) {
@@ -101,27 +133,122 @@ public class VectorStore {
         arena.putInt(elementAddr, value);
     }
 
+    public ArenaIntCursor cursor(int vectorAddr) {
+        return cursor(vectorAddr, new ArenaIntCursor(arena));
+    }
+
+    public ArenaIntCursor cursor(int vectorAddr, ArenaIntCursor cursor) {
+        checkVectorPtr(vectorAddr);
+        int length = arena.getInt(vectorAddr + LENGTH_OFFSET);
+        return cursor.reset(arena.getInt(vectorAddr + DATA_PTR_OFFSET), length);
+    }
+
+    public ArenaIntSpliterator spliterator(int vectorAddr) {
+        checkVectorPtr(vectorAddr);
+        int length = arena.getInt(vectorAddr + LENGTH_OFFSET);
+        return new ArenaIntSpliterator(arena, arena.getInt(vectorAddr + DATA_PTR_OFFSET), length);
+    }
+
+    public IntStream intStream(int vectorAddr, boolean parallel) {
+        return StreamSupport.intStream(spliterator(vectorAddr), parallel);
+    }
+
+    public void reserve(int vectorAddr, int minCapacity) {
+        checkVectorPtr(vectorAddr);
+        int capacity = getCapacity(vectorAddr);
+        if (minCapacity <= capacity) {
+            return;
+        }
+        resize(vectorAddr, Math.max(minCapacity, nextCapacity(capacity)));
+    }
+
+    public void appendAll(int vectorAddr, int[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        checkVectorPtr(vectorAddr);
+        int length = getLength(vectorAddr);
+        reserve(vectorAddr, length + values.length);
+
+        int elementAddr = getDataPtr(vectorAddr) + (length * ELEMENT_SIZE);
+        for (int value : values) {
+            arena.putInt(elementAddr, value);
+            elementAddr += ELEMENT_SIZE;
+        }
+
+        arena.putInt(vectorAddr + LENGTH_OFFSET, length + values.length);
+    }
+
+    public void truncate(int vectorAddr, int newLength) {
+        checkVectorPtr(vectorAddr);
+        int length = getLength(vectorAddr);
+        if (newLength < 0 || newLength > length) {
+            throw new IndexOutOfBoundsException(
+                "Cannot truncate vector of length " + length + " to " + newLength
+            );
+        }
+        arena.putInt(vectorAddr + LENGTH_OFFSET, newLength);
+    }
+
+    public void shrinkToFit(int vectorAddr) {
+        checkVectorPtr(vectorAddr);
+        int length = getLength(vectorAddr);
+        int capacity = getCapacity(vectorAddr);
+        if (length == capacity) {
+            return;
+        }
+
+        int dataPtr = getDataPtr(vectorAddr);
+        arena.abandon(dataPtr + (length * ELEMENT_SIZE), (capacity - length) * ELEMENT_SIZE);
+        if (length == 0) {
+            arena.putInt(vectorAddr + DATA_PTR_OFFSET, -1);
+        }
+        arena.putInt(vectorAddr + CAPACITY_OFFSET, length);
+    }
+
     private void grow(int vectorAddr) {
         int oldCapacity = getCapacity(vectorAddr);
-        int newCapacity = oldCapacity == 0 ? 1 : (int)(oldCapacity * GROWTH_FACTOR);
-        if (newCapacity == oldCapacity) {
+        resize(vectorAddr, nextCapacity(oldCapacity));
+    }
+
+    private int nextCapacity(int oldCapacity) {
+        int newCapacity;
+        switch (growthPolicy) {
+            case DOUBLE:
+                newCapacity = oldCapacity == 0 ? 1 : oldCapacity * 2;
+                break;
+            case CHUNK_LINEAR:
+                newCapacity = oldCapacity + chunkSize;
+                break;
+            default:
+                newCapacity = oldCapacity == 0 ? 1 : (int)(oldCapacity * GROWTH_FACTOR);
+                break;
+        }
+        if (newCapacity <= oldCapacity) {
             newCapacity = oldCapacity + 1;
         }
-        
+        return newCapacity;
+    }
+
+    private void resize(int vectorAddr, int newCapacity) {
+        int oldCapacity = getCapacity(vectorAddr);
         int oldDataPtr = getDataPtr(vectorAddr);
         int oldLength = getLength(vectorAddr);
-        
+
+        if (oldDataPtr != -1 && arena.extend(oldDataPtr, oldCapacity * ELEMENT_SIZE, (newCapacity - oldCapacity) * ELEMENT_SIZE)) {
+            arena.putInt(vectorAddr + CAPACITY_OFFSET, newCapacity);
+            return;
+        }
+
         int newDataPtr = arena.alloc(newCapacity * ELEMENT_SIZE);
-        
-        if (oldDataPtr != -1 && oldLength > 0) {
-            for (int i = 0; i < oldLength; i++) {
-                int oldElementAddr = oldDataPtr + (i * ELEMENT_SIZE);
-                int value = arena.getInt(oldElementAddr);
-                int newElementAddr = newDataPtr + (i * ELEMENT_SIZE);
-                arena.putInt(newElementAddr, value);
+
+        if (oldDataPtr != -1) {
+            if (oldLength > 0) {
+                arena.copy(oldDataPtr, newDataPtr, oldLength * ELEMENT_SIZE);
             }
+            arena.abandon(oldDataPtr, oldCapacity * ELEMENT_SIZE);
         }
-        
+
         arena.putInt(vectorAddr + CAPACITY_OFFSET, newCapacity);
         arena.putInt(vectorAddr + DATA_PTR_OFFSET, newDataPtr);
     }
@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+public class WriteAheadLog implements AutoCloseable {
+    public static final byte RECORD_PUT = 1;
+    public static final byte RECORD_REMOVE = 2;
+    public static final byte RECORD_CREATE = 3;
+    private static final int RECORD_SIZE = 17;
+    private static final int TYPE_OFFSET = 0;
+    private static final int TABLE_OFFSET = 1;
+    private static final int KEY_OFFSET = 5;
+    private static final int VALUE_OFFSET = 9;
+    private static final int CHECKSUM_OFFSET = 13;
+    private static final int DEFAULT_GROUP_RECORDS = 4096;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long maxCommitDelayNanos;
+    private final int groupRecords;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition groupReady = lock.newCondition();
+    private final Condition flushDone = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long appendedSeq = 0;
+    private long durableSeq = 0;
+    private boolean flushing = false;
+    private int arrivingWriters = 0;
+    private IOException failure;
+    private long syncCount = 0;
+    private long recordCount = 0;
+    private long skippedCount = 0;
+    private final Map<Integer, Integer> replayedTables = new HashMap<>();
+
+    public WriteAheadLog(Path path, long maxCommitDelay, TimeUnit unit) throws IOException {
+        this(path, maxCommitDelay, unit, DEFAULT_GROUP_RECORDS);
+    }
+
+    public WriteAheadLog(Path path, long maxCommitDelay, TimeUnit unit, int groupRecords) throws IOException {
+        if (maxCommitDelay < 0) {
+            throw new IllegalArgumentException("Commit delay cannot be negative: " + maxCommitDelay);
+        }
+        if (groupRecords <= 0) {
+            throw new IllegalArgumentException("Group size must be positive: " + groupRecords);
+        }
+        this.path = path;
+        this.maxCommitDelayNanos = unit.toNanos(maxCommitDelay);
+        this.groupRecords = groupRecords;
+        this.pending = ByteBuffer.allocate(groupRecords * RECORD_SIZE);
+        this.spare = ByteBuffer.allocate(groupRecords * RECORD_SIZE);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int createTable(HashTableStore store, int bucketCount) {
+        long seq;
+        int tableAddr;
+        arrive();
+        try {
+            synchronized (store) {
+                tableAddr = store.createHashTable(bucketCount);
+                seq = append(RECORD_CREATE, tableAddr, bucketCount, 0);
+            }
+        } finally {
+            depart();
+        }
+        awaitDurable(seq);
+        return tableAddr;
+    }
+
+    public void put(HashTableStore store, int tableAddr, int key, int value) {
+        long seq;
+        arrive();
+        try {
+            synchronized (store) {
+                store.put(tableAddr, key, value);
+                seq = append(RECORD_PUT, tableAddr, key, value);
+            }
+        } finally {
+            depart();
+        }
+        awaitDurable(seq);
+    }
+
+    public void putAll(HashTableStore store, int tableAddr, int[] keys, int[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("Keys and values must have the same length");
+        }
+        long seq = 0;
+        arrive();
+        try {
+            synchronized (store) {
+                for (int i = 0; i < keys.length; i++) {
+                    store.put(tableAddr, keys[i], values[i]);
+                    seq = append(RECORD_PUT, tableAddr, keys[i], values[i]);
+                }
+            }
+        } finally {
+            depart();
+        }
+        awaitDurable(seq);
+    }
+
+    public void remove(HashTableStore store, int tableAddr, int key) {
+        long seq;
+        arrive();
+        try {
+            synchronized (store) {
+                store.remove(tableAddr, key);
+                seq = append(RECORD_REMOVE, tableAddr, key, 0);
+            }
+        } finally {
+            depart();
+        }
+        awaitDurable(seq);
+    }
+
+    private void arrive() {
+        lock.lock();
+        try {
+            arrivingWriters++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void depart() {
+        lock.lock();
+        try {
+            if (--arrivingWriters == 0) {
+                groupReady.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long append(byte type, int tableAddr, int key, int value) {
+        lock.lock();
+        try {
+            checkFailure();
+            while (pending.remaining() < RECORD_SIZE) {
+                if (flushing) {
+                    groupReady.signal();
+                    flushDone.awaitUninterruptibly();
+                } else {
+                    flushing = true;
+                    flushGroup();
+                }
+                checkFailure();
+            }
+            int start = pending.position();
+            pending.put(type).putInt(tableAddr).putInt(key).putInt(value);
+            crc.reset();
+            crc.update(pending.array(), start, CHECKSUM_OFFSET);
+            pending.putInt((int) crc.getValue());
+            recordCount++;
+            if (pending.remaining() < RECORD_SIZE) {
+                groupReady.signal();
+            }
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkFailure();
+                if (flushing) {
+                    flushDone.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                long remaining = maxCommitDelayNanos;
+                while (remaining > 0 && arrivingWriters > 0 && pending.remaining() >= RECORD_SIZE) {
+                    try {
+                        remaining = groupReady.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                flushGroup();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushGroup() {
+        ByteBuffer batch = pending;
+        pending = spare;
+        long batchSeq = appendedSeq;
+        lock.unlock();
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        batch.clear();
+        spare = batch;
+        flushing = false;
+        if (error != null) {
+            failure = error;
+        } else {
+            durableSeq = batchSeq;
+            syncCount++;
+        }
+        flushDone.signalAll();
+    }
+
+    public void sync() {
+        long seq;
+        lock.lock();
+        try {
+            seq = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log failed: " + path, failure);
+        }
+    }
+
+    public int replay(HashTableStore store) throws IOException {
+        lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(groupRecords * RECORD_SIZE);
+            byte[] record = new byte[RECORD_SIZE];
+            long position = 0;
+            long validEnd = 0;
+            int replayed = 0;
+            int snapshotUsed = store.getArena().used();
+            replayedTables.clear();
+            skippedCount = 0;
+            boolean torn = false;
+            while (!torn) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    buffer.get(record);
+                    crc.reset();
+                    crc.update(record, 0, CHECKSUM_OFFSET);
+                    ByteBuffer view = ByteBuffer.wrap(record);
+                    if (view.getInt(CHECKSUM_OFFSET) != (int) crc.getValue()) {
+                        torn = true;
+                        break;
+                    }
+                    byte type = record[TYPE_OFFSET];
+                    int loggedTable = view.getInt(TABLE_OFFSET);
+                    int key = view.getInt(KEY_OFFSET);
+                    if (type != RECORD_PUT && type != RECORD_REMOVE && type != RECORD_CREATE) {
+                        torn = true;
+                        break;
+                    }
+                    validEnd += RECORD_SIZE;
+                    if (type == RECORD_CREATE) {
+                        replayedTables.put(loggedTable, store.createHashTable(key));
+                        replayed++;
+                        continue;
+                    }
+                    Integer tableAddr = replayedTables.get(loggedTable);
+                    if (tableAddr == null) {
+                        if (loggedTable < 0 || loggedTable >= snapshotUsed) {
+                            skippedCount++;
+                            continue;
+                        }
+                        tableAddr = loggedTable;
+                    }
+                    if (type == RECORD_PUT) {
+                        store.put(tableAddr, key, view.getInt(VALUE_OFFSET));
+                    } else {
+                        store.remove(tableAddr, key);
+                    }
+                    replayed++;
+                }
+                if (read < buffer.capacity() && !torn && buffer.hasRemaining()) {
+                    break;
+                }
+                position = validEnd;
+            }
+            if (validEnd < channel.size()) {
+                channel.truncate(validEnd);
+                channel.force(false);
+            }
+            channel.position(validEnd);
+            return replayed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void checkpoint(HashTableStore store, ArenaImage image, Path snapshotPath) throws IOException {
+        synchronized (store) {
+            sync();
+            Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            image.write(temp, true);
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lock.lock();
+            try {
+                checkFailure();
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int getReplayedTable(int loggedTableAddr) {
+        lock.lock();
+        try {
+            return replayedTables.getOrDefault(loggedTableAddr, loggedTableAddr);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSkippedRecordCount() {
+        return skippedCount;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    public double getAverageGroupSize() {
+        return syncCount == 0 ? 0.0 : (double) recordCount / syncCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    public void printStats() {
+        System.out.println("WAL " + path.getFileName() + ": " + recordCount + " records, " + syncCount + " fsyncs, "
+            + String.format("%.1f", getAverageGroupSize()) + " records per group commit");
+    }
+}